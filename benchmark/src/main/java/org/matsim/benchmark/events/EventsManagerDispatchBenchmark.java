@@ -0,0 +1,128 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2020 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.benchmark.events;
+
+import java.util.concurrent.TimeUnit;
+
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.events.Event;
+import org.matsim.api.core.v01.events.LinkEnterEvent;
+import org.matsim.api.core.v01.events.handler.LinkEnterEventHandler;
+import org.matsim.core.events.EventsManagerImpl;
+import org.matsim.core.events.EventsManagerImpl.HandlerCallMode;
+import org.matsim.core.events.handler.EventHandler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares the cost of dispatching events in {@link EventsManagerImpl} with reflective and with generated
+ * handler calls. The custom event is not covered by the hard-coded fast path in EventsManagerImpl, the
+ * {@link LinkEnterEvent} is and serves as reference.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class EventsManagerDispatchBenchmark {
+
+	@Param({"reflective", "generated"})
+	public String handlerCallMode;
+
+	private EventsManagerImpl events;
+	private CustomEvent customEvent;
+	private LinkEnterEvent linkEnterEvent;
+
+	@Setup
+	public void setup() {
+		this.events = new EventsManagerImpl(HandlerCallMode.valueOf(this.handlerCallMode));
+		// register a few handlers so the dispatch loop has some work to do per event
+		for (int i = 0; i < 4; i++) {
+			this.events.addHandler(new CountingHandler());
+		}
+		this.customEvent = new CustomEvent(3600.0);
+		this.linkEnterEvent = new LinkEnterEvent(3600.0, Id.createVehicleId("v1"), Id.createLinkId("l1"));
+	}
+
+	@Benchmark
+	public void customEvent(Blackhole bh) {
+		this.events.processEvent(this.customEvent);
+		bh.consume(this.customEvent);
+	}
+
+	@Benchmark
+	public void linkEnterEvent(Blackhole bh) {
+		this.events.processEvent(this.linkEnterEvent);
+		bh.consume(this.linkEnterEvent);
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		Options opt = new OptionsBuilder()
+				.include(EventsManagerDispatchBenchmark.class.getSimpleName())
+				.build();
+		new Runner(opt).run();
+	}
+
+	public static class CustomEvent extends Event {
+		public CustomEvent(final double time) {
+			super(time);
+		}
+		@Override
+		public String getEventType() {
+			return "customBenchmarkEvent";
+		}
+	}
+
+	public interface CustomEventHandler extends EventHandler {
+		void handleEvent(CustomEvent event);
+	}
+
+	public static class CountingHandler implements CustomEventHandler, LinkEnterEventHandler {
+		long counter = 0;
+		@Override
+		public void handleEvent(final CustomEvent event) {
+			this.counter++;
+		}
+		@Override
+		public void handleEvent(final LinkEnterEvent event) {
+			this.counter++;
+		}
+		@Override
+		public void reset(final int iteration) {
+			this.counter = 0;
+		}
+	}
+
+}
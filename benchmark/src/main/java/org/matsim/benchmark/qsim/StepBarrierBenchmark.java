@@ -0,0 +1,116 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2020 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.benchmark.qsim;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.matsim.core.config.groups.QSimConfigGroup.RunnerBarrier;
+import org.matsim.core.mobsim.qsim.qnetsimengine.StepBarrier;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Measures the cost of one round through a {@link StepBarrier}, i.e. the synchronization overhead the QNetsimEngine
+ * has per sim step and barrier, depending on the number of runner threads. The runner threads do no work between two
+ * rounds, so the result is the pure latency of the barrier.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class StepBarrierBenchmark {
+
+	@Param({"phaser", "spinThenPark"})
+	public String barrierType;
+
+	@Param({"1", "2", "4", "8", "16", "32", "64"})
+	public int numberOfThreads;
+
+	private StepBarrier barrier;
+	private long rounds;
+	private volatile long lastRound;
+	private final List<Thread> threads = new ArrayList<>();
+
+	@Setup
+	public void setup() {
+		// the benchmark thread takes the role of the QNetsimEngine, i.e. it is one additional party
+		this.barrier = StepBarrier.create(RunnerBarrier.valueOf(this.barrierType), this.numberOfThreads + 1);
+		this.rounds = 0;
+		this.lastRound = Long.MAX_VALUE;
+		for (int i = 0; i < this.numberOfThreads; i++) {
+			Thread thread = new Thread(() -> {
+				long round = 0;
+				do {
+					this.barrier.arriveAndAwaitAdvance();
+					round++;
+				} while (round < this.lastRound);
+			}, "runner_" + i);
+			thread.setDaemon(true);
+			thread.start();
+			this.threads.add(thread);
+		}
+	}
+
+	@TearDown
+	public void tearDown() throws InterruptedException {
+		/*
+		 * The runners may or may not have seen the new value before the last round, but
+		 * they all take part in it and stop afterwards.
+		 */
+		this.lastRound = this.rounds + 1;
+		this.barrier.arriveAndAwaitAdvance();
+		for (Thread thread : this.threads) {
+			thread.join();
+		}
+		this.threads.clear();
+	}
+
+	@Benchmark
+	public void barrierRound() {
+		this.barrier.arriveAndAwaitAdvance();
+		this.rounds++;
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		Options opt = new OptionsBuilder()
+				.include(StepBarrierBenchmark.class.getSimpleName())
+				.build();
+		new Runner(opt).run();
+	}
+
+}
@@ -20,7 +20,10 @@ package org.matsim.contrib.drt.optimizer;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
+import org.matsim.api.core.v01.Id;
 import org.matsim.contrib.drt.optimizer.VehicleData.Entry;
 import org.matsim.contrib.drt.optimizer.VehicleData.EntryFactory;
 import org.matsim.contrib.drt.optimizer.VehicleData.Stop;
@@ -42,8 +45,21 @@ import com.google.common.collect.ImmutableList;
  * @author michalm
  */
 public class VehicleDataEntryFactoryImpl implements EntryFactory {
+	private static class CachedEntry {
+		private final int modificationCount;
+		private final Entry entry;
+
+		private CachedEntry(int modificationCount, Entry entry) {
+			this.modificationCount = modificationCount;
+			this.entry = entry;
+		}
+	}
+
 	private final double lookAhead;
 
+	// entries are recreated only for vehicles whose schedules have been modified since the previous call
+	private final Map<Id<DvrpVehicle>, CachedEntry> cachedEntries = new ConcurrentHashMap<>();
+
 	public VehicleDataEntryFactoryImpl(DrtConfigGroup drtCfg) {
 		lookAhead = drtCfg.getMaxWaitTime() - drtCfg.getStopDuration();
 		if (lookAhead < 0) {
@@ -58,42 +74,29 @@ public class VehicleDataEntryFactoryImpl implements EntryFactory {
 		}
 
 		Schedule schedule = vehicle.getSchedule();
-		@SuppressWarnings("unchecked")
-		List<DrtTask> tasks = (List<DrtTask>)schedule.getTasks();
-
-		LinkTimePair start;
-		int nextTaskIdx;
-		if (schedule.getStatus() == ScheduleStatus.STARTED) {
-			DrtTask currentTask = (DrtTask)schedule.getCurrentTask();
-			switch (currentTask.getDrtTaskType()) {
-				case DRIVE:
-					DrtDriveTask driveTask = (DrtDriveTask)currentTask;
-					start = ((OnlineDriveTaskTracker)driveTask.getTaskTracker()).getDiversionPoint();
-					if (start == null) { // too late to divert a vehicle
-						start = new LinkTimePair(driveTask.getPath().getToLink(), driveTask.getEndTime());
-					}
-					break;
-
-				case STOP:
-					DrtStopTask stopTask = (DrtStopTask)currentTask;
-					start = new LinkTimePair(stopTask.getLink(), stopTask.getEndTime());
-					break;
-
-				case STAY:
-					DrtStayTask stayTask = (DrtStayTask)currentTask;
-					start = new LinkTimePair(stayTask.getLink(), currentTime);
-					break;
-
-				default:
-					throw new RuntimeException();
+		int modificationCount = schedule.getModificationCount();
+		CachedEntry cachedEntry = cachedEntries.get(vehicle.getId());
+		if (cachedEntry != null && cachedEntry.entry.vehicle == vehicle
+				&& cachedEntry.modificationCount == modificationCount) {
+			// the schedule has not changed since the entry was created, so only the start may have moved
+			// (diversion point of the current drive task or the current time if the vehicle is staying)
+			Entry entry = cachedEntry.entry;
+			LinkTimePair start = calcStart(vehicle, currentTime);
+			if (start.link == entry.start.link && start.time == entry.start.time) {
+				return entry;
 			}
-
-			nextTaskIdx = currentTask.getTaskIdx() + 1;
-		} else { // PLANNED
-			start = new LinkTimePair(vehicle.getStartLink(), vehicle.getServiceBeginTime());
-			nextTaskIdx = 0;
+			entry = new Entry(vehicle, start, entry.startOccupancy, entry.stops);
+			cachedEntries.put(vehicle.getId(), new CachedEntry(modificationCount, entry));
+			return entry;
 		}
 
+		@SuppressWarnings("unchecked")
+		List<DrtTask> tasks = (List<DrtTask>)schedule.getTasks();
+		LinkTimePair start = calcStart(vehicle, currentTime);
+		int nextTaskIdx = schedule.getStatus() == ScheduleStatus.STARTED ?
+				schedule.getCurrentTask().getTaskIdx() + 1 :
+				0;
+
 		List<DrtStopTask> stopTasks = new ArrayList<>();
 		for (DrtTask task : tasks.subList(nextTaskIdx, tasks.size())) {
 			if (task.getDrtTaskType() == DrtTaskType.STOP) {
@@ -108,7 +111,36 @@ public class VehicleDataEntryFactoryImpl implements EntryFactory {
 			outputOccupancy -= s.occupancyChange;
 		}
 
-		return new Entry(vehicle, start, outputOccupancy, ImmutableList.copyOf(stops));
+		Entry entry = new Entry(vehicle, start, outputOccupancy, ImmutableList.copyOf(stops));
+		cachedEntries.put(vehicle.getId(), new CachedEntry(modificationCount, entry));
+		return entry;
+	}
+
+	private LinkTimePair calcStart(DvrpVehicle vehicle, double currentTime) {
+		Schedule schedule = vehicle.getSchedule();
+		if (schedule.getStatus() != ScheduleStatus.STARTED) { // PLANNED
+			return new LinkTimePair(vehicle.getStartLink(), vehicle.getServiceBeginTime());
+		}
+
+		DrtTask currentTask = (DrtTask)schedule.getCurrentTask();
+		switch (currentTask.getDrtTaskType()) {
+			case DRIVE:
+				DrtDriveTask driveTask = (DrtDriveTask)currentTask;
+				LinkTimePair diversionPoint = ((OnlineDriveTaskTracker)driveTask.getTaskTracker()).getDiversionPoint();
+				return diversionPoint != null ? diversionPoint : // diversion possible
+						new LinkTimePair(driveTask.getPath().getToLink(), driveTask.getEndTime());// too late to divert
+
+			case STOP:
+				DrtStopTask stopTask = (DrtStopTask)currentTask;
+				return new LinkTimePair(stopTask.getLink(), stopTask.getEndTime());
+
+			case STAY:
+				DrtStayTask stayTask = (DrtStayTask)currentTask;
+				return new LinkTimePair(stayTask.getLink(), currentTime);
+
+			default:
+				throw new RuntimeException();
+		}
 	}
 
 	public boolean isEligibleForRequestInsertion(DvrpVehicle vehicle, double currentTime) {
@@ -25,6 +25,7 @@ import java.util.Optional;
 import java.util.concurrent.ForkJoinPool;
 
 import org.apache.log4j.Logger;
+import org.matsim.api.core.v01.network.Network;
 import org.matsim.contrib.drt.optimizer.VehicleData;
 import org.matsim.contrib.drt.optimizer.insertion.SingleVehicleInsertionProblem.BestInsertion;
 import org.matsim.contrib.drt.passenger.DrtRequest;
@@ -56,8 +57,8 @@ public class DefaultUnplannedRequestInserter implements UnplannedRequestInserter
 	private final ForkJoinPool forkJoinPool;
 	private final ParallelMultiVehicleInsertionProblem insertionProblem;
 
-	public DefaultUnplannedRequestInserter(DrtConfigGroup drtCfg, Fleet fleet, MobsimTimer mobsimTimer,
-			EventsManager eventsManager, RequestInsertionScheduler insertionScheduler,
+	public DefaultUnplannedRequestInserter(DrtConfigGroup drtCfg, Network network, Fleet fleet,
+			MobsimTimer mobsimTimer, EventsManager eventsManager, RequestInsertionScheduler insertionScheduler,
 			VehicleData.EntryFactory vehicleDataEntryFactory, PrecalculablePathDataProvider pathDataProvider,
 			InsertionCostCalculator.PenaltyCalculator penaltyCalculator) {
 		this.drtCfg = drtCfg;
@@ -68,8 +69,8 @@ public class DefaultUnplannedRequestInserter implements UnplannedRequestInserter
 		this.vehicleDataEntryFactory = vehicleDataEntryFactory;
 
 		forkJoinPool = new ForkJoinPool(drtCfg.getNumberOfThreads());
-		insertionProblem = new ParallelMultiVehicleInsertionProblem(pathDataProvider, drtCfg, mobsimTimer, forkJoinPool,
-				penaltyCalculator);
+		insertionProblem = new ParallelMultiVehicleInsertionProblem(network, pathDataProvider, drtCfg, mobsimTimer,
+				forkJoinPool, penaltyCalculator);
 		insertionScheduler.initSchedules();
 	}
 
@@ -44,13 +44,17 @@ class DetourLinksProvider {
 		final Map<Id<Link>, Link> pickupDetourEndLinks;
 		final Map<Id<Link>, Link> dropoffDetourStartLinks;
 		final Map<Id<Link>, Link> dropoffDetourEndLinks;
+		// paths to pickup that are longer make all insertions infeasible (infinity if there is no such bound)
+		final double maxTravelTimeToPickup;
 
 		public DetourLinksSet(Map<Id<Link>, Link> linksToPickup, Map<Id<Link>, Link> linksFromPickup,
-				Map<Id<Link>, Link> linksToDropoff, Map<Id<Link>, Link> linksFromDropoff) {
+				Map<Id<Link>, Link> linksToDropoff, Map<Id<Link>, Link> linksFromDropoff,
+				double maxTravelTimeToPickup) {
 			this.pickupDetourStartLinks = linksToPickup;
 			this.pickupDetourEndLinks = linksFromPickup;
 			this.dropoffDetourStartLinks = linksToDropoff;
 			this.dropoffDetourEndLinks = linksFromDropoff;
+			this.maxTravelTimeToPickup = maxTravelTimeToPickup;
 		}
 	}
 
@@ -63,6 +67,8 @@ class DetourLinksProvider {
 	private static final int NEAREST_INSERTIONS_AT_END_LIMIT = 40;
 
 	private final DrtRequest drtRequest;
+	private final double stopDuration;
+	private final boolean maxWaitTimeViolationRejected;
 
 	private final InsertionGenerator insertionGenerator = new InsertionGenerator();
 	private final SingleVehicleInsertionFilter insertionFilter;
@@ -92,6 +98,8 @@ class DetourLinksProvider {
 	public DetourLinksProvider(DrtConfigGroup drtCfg, MobsimTimer timer, DrtRequest drtRequest,
 			InsertionCostCalculator.PenaltyCalculator penaltyCalculator) {
 		this.drtRequest = drtRequest;
+		this.stopDuration = drtCfg.getStopDuration();
+		this.maxWaitTimeViolationRejected = isMaxWaitTimeViolationRejected(penaltyCalculator);
 
 		// initial capacities of concurrent maps according to insertion stats for AT Berlin 10pct
 		// in general, for larger fleets they should be slightly higher than for smaller fleets,
@@ -113,7 +121,21 @@ class DetourLinksProvider {
 	void findInsertionsAndLinks(ForkJoinPool forkJoinPool, Collection<Entry> vEntries) {
 		forkJoinPool.submit(() -> vEntries.parallelStream().forEach(this::addDetourLinks)).join();
 		processNearestInsertionsAtEnd();
-		detourLinksSet = new DetourLinksSet(linksToPickup, linksFromPickup, linksToDropoff, linksFromDropoff);
+		detourLinksSet = new DetourLinksSet(linksToPickup, linksFromPickup, linksToDropoff, linksFromDropoff,
+				calcMaxTravelTimeToPickup(vEntries));
+	}
+
+	static boolean isMaxWaitTimeViolationRejected(InsertionCostCalculator.PenaltyCalculator penaltyCalculator) {
+		return penaltyCalculator.calcPenalty(1, 0) >= InsertionCostCalculator.INFEASIBLE_SOLUTION_COST;
+	}
+
+	// no vehicle departs to the pickup before the earliest start, so longer paths violate the max wait time
+	private double calcMaxTravelTimeToPickup(Collection<Entry> vEntries) {
+		if (!maxWaitTimeViolationRejected || vEntries.isEmpty()) {
+			return Double.POSITIVE_INFINITY;
+		}
+		double earliestDepartureTime = vEntries.stream().mapToDouble(e -> e.start.time).min().getAsDouble();
+		return drtRequest.getLatestStartTime() - stopDuration - earliestDepartureTime;
 	}
 
 	/**
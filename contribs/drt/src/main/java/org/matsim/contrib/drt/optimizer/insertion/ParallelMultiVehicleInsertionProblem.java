@@ -25,10 +25,15 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
 
 import org.apache.commons.math3.stat.descriptive.SummaryStatistics;
 import org.apache.log4j.Logger;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.Node;
 import org.matsim.contrib.drt.optimizer.VehicleData.Entry;
+import org.matsim.contrib.drt.optimizer.VehicleData.Stop;
 import org.matsim.contrib.drt.optimizer.insertion.DetourLinksProvider.DetourLinksSet;
 import org.matsim.contrib.drt.optimizer.insertion.InsertionGenerator.Insertion;
 import org.matsim.contrib.drt.optimizer.insertion.SingleVehicleInsertionProblem.BestInsertion;
@@ -47,19 +52,33 @@ public class ParallelMultiVehicleInsertionProblem implements MultiVehicleInserti
 	private final InsertionCostCalculator insertionCostCalculator;
 	private final ForkJoinPool forkJoinPool;
 	private final DetourLinksStats detourLinksStats = new DetourLinksStats();
+	private final ReachabilityIndex reachabilityIndex;// null if vehicles are not pre-filtered
 
-	public ParallelMultiVehicleInsertionProblem(PrecalculablePathDataProvider pathDataProvider, DrtConfigGroup drtCfg,
-			MobsimTimer timer, ForkJoinPool forkJoinPool, InsertionCostCalculator.PenaltyCalculator penaltyCalculator) {
+	public ParallelMultiVehicleInsertionProblem(Network network, PrecalculablePathDataProvider pathDataProvider,
+			DrtConfigGroup drtCfg, MobsimTimer timer, ForkJoinPool forkJoinPool,
+			InsertionCostCalculator.PenaltyCalculator penaltyCalculator) {
 		this.pathDataProvider = pathDataProvider;
 		this.drtCfg = drtCfg;
 		this.timer = timer;
 		this.forkJoinPool = forkJoinPool;
 		insertionCostCalculator = new InsertionCostCalculator(drtCfg, timer, penaltyCalculator);
 		this.penaltyCalculator = penaltyCalculator;
+
+		// only if vehicles that arrive too late are never used, they can be discarded in advance
+		reachabilityIndex = drtCfg.getReachabilityGridCellSize() > 0
+				&& DetourLinksProvider.isMaxWaitTimeViolationRejected(penaltyCalculator) ?
+				ReachabilityIndex.getOrCreate(network, drtCfg.getReachabilityGridCellSize(), forkJoinPool) :
+				null;
 	}
 
 	@Override
-	public Optional<BestInsertion> findBestInsertion(DrtRequest drtRequest, Collection<Entry> vEntries) {
+	public Optional<BestInsertion> findBestInsertion(DrtRequest drtRequest, Collection<Entry> allVEntries) {
+		Collection<Entry> vEntries = reachabilityIndex == null ? allVEntries :
+				forkJoinPool.submit(() -> allVEntries.parallelStream()
+						.filter(e -> canReachPickupInTime(drtRequest, e))
+						.collect(Collectors.toList())).join();
+		detourLinksStats.updatePrefilterStats(allVEntries.size(), vEntries.size());
+
 		DetourLinksProvider detourLinksProvider = new DetourLinksProvider(drtCfg, timer, drtRequest, penaltyCalculator);
 		detourLinksProvider.findInsertionsAndLinks(forkJoinPool, vEntries);
 
@@ -80,6 +99,36 @@ public class ParallelMultiVehicleInsertionProblem implements MultiVehicleInserti
 				.min(Comparator.comparing(i -> i.cost))).join();
 	}
 
+	/**
+	 * The pickup can be inserted after the vehicle start or after any of its stops. If the lower bound of the travel
+	 * time from each of these locations to the pickup is too long, no insertion meets the max wait time.
+	 */
+	private boolean canReachPickupInTime(DrtRequest drtRequest, Entry vEntry) {
+		double latestDepartureTime = drtRequest.getLatestStartTime() - drtCfg.getStopDuration();
+		if (canReachPickupInTime(drtRequest.getFromLink(), vEntry.start.link, vEntry.start.time,
+				latestDepartureTime)) {
+			return true;
+		}
+		for (Stop s : vEntry.stops) {
+			if (canReachPickupInTime(drtRequest.getFromLink(), s.task.getLink(), s.task.getEndTime(),
+					latestDepartureTime)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private boolean canReachPickupInTime(Link pickupLink, Link fromLink, double departureTime,
+			double latestDepartureTime) {
+		if (fromLink == pickupLink) {
+			return departureTime <= latestDepartureTime;
+		}
+		// vehicles leave fromLink at its to node and enter the pickup link at its from node
+		Node fromNode = fromLink.getToNode();
+		Node toNode = pickupLink.getFromNode();
+		return departureTime + reachabilityIndex.getTravelTimeLowerBound(fromNode, toNode) <= latestDepartureTime;
+	}
+
 	public void shutdown() {
 		forkJoinPool.shutdown();
 		detourLinksStats.printStats();
@@ -96,6 +145,13 @@ public class ParallelMultiVehicleInsertionProblem implements MultiVehicleInserti
 		private final SummaryStatistics insertionStats = new SummaryStatistics();
 		private final SummaryStatistics insertionAtEndStats = new SummaryStatistics();
 		private final SummaryStatistics insertionAtEndWhenNoStopsStats = new SummaryStatistics();
+		private long allVEntriesCount = 0;
+		private long prefilteredVEntriesCount = 0;
+
+		private synchronized void updatePrefilterStats(int allVEntriesCount, int prefilteredVEntriesCount) {
+			this.allVEntriesCount += allVEntriesCount;
+			this.prefilteredVEntriesCount += prefilteredVEntriesCount;
+		}
 
 		private void updateStats(Collection<Entry> vEntries, DetourLinksProvider detourLinksProvider) {
 			addSet(detourLinksProvider.getDetourLinksSet(), vEntries.size());
@@ -135,6 +191,15 @@ public class ParallelMultiVehicleInsertionProblem implements MultiVehicleInserti
 		}
 
 		private void printStats() {
+			if (allVEntriesCount > 0) {
+				log.info("Reachability pre-filter discarded "
+						+ (allVEntriesCount - prefilteredVEntriesCount)
+						+ " of "
+						+ allVEntriesCount
+						+ " vehicle entries ("
+						+ String.format("%.1f", 100. * (allVEntriesCount - prefilteredVEntriesCount) / allVEntriesCount)
+						+ "%)");
+			}
 			log.debug("toPickupStats:\n" + toPickupStats);
 			log.debug("fromPickupStats:\n" + fromPickupStats);
 			log.debug("toDropoffStats:\n" + toDropoffStats);
@@ -18,7 +18,9 @@
 
 package org.matsim.contrib.drt.optimizer.insertion;
 
-import java.util.Map;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -26,14 +28,14 @@ import java.util.concurrent.Future;
 
 import javax.inject.Named;
 
-import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.IdMap;
 import org.matsim.api.core.v01.network.Link;
 import org.matsim.api.core.v01.network.Network;
 import org.matsim.contrib.drt.optimizer.VehicleData.Entry;
 import org.matsim.contrib.drt.optimizer.insertion.DetourLinksProvider.DetourLinksSet;
 import org.matsim.contrib.drt.passenger.DrtRequest;
 import org.matsim.contrib.drt.run.DrtConfigGroup;
-import org.matsim.contrib.dvrp.path.OneToManyPathSearch;
+import org.matsim.contrib.dvrp.path.ManyToManyPathSearch;
 import org.matsim.contrib.dvrp.path.OneToManyPathSearch.PathData;
 import org.matsim.contrib.dvrp.trafficmonitoring.DvrpTravelTimeModule;
 import org.matsim.core.mobsim.framework.events.MobsimBeforeCleanupEvent;
@@ -42,32 +44,41 @@ import org.matsim.core.router.util.TravelDisutility;
 import org.matsim.core.router.util.TravelTime;
 
 /**
+ * Paths to and from the pickup and dropoff are calculated in four independent searches that run in parallel. Each
+ * uses its own {@link ManyToManyPathSearch} with a single source, so the array-indexed labels of the searches are
+ * re-used for all requests.
+ *
  * @author michalm
  */
 public class ParallelPathDataProvider implements PrecalculablePathDataProvider, MobsimBeforeCleanupListener {
 	public static final int MAX_THREADS = 4;
 
-	private final OneToManyPathSearch toPickupPathSearch;
-	private final OneToManyPathSearch fromPickupPathSearch;
-	private final OneToManyPathSearch toDropoffPathSearch;
-	private final OneToManyPathSearch fromDropoffPathSearch;
+	private final ManyToManyPathSearch toPickupPathSearch;
+	private final ManyToManyPathSearch fromPickupPathSearch;
+	private final ManyToManyPathSearch toDropoffPathSearch;
+	private final ManyToManyPathSearch fromDropoffPathSearch;
 
 	private final double stopDuration;
 
 	private final ExecutorService executorService;
 
 	// ==== recalculated by precalculatePathData()
-	private Map<Id<Link>, PathData> pathsToPickupMap;
-	private Map<Id<Link>, PathData> pathsFromPickupMap;
-	private Map<Id<Link>, PathData> pathsToDropoffMap;
-	private Map<Id<Link>, PathData> pathsFromDropoffMap;
+	// array-based maps, re-used for all requests (only the entries of the previous request are removed)
+	private final IdMap<Link, PathData> pathsToPickupMap = new IdMap<>(Link.class);
+	private final IdMap<Link, PathData> pathsFromPickupMap = new IdMap<>(Link.class);
+	private final IdMap<Link, PathData> pathsToDropoffMap = new IdMap<>(Link.class);
+	private final IdMap<Link, PathData> pathsFromDropoffMap = new IdMap<>(Link.class);
+	private List<Link> pathsToPickupLinks = Collections.emptyList();
+	private List<Link> pathsFromPickupLinks = Collections.emptyList();
+	private List<Link> pathsToDropoffLinks = Collections.emptyList();
+	private List<Link> pathsFromDropoffLinks = Collections.emptyList();
 
 	public ParallelPathDataProvider(Network network, @Named(DvrpTravelTimeModule.DVRP_ESTIMATED) TravelTime travelTime,
 			TravelDisutility travelDisutility, DrtConfigGroup drtCfg) {
-		toPickupPathSearch = OneToManyPathSearch.createBackwardSearch(network, travelTime, travelDisutility);
-		fromPickupPathSearch = OneToManyPathSearch.createForwardSearch(network, travelTime, travelDisutility);
-		toDropoffPathSearch = OneToManyPathSearch.createBackwardSearch(network, travelTime, travelDisutility);
-		fromDropoffPathSearch = OneToManyPathSearch.createForwardSearch(network, travelTime, travelDisutility);
+		toPickupPathSearch = ManyToManyPathSearch.createBackwardSearch(network, travelTime, travelDisutility);
+		fromPickupPathSearch = ManyToManyPathSearch.createForwardSearch(network, travelTime, travelDisutility);
+		toDropoffPathSearch = ManyToManyPathSearch.createBackwardSearch(network, travelTime, travelDisutility);
+		fromDropoffPathSearch = ManyToManyPathSearch.createForwardSearch(network, travelTime, travelDisutility);
 		stopDuration = drtCfg.getStopDuration();
 		executorService = Executors.newFixedThreadPool(Math.min(drtCfg.getNumberOfThreads(), MAX_THREADS));
 	}
@@ -81,48 +92,76 @@ public class ParallelPathDataProvider implements PrecalculablePathDataProvider,
 		double minTravelTime = 15 * 60; // FIXME inaccurate temp solution: fixed 15 min
 		double earliestDropoffTime = earliestPickupTime + minTravelTime + stopDuration;
 
+		List<Link> pickupDetourStartLinks = new ArrayList<>(detourLinksSet.pickupDetourStartLinks.values());
+		List<Link> dropoffDetourStartLinks = new ArrayList<>(detourLinksSet.dropoffDetourStartLinks.values());
+		List<Link> pickupDetourEndLinks = new ArrayList<>(detourLinksSet.pickupDetourEndLinks.values());
+		List<Link> dropoffDetourEndLinks = new ArrayList<>(detourLinksSet.dropoffDetourEndLinks.values());
+
 		// with vehicle insertion filtering -- pathsToPickup is the most computationally demanding task, while
 		// pathsFromDropoff is the least demanding one
 
 		// highest computation time (approx. 45% total CPU time)
-		Future<Map<Id<Link>, PathData>> pathsToPickupFuture = executorService.submit(() -> {
-			// calc backward dijkstra from pickup to ends of selected stops + starts
-			return toPickupPathSearch.calcPathDataMap(pickup, detourLinksSet.pickupDetourStartLinks.values(),
-					earliestPickupTime);
+		Future<PathData[]> pathsToPickupFuture = executorService.submit(() -> {
+			// calc backward dijkstra from pickup to ends of selected stops + starts (stopped when the max wait time
+			// cannot be met anymore)
+			return calcPathData(toPickupPathSearch, pickup, pickupDetourStartLinks, earliestPickupTime,
+					detourLinksSet.maxTravelTimeToPickup);
 		});
 
 		// medium computation time (approx. 25% total CPU time)
-		Future<Map<Id<Link>, PathData>> pathsFromPickupFuture = executorService.submit(() -> {
+		Future<PathData[]> pathsFromPickupFuture = executorService.submit(() -> {
 			// calc forward dijkstra from pickup to beginnings of selected stops + dropoff
-			return fromPickupPathSearch.calcPathDataMap(pickup, detourLinksSet.pickupDetourEndLinks.values(),
-					earliestPickupTime);
+			return calcPathData(fromPickupPathSearch, pickup, pickupDetourEndLinks, earliestPickupTime,
+					Double.POSITIVE_INFINITY);
 		});
 
 		// medium computation time (approx. 25% total CPU time)
-		Future<Map<Id<Link>, PathData>> pathsToDropoffFuture = executorService.submit(() -> {
+		Future<PathData[]> pathsToDropoffFuture = executorService.submit(() -> {
 			// calc backward dijkstra from dropoff to ends of selected stops
-			return toDropoffPathSearch.calcPathDataMap(dropoff, detourLinksSet.dropoffDetourStartLinks.values(),
-					earliestDropoffTime);
+			return calcPathData(toDropoffPathSearch, dropoff, dropoffDetourStartLinks, earliestDropoffTime,
+					Double.POSITIVE_INFINITY);
 		});
 
 		// lowest computation time (approx. 5% total CPU time)
-		Future<Map<Id<Link>, PathData>> pathsFromDropoffFuture = executorService.submit(() -> {
+		Future<PathData[]> pathsFromDropoffFuture = executorService.submit(() -> {
 			// calc forward dijkstra from dropoff to beginnings of selected stops
-			return fromDropoffPathSearch.calcPathDataMap(dropoff, detourLinksSet.dropoffDetourEndLinks.values(),
-					earliestDropoffTime);
+			return calcPathData(fromDropoffPathSearch, dropoff, dropoffDetourEndLinks, earliestDropoffTime,
+					Double.POSITIVE_INFINITY);
 		});
 
 		try {
 			// start from earliest (fastest) to latest (slowest)
-			pathsFromDropoffMap = pathsFromDropoffFuture.get();
-			pathsToDropoffMap = pathsToDropoffFuture.get();
-			pathsFromPickupMap = pathsFromPickupFuture.get();
-			pathsToPickupMap = pathsToPickupFuture.get();
+			pathsFromDropoffLinks = replacePathData(pathsFromDropoffMap, pathsFromDropoffLinks,
+					dropoffDetourEndLinks, pathsFromDropoffFuture.get());
+			pathsToDropoffLinks = replacePathData(pathsToDropoffMap, pathsToDropoffLinks, dropoffDetourStartLinks,
+					pathsToDropoffFuture.get());
+			pathsFromPickupLinks = replacePathData(pathsFromPickupMap, pathsFromPickupLinks, pickupDetourEndLinks,
+					pathsFromPickupFuture.get());
+			pathsToPickupLinks = replacePathData(pathsToPickupMap, pathsToPickupLinks, pickupDetourStartLinks,
+					pathsToPickupFuture.get());
 		} catch (InterruptedException | ExecutionException e) {
 			throw new RuntimeException(e);
 		}
 	}
 
+	private static PathData[] calcPathData(ManyToManyPathSearch pathSearch, Link fromLink, List<Link> toLinks,
+			double startTime, double maxTravelTime) {
+		return pathSearch.calcPathDataMatrix(Collections.singletonList(fromLink),
+				Collections.singletonList(toLinks), new double[] { startTime }, new double[] { maxTravelTime })[0];
+	}
+
+	private static List<Link> replacePathData(IdMap<Link, PathData> pathDataMap, List<Link> oldLinks,
+			List<Link> links, PathData[] pathData) {
+		// clearing the whole map would take time proportional to the network size
+		for (Link link : oldLinks) {
+			pathDataMap.remove(link.getId());
+		}
+		for (int i = 0; i < pathData.length; i++) {
+			pathDataMap.put(links.get(i).getId(), pathData[i]);
+		}
+		return links;
+	}
+
 	@Override
 	public PathDataSet getPathDataSet(DrtRequest drtRequest, Entry vEntry) {
 		return PrecalculablePathDataProvider.getPathDataSet(drtRequest, vEntry, pathsToPickupMap, pathsFromPickupMap,
@@ -0,0 +1,240 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2020 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.contrib.drt.optimizer.insertion;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+import org.apache.log4j.Logger;
+import org.matsim.api.core.v01.IdIntMap;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.Node;
+
+/**
+ * Lower bounds of the free-flow travel times between network nodes. The nodes are grouped into the cells of a square
+ * grid, and for each pair of cells the shortest free-flow travel time from any node of the first cell to any node of
+ * the second cell is stored. Since link travel times are never shorter than the free-flow ones, these values bound
+ * the travel times of all paths between the cells from below.
+ * <p>
+ * The bounds depend only on the network, so they are calculated once per network and cell size (using one Dijkstra
+ * search per cell) and shared by all QSim iterations. Their memory grows with the square of the number of cells, which
+ * is therefore limited to {@link #MAX_CELL_COUNT}; larger networks need larger cells.
+ */
+public class ReachabilityIndex {
+	private static final Logger log = Logger.getLogger(ReachabilityIndex.class);
+
+	public static final int MAX_CELL_COUNT = 8192;// 256 MB of bounds
+
+	private static final Map<Network, ReachabilityIndex> indices = new WeakHashMap<>();
+
+	public static ReachabilityIndex getOrCreate(Network network, double cellSize, ForkJoinPool forkJoinPool) {
+		synchronized (indices) {
+			ReachabilityIndex index = indices.get(network);
+			if (index == null || index.cellSize != cellSize) {
+				index = new ReachabilityIndex(network, cellSize, forkJoinPool);
+				indices.put(network, index);
+			}
+			return index;
+		}
+	}
+
+	private final double cellSize;
+	private final IdIntMap<Node> nodeCells;
+	private final int cellCount;
+	// lower bound of the travel time from cell i to cell j is stored at i * cellCount + j; unreachable: infinity
+	private final float[] travelTimeBounds;
+
+	ReachabilityIndex(Network network, double cellSize, ForkJoinPool forkJoinPool) {
+		this.cellSize = cellSize;
+
+		Node[] nodes = network.getNodes().values().toArray(new Node[0]);
+		IdIntMap<Node> nodeIndices = new IdIntMap<>(Node.class, nodes.length);
+		nodeCells = new IdIntMap<>(Node.class, nodes.length, -1);
+		Map<Long, Integer> cells = new HashMap<>();
+		int[] cellOfNode = new int[nodes.length];
+		for (int i = 0; i < nodes.length; i++) {
+			long x = (long)Math.floor(nodes[i].getCoord().getX() / cellSize);
+			long y = (long)Math.floor(nodes[i].getCoord().getY() / cellSize);
+			Integer cell = cells.computeIfAbsent((x << 32) ^ (y & 0xffffffffL), k -> cells.size());
+			nodeIndices.put(nodes[i].getId(), i);
+			nodeCells.put(nodes[i].getId(), cell);
+			cellOfNode[i] = cell;
+		}
+		cellCount = cells.size();
+		if (cellCount > MAX_CELL_COUNT) {
+			throw new IllegalArgumentException("The network covers "
+					+ cellCount
+					+ " grid cells of size "
+					+ cellSize
+					+ " m, the travel time bounds between them would take "
+					+ (4L * cellCount * cellCount >> 20)
+					+ " MB. At most "
+					+ MAX_CELL_COUNT
+					+ " cells are supported, so increase the cell size");
+		}
+		log.info("Calculating travel time bounds between " + cellCount + " grid cells of size " + cellSize + " m");
+
+		// forward star of the network with the free-flow link travel times
+		int[] linkStarts = new int[nodes.length + 1];
+		int[] linkTargets = new int[network.getLinks().size()];
+		double[] linkTimes = new double[linkTargets.length];
+		int l = 0;
+		for (int i = 0; i < nodes.length; i++) {
+			linkStarts[i] = l;
+			for (Link link : nodes[i].getOutLinks().values()) {
+				linkTargets[l] = nodeIndices.get(link.getToNode().getId());
+				linkTimes[l] = link.getLength() / link.getFreespeed();
+				l++;
+			}
+		}
+		linkStarts[nodes.length] = l;
+
+		int[][] cellNodes = new int[cellCount][];
+		int[] cellSizes = new int[cellCount];
+		for (int cell : cellOfNode) {
+			cellSizes[cell]++;
+		}
+		for (int c = 0; c < cellCount; c++) {
+			cellNodes[c] = new int[cellSizes[c]];
+			cellSizes[c] = 0;
+		}
+		for (int i = 0; i < nodes.length; i++) {
+			cellNodes[cellOfNode[i]][cellSizes[cellOfNode[i]]++] = i;
+		}
+
+		travelTimeBounds = new float[Math.toIntExact((long)cellCount * cellCount)];
+		Arrays.fill(travelTimeBounds, Float.POSITIVE_INFINITY);
+		forkJoinPool.submit(() -> IntStream.range(0, cellCount)
+				.parallel()
+				.forEach(c -> calcBoundsFromCell(c, cellNodes[c], linkStarts, linkTargets, linkTimes, cellOfNode)))
+				.join();
+	}
+
+	private void calcBoundsFromCell(int cell, int[] sources, int[] linkStarts, int[] linkTargets,
+			double[] linkTimes, int[] cellOfNode) {
+		double[] times = new double[cellOfNode.length];
+		Arrays.fill(times, Double.POSITIVE_INFINITY);
+		NodeHeap heap = new NodeHeap();
+		for (int source : sources) {
+			times[source] = 0;
+			heap.push(source, 0);
+		}
+
+		int offset = cell * cellCount;
+		while (heap.size > 0) {
+			double time = heap.peekKey();
+			int node = heap.pop();
+			if (time > times[node]) {
+				continue;// outdated entry
+			}
+
+			int boundIdx = offset + cellOfNode[node];
+			if (travelTimeBounds[boundIdx] == Float.POSITIVE_INFINITY) {
+				// nodes are settled in the order of increasing times, so this is the minimum for the cell;
+				// rounded down to remain a lower bound
+				float bound = (float)time;
+				travelTimeBounds[boundIdx] = bound > time ? Math.nextDown(bound) : bound;
+			}
+
+			for (int l = linkStarts[node]; l < linkStarts[node + 1]; l++) {
+				double newTime = time + linkTimes[l];
+				if (newTime < times[linkTargets[l]]) {
+					times[linkTargets[l]] = newTime;
+					heap.push(linkTargets[l], newTime);
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return a lower bound of the free-flow travel time from <code>fromNode</code> to <code>toNode</code>
+	 * ({@link Double#POSITIVE_INFINITY} if there is no path)
+	 */
+	public double getTravelTimeLowerBound(Node fromNode, Node toNode) {
+		int fromCell = nodeCells.get(fromNode.getId());
+		int toCell = nodeCells.get(toNode.getId());
+		if (fromCell < 0 || toCell < 0) {
+			return 0;// not part of the network, no bound known
+		}
+		return travelTimeBounds[fromCell * cellCount + toCell];
+	}
+
+	/**
+	 * Binary min-heap of nodes; a node may be contained several times (outdated entries are skipped when polled).
+	 */
+	private static class NodeHeap {
+		private double[] keys = new double[64];
+		private int[] nodes = new int[64];
+		private int size;
+
+		private void push(int node, double key) {
+			if (size == keys.length) {
+				keys = Arrays.copyOf(keys, 2 * size);
+				nodes = Arrays.copyOf(nodes, 2 * size);
+			}
+			int position = size++;
+			while (position > 0) {
+				int parent = (position - 1) >> 1;
+				if (keys[parent] <= key) {
+					break;
+				}
+				keys[position] = keys[parent];
+				nodes[position] = nodes[parent];
+				position = parent;
+			}
+			keys[position] = key;
+			nodes[position] = node;
+		}
+
+		private double peekKey() {
+			return keys[0];
+		}
+
+		private int pop() {
+			int node = nodes[0];
+			size--;
+			double key = keys[size];
+			int lastNode = nodes[size];
+			int position = 0;
+			while (true) {
+				int child = 2 * position + 1;
+				if (child >= size) {
+					break;
+				}
+				if (child + 1 < size && keys[child + 1] < keys[child]) {
+					child++;
+				}
+				if (keys[child] >= key) {
+					break;
+				}
+				keys[position] = keys[child];
+				nodes[position] = nodes[child];
+				position = child;
+			}
+			keys[position] = key;
+			nodes[position] = lastNode;
+			return node;
+		}
+	}
+}
@@ -61,6 +61,9 @@ public class SingleVehicleInsertionProblem {
 		InsertionWithPathData bestInsertion = null;
 		for (Insertion i : insertions) {
 			InsertionWithPathData insertion = createInsertionWithPathData(i, set, stopCount);
+			if (insertion.getPathToPickup() == null) {
+				continue;// the pickup cannot be reached in time (see DetourLinksSet.maxTravelTimeToPickup)
+			}
 			double cost = costCalculator.calculate(drtRequest, vEntry, insertion);
 			if (cost < minCost) {
 				bestInsertion = insertion;
@@ -34,6 +34,7 @@ import javax.validation.constraints.PositiveOrZero;
 import org.apache.log4j.Logger;
 import org.matsim.api.core.v01.TransportMode;
 import org.matsim.contrib.drt.optimizer.insertion.ParallelPathDataProvider;
+import org.matsim.contrib.drt.optimizer.insertion.ReachabilityIndex;
 import org.matsim.contrib.drt.optimizer.rebalancing.mincostflow.MinCostFlowRebalancingParams;
 import org.matsim.contrib.dvrp.router.DvrpRoutingNetworkProvider;
 import org.matsim.contrib.dvrp.run.Modal;
@@ -143,6 +144,15 @@ public final class DrtConfigGroup extends ReflectiveConfigGroup implements Modal
 					+ " Scales well up to 4, due to path data provision, the most computationally intensive part,"
 					+ " using up to 4 threads. Default value is 'min(4, no. of cores available to JVM)'";
 
+	public static final String REACHABILITY_GRID_CELL_SIZE = "reachabilityGridCellSize";
+	static final String REACHABILITY_GRID_CELL_SIZE_EXP =
+			"Size [m] of the square grid cells used to bound the free-flow travel times between network nodes."
+					+ " If max wait time violations are rejected, the bounds are used to discard vehicles that cannot"
+					+ " reach the pickup in time before any insertion is evaluated. The network must not cover more than "
+					+ ReachabilityIndex.MAX_CELL_COUNT
+					+ " cells, as the memory of the bounds grows with the square of the number of cells (2000 m cells"
+					+ " are a reasonable choice for a city). 0 disables this pre-filter. Default value is 0";
+
 	@NotBlank
 	private String mode = TransportMode.drt; // travel mode (passengers'/customers' perspective)
 
@@ -194,6 +204,9 @@ public final class DrtConfigGroup extends ReflectiveConfigGroup implements Modal
 	private boolean plotDetailedCustomerStats = true;
 	private boolean printDetailedWarnings = true;
 
+	@PositiveOrZero
+	private double reachabilityGridCellSize = 0;// [m]
+
 	@Positive
 	private int numberOfThreads = Math.min(Runtime.getRuntime().availableProcessors(),
 			ParallelPathDataProvider.MAX_THREADS);
@@ -277,6 +290,7 @@ public final class DrtConfigGroup extends ReflectiveConfigGroup implements Modal
 		map.put(ESTIMATED_DRT_SPEED, ESTIMATED_DRT_SPEED_EXP);
 		map.put(ESTIMATED_BEELINE_DISTANCE_FACTOR, ESTIMATED_BEELINE_DISTANCE_FACTOR_EXP);
 		map.put(NUMBER_OF_THREADS, NUMBER_OF_THREADS_EXP);
+		map.put(REACHABILITY_GRID_CELL_SIZE, REACHABILITY_GRID_CELL_SIZE_EXP);
 		map.put(PRINT_WARNINGS, PRINT_WARNINGS_EXP);
 		map.put(REJECT_REQUEST_IF_MAX_WAIT_OR_TRAVEL_TIME_VIOLATED,
 				REJECT_REQUEST_IF_MAX_WAIT_OR_TRAVEL_TIME_VIOLATED_EXP);
@@ -591,6 +605,22 @@ public final class DrtConfigGroup extends ReflectiveConfigGroup implements Modal
 		this.numberOfThreads = numberOfThreads;
 	}
 
+	/**
+	 * @return -- {@value #REACHABILITY_GRID_CELL_SIZE_EXP}
+	 */
+	@StringGetter(REACHABILITY_GRID_CELL_SIZE)
+	public double getReachabilityGridCellSize() {
+		return reachabilityGridCellSize;
+	}
+
+	/**
+	 * @param reachabilityGridCellSize -- {@value #REACHABILITY_GRID_CELL_SIZE_EXP}
+	 */
+	@StringSetter(REACHABILITY_GRID_CELL_SIZE)
+	public void setReachabilityGridCellSize(double reachabilityGridCellSize) {
+		this.reachabilityGridCellSize = reachabilityGridCellSize;
+	}
+
 	/**
 	 * @return -- {@value #PRINT_WARNINGS_EXP}
 	 */
@@ -93,7 +93,8 @@ public class DrtModeQSimModule extends AbstractDvrpModeQSimModule {
 		bindModal(PassengerRequestValidator.class).to(DefaultPassengerRequestValidator.class).asEagerSingleton();
 
 		addModalComponent(DefaultUnplannedRequestInserter.class, modalProvider(
-				getter -> new DefaultUnplannedRequestInserter(drtCfg, getter.getModal(Fleet.class),
+				getter -> new DefaultUnplannedRequestInserter(drtCfg, getter.getModal(Network.class),
+						getter.getModal(Fleet.class),
 						getter.get(MobsimTimer.class), getter.get(EventsManager.class),
 						getter.getModal(RequestInsertionScheduler.class),
 						getter.getModal(VehicleData.EntryFactory.class),
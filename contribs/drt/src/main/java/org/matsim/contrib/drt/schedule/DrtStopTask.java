@@ -65,10 +65,12 @@ public class DrtStopTask extends StayTaskImpl implements DrtTask {
 
 	public void addDropoffRequest(DrtRequest request) {
 		dropoffRequests.put(request.getId(), request);
+		notifyTaskModified();
 	}
 
 	public void addPickupRequest(DrtRequest request) {
 		pickupRequests.put(request.getId(), request);
+		notifyTaskModified();
 	}
 
 	@Override
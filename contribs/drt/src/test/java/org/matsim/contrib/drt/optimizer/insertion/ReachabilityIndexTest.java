@@ -0,0 +1,98 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2020 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.contrib.drt.optimizer.insertion;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.contrib.dvrp.router.TimeAsTravelDisutility;
+import org.matsim.core.network.NetworkUtils;
+import org.matsim.core.router.DijkstraFactory;
+import org.matsim.core.router.util.LeastCostPathCalculator;
+import org.matsim.core.trafficmonitoring.FreeSpeedTravelTime;
+
+public class ReachabilityIndexTest {
+	@Test
+	public void testLowerBounds() {
+		Random random = new Random(4711);
+		Network network = NetworkUtils.createNetwork();
+		int size = 10;
+		Node[][] nodes = new Node[size][size];
+		for (int x = 0; x < size; x++) {
+			for (int y = 0; y < size; y++) {
+				nodes[x][y] = NetworkUtils.createAndAddNode(network, Id.createNodeId(x + "_" + y),
+						new Coord(x * 300., y * 300.));
+			}
+		}
+		for (int x = 0; x < size; x++) {
+			for (int y = 0; y < size; y++) {
+				if (x + 1 < size) {
+					addLink(network, nodes[x][y], nodes[x + 1][y], random);
+					addLink(network, nodes[x + 1][y], nodes[x][y], random);
+				}
+				if (y + 1 < size) {
+					addLink(network, nodes[x][y], nodes[x][y + 1], random);
+				}
+			}
+		}
+
+		ReachabilityIndex index = new ReachabilityIndex(network, 1000, ForkJoinPool.commonPool());
+		FreeSpeedTravelTime travelTime = new FreeSpeedTravelTime();
+		LeastCostPathCalculator dijkstra = new DijkstraFactory().createPathCalculator(network,
+				new TimeAsTravelDisutility(travelTime), travelTime);
+		for (Node from : network.getNodes().values()) {
+			for (Node to : network.getNodes().values()) {
+				double bound = index.getTravelTimeLowerBound(from, to);
+				if (Math.floor(from.getCoord().getY() / 1000) > Math.floor(to.getCoord().getY() / 1000)) {
+					// links in y direction are one-way, so no node of a lower row of cells can be reached
+					assertThat(bound).isEqualTo(Double.POSITIVE_INFINITY);
+				} else if (from.getCoord().getY() <= to.getCoord().getY()) {
+					double travelTimeOnPath = dijkstra.calcLeastCostPath(from, to, 0, null, null).travelTime;
+					assertThat(bound).isLessThanOrEqualTo(travelTimeOnPath);
+					if (Math.abs(from.getCoord().getX() - to.getCoord().getX()) > 2000) {
+						assertThat(bound).isGreaterThan(0);
+					}
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testTooManyCells() {
+		Network network = NetworkUtils.createNetwork();
+		for (int i = 0; i <= ReachabilityIndex.MAX_CELL_COUNT; i++) {
+			NetworkUtils.createAndAddNode(network, Id.createNodeId("cell_" + i), new Coord(i * 100., 0));
+		}
+		assertThatThrownBy(() -> new ReachabilityIndex(network, 100, ForkJoinPool.commonPool())).isInstanceOf(
+				IllegalArgumentException.class).hasMessageContaining("increase the cell size");
+	}
+
+	private static void addLink(Network network, Node from, Node to, Random random) {
+		NetworkUtils.createAndAddLink(network, Id.createLinkId(from.getId() + "-" + to.getId()), from, to, 300,
+				5 + 10 * random.nextDouble(), 1000, 1);
+	}
+}
@@ -0,0 +1,394 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2020 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.contrib.dvrp.path;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.matsim.api.core.v01.IdIntMap;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.contrib.dvrp.path.OneToManyPathSearch.PathData;
+import org.matsim.core.router.util.LeastCostPathCalculator.Path;
+import org.matsim.core.router.util.TravelDisutility;
+import org.matsim.core.router.util.TravelTime;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Calculates paths from several links to several links in one pass. All searches share one priority queue, while the
+ * labels of each search are kept in arrays indexed by (search, node), so no per-node objects or maps are needed. Each
+ * search stops expanding as soon as all its target links have been reached. The searches do not share any work, so
+ * independent searches that are latency-critical are better run in parallel, each with its own instance.
+ * <p>
+ * The results are the same as those of {@link OneToManyPathSearch}. The search is either forward (from the fromLinks
+ * to the toLinks) or backward (from the toLinks of the resulting paths to the fromLinks), but the links of all
+ * returned paths are in the driving order.
+ * <p>
+ * Not thread-safe; use one instance per thread.
+ */
+public class ManyToManyPathSearch {
+	public static ManyToManyPathSearch createForwardSearch(Network network, TravelTime travelTime,
+			TravelDisutility travelDisutility) {
+		return new ManyToManyPathSearch(network, travelTime, travelDisutility, true);
+	}
+
+	public static ManyToManyPathSearch createBackwardSearch(Network network, TravelTime travelTime,
+			TravelDisutility travelDisutility) {
+		return new ManyToManyPathSearch(network, travelTime, travelDisutility, false);
+	}
+
+	private static final int UNVISITED = -1;
+	private static final int SETTLED = -2;
+	private static final int BEYOND_MAX_TRAVEL_TIME = -3;
+
+	private final TravelTime travelTime;
+	private final TravelDisutility travelDisutility;
+	private final boolean forward;
+
+	private final int nodeCount;
+	private final IdIntMap<Node> nodeIndices;
+	// outgoing (forward) or incoming (backward) links of node i: links[linkStarts[i]] ... links[linkStarts[i+1]-1]
+	private final int[] linkStarts;
+	private final Link[] links;
+	private final int[] linkNeighbours;
+
+	// labels of search s at node i are stored at index s * nodeCount + i
+	private double[] costs = new double[0];
+	private double[] times = new double[0];
+	private Link[] prevLinks = new Link[0];
+	private int[] heapPositions = new int[0];
+	private boolean[] targets = new boolean[0];
+
+	// of the current query
+	private double[] startTimes;
+	private double[] maxTravelTimes;
+
+	private int[] heap = new int[16];
+	private int heapSize;
+	private int[] touchedLabels = new int[16];
+	private int touchedCount;
+
+	private ManyToManyPathSearch(Network network, TravelTime travelTime, TravelDisutility travelDisutility,
+			boolean forward) {
+		this.travelTime = travelTime;
+		this.travelDisutility = travelDisutility;
+		this.forward = forward;
+
+		nodeCount = network.getNodes().size();
+		nodeIndices = new IdIntMap<>(Node.class, nodeCount, -1);
+		Node[] nodes = network.getNodes().values().toArray(new Node[0]);
+		for (int i = 0; i < nodes.length; i++) {
+			nodeIndices.put(nodes[i].getId(), i);
+		}
+
+		linkStarts = new int[nodeCount + 1];
+		links = new Link[network.getLinks().size()];
+		linkNeighbours = new int[links.length];
+		int l = 0;
+		for (int i = 0; i < nodes.length; i++) {
+			linkStarts[i] = l;
+			for (Link link : (forward ? nodes[i].getOutLinks() : nodes[i].getInLinks()).values()) {
+				links[l] = link;
+				linkNeighbours[l] = getIndex(forward ? link.getToNode() : link.getFromNode());
+				l++;
+			}
+		}
+		linkStarts[nodeCount] = l;
+	}
+
+	/**
+	 * @param fromLinks  the start links of the searches
+	 * @param toLinks    for each search, the links to which paths are calculated
+	 * @param startTimes for each search, the start time
+	 * @return for each search, the path data aligned with its toLinks; <code>null</code> for unreachable links
+	 */
+	public PathData[][] calcPathDataMatrix(List<Link> fromLinks, List<? extends List<Link>> toLinks,
+			double[] startTimes) {
+		double[] maxTravelTimes = new double[startTimes.length];
+		Arrays.fill(maxTravelTimes, Double.POSITIVE_INFINITY);
+		return calcPathDataMatrix(fromLinks, toLinks, startTimes, maxTravelTimes);
+	}
+
+	/**
+	 * Like {@link #calcPathDataMatrix(List, List, double[])}, but each search stops at nodes that cannot be reached
+	 * within its max travel time, so the path data for links further away are <code>null</code>.
+	 *
+	 * @param maxTravelTimes for each search, the max travel time of the calculated paths
+	 */
+	public PathData[][] calcPathDataMatrix(List<Link> fromLinks, List<? extends List<Link>> toLinks,
+			double[] startTimes, double[] maxTravelTimes) {
+		int searchCount = fromLinks.size();
+		Preconditions.checkArgument(toLinks.size() == searchCount
+				&& startTimes.length == searchCount
+				&& maxTravelTimes.length == searchCount);
+		this.startTimes = startTimes;
+		this.maxTravelTimes = maxTravelTimes;
+		ensureCapacity(searchCount * nodeCount);
+
+		int[] remainingTargets = new int[searchCount];
+		for (int s = 0; s < searchCount; s++) {
+			Link fromLink = fromLinks.get(s);
+			for (Link toLink : toLinks.get(s)) {
+				int label = s * nodeCount + getIndex(getToNode(toLink));
+				if (toLink != fromLink && !targets[label]) {
+					targets[label] = true;
+					touch(label);
+					remainingTargets[s]++;
+				}
+			}
+			if (remainingTargets[s] > 0) {
+				int label = s * nodeCount + getIndex(getFromNode(fromLink));
+				touch(label);
+				costs[label] = 0;
+				times[label] = startTimes[s];
+				push(label);
+			}
+		}
+
+		calculatePaths(remainingTargets);
+
+		PathData[][] pathData = new PathData[searchCount][];
+		for (int s = 0; s < searchCount; s++) {
+			pathData[s] = createPathDataArray(s, fromLinks.get(s), toLinks.get(s), startTimes[s]);
+		}
+
+		reset();
+		this.startTimes = null;
+		this.maxTravelTimes = null;
+		return pathData;
+	}
+
+	private void calculatePaths(int[] remainingTargets) {
+		int unfinishedSearches = 0;
+		for (int remaining : remainingTargets) {
+			if (remaining > 0) {
+				unfinishedSearches++;
+			}
+		}
+
+		while (heapSize > 0 && unfinishedSearches > 0) {
+			int label = poll();
+			int s = label / nodeCount;
+			if (Math.abs(times[label] - startTimes[s]) > maxTravelTimes[s]) {
+				// early exit: the least-cost path to this node is longer than the max travel time, so it is not expanded
+				heapPositions[label] = BEYOND_MAX_TRAVEL_TIME;
+				continue;
+			}
+			heapPositions[label] = SETTLED;
+			if (remainingTargets[s] == 0) {
+				continue;// this search is done, the remaining labels are only left in the queue
+			}
+			if (targets[label] && --remainingTargets[s] == 0) {
+				unfinishedSearches--;
+				continue;
+			}
+			relaxLinks(label, s * nodeCount, label - s * nodeCount);
+		}
+	}
+
+	private void relaxLinks(int label, int searchOffset, int node) {
+		double cost = costs[label];
+		double time = times[label];
+		// backward search: travel time decreases while the costs still increase; for negative times use the
+		// previous day (as in BackwardFastMultiNodeDijkstra)
+		double linkTime = forward || time >= 0 ? time : 24.0 * 3600.0 - Math.abs(time % (24.0 * 3600.0));
+
+		for (int l = linkStarts[node]; l < linkStarts[node + 1]; l++) {
+			int neighbour = searchOffset + linkNeighbours[l];
+			int position = heapPositions[neighbour];
+			if (position == SETTLED || position == BEYOND_MAX_TRAVEL_TIME) {
+				continue;
+			}
+
+			Link link = links[l];
+			double newCost = cost + travelDisutility.getLinkTravelDisutility(link, linkTime, null, null);
+			if (position == UNVISITED) {
+				touch(neighbour);
+			} else if (newCost >= costs[neighbour]) {
+				continue;
+			}
+
+			double linkTravelTime = travelTime.getLinkTravelTime(link, linkTime, null, null);
+			costs[neighbour] = newCost;
+			times[neighbour] = forward ? time + linkTravelTime : time - linkTravelTime;
+			prevLinks[neighbour] = link;
+			if (position == UNVISITED) {
+				push(neighbour);
+			} else {
+				siftUp(position);
+			}
+		}
+	}
+
+	private PathData[] createPathDataArray(int s, Link fromLink, List<Link> toLinks, double startTime) {
+		PathData[] pathDataArray = new PathData[toLinks.size()];
+		int fromNode = getIndex(getFromNode(fromLink));
+		for (int i = 0; i < pathDataArray.length; i++) {
+			Link toLink = toLinks.get(i);
+			if (toLink == fromLink) {
+				pathDataArray[i] = createZeroPathData(fromLink);
+			} else {
+				int label = s * nodeCount + getIndex(getToNode(toLink));
+				if (heapPositions[label] == SETTLED) {
+					Path path = constructPath(s * nodeCount, fromNode, label, startTime);
+					pathDataArray[i] = new PathData(path, getFirstAndLastLinkTT(fromLink, toLink, path, startTime));
+				}
+			}
+		}
+		return pathDataArray;
+	}
+
+	private Path constructPath(int searchOffset, int fromNode, int toLabel, double startTime) {
+		List<Link> pathLinks = new ArrayList<>();
+		int label = toLabel;
+		while (label != searchOffset + fromNode) {
+			Link link = prevLinks[label];
+			pathLinks.add(link);
+			label = searchOffset + getIndex(forward ? link.getFromNode() : link.getToNode());
+		}
+		if (forward) {
+			Collections.reverse(pathLinks);
+		}
+		double pathTravelTime = forward ? times[toLabel] - startTime : startTime - times[toLabel];
+		return new Path(null, pathLinks, pathTravelTime, costs[toLabel]);
+	}
+
+	private PathData createZeroPathData(Link fromLink) {
+		List<Node> singleNodeList = Collections.singletonList(getFromNode(fromLink));
+		List<Link> emptyLinkList = Collections.emptyList();
+		return new PathData(new Path(singleNodeList, emptyLinkList, 0, 0), 0);
+	}
+
+	private Node getToNode(Link toLink) {
+		return forward ? toLink.getFromNode() : toLink.getToNode();
+	}
+
+	private Node getFromNode(Link fromLink) {
+		return forward ? fromLink.getToNode() : fromLink.getFromNode();
+	}
+
+	private int getIndex(Node node) {
+		int index = nodeIndices.get(node.getId());
+		Preconditions.checkArgument(index >= 0, "Node %s is not part of the network", node.getId());
+		return index;
+	}
+
+	private double getFirstAndLastLinkTT(Link fromLink, Link toLink, Path path, double time) {
+		double lastLinkTT = forward ?
+				VrpPaths.getLastLinkTT(toLink, time + path.travelTime) :
+				VrpPaths.getLastLinkTT(fromLink, time);
+		return VrpPaths.FIRST_LINK_TT + lastLinkTT;
+	}
+
+	private void ensureCapacity(int labelCount) {
+		if (costs.length < labelCount) {
+			costs = new double[labelCount];
+			times = new double[labelCount];
+			prevLinks = new Link[labelCount];
+			heapPositions = new int[labelCount];
+			Arrays.fill(heapPositions, UNVISITED);
+			targets = new boolean[labelCount];
+		}
+	}
+
+	private void touch(int label) {
+		if (touchedCount == touchedLabels.length) {
+			touchedLabels = Arrays.copyOf(touchedLabels, 2 * touchedCount);
+		}
+		touchedLabels[touchedCount++] = label;
+	}
+
+	private void reset() {
+		for (int i = 0; i < touchedCount; i++) {
+			int label = touchedLabels[i];
+			heapPositions[label] = UNVISITED;
+			prevLinks[label] = null;
+			targets[label] = false;
+		}
+		touchedCount = 0;
+		heapSize = 0;
+	}
+
+	// binary min-heap of labels ordered by cost; heapPositions[label] is the position of the label in the heap
+
+	private void push(int label) {
+		if (heapSize == heap.length) {
+			heap = Arrays.copyOf(heap, 2 * heapSize);
+		}
+		heap[heapSize] = label;
+		heapPositions[label] = heapSize;
+		siftUp(heapSize++);
+	}
+
+	private int poll() {
+		int label = heap[0];
+		heapSize--;
+		if (heapSize > 0) {
+			heap[0] = heap[heapSize];
+			heapPositions[heap[0]] = 0;
+			siftDown(0);
+		}
+		return label;
+	}
+
+	private void siftUp(int position) {
+		int label = heap[position];
+		double cost = costs[label];
+		while (position > 0) {
+			int parent = (position - 1) >> 1;
+			int parentLabel = heap[parent];
+			if (costs[parentLabel] <= cost) {
+				break;
+			}
+			heap[position] = parentLabel;
+			heapPositions[parentLabel] = position;
+			position = parent;
+		}
+		heap[position] = label;
+		heapPositions[label] = position;
+	}
+
+	private void siftDown(int position) {
+		int label = heap[position];
+		double cost = costs[label];
+		while (true) {
+			int child = 2 * position + 1;
+			if (child >= heapSize) {
+				break;
+			}
+			if (child + 1 < heapSize && costs[heap[child + 1]] < costs[heap[child]]) {
+				child++;
+			}
+			int childLabel = heap[child];
+			if (costs[childLabel] >= cost) {
+				break;
+			}
+			heap[position] = childLabel;
+			heapPositions[childLabel] = position;
+			position = child;
+		}
+		heap[position] = label;
+		heapPositions[label] = position;
+	}
+}
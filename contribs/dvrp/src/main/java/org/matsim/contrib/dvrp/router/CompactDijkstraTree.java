@@ -0,0 +1,100 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2020 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.contrib.dvrp.router;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.core.router.util.LeastCostPathCalculator.Path;
+
+/**
+ * Least-cost path tree from one node to all nodes of the network, as calculated by {@link DijkstraTreeCache}. The
+ * labels are stored in arrays indexed by node (about 20 bytes per node). Instances are immutable, so they can be used
+ * by several threads at the same time.
+ */
+public class CompactDijkstraTree {
+	private final DijkstraTreeCache.Graph graph;
+	private final Node fromNode;
+	private final double startTime;
+
+	private final double[] times;// arrival times; infinity for unreachable nodes
+	private final double[] costs;
+	private final int[] prevLinks;// index of the last link of the path; -1 for the root and unreachable nodes
+
+	CompactDijkstraTree(DijkstraTreeCache.Graph graph, Node fromNode, double startTime, double[] times,
+			double[] costs, int[] prevLinks) {
+		this.graph = graph;
+		this.fromNode = fromNode;
+		this.startTime = startTime;
+		this.times = times;
+		this.costs = costs;
+		this.prevLinks = prevLinks;
+	}
+
+	public Node getFromNode() {
+		return fromNode;
+	}
+
+	public double getStartTime() {
+		return startTime;
+	}
+
+	/**
+	 * @return the least-cost path to <code>toNode</code>, or <code>null</code> if the node is unreachable
+	 */
+	public Path getLeastCostPath(Node toNode) {
+		int toIdx = graph.getIndex(toNode);
+		if (times[toIdx] == Double.POSITIVE_INFINITY) {
+			return null;
+		}
+
+		List<Node> nodes = new ArrayList<>();
+		List<Link> links = new ArrayList<>();
+		nodes.add(toNode);
+		for (int l = prevLinks[toIdx]; l >= 0; l = prevLinks[graph.getIndex(graph.links[l].getFromNode())]) {
+			links.add(graph.links[l]);
+			nodes.add(graph.links[l].getFromNode());
+		}
+		Collections.reverse(nodes);
+		Collections.reverse(links);
+		return new Path(nodes, links, times[toIdx] - startTime, costs[toIdx]);
+	}
+
+	/**
+	 * @return the arrival time at <code>toNode</code> ({@link Double#POSITIVE_INFINITY} if unreachable)
+	 */
+	public double getTime(Node toNode) {
+		return times[graph.getIndex(toNode)];
+	}
+
+	/**
+	 * @return the cost of the least-cost path to <code>toNode</code> ({@link Double#POSITIVE_INFINITY} if unreachable)
+	 */
+	public double getCost(Node toNode) {
+		return costs[graph.getIndex(toNode)];
+	}
+
+	static long estimateMemory(int nodeCount) {
+		return 20L * nodeCount + 64;
+	}
+}
@@ -0,0 +1,284 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2020 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.contrib.dvrp.router;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+import org.apache.log4j.Logger;
+import org.matsim.api.core.v01.IdIntMap;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.contrib.dvrp.router.LeastCostPathCalculatorWithCache.CacheStats;
+import org.matsim.contrib.dvrp.util.TimeDiscretizer;
+import org.matsim.core.router.util.TravelDisutility;
+import org.matsim.core.router.util.TravelTime;
+
+/**
+ * Cache of {@link CompactDijkstraTree}s, one per start node and time interval (start times are discretized with the
+ * {@link TimeDiscretizer}). The number of cached trees is limited; when the limit is exceeded, the least recently used
+ * tree is evicted.
+ * <p>
+ * The cache is thread-safe, so it can be shared by several threads and by the calculators of several modes (as long
+ * as they use the same network, travel time and travel disutility). Each tree is calculated only once, even if
+ * several threads request it at the same time, and trees are calculated outside the lock of the cache.
+ */
+public class DijkstraTreeCache {
+	private static final Logger log = Logger.getLogger(DijkstraTreeCache.class);
+
+	public static final long DEFAULT_MAX_MEMORY = 256L * 1024 * 1024;
+
+	/**
+	 * Forward star representation of the network shared by all trees.
+	 */
+	static class Graph {
+		private final IdIntMap<Node> nodeIndices;
+		final Link[] links;
+		private final int[] linkStarts;// out-links of node i: links[linkStarts[i]] ... links[linkStarts[i+1]-1]
+		private final int[] linkToNodes;
+
+		private Graph(Network network) {
+			Node[] nodes = network.getNodes().values().toArray(new Node[0]);
+			nodeIndices = new IdIntMap<>(Node.class, nodes.length, -1);
+			for (int i = 0; i < nodes.length; i++) {
+				nodeIndices.put(nodes[i].getId(), i);
+			}
+
+			links = new Link[network.getLinks().size()];
+			linkStarts = new int[nodes.length + 1];
+			linkToNodes = new int[links.length];
+			int l = 0;
+			for (int i = 0; i < nodes.length; i++) {
+				linkStarts[i] = l;
+				for (Link link : nodes[i].getOutLinks().values()) {
+					links[l] = link;
+					linkToNodes[l] = getIndex(link.getToNode());
+					l++;
+				}
+			}
+			linkStarts[nodes.length] = l;
+		}
+
+		int getNodeCount() {
+			return linkStarts.length - 1;
+		}
+
+		int getIndex(Node node) {
+			int idx = nodeIndices.get(node.getId());
+			if (idx < 0) {
+				throw new IllegalArgumentException("Node " + node.getId() + " is not part of the network");
+			}
+			return idx;
+		}
+	}
+
+	private final Graph graph;
+	private final TravelDisutility travelDisutility;
+	private final TravelTime travelTime;
+	private final TimeDiscretizer timeDiscretizer;
+	private final int maxTreeCount;
+
+	private final CacheStats cacheStats = new CacheStats();
+
+	// access-ordered, so the eldest entry is the least recently used one
+	private final Map<Long, FutureTask<CompactDijkstraTree>> trees;
+
+	/**
+	 * Creates a cache that keeps at most as many trees as fit into {@link #DEFAULT_MAX_MEMORY}.
+	 */
+	public DijkstraTreeCache(Network network, TravelDisutility travelDisutility, TravelTime travelTime,
+			TimeDiscretizer timeDiscretizer) {
+		this(network, travelDisutility, travelTime, timeDiscretizer,
+				calcMaxTreeCount(network.getNodes().size(), DEFAULT_MAX_MEMORY));
+	}
+
+	public DijkstraTreeCache(Network network, TravelDisutility travelDisutility, TravelTime travelTime,
+			TimeDiscretizer timeDiscretizer, int maxTreeCount) {
+		if (maxTreeCount < 1) {
+			throw new IllegalArgumentException("maxTreeCount must be positive");
+		}
+		this.graph = new Graph(network);
+		this.travelDisutility = travelDisutility;
+		this.travelTime = travelTime;
+		this.timeDiscretizer = timeDiscretizer;
+		this.maxTreeCount = maxTreeCount;
+
+		trees = new LinkedHashMap<Long, FutureTask<CompactDijkstraTree>>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Long, FutureTask<CompactDijkstraTree>> eldest) {
+				if (size() > DijkstraTreeCache.this.maxTreeCount) {
+					cacheStats.incEvictions();
+					return true;
+				}
+				return false;
+			}
+		};
+
+		log.info("Dijkstra tree cache: max " + maxTreeCount + " trees (about "
+				+ maxTreeCount * CompactDijkstraTree.estimateMemory(graph.getNodeCount()) / (1024 * 1024) + " MB)");
+	}
+
+	/**
+	 * @return the max number of trees of the given network that fit into <code>maxMemory</code> bytes
+	 */
+	public static int calcMaxTreeCount(int nodeCount, long maxMemory) {
+		return (int)Math.max(1, Math.min(Integer.MAX_VALUE, maxMemory / CompactDijkstraTree.estimateMemory(nodeCount)));
+	}
+
+	public CompactDijkstraTree getTree(Node fromNode, double startTime) {
+		int timeIdx = timeDiscretizer.getIdx(startTime);
+		long key = (long)timeIdx * graph.getNodeCount() + graph.getIndex(fromNode);
+		double discretizedStartTime = timeDiscretizer.discretize(startTime);
+
+		FutureTask<CompactDijkstraTree> tree;
+		boolean calculate = false;
+		synchronized (trees) {
+			tree = trees.get(key);
+			if (tree == null) {
+				tree = new FutureTask<>(() -> calcTree(fromNode, discretizedStartTime));
+				trees.put(key, tree);
+				calculate = true;
+			}
+		}
+
+		if (calculate) {
+			cacheStats.incMisses();
+			tree.run();
+		} else {
+			cacheStats.incHits();
+		}
+
+		try {
+			return tree.get();
+		} catch (InterruptedException | ExecutionException e) {
+			synchronized (trees) {
+				trees.remove(key, tree);// do not keep failed calculations
+			}
+			throw new RuntimeException(e);
+		}
+	}
+
+	public CacheStats getCacheStats() {
+		return cacheStats;
+	}
+
+	private CompactDijkstraTree calcTree(Node fromNode, double startTime) {
+		int nodeCount = graph.getNodeCount();
+		double[] times = new double[nodeCount];
+		double[] costs = new double[nodeCount];
+		int[] prevLinks = new int[nodeCount];
+		boolean[] settled = new boolean[nodeCount];
+		Arrays.fill(times, Double.POSITIVE_INFINITY);
+		Arrays.fill(costs, Double.POSITIVE_INFINITY);
+		Arrays.fill(prevLinks, -1);
+
+		int fromIdx = graph.getIndex(fromNode);
+		times[fromIdx] = startTime;
+		costs[fromIdx] = 0;
+		NodeHeap heap = new NodeHeap();
+		heap.push(fromIdx, 0);
+
+		while (heap.size > 0) {
+			int node = heap.pop();
+			if (settled[node]) {
+				continue;// outdated entry
+			}
+			settled[node] = true;
+
+			double time = times[node];
+			double cost = costs[node];
+			for (int l = graph.linkStarts[node]; l < graph.linkStarts[node + 1]; l++) {
+				int toNode = graph.linkToNodes[l];
+				if (settled[toNode]) {
+					continue;
+				}
+				Link link = graph.links[l];
+				double linkTime = travelTime.getLinkTravelTime(link, time, null, null);
+				double newCost = cost + travelDisutility.getLinkTravelDisutility(link, time, null, null);
+				if (newCost < costs[toNode]) {
+					costs[toNode] = newCost;
+					times[toNode] = time + linkTime;
+					prevLinks[toNode] = l;
+					heap.push(toNode, newCost);
+				}
+			}
+		}
+
+		return new CompactDijkstraTree(graph, fromNode, startTime, times, costs, prevLinks);
+	}
+
+	/**
+	 * Binary min-heap of nodes; a node may be contained several times (outdated entries are skipped when polled).
+	 */
+	private static class NodeHeap {
+		private double[] keys = new double[64];
+		private int[] nodes = new int[64];
+		private int size;
+
+		private void push(int node, double key) {
+			if (size == keys.length) {
+				keys = Arrays.copyOf(keys, 2 * size);
+				nodes = Arrays.copyOf(nodes, 2 * size);
+			}
+			int position = size++;
+			while (position > 0) {
+				int parent = (position - 1) >> 1;
+				if (keys[parent] <= key) {
+					break;
+				}
+				keys[position] = keys[parent];
+				nodes[position] = nodes[parent];
+				position = parent;
+			}
+			keys[position] = key;
+			nodes[position] = node;
+		}
+
+		private int pop() {
+			int node = nodes[0];
+			size--;
+			double key = keys[size];
+			int lastNode = nodes[size];
+			int position = 0;
+			while (true) {
+				int child = 2 * position + 1;
+				if (child >= size) {
+					break;
+				}
+				if (child + 1 < size && keys[child + 1] < keys[child]) {
+					child++;
+				}
+				if (keys[child] >= key) {
+					break;
+				}
+				keys[position] = keys[child];
+				nodes[position] = nodes[child];
+				position = child;
+			}
+			keys[position] = key;
+			nodes[position] = lastNode;
+			return node;
+		}
+	}
+}
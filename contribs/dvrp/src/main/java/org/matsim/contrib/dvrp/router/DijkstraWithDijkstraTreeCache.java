@@ -19,64 +19,39 @@
 
 package org.matsim.contrib.dvrp.router;
 
-import java.util.Map;
-
-import org.matsim.api.core.v01.Id;
 import org.matsim.api.core.v01.network.*;
 import org.matsim.api.core.v01.population.Person;
 import org.matsim.contrib.dvrp.util.TimeDiscretizer;
 import org.matsim.core.router.util.*;
 import org.matsim.vehicles.Vehicle;
 
-import com.google.common.collect.Maps;
-
+/**
+ * Least-cost path calculator based on a {@link DijkstraTreeCache}. Several calculators (e.g. of different modes or
+ * threads) may share one cache; in that case, they also share the cache stats.
+ */
 public class DijkstraWithDijkstraTreeCache implements LeastCostPathCalculatorWithCache {
-	private final Network network;
-	private final TravelDisutility costFunction;
-	private final TravelTime timeFunction;
-	private final TimeDiscretizer timeDiscretizer;
-	private final Map<Id<Node>, DijkstraTree>[] treeCache;
-
-	private CacheStats cacheStats = new CacheStats();
+	private final DijkstraTreeCache treeCache;
 
-	@SuppressWarnings("unchecked")
 	public DijkstraWithDijkstraTreeCache(Network network, TravelDisutility costFunction, final TravelTime timeFunction,
 			TimeDiscretizer timeDiscretizer) {
-		this.network = network;
-		this.costFunction = costFunction;
-		this.timeFunction = timeFunction;
-		this.timeDiscretizer = timeDiscretizer;
+		this(new DijkstraTreeCache(network, costFunction, timeFunction, timeDiscretizer));
+	}
 
-		treeCache = new Map[timeDiscretizer.getIntervalCount()];
-		for (int i = 0; i < treeCache.length; i++) {
-			treeCache[i] = Maps.newHashMap();
-		}
+	public DijkstraWithDijkstraTreeCache(DijkstraTreeCache treeCache) {
+		this.treeCache = treeCache;
 	}
 
 	@Override
 	public Path calcLeastCostPath(Node fromNode, Node toNode, double startTime, Person person, Vehicle vehicle) {
-		return getTree(fromNode, startTime).calcLeastCostPath(fromNode, toNode, timeDiscretizer.discretize(startTime),
-				person, vehicle);
+		return getTree(fromNode, startTime).getLeastCostPath(toNode);
 	}
 
-	public DijkstraTree getTree(Node fromNode, double startTime) {
-		Map<Id<Node>, DijkstraTree> treeCacheSlice = treeCache[timeDiscretizer.getIdx(startTime)];
-		DijkstraTree tree = treeCacheSlice.get(fromNode.getId());
-
-		if (tree == null) {
-			cacheStats.incMisses();
-			tree = new DijkstraTree(network, costFunction, timeFunction);
-			tree.calcLeastCostPathTree(fromNode, timeDiscretizer.discretize(startTime));
-			treeCacheSlice.put(fromNode.getId(), tree);
-		} else {
-			cacheStats.incHits();
-		}
-
-		return tree;
+	public CompactDijkstraTree getTree(Node fromNode, double startTime) {
+		return treeCache.getTree(fromNode, startTime);
 	}
 
 	@Override
 	public CacheStats getCacheStats() {
-		return cacheStats;
+		return treeCache.getCacheStats();
 	}
 }
@@ -30,6 +30,7 @@ public abstract class AbstractTask implements Task {
 	// ==== BEGIN: fields managed by ScheduleImpl
 	int taskIdx;
 	TaskStatus status;
+	ScheduleImpl schedule;
 	// ==== END: fields managed by ScheduleImpl
 
 	private double beginTime;
@@ -67,13 +68,29 @@ public abstract class AbstractTask implements Task {
 	public final void setBeginTime(double beginTime) {
 		Preconditions.checkState(status != TaskStatus.STARTED && status != TaskStatus.PERFORMED,
 				"It is too late to change the beginTime");
-		this.beginTime = beginTime;
+		if (this.beginTime != beginTime) {
+			this.beginTime = beginTime;
+			notifyTaskModified();
+		}
 	}
 
 	@Override
 	public final void setEndTime(double endTime) {
 		Preconditions.checkState(status != TaskStatus.PERFORMED, "It is too late to change the endTime");
-		this.endTime = endTime;
+		if (this.endTime != endTime) {
+			this.endTime = endTime;
+			notifyTaskModified();
+		}
+	}
+
+	/**
+	 * To be called by subclasses whenever their contents change, so that the change is reflected in
+	 * {@link Schedule#getModificationCount()}.
+	 */
+	protected final void notifyTaskModified() {
+		if (schedule != null) {
+			schedule.taskModified();
+		}
 	}
 
 	@Override
@@ -43,6 +43,7 @@ public class DriveTaskImpl extends AbstractTask implements DriveTask {
 
 		path = divertedPath;
 		setEndTime(newEndTime);
+		notifyTaskModified();
 	}
 
 	@Override
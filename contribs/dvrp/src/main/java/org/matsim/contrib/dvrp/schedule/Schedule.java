@@ -78,6 +78,13 @@ public interface Schedule {
 	 */
 	double getEndTime();
 
+	/**
+	 * Counter incremented on every change of the schedule: adding/removing tasks, switching to the next task and
+	 * changing the timing or contents of a task. Data derived from the schedule can be reused as long as this counter
+	 * has not changed.
+	 */
+	int getModificationCount();
+
 	// schedule modification functionality:
 
 	/**
@@ -42,6 +42,8 @@ public class ScheduleImpl implements Schedule {
 	private ScheduleStatus status = ScheduleStatus.UNPLANNED;
 	private AbstractTask currentTask = null;
 
+	private int modificationCount = 0;
+
 	public ScheduleImpl(DvrpVehicleSpecification vehicleSpecification) {
 		this.vehicleSpecification = vehicleSpecification;
 	}
@@ -76,6 +78,8 @@ public class ScheduleImpl implements Schedule {
 		tasks.add(taskIdx, t);
 		t.taskIdx = taskIdx;
 		t.status = TaskStatus.PLANNED;
+		t.schedule = this;
+		modificationCount++;
 
 		// update idx of the existing tasks
 		for (int i = taskIdx + 1; i < tasks.size(); i++) {
@@ -121,7 +125,8 @@ public class ScheduleImpl implements Schedule {
 		failIfCompleted();
 
 		Preconditions.checkState(tasks.get(taskIdx).getStatus() == TaskStatus.PLANNED);
-		tasks.remove(taskIdx);
+		tasks.remove(taskIdx).schedule = null;
+		modificationCount++;
 
 		for (int i = taskIdx; i < tasks.size(); i++) {
 			tasks.get(i).taskIdx = i;
@@ -149,6 +154,7 @@ public class ScheduleImpl implements Schedule {
 	}
 
 	private void nextTaskImpl() {
+		modificationCount++;
 		int nextIdx;
 
 		if (status == ScheduleStatus.PLANNED) {
@@ -186,6 +192,15 @@ public class ScheduleImpl implements Schedule {
 		return tasks.get(tasks.size() - 1).getEndTime();
 	}
 
+	@Override
+	public int getModificationCount() {
+		return modificationCount;
+	}
+
+	void taskModified() {
+		modificationCount++;
+	}
+
 	@Override
 	public String toString() {
 		return "Schedule_" + vehicleSpecification.getId();
@@ -0,0 +1,157 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2020 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.contrib.dvrp.path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.contrib.dvrp.path.OneToManyPathSearch.PathData;
+import org.matsim.contrib.dvrp.router.TimeAsTravelDisutility;
+import org.matsim.core.network.NetworkUtils;
+import org.matsim.core.router.util.TravelDisutility;
+import org.matsim.core.router.util.TravelTime;
+
+public class ManyToManyPathSearchTest {
+	// link travel times change every hour
+	private final TravelTime travelTime = (link, time, person, vehicle) -> link.getLength()
+			/ link.getFreespeed() * (1 + (link.getId().index() + (int)(time / 3600)) % 3);
+	private final TravelDisutility travelDisutility = new TimeAsTravelDisutility(travelTime);
+
+	@Test
+	public void testForwardSearch() {
+		Network network = createGrid(12, new Random(4711));
+		assertSameAsOneToManyPathSearch(network,
+				OneToManyPathSearch.createForwardSearch(network, travelTime, travelDisutility),
+				ManyToManyPathSearch.createForwardSearch(network, travelTime, travelDisutility));
+	}
+
+	@Test
+	public void testBackwardSearch() {
+		Network network = createGrid(12, new Random(4711));
+		assertSameAsOneToManyPathSearch(network,
+				OneToManyPathSearch.createBackwardSearch(network, travelTime, travelDisutility),
+				ManyToManyPathSearch.createBackwardSearch(network, travelTime, travelDisutility));
+	}
+
+	@Test
+	public void testMaxTravelTime() {
+		Network network = createGrid(12, new Random(4711));
+		ManyToManyPathSearch search = ManyToManyPathSearch.createBackwardSearch(network, travelTime,
+				travelDisutility);
+		List<Link> fromLinks = Arrays.asList(network.getLinks().get(Id.createLinkId("5_5-5_6")));
+		List<List<Link>> toLinks = Arrays.asList(new ArrayList<>(network.getLinks().values()));
+		double[] startTimes = { 8 * 3600 };
+
+		PathData[] unbounded = search.calcPathDataMatrix(fromLinks, toLinks, startTimes)[0];
+		PathData[] bounded = search.calcPathDataMatrix(fromLinks, toLinks, startTimes, new double[] { 60 })[0];
+		int reachedCount = 0;
+		for (int i = 0; i < unbounded.length; i++) {
+			if (unbounded[i].path.travelTime <= 60) {
+				assertThat(bounded[i].path.links).isEqualTo(unbounded[i].path.links);
+				reachedCount++;
+			} else {
+				assertThat(bounded[i]).isNull();
+			}
+		}
+		assertThat(reachedCount).isBetween(2, unbounded.length - 1);
+	}
+
+	private void assertSameAsOneToManyPathSearch(Network network, OneToManyPathSearch oneToManyPathSearch,
+			ManyToManyPathSearch manyToManyPathSearch) {
+		Random random = new Random(42);
+		Link[] links = network.getLinks().values().toArray(new Link[0]);
+		for (int repetition = 0; repetition < 10; repetition++) {
+			List<Link> fromLinks = new ArrayList<>();
+			List<List<Link>> toLinks = new ArrayList<>();
+			double[] startTimes = new double[3];
+			for (int s = 0; s < startTimes.length; s++) {
+				fromLinks.add(links[random.nextInt(links.length)]);
+				List<Link> searchToLinks = new ArrayList<>();
+				searchToLinks.add(fromLinks.get(s));
+				for (int i = 0; i < 20; i++) {
+					searchToLinks.add(links[random.nextInt(links.length)]);
+				}
+				toLinks.add(searchToLinks);
+				startTimes[s] = random.nextInt(24 * 3600);
+			}
+
+			// each search is run a second time to check that the search is reset properly
+			PathData[][] matrix = manyToManyPathSearch.calcPathDataMatrix(fromLinks, toLinks, startTimes);
+			PathData[][] repeatedMatrix = manyToManyPathSearch.calcPathDataMatrix(fromLinks, toLinks, startTimes);
+
+			for (int s = 0; s < startTimes.length; s++) {
+				PathData[] expected = oneToManyPathSearch.calcPathDataArray(fromLinks.get(s), toLinks.get(s),
+						startTimes[s]);
+				for (int i = 0; i < expected.length; i++) {
+					PathData actual = matrix[s][i];
+					assertThat(actual.getTravelTime()).isCloseTo(expected[i].getTravelTime(), within(1e-9));
+					assertThat(actual.path.travelCost).isCloseTo(expected[i].path.travelCost, within(1e-9));
+					assertConnected(actual.path.links);
+					assertThat(repeatedMatrix[s][i].path.links).isEqualTo(actual.path.links);
+				}
+			}
+		}
+	}
+
+	private static void assertConnected(List<Link> links) {
+		for (int i = 1; i < links.size(); i++) {
+			assertThat(links.get(i).getFromNode()).isEqualTo(links.get(i - 1).getToNode());
+		}
+	}
+
+	private static Network createGrid(int size, Random random) {
+		Network network = NetworkUtils.createNetwork();
+		Node[][] nodes = new Node[size][size];
+		for (int x = 0; x < size; x++) {
+			for (int y = 0; y < size; y++) {
+				nodes[x][y] = NetworkUtils.createAndAddNode(network, Id.createNodeId(x + "_" + y),
+						new Coord(x * 100., y * 100.));
+			}
+		}
+		for (int x = 0; x < size; x++) {
+			for (int y = 0; y < size; y++) {
+				for (Node neighbour : Arrays.asList(x + 1 < size ? nodes[x + 1][y] : null,
+						y + 1 < size ? nodes[x][y + 1] : null)) {
+					if (neighbour != null) {
+						addLink(network, nodes[x][y], neighbour, random);
+						addLink(network, neighbour, nodes[x][y], random);
+					}
+				}
+			}
+		}
+		return network;
+	}
+
+	private static void addLink(Network network, Node from, Node to, Random random) {
+		NetworkUtils.createAndAddLink(network, Id.createLinkId(from.getId() + "-" + to.getId()), from, to, 100,
+				5 + 10 * random.nextDouble(), 1000, 1);
+	}
+}
@@ -0,0 +1,138 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2020 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.contrib.dvrp.router;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import org.junit.Test;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.contrib.dvrp.util.TimeDiscretizer;
+import org.matsim.core.network.NetworkUtils;
+import org.matsim.core.router.DijkstraFactory;
+import org.matsim.core.router.util.LeastCostPathCalculator;
+import org.matsim.core.router.util.LeastCostPathCalculator.Path;
+import org.matsim.core.router.util.TravelDisutility;
+import org.matsim.core.router.util.TravelTime;
+
+public class DijkstraTreeCacheTest {
+	// link travel times change every hour
+	private final TravelTime travelTime = (link, time, person, vehicle) -> link.getLength()
+			/ link.getFreespeed() * (1 + (link.getId().index() + (int)(time / 3600)) % 3);
+	private final TravelDisutility travelDisutility = new TimeAsTravelDisutility(travelTime);
+
+	private final Network network = createGrid(8, new Random(4711));
+	private final Node[] nodes = network.getNodes().values().toArray(new Node[0]);
+
+	@Test
+	public void testSameAsDijkstra() {
+		DijkstraTreeCache cache = new DijkstraTreeCache(network, travelDisutility, travelTime,
+				TimeDiscretizer.ACYCLIC_1_HOUR);
+		LeastCostPathCalculator dijkstra = new DijkstraFactory().createPathCalculator(network, travelDisutility,
+				travelTime);
+
+		for (double startTime : new double[] { 0, 3600, 7 * 3600 }) {
+			for (Node fromNode : nodes) {
+				CompactDijkstraTree tree = cache.getTree(fromNode, startTime + 1800);
+				for (Node toNode : nodes) {
+					Path expected = dijkstra.calcLeastCostPath(fromNode, toNode, startTime, null, null);
+					Path actual = tree.getLeastCostPath(toNode);
+					assertThat(actual.travelCost).isCloseTo(expected.travelCost, within(1e-9));
+					assertThat(actual.travelTime).isCloseTo(expected.travelTime, within(1e-9));
+					assertThat(actual.nodes.get(0)).isEqualTo(fromNode);
+					assertThat(actual.nodes.get(actual.nodes.size() - 1)).isEqualTo(toNode);
+					assertThat(actual.links).hasSize(actual.nodes.size() - 1);
+				}
+			}
+		}
+		assertThat(cache.getCacheStats().getMisses()).isEqualTo(3 * nodes.length);
+		assertThat(cache.getCacheStats().getHits()).isEqualTo(0);
+	}
+
+	@Test
+	public void testLeastRecentlyUsedEviction() {
+		DijkstraTreeCache cache = new DijkstraTreeCache(network, travelDisutility, travelTime,
+				TimeDiscretizer.ACYCLIC_1_HOUR, 2);
+
+		CompactDijkstraTree tree0 = cache.getTree(nodes[0], 0);
+		CompactDijkstraTree tree1 = cache.getTree(nodes[1], 0);
+		assertThat(cache.getTree(nodes[0], 100)).isSameAs(tree0);// same time interval
+		cache.getTree(nodes[2], 0);// evicts the tree of nodes[1]
+
+		assertThat(cache.getTree(nodes[0], 0)).isSameAs(tree0);
+		assertThat(cache.getTree(nodes[1], 0)).isNotSameAs(tree1);
+
+		LeastCostPathCalculatorWithCache.CacheStats stats = cache.getCacheStats();
+		assertThat(stats.getHits()).isEqualTo(2);
+		assertThat(stats.getMisses()).isEqualTo(4);
+		assertThat(stats.getEvictions()).isEqualTo(2);
+	}
+
+	@Test
+	public void testSharedBetweenThreads() {
+		DijkstraTreeCache cache = new DijkstraTreeCache(network, travelDisutility, travelTime,
+				TimeDiscretizer.ACYCLIC_1_HOUR);
+		int requestCount = 20 * nodes.length;
+
+		IntStream.range(0, requestCount).parallel().forEach(i -> {
+			Node fromNode = nodes[i % nodes.length];
+			assertThat(cache.getTree(fromNode, 0).getFromNode()).isEqualTo(fromNode);
+		});
+
+		// each tree is calculated only once
+		assertThat(cache.getCacheStats().getMisses()).isEqualTo(nodes.length);
+		assertThat(cache.getCacheStats().getHits()).isEqualTo(requestCount - nodes.length);
+	}
+
+	private static Network createGrid(int size, Random random) {
+		Network network = NetworkUtils.createNetwork();
+		Node[][] nodes = new Node[size][size];
+		for (int x = 0; x < size; x++) {
+			for (int y = 0; y < size; y++) {
+				nodes[x][y] = NetworkUtils.createAndAddNode(network, Id.createNodeId(x + "_" + y),
+						new Coord(x * 100., y * 100.));
+			}
+		}
+		for (int x = 0; x < size; x++) {
+			for (int y = 0; y < size; y++) {
+				if (x + 1 < size) {
+					addLink(network, nodes[x][y], nodes[x + 1][y], random);
+					addLink(network, nodes[x + 1][y], nodes[x][y], random);
+				}
+				if (y + 1 < size) {
+					addLink(network, nodes[x][y], nodes[x][y + 1], random);
+					addLink(network, nodes[x][y + 1], nodes[x][y], random);
+				}
+			}
+		}
+		return network;
+	}
+
+	private static void addLink(Network network, Node from, Node to, Random random) {
+		NetworkUtils.createAndAddLink(network, Id.createLinkId(from.getId() + "-" + to.getId()), from, to, 100,
+				5 + 10 * random.nextDouble(), 1000, 1);
+	}
+}
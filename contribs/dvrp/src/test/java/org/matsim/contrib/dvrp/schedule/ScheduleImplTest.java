@@ -0,0 +1,84 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2020 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.contrib.dvrp.schedule;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.Test;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.contrib.dvrp.fleet.DvrpVehicle;
+import org.matsim.contrib.dvrp.fleet.ImmutableDvrpVehicleSpecification;
+import org.matsim.core.network.NetworkUtils;
+
+public class ScheduleImplTest {
+	private final Network network = NetworkUtils.createNetwork();
+	private final Node nodeA = NetworkUtils.createAndAddNode(network, Id.createNodeId("A"), new Coord(0, 0));
+	private final Node nodeB = NetworkUtils.createAndAddNode(network, Id.createNodeId("B"), new Coord(100, 0));
+	private final Link link = NetworkUtils.createAndAddLink(network, Id.createLinkId("AB"), nodeA, nodeB, 100, 10,
+			1000, 1);
+
+	private final ScheduleImpl schedule = new ScheduleImpl(ImmutableDvrpVehicleSpecification.newBuilder()
+			.id(Id.create("v", DvrpVehicle.class))
+			.startLinkId(link.getId())
+			.capacity(1)
+			.serviceBeginTime(0)
+			.serviceEndTime(100)
+			.build());
+
+	@Test
+	public void testModificationCount() {
+		StayTaskImpl task0 = new StayTaskImpl(0, 10, link);
+		StayTaskImpl task1 = new StayTaskImpl(10, 20, link);
+
+		int count = schedule.getModificationCount();
+		schedule.addTask(task0);
+		count = assertModified(count);
+		schedule.addTask(task1);
+		count = assertModified(count);
+
+		task1.setEndTime(20);// unchanged
+		assertThat(schedule.getModificationCount()).isEqualTo(count);
+		task1.setEndTime(30);
+		count = assertModified(count);
+
+		schedule.nextTask();
+		count = assertModified(count);
+		task0.setEndTime(15);
+		count = assertModified(count);
+		task1.setBeginTime(15);
+		count = assertModified(count);
+
+		schedule.removeTask(task1);
+		count = assertModified(count);
+
+		// removed tasks no longer affect the schedule
+		task1.setEndTime(40);
+		assertThat(schedule.getModificationCount()).isEqualTo(count);
+	}
+
+	private int assertModified(int previousCount) {
+		assertThat(schedule.getModificationCount()).isGreaterThan(previousCount);
+		return schedule.getModificationCount();
+	}
+}
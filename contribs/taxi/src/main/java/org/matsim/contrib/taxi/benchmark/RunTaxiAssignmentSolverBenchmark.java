@@ -0,0 +1,111 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2020 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.contrib.taxi.benchmark;
+
+import java.net.URL;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.log4j.Logger;
+import org.matsim.contrib.dvrp.run.AbstractDvrpModeQSimModule;
+import org.matsim.contrib.dvrp.run.DvrpConfigGroup;
+import org.matsim.contrib.dvrp.run.DvrpModes;
+import org.matsim.contrib.taxi.optimizer.AbstractTaxiOptimizerParams;
+import org.matsim.contrib.taxi.optimizer.TaxiOptimizer;
+import org.matsim.contrib.taxi.optimizer.assignment.AssignmentTaxiOptimizer;
+import org.matsim.contrib.taxi.optimizer.assignment.AssignmentTaxiOptimizerParams;
+import org.matsim.contrib.taxi.optimizer.assignment.VehicleAssignmentProblem;
+import org.matsim.contrib.taxi.optimizer.assignment.VehicleAssignmentProblem.AssignmentSolver;
+import org.matsim.contrib.taxi.run.MultiModeTaxiConfigGroup;
+import org.matsim.contrib.taxi.run.TaxiConfigGroup;
+import org.matsim.core.config.Config;
+import org.matsim.core.config.ConfigUtils;
+import org.matsim.core.controler.Controler;
+import org.matsim.core.controler.OutputDirectoryHierarchy.OverwriteFileSetting;
+import org.matsim.core.mobsim.framework.listeners.MobsimInitializedListener;
+import org.matsim.core.utils.io.IOUtils;
+
+/**
+ * Runs a taxi benchmark (see {@link RunTaxiBenchmark}) with {@link AssignmentTaxiOptimizerParams} once for each
+ * {@link AssignmentSolver}, so that the computation times and the dispatching quality can be compared. The time spent
+ * in {@link VehicleAssignmentProblem#findAssignments} is accumulated per run and written, next to the dispatching
+ * quality, to the benchmark stats (see {@link TaxiAssignmentBenchmarkStats}) of each solver, which are stored in the
+ * output directory with the solver name appended. If the config does not contain assignment optimizer params, the
+ * default ones are used.
+ */
+public class RunTaxiAssignmentSolverBenchmark {
+	private static final Logger log = Logger.getLogger(RunTaxiAssignmentSolverBenchmark.class);
+
+	public static void run(URL configUrl, int runs) {
+		Map<AssignmentSolver, String[]> statsPerSolver = new LinkedHashMap<>();
+		for (AssignmentSolver solver : AssignmentSolver.values()) {
+			Config config = ConfigUtils.loadConfig(configUrl, new MultiModeTaxiConfigGroup(), new DvrpConfigGroup());
+			config.controler().setOverwriteFileSetting(OverwriteFileSetting.deleteDirectoryIfExists);
+			config.controler().setOutputDirectory(config.controler().getOutputDirectory() + "_" + solver);
+
+			TaxiConfigGroup taxiCfg = TaxiConfigGroup.getSingleModeTaxiConfig(config);
+			AbstractTaxiOptimizerParams optimizerParams = taxiCfg.getTaxiOptimizerParams();
+			AssignmentTaxiOptimizerParams assignmentParams;
+			if (optimizerParams instanceof AssignmentTaxiOptimizerParams) {
+				assignmentParams = (AssignmentTaxiOptimizerParams)optimizerParams;
+			} else {
+				if (optimizerParams != null) {
+					taxiCfg.removeParameterSet(optimizerParams);
+				}
+				assignmentParams = new AssignmentTaxiOptimizerParams();
+				taxiCfg.addParameterSet(assignmentParams);
+			}
+			assignmentParams.setAssignmentSolver(solver);
+
+			String mode = taxiCfg.getMode();
+			Controler controler = RunTaxiBenchmark.createControler(config, runs, TaxiAssignmentBenchmarkStats.class,
+					TaxiAssignmentBenchmarkStats::new);
+			controler.addOverridingQSimModule(new AbstractDvrpModeQSimModule(mode) {
+				@Override
+				protected void configureQSim() {
+					addModalQSimComponentBinding().toProvider(modalProvider(getter -> {
+						TaxiAssignmentBenchmarkStats stats = getter.getModal(TaxiAssignmentBenchmarkStats.class);
+						AssignmentTaxiOptimizer optimizer = (AssignmentTaxiOptimizer)getter.getModal(
+								TaxiOptimizer.class);
+						return (MobsimInitializedListener)e -> stats.optimizerCreated(optimizer);
+					}));
+				}
+			});
+			controler.run();
+
+			statsPerSolver.put(solver, controler.getInjector()
+					.getInstance(DvrpModes.key(TaxiAssignmentBenchmarkStats.class, mode))
+					.createAndInitLineBuilder()
+					.build());
+		}
+
+		String[] header = TaxiAssignmentBenchmarkStats.HEADER;
+		log.info("AssignmentSolver\t" + String.join("\t", Arrays.copyOfRange(header, 2, header.length)));
+		statsPerSolver.forEach((solver, stats) -> log.info(solver + "\t" + String.join("\t", stats)));
+	}
+
+	public static void main(String[] args) {
+		if (args.length != 2) {
+			throw new IllegalArgumentException("Usage: RunTaxiAssignmentSolverBenchmark <config> <runs>");
+		}
+		run(IOUtils.resolveFileOrResource(args[0]), Integer.parseInt(args[1]));
+	}
+}
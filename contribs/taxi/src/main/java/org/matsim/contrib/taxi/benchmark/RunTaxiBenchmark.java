@@ -20,6 +20,7 @@
 package org.matsim.contrib.taxi.benchmark;
 
 import java.net.URL;
+import java.util.function.Function;
 
 import org.matsim.api.core.v01.Scenario;
 import org.matsim.api.core.v01.network.Network;
@@ -60,6 +61,11 @@ public class RunTaxiBenchmark {
 	}
 
 	public static Controler createControler(Config config, int runs) {
+		return createControler(config, runs, TaxiBenchmarkStats.class, TaxiBenchmarkStats::new);
+	}
+
+	public static <S extends TaxiBenchmarkStats> Controler createControler(Config config, int runs,
+			Class<S> statsClass, Function<OutputDirectoryHierarchy, S> statsCreator) {
 		config.controler().setLastIteration(runs - 1);
 		config.controler().setDumpDataAtEnd(false);
 		config.controler().setWriteEventsInterval(0);
@@ -79,10 +85,10 @@ public class RunTaxiBenchmark {
 
 		controler.addOverridingModule(new MultiModeTaxiModule());
 
-		controler.addOverridingModule(QSimScopeObjectListenerModule.builder(TaxiBenchmarkStats.class)
+		controler.addOverridingModule(QSimScopeObjectListenerModule.builder(statsClass)
 				.mode(mode)
 				.objectClass(Fleet.class)
-				.listenerCreator(getter -> new TaxiBenchmarkStats(getter.get(OutputDirectoryHierarchy.class)))
+				.listenerCreator(getter -> statsCreator.apply(getter.get(OutputDirectoryHierarchy.class)))
 				.build());
 
 		return controler;
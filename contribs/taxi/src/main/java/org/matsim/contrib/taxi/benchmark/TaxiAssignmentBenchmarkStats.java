@@ -0,0 +1,65 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2020 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.contrib.taxi.benchmark;
+
+import org.apache.commons.math3.stat.descriptive.SummaryStatistics;
+import org.matsim.contrib.taxi.optimizer.assignment.AssignmentTaxiOptimizer;
+import org.matsim.contrib.taxi.optimizer.assignment.VehicleAssignmentProblem;
+import org.matsim.contrib.util.CSVLineBuilder;
+import org.matsim.core.controler.OutputDirectoryHierarchy;
+import org.matsim.core.controler.events.ShutdownEvent;
+import org.matsim.core.mobsim.framework.events.MobsimBeforeCleanupEvent;
+
+import com.google.common.collect.ObjectArrays;
+
+/**
+ * Extends {@link TaxiBenchmarkStats} with the time spent in {@link VehicleAssignmentProblem#findAssignments} per run [s].
+ */
+public class TaxiAssignmentBenchmarkStats extends TaxiBenchmarkStats {
+	public static final String[] HEADER = ObjectArrays.concat(TaxiBenchmarkStats.HEADER, "AssignmentTime_avg");
+
+	private final SummaryStatistics assignmentTime = new SummaryStatistics();
+
+	private AssignmentTaxiOptimizer optimizer;
+
+	public TaxiAssignmentBenchmarkStats(OutputDirectoryHierarchy controlerIO) {
+		super(controlerIO);
+	}
+
+	public void optimizerCreated(AssignmentTaxiOptimizer optimizer) {
+		this.optimizer = optimizer;
+	}
+
+	@Override
+	public void notifyMobsimBeforeCleanup(MobsimBeforeCleanupEvent e) {
+		super.notifyMobsimBeforeCleanup(e);
+		assignmentTime.addValue(optimizer.getAssignmentComputationTime());
+	}
+
+	@Override
+	public void notifyShutdown(ShutdownEvent event) {
+		writeFile("benchmark_stats.txt", HEADER);
+	}
+
+	@Override
+	protected CSVLineBuilder createAndInitLineBuilder() {
+		return super.createAndInitLineBuilder().addf("%.3f", assignmentTime.getMean());
+	}
+}
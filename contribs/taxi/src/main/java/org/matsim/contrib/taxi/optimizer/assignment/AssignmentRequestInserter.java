@@ -70,7 +70,7 @@ public class AssignmentRequestInserter implements UnplannedRequestInserter {
 		this.params = params;
 
 		assignmentProblem = new VehicleAssignmentProblem<>(travelTime, multiNodeRouter, backwardMultiNodeRouter, router,
-				params.getNearestRequestsLimit(), params.getNearestVehiclesLimit());
+				params.getNearestRequestsLimit(), params.getNearestVehiclesLimit(), params.getAssignmentSolver());
 
 		assignmentCostProvider = new TaxiToRequestAssignmentCostProvider(params);
 	}
@@ -96,6 +96,13 @@ public class AssignmentRequestInserter implements UnplannedRequestInserter {
 		}
 	}
 
+	/**
+	 * @return the total time spent in solving the assignment problems, in seconds
+	 */
+	public double getAssignmentComputationTime() {
+		return assignmentProblem.getComputationTime();
+	}
+
 	private VehicleData initVehicleData(AssignmentRequestData rData) {
 		long idleVehs = fleet.getVehicles().values().stream().filter(scheduler::isIdle).count();
 		double vehPlanningHorizon = idleVehs < rData.getUrgentReqCount() ?
@@ -33,6 +33,8 @@ import org.matsim.core.router.util.TravelTime;
  * @author michalm
  */
 public class AssignmentTaxiOptimizer extends DefaultTaxiOptimizer {
+	private final AssignmentRequestInserter requestInserter;
+
 	public AssignmentTaxiOptimizer(EventsManager eventsManager, TaxiConfigGroup taxiCfg, Fleet fleet, Network network,
 			MobsimTimer timer, TravelTime travelTime, TravelDisutility travelDisutility, TaxiScheduler scheduler) {
 		this(eventsManager, taxiCfg, fleet, scheduler,
@@ -43,5 +45,13 @@ public class AssignmentTaxiOptimizer extends DefaultTaxiOptimizer {
 	public AssignmentTaxiOptimizer(EventsManager eventsManager, TaxiConfigGroup taxiCfg, Fleet fleet,
 			TaxiScheduler scheduler, AssignmentRequestInserter requestInserter) {
 		super(eventsManager, taxiCfg, fleet, scheduler, requestInserter);
+		this.requestInserter = requestInserter;
+	}
+
+	/**
+	 * @return the total time spent in solving the assignment problems, in seconds
+	 */
+	public double getAssignmentComputationTime() {
+		return requestInserter.getAssignmentComputationTime();
 	}
 }
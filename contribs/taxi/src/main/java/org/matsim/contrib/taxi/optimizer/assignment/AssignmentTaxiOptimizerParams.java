@@ -26,6 +26,7 @@ import javax.validation.constraints.Positive;
 
 import org.matsim.contrib.taxi.optimizer.AbstractTaxiOptimizerParams;
 import org.matsim.contrib.taxi.optimizer.assignment.TaxiToRequestAssignmentCostProvider.Mode;
+import org.matsim.contrib.taxi.optimizer.assignment.VehicleAssignmentProblem.AssignmentSolver;
 import org.matsim.core.config.Config;
 
 public final class AssignmentTaxiOptimizerParams extends AbstractTaxiOptimizerParams {
@@ -88,6 +89,15 @@ public final class AssignmentTaxiOptimizerParams extends AbstractTaxiOptimizerPa
 	@Positive
 	private double nullPathCost = 48 * 3600;
 
+	public static final String ASSIGNMENT_SOLVER = "assignmentSolver";
+	static final String ASSIGNMENT_SOLVER_EXP = "Specifies the algorithm used to solve the assignment problem."
+			+ " HUNGARIAN solves the problem for the full cost matrix of all vehicle-request pairs in O(n^3) time."
+			+ " AUCTION considers only the pairs within 'nearestRequestsLimit' and 'nearestVehiclesLimit'"
+			+ " (pairs without a path are skipped), which makes it much faster for large fleets."
+			+ " The default value is HUNGARIAN.";
+	@NotNull
+	private AssignmentSolver assignmentSolver = AssignmentSolver.HUNGARIAN;
+
 	@Positive
 	private int reoptimizationTimeStep = 10;
 
@@ -114,6 +124,7 @@ public final class AssignmentTaxiOptimizerParams extends AbstractTaxiOptimizerPa
 		map.put(NEAREST_REQUESTS_LIMIT, NEAREST_REQUESTS_LIMIT_EXP);
 		map.put(NEAREST_VEHICLES_LIMIT, NEAREST_VEHICLES_LIMIT_EXP);
 		map.put(NULL_PATH_COST, NULL_PATH_COST_EXP);
+		map.put(ASSIGNMENT_SOLVER, ASSIGNMENT_SOLVER_EXP);
 		return map;
 	}
 
@@ -213,6 +224,22 @@ public final class AssignmentTaxiOptimizerParams extends AbstractTaxiOptimizerPa
 		this.nullPathCost = nullPathCost;
 	}
 
+	/**
+	 * @return {@value #ASSIGNMENT_SOLVER_EXP}
+	 */
+	@StringGetter(ASSIGNMENT_SOLVER)
+	public AssignmentSolver getAssignmentSolver() {
+		return assignmentSolver;
+	}
+
+	/**
+	 * @param assignmentSolver {@value #ASSIGNMENT_SOLVER_EXP}
+	 */
+	@StringSetter(ASSIGNMENT_SOLVER)
+	public void setAssignmentSolver(AssignmentSolver assignmentSolver) {
+		this.assignmentSolver = assignmentSolver;
+	}
+
 	@StringGetter(REOPTIMIZATION_TIME_STEP)
 	public int getReoptimizationTimeStep() {
 		return reoptimizationTimeStep;
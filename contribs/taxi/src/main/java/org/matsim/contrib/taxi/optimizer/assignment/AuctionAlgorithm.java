@@ -0,0 +1,195 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2020 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.contrib.taxi.optimizer.assignment;
+
+import java.util.Arrays;
+
+/**
+ * Auction algorithm with epsilon-scaling (D.P. Bertsekas: Auction Algorithms for Network Flow Problems: A Tutorial
+ * Introduction. Computational Optimization and Applications, 1992) for sparse assignment problems. Only the given
+ * (row, column) pairs may be assigned, so the running time depends on the number of these pairs rather than on the
+ * size of the full cost matrix.
+ * <p>
+ * Rows and columns may remain unassigned. The problem is extended with one dummy column per row and one dummy row per
+ * column, which makes it square and always feasible. The cost of leaving a row or column unassigned is chosen high
+ * enough, so that the number of assigned pairs is maximised first, and then their total cost is minimised. The
+ * computed assignment is optimal up to a total cost difference of 1.
+ */
+public class AuctionAlgorithm {
+	private static final double EPSILON_SCALING_FACTOR = 5;
+
+	private final int rowCount;
+	private final int colCount;
+	private final int[] rowStarts;
+	private final int[] cols;
+	private final double[] costs;
+
+	// the extended (square) problem: bidders are rows followed by dummy rows (one per column), objects are columns
+	// followed by dummy columns (one per row)
+	private final int size;
+	private final int[] bidderStarts;
+	private final int[] edgeObjects;
+	private final double[] edgeBenefits;
+
+	private final double[] prices;
+	private final int[] objectByBidder;
+	private final int[] bidderByObject;
+	private final int[] bidderQueue;
+
+	/**
+	 * @param rowCount    number of rows (e.g. vehicles)
+	 * @param colCount    number of columns (e.g. requests)
+	 * @param rowStarts   the pairs of row i are stored at indices rowStarts[i] (inclusive) to rowStarts[i + 1]
+	 *                    (exclusive) of cols and costs
+	 * @param cols        column of each pair
+	 * @param costs       cost of each pair
+	 */
+	public AuctionAlgorithm(int rowCount, int colCount, int[] rowStarts, int[] cols, double[] costs) {
+		this.rowCount = rowCount;
+		this.colCount = colCount;
+		this.rowStarts = rowStarts;
+		this.cols = cols;
+		this.costs = costs;
+
+		size = rowCount + colCount;
+		int pairCount = rowStarts[rowCount];
+		bidderStarts = new int[size + 1];
+		edgeObjects = new int[2 * pairCount + size];
+		edgeBenefits = new double[edgeObjects.length];
+
+		prices = new double[size];
+		objectByBidder = new int[size];
+		bidderByObject = new int[size];
+		bidderQueue = new int[size];
+	}
+
+	/**
+	 * @return the column assigned to each row, or -1 if the row remains unassigned
+	 */
+	public int[] execute() {
+		double maxAbsCost = 0;
+		for (int e = 0; e < rowStarts[rowCount]; e++) {
+			maxAbsCost = Math.max(maxAbsCost, Math.abs(costs[e]));
+		}
+		// any assignment of k + 1 pairs is cheaper than any assignment of k pairs
+		double unassignedCost = (2 * maxAbsCost + 1) * size;
+		buildExtendedProblem(unassignedCost);
+
+		double finalEpsilon = 1. / (size + 1);// n * epsilon < 1 ==> optimal up to a total cost difference of 1
+		double epsilon = Math.max(unassignedCost / EPSILON_SCALING_FACTOR, finalEpsilon);
+		Arrays.fill(prices, 0);
+		while (true) {
+			runAuction(epsilon);
+			if (epsilon == finalEpsilon) {
+				break;
+			}
+			epsilon = Math.max(epsilon / EPSILON_SCALING_FACTOR, finalEpsilon);
+		}
+
+		int[] assignments = new int[rowCount];
+		for (int r = 0; r < rowCount; r++) {
+			int c = objectByBidder[r];
+			assignments[r] = c < colCount ? c : -1;// dummy column means unassigned
+		}
+		return assignments;
+	}
+
+	private void buildExtendedProblem(double unassignedCost) {
+		int[] colDegrees = new int[colCount];
+		for (int e = 0; e < rowStarts[rowCount]; e++) {
+			colDegrees[cols[e]]++;
+		}
+
+		int e = 0;
+		for (int r = 0; r < rowCount; r++) {
+			bidderStarts[r] = e;
+			for (int i = rowStarts[r]; i < rowStarts[r + 1]; i++) {
+				edgeObjects[e] = cols[i];
+				edgeBenefits[e++] = -costs[i];
+			}
+			edgeObjects[e] = colCount + r;// leave the row unassigned
+			edgeBenefits[e++] = -unassignedCost;
+		}
+
+		// dummy row of column c: either leaves c unassigned or takes the dummy column of the row assigned to c
+		int[] nextEdges = new int[colCount];
+		for (int c = 0; c < colCount; c++) {
+			bidderStarts[rowCount + c] = e;
+			edgeObjects[e] = c;
+			edgeBenefits[e++] = -unassignedCost;
+			nextEdges[c] = e;
+			e += colDegrees[c];
+		}
+		bidderStarts[size] = e;
+
+		for (int r = 0; r < rowCount; r++) {
+			for (int i = rowStarts[r]; i < rowStarts[r + 1]; i++) {
+				int idx = nextEdges[cols[i]]++;
+				edgeObjects[idx] = colCount + r;
+				edgeBenefits[idx] = 0;
+			}
+		}
+	}
+
+	private void runAuction(double epsilon) {
+		Arrays.fill(objectByBidder, -1);
+		Arrays.fill(bidderByObject, -1);
+		for (int i = 0; i < size; i++) {
+			bidderQueue[i] = i;
+		}
+
+		// at most size bidders are unassigned at a time, so a ring buffer of this size is sufficient
+		int head = 0;
+		int queueSize = size;
+		while (queueSize > 0) {
+			int bidder = bidderQueue[head];
+			head = (head + 1) % size;
+			queueSize--;
+
+			int bestObject = -1;
+			double bestValue = Double.NEGATIVE_INFINITY;
+			double secondBestValue = Double.NEGATIVE_INFINITY;
+			for (int e = bidderStarts[bidder]; e < bidderStarts[bidder + 1]; e++) {
+				double value = edgeBenefits[e] - prices[edgeObjects[e]];
+				if (value > bestValue) {
+					secondBestValue = bestValue;
+					bestValue = value;
+					bestObject = edgeObjects[e];
+				} else if (value > secondBestValue) {
+					secondBestValue = value;
+				}
+			}
+
+			// objects of bidders with a single edge are not wanted by any other bidder
+			prices[bestObject] += secondBestValue == Double.NEGATIVE_INFINITY ?
+					epsilon :
+					bestValue - secondBestValue + epsilon;
+
+			int previousBidder = bidderByObject[bestObject];
+			bidderByObject[bestObject] = bidder;
+			objectByBidder[bidder] = bestObject;
+			if (previousBidder >= 0) {
+				objectByBidder[previousBidder] = -1;
+				bidderQueue[(head + queueSize) % size] = previousBidder;
+				queueSize++;
+			}
+		}
+	}
+}
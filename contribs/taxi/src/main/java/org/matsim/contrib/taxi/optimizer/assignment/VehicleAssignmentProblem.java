@@ -21,7 +21,9 @@ package org.matsim.contrib.taxi.optimizer.assignment;
 
 import java.lang.reflect.Array;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.function.BiFunction;
 
 import org.matsim.api.core.v01.network.Link;
 import org.matsim.contrib.dvrp.path.OneToManyPathSearch;
@@ -47,6 +49,15 @@ public class VehicleAssignmentProblem<D> {
 		double calc(VehicleData.Entry departure, DestEntry<D> dest, PathData pathData);
 	}
 
+	public enum AssignmentSolver {
+		HUNGARIAN, // dense cost matrix of all vehicle-destination pairs, O(n^3)
+		AUCTION; // only the pairs within the nearest vehicles/destinations limits
+	}
+
+	private interface PathDataConsumer {
+		void accept(int v, int d, PathData pathData);
+	}
+
 	private final TravelTime travelTime;
 	private final LeastCostPathCalculator router;
 
@@ -56,10 +67,14 @@ public class VehicleAssignmentProblem<D> {
 	private final StraightLineKnnFinder<VehicleData.Entry, DestEntry<D>> destinationFinder;
 	private final StraightLineKnnFinder<DestEntry<D>, VehicleData.Entry> vehicleFinder;
 
+	private final AssignmentSolver solver;
+
 	private AssignmentCost<D> assignmentCost;
 	private VehicleData vData;
 	private AssignmentDestinationData<D> dData;
 
+	private long computationTime = 0;// [ns]
+
 	public VehicleAssignmentProblem(TravelTime travelTime, MultiNodePathCalculator router,
 			BackwardMultiNodePathCalculator backwardRouter) {
 		// we do not need Euclidean router when there is not kNN filtering
@@ -69,8 +84,16 @@ public class VehicleAssignmentProblem<D> {
 	public VehicleAssignmentProblem(TravelTime travelTime, MultiNodePathCalculator multiNodeRouter,
 			BackwardMultiNodePathCalculator backwardMultiNodeRouter, LeastCostPathCalculator router,
 			int nearestDestinationLimit, int nearestVehicleLimit) {
+		this(travelTime, multiNodeRouter, backwardMultiNodeRouter, router, nearestDestinationLimit,
+				nearestVehicleLimit, AssignmentSolver.HUNGARIAN);
+	}
+
+	public VehicleAssignmentProblem(TravelTime travelTime, MultiNodePathCalculator multiNodeRouter,
+			BackwardMultiNodePathCalculator backwardMultiNodeRouter, LeastCostPathCalculator router,
+			int nearestDestinationLimit, int nearestVehicleLimit, AssignmentSolver solver) {
 		this.travelTime = travelTime;
 		this.router = router;
+		this.solver = solver;
 
 		forwardPathSearch = OneToManyPathSearch.create(multiNodeRouter);
 		backwardPathSearch = OneToManyPathSearch.create(backwardMultiNodeRouter);
@@ -90,10 +113,40 @@ public class VehicleAssignmentProblem<D> {
 		this.dData = dData;
 		this.assignmentCost = assignmentCost;
 
-		PathData[][] pathDataMatrix = createPathDataMatrix();
-		double[][] costMatrix = createCostMatrix(pathDataMatrix);
-		int[] assignments = new HungarianAlgorithm(costMatrix).execute();
-		return createDispatches(assignments, pathDataMatrix, travelTime);
+		long startTime = System.nanoTime();
+		try {
+			return solve();
+		} finally {
+			computationTime += System.nanoTime() - startTime;
+		}
+	}
+
+	/**
+	 * @return the total time spent in {@link #findAssignments}, in seconds
+	 */
+	public double getComputationTime() {
+		return computationTime / 1e9;
+	}
+
+	private List<Dispatch<D>> solve() {
+		switch (solver) {
+			case HUNGARIAN: {
+				PathData[][] pathDataMatrix = createPathDataMatrix();
+				double[][] costMatrix = createCostMatrix(pathDataMatrix);
+				int[] assignments = new HungarianAlgorithm(costMatrix).execute();
+				return createDispatches(assignments, (v, d) -> pathDataMatrix[v][d]);
+			}
+
+			case AUCTION: {
+				SparsePathData sparsePathData = createSparsePathData();
+				int[] assignments = new AuctionAlgorithm(vData.getSize(), dData.getSize(), sparsePathData.vehicleStarts,
+						sparsePathData.destinations, createCosts(sparsePathData)).execute();
+				return createDispatches(assignments, sparsePathData::getPathData);
+			}
+
+			default:
+				throw new IllegalStateException();
+		}
 	}
 
 	// private static int calcPathsForVehiclesCount = 0;
@@ -101,12 +154,13 @@ public class VehicleAssignmentProblem<D> {
 
 	private PathData[][] createPathDataMatrix() {
 		PathData[][] pathDataMatrix = (PathData[][])Array.newInstance(PathData.class, vData.getSize(), dData.getSize());
+		PathDataConsumer consumer = (v, d, pathData) -> pathDataMatrix[v][d] = pathData;
 
 		if (dData.getSize() > vData.getSize()) {
-			calcPathsForVehicles(pathDataMatrix);
+			calcPathsForVehicles(consumer);
 			// calcPathsForVehiclesCount++;
 		} else {
-			calcPathsForDestinations(pathDataMatrix);
+			calcPathsForDestinations(consumer);
 			// calcPathsForDestinationsCount++;
 		}
 
@@ -120,7 +174,7 @@ public class VehicleAssignmentProblem<D> {
 		return pathDataMatrix;
 	}
 
-	private void calcPathsForVehicles(PathData[][] pathDataMatrix) {
+	private void calcPathsForVehicles(PathDataConsumer consumer) {
 		for (int v = 0; v < vData.getSize(); v++) {
 			VehicleData.Entry departure = vData.getEntry(v);
 
@@ -131,14 +185,13 @@ public class VehicleAssignmentProblem<D> {
 			PathData[] paths = forwardPathSearch.calcPathDataArray(departure.link, toLinks, departure.time);
 
 			for (int i = 0; i < filteredDests.size(); i++) {
-				int d = filteredDests.get(i).idx;
-				pathDataMatrix[v][d] = paths[i];
+				consumer.accept(v, filteredDests.get(i).idx, paths[i]);
 			}
 		}
 	}
 
 	// TODO does not support adv reqs
-	private void calcPathsForDestinations(PathData[][] pathDataMatrix) {
+	private void calcPathsForDestinations(PathDataConsumer consumer) {
 		for (int d = 0; d < dData.getSize(); d++) {
 			DestEntry<D> dest = dData.getEntry(d);
 
@@ -149,8 +202,7 @@ public class VehicleAssignmentProblem<D> {
 			PathData[] paths = backwardPathSearch.calcPathDataArray(dest.link, toLinks, dest.time);
 
 			for (int i = 0; i < filteredVehs.size(); i++) {
-				int v = filteredVehs.get(i).idx;
-				pathDataMatrix[v][d] = paths[i];
+				consumer.accept(filteredVehs.get(i).idx, d, paths[i]);
 			}
 		}
 	}
@@ -169,7 +221,77 @@ public class VehicleAssignmentProblem<D> {
 		return costMatrix;
 	}
 
-	private List<Dispatch<D>> createDispatches(int[] assignments, PathData[][] pathDataMatrix, TravelTime travelTime) {
+	/**
+	 * Path data of the vehicle-destination pairs within the nearest vehicles/destinations limits. The pairs of vehicle
+	 * v are stored at indices vehicleStarts[v] (inclusive) to vehicleStarts[v + 1] (exclusive).
+	 */
+	private static class SparsePathData {
+		private final int[] vehicleStarts;
+		private final int[] destinations;
+		private final PathData[] pathData;
+
+		private SparsePathData(int[] vehicleStarts, int[] destinations, PathData[] pathData) {
+			this.vehicleStarts = vehicleStarts;
+			this.destinations = destinations;
+			this.pathData = pathData;
+		}
+
+		private PathData getPathData(int v, int d) {
+			for (int i = vehicleStarts[v]; i < vehicleStarts[v + 1]; i++) {
+				if (destinations[i] == d) {
+					return pathData[i];
+				}
+			}
+			return null;
+		}
+	}
+
+	private SparsePathData createSparsePathData() {
+		List<int[]> pairs = new ArrayList<>();
+		List<PathData> pairPathData = new ArrayList<>();
+		int[] vehicleStarts = new int[vData.getSize() + 1];
+		PathDataConsumer consumer = (v, d, pathData) -> {
+			if (pathData != null) {// skip unreachable destinations
+				pairs.add(new int[] { v, d });
+				pairPathData.add(pathData);
+				vehicleStarts[v + 1]++;
+			}
+		};
+
+		if (dData.getSize() > vData.getSize()) {
+			calcPathsForVehicles(consumer);
+		} else {
+			calcPathsForDestinations(consumer);
+		}
+
+		for (int v = 0; v < vData.getSize(); v++) {
+			vehicleStarts[v + 1] += vehicleStarts[v];
+		}
+		int[] nextIndices = Arrays.copyOf(vehicleStarts, vData.getSize());
+		int[] destinations = new int[pairs.size()];
+		PathData[] pathData = new PathData[pairs.size()];
+		for (int i = 0; i < pairs.size(); i++) {
+			int idx = nextIndices[pairs.get(i)[0]]++;
+			destinations[idx] = pairs.get(i)[1];
+			pathData[idx] = pairPathData.get(i);
+		}
+		return new SparsePathData(vehicleStarts, destinations, pathData);
+	}
+
+	private double[] createCosts(SparsePathData sparsePathData) {
+		double[] costs = new double[sparsePathData.destinations.length];
+		for (int v = 0; v < vData.getSize(); v++) {
+			VehicleData.Entry departure = vData.getEntry(v);
+			for (int i = sparsePathData.vehicleStarts[v]; i < sparsePathData.vehicleStarts[v + 1]; i++) {
+				costs[i] = assignmentCost.calc(departure, dData.getEntry(sparsePathData.destinations[i]),
+						sparsePathData.pathData[i]);
+			}
+		}
+		return costs;
+	}
+
+	private List<Dispatch<D>> createDispatches(int[] assignments,
+			BiFunction<Integer, Integer, PathData> pathDataGetter) {
 		List<Dispatch<D>> dispatches = new ArrayList<>(Math.min(vData.getSize(), dData.getSize()));
 		for (int v = 0; v < assignments.length; v++) {
 			int d = assignments[v];
@@ -180,7 +302,7 @@ public class VehicleAssignmentProblem<D> {
 
 			VehicleData.Entry departure = vData.getEntry(v);
 			DestEntry<D> dest = dData.getEntry(d);
-			PathData pathData = pathDataMatrix[v][d];
+			PathData pathData = pathDataGetter.apply(v, d);
 
 			// TODO if null is frequent we may be more efficient by increasing the neighbourhood
 			VrpPathWithTravelData vrpPath = pathData == null ?
@@ -26,6 +26,7 @@ import java.util.List;
 import org.junit.Rule;
 import org.junit.Test;
 import org.matsim.contrib.taxi.optimizer.assignment.TaxiToRequestAssignmentCostProvider.Mode;
+import org.matsim.contrib.taxi.optimizer.assignment.VehicleAssignmentProblem.AssignmentSolver;
 import org.matsim.testcases.MatsimTestUtils;
 
 public class AssignmentTaxiOptimizerIT {
@@ -59,5 +60,9 @@ public class AssignmentTaxiOptimizerIT {
 		params.setMode(Mode.TOTAL_WAIT_TIME);
 		params.setNullPathCost(300);
 		runBenchmark(variants, params, benchmark, utils.getOutputDirectory() + "_D");
+
+		params.setMode(Mode.ARRIVAL_TIME);
+		params.setAssignmentSolver(AssignmentSolver.AUCTION);
+		runBenchmark(variants, params, benchmark, utils.getOutputDirectory() + "_E");
 	}
 }
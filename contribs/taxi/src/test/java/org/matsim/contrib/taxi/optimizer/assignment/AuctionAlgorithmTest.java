@@ -0,0 +1,116 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2020 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.contrib.taxi.optimizer.assignment;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+public class AuctionAlgorithmTest {
+	// cost of pairs not passed to the auction algorithm; high enough to maximise the number of assigned pairs first
+	private static final double MISSING_PAIR_COST = 1e9;
+
+	@Test
+	public void testDenseProblems() {
+		Random random = new Random(4711);
+		for (int i = 0; i < 20; i++) {
+			assertSameAsHungarianAlgorithm(1 + random.nextInt(30), 1 + random.nextInt(30), 1, random);
+		}
+	}
+
+	@Test
+	public void testSparseProblems() {
+		Random random = new Random(4711);
+		for (int i = 0; i < 20; i++) {
+			assertSameAsHungarianAlgorithm(1 + random.nextInt(30), 1 + random.nextInt(30), 0.2, random);
+		}
+	}
+
+	@Test
+	public void testNoPairs() {
+		int[] assignments = new AuctionAlgorithm(3, 2, new int[4], new int[0], new double[0]).execute();
+		assertThat(assignments).containsExactly(-1, -1, -1);
+	}
+
+	private void assertSameAsHungarianAlgorithm(int rowCount, int colCount, double pairProbability, Random random) {
+		double[][] costMatrix = new double[rowCount][colCount];
+		int[] rowStarts = new int[rowCount + 1];
+		int[] cols = new int[rowCount * colCount];
+		double[] costs = new double[rowCount * colCount];
+		int pairCount = 0;
+		for (int r = 0; r < rowCount; r++) {
+			rowStarts[r] = pairCount;
+			for (int c = 0; c < colCount; c++) {
+				if (random.nextDouble() < pairProbability) {
+					costMatrix[r][c] = 7200 * random.nextDouble();
+					cols[pairCount] = c;
+					costs[pairCount++] = costMatrix[r][c];
+				} else {
+					costMatrix[r][c] = MISSING_PAIR_COST;
+				}
+			}
+		}
+		rowStarts[rowCount] = pairCount;
+
+		int[] expected = new HungarianAlgorithm(costMatrix).execute();
+		int[] actual = new AuctionAlgorithm(rowCount, colCount, rowStarts, cols, costs).execute();
+
+		Set<Integer> assignedCols = new HashSet<>();
+		for (int r = 0; r < rowCount; r++) {
+			if (actual[r] >= 0) {
+				assertThat(costMatrix[r][actual[r]]).isLessThan(MISSING_PAIR_COST);
+				assertThat(assignedCols.add(actual[r])).isTrue();
+			}
+		}
+
+		int[] expectedWithoutMissingPairs = Arrays.stream(Arrays.copyOf(expected, rowCount))
+				.map(c -> c >= 0 && c < colCount ? c : -1)
+				.toArray();
+		for (int r = 0; r < rowCount; r++) {
+			int c = expectedWithoutMissingPairs[r];
+			if (c >= 0 && costMatrix[r][c] == MISSING_PAIR_COST) {
+				expectedWithoutMissingPairs[r] = -1;
+			}
+		}
+
+		assertThat(countAssigned(actual)).isEqualTo(countAssigned(expectedWithoutMissingPairs));
+		assertThat(calcTotalCost(actual, costMatrix)).isLessThan(
+				calcTotalCost(expectedWithoutMissingPairs, costMatrix) + 1);
+	}
+
+	private static long countAssigned(int[] assignments) {
+		return Arrays.stream(assignments).filter(c -> c >= 0).count();
+	}
+
+	private static double calcTotalCost(int[] assignments, double[][] costMatrix) {
+		double totalCost = 0;
+		for (int r = 0; r < assignments.length; r++) {
+			if (assignments[r] >= 0) {
+				totalCost += costMatrix[r][assignments[r]];
+			}
+		}
+		return totalCost;
+	}
+}
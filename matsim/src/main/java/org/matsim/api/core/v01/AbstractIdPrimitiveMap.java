@@ -0,0 +1,121 @@
+package org.matsim.api.core.v01;
+
+import java.util.BitSet;
+
+/**
+ * Common part of {@link IdDoubleMap} and {@link IdIntMap}: keeps track of the stored keys
+ * and the size, while the subclasses store the primitive values in an array indexed by
+ * {@link Id#index()}.
+ */
+abstract class AbstractIdPrimitiveMap<T> {
+
+	final Class<T> idClass;
+	private final BitSet keys;
+	private int size = 0;
+
+	AbstractIdPrimitiveMap(Class<T> idClass, int size) {
+		this.idClass = idClass;
+		this.keys = new BitSet(size);
+	}
+
+	public int size() {
+		return this.size;
+	}
+
+	public boolean isEmpty() {
+		return this.size == 0;
+	}
+
+	public boolean containsKey(Id<T> key) {
+		return this.keys.get(key.index());
+	}
+
+	public void clear() {
+		this.size = 0;
+		this.keys.clear();
+		clearValues();
+	}
+
+	/**
+	 * @return a new set containing the keys of this map.
+	 */
+	public IdSet<T> keySet() {
+		IdSet<T> set = new IdSet<>(this.idClass, capacity());
+		for (int idx = nextKey(0); idx >= 0; idx = nextKey(idx + 1)) {
+			set.add(Id.get(idx, this.idClass));
+		}
+		return set;
+	}
+
+	final boolean containsIndex(int idx) {
+		return this.keys.get(idx);
+	}
+
+	/**
+	 * @return the smallest index of a stored key that is <code>&gt;= fromIdx</code>, or -1 if there is none.
+	 */
+	final int nextKey(int fromIdx) {
+		return this.keys.nextSetBit(fromIdx);
+	}
+
+	/**
+	 * Marks the key with the given index as stored.
+	 */
+	final void addIndex(int idx) {
+		if (!this.keys.get(idx)) {
+			this.keys.set(idx);
+			this.size++;
+		}
+	}
+
+	/**
+	 * Marks the key with the given index as not stored.
+	 *
+	 * @return <code>true</code> if the key was stored before.
+	 */
+	final boolean removeIndex(int idx) {
+		if (this.keys.get(idx)) {
+			this.keys.clear(idx);
+			this.size--;
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Makes sure that a value can be stored for the key with the given index.
+	 */
+	final void ensureCapacity(int idx) {
+		int oldLength = capacity();
+		if (idx >= oldLength) {
+			grow(Math.max(idx + 100, oldLength + (oldLength >> 1)));
+		}
+	}
+
+	abstract int capacity();
+
+	/**
+	 * Enlarges the value array to <code>newLength</code> and fills the new slots with the no-entry value.
+	 */
+	abstract void grow(int newLength);
+
+	/**
+	 * Sets all values to the no-entry value.
+	 */
+	abstract void clearValues();
+
+	abstract void appendValue(StringBuilder str, int idx);
+
+	@Override
+	public String toString() {
+		StringBuilder str = new StringBuilder("{");
+		for (int idx = nextKey(0); idx >= 0; idx = nextKey(idx + 1)) {
+			if (str.length() > 1) {
+				str.append(", ");
+			}
+			str.append(Id.get(idx, this.idClass)).append('=');
+			appendValue(str, idx);
+		}
+		return str.append('}').toString();
+	}
+}
@@ -26,7 +26,7 @@ import org.matsim.api.core.v01.population.Person;
 import org.matsim.core.gbl.Gbl;
 import org.matsim.vehicles.Vehicle;
 
-import java.util.Collections;
+import java.util.Arrays;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -41,8 +41,71 @@ import java.util.concurrent.ConcurrentHashMap;
  */
 public abstract class Id<T> implements Comparable<Id<T>> {
 
-	private final static Map<Class<?>, Map<String, Id<?>>> cacheId = new ConcurrentHashMap<>();
-	private final static Map<Class<?>, Map<Integer, Id<?>>> cacheIndex = new ConcurrentHashMap<>();
+	private final static Map<Class<?>, IdCache> caches = new ConcurrentHashMap<>();
+
+	/**
+	 * Holds all ids of one type. Ids are looked up by their string without locking. New ids are
+	 * created while holding the lock of the cache, so every id gets a unique index and the indices
+	 * of one type are dense (0 .. n-1), even when ids are created by multiple threads in parallel.
+	 * The index-to-id mapping is a plain array instead of a second map, which saves a map entry and
+	 * a boxed Integer per id.
+	 */
+	private static final class IdCache {
+		private final Map<String, Id<?>> byKey;
+		private volatile Id<?>[] byIndex;
+		private volatile int count = 0;
+
+		IdCache(int initialCapacity) {
+			this.byKey = new ConcurrentHashMap<>(initialCapacity);
+			this.byIndex = new Id<?>[initialCapacity];
+		}
+
+		Id<?> get(String key) {
+			return this.byKey.get(key);
+		}
+
+		Id<?> get(int index) {
+			Id<?>[] ids = this.byIndex;
+			if (index >= 0 && index < ids.length) {
+				return ids[index];
+			}
+			return null;
+		}
+
+		Id<?> getOrCreate(String key) {
+			Id<?> id = this.byKey.get(key);
+			if (id == null) {
+				synchronized (this) {
+					id = this.byKey.get(key);
+					if (id == null) {
+						int index = this.count;
+						ensureCapacity(index + 1);
+						id = new IdImpl<>(key, index);
+						this.byIndex[index] = id;
+						this.count = index + 1;
+						// publish the id by its key last, so whoever finds it can also find it by its index
+						this.byKey.put(key, id);
+					}
+				}
+			}
+			return id;
+		}
+
+		// only called while holding the lock of the cache
+		private void ensureCapacity(int capacity) {
+			if (capacity > this.byIndex.length) {
+				this.byIndex = Arrays.copyOf(this.byIndex, Math.max(capacity, this.byIndex.length + (this.byIndex.length >> 1)));
+			}
+		}
+
+		int size() {
+			return this.count;
+		}
+	}
+
+	private static IdCache getCache(final Class<?> type) {
+		return caches.computeIfAbsent(type, k -> new IdCache(1000));
+	}
 
 	public static <T> Id<T> create(final long key, final Class<T> type) {
 		return create(Long.toString(key), type);
@@ -56,50 +119,51 @@ public abstract class Id<T> implements Comparable<Id<T>> {
 	}
 	
 	/**
-	 * This method supports a cache where ids are stored and re-used per type.   
+	 * This method supports a cache where ids are stored and re-used per type.
+	 * It is safe to call this method from multiple threads in parallel.
 	 */
 	public static <T> Id<T> create(final String key, final Class<T> type) {
 		Gbl.assertNotNull(key);
-
-		Map<String, Id<?>> mapId = cacheId.computeIfAbsent(type, k -> new ConcurrentHashMap<>(1000));
-		Map<Integer, Id<?>> mapIndex = cacheIndex.computeIfAbsent(type, k -> new ConcurrentHashMap<>(1000));
-
-		Id<?> id = mapId.get(key);
-
-		if (id == null) {
-			int index = mapIndex.size(); // TODO - this is not thread safe
-			id = new IdImpl<T>(key, index);
-			mapId.put(key, id);
-			mapIndex.put(index, id);
-		}
-
-		return (Id<T>) id;
+		return (Id<T>) getCache(type).getOrCreate(key);
 	}
 
 	public abstract int index();
 
 	public static <T> Id<T> get(int index, final Class<T> type) {
-		Map<Integer, Id<?>> mapIndex = cacheIndex.get(type);
+		IdCache cache = caches.get(type);
 
-		if (mapIndex == null) {
+		if (cache == null) {
 			return null;
 		}
 
-		return (Id<T>)mapIndex.get(index);
+		return (Id<T>) cache.get(index);
 	}
 
 	public static <T> Id<T> get(String id, final Class<T> type) {
-		Map<String, Id<?>> mapId = cacheId.get(type);
+		IdCache cache = caches.get(type);
 
-		if (mapId == null) {
+		if (cache == null) {
 			return null;
 		}
 
-		return (Id<T>)mapId.get(id);
+		return (Id<T>) cache.get(id);
 	}
 
 	public static <T> int getNumberOfIds(final Class<T> type) {
-		return cacheIndex.getOrDefault(type, Collections.emptyMap()).size();
+		IdCache cache = caches.get(type);
+		return cache == null ? 0 : cache.size();
+	}
+
+	/**
+	 * Reserves space for <code>expectedNumberOfIds</code> ids of the given type in total, e.g. when a reader knows
+	 * the number of links or persons it is going to create. This avoids repeatedly growing the internal index of
+	 * the id cache.
+	 */
+	public static <T> void ensureCapacity(final Class<T> type, final int expectedNumberOfIds) {
+		IdCache cache = getCache(type);
+		synchronized (cache) {
+			cache.ensureCapacity(expectedNumberOfIds);
+		}
 	}
 	
 	/**
@@ -0,0 +1,130 @@
+package org.matsim.api.core.v01;
+
+import java.util.Arrays;
+
+/**
+ * A map from {@link Id}s to primitive <code>int</code> values, backed by an array
+ * indexed by {@link Id#index()}. Like {@link IdMap}, all keys must be of the same
+ * id type. In contrast to a <code>Map&lt;Id&lt;T&gt;, Integer&gt;</code>, no value gets
+ * boxed and a lookup is a plain array access.
+ * <p></p>
+ * Missing keys are reported as <code>noEntryValue</code> (<code>0</code>
+ * by default), use {@link #containsKey(Id)} to distinguish missing keys from stored values.
+ */
+public class IdIntMap<T> extends AbstractIdPrimitiveMap<T> {
+
+	@FunctionalInterface
+	public interface IdIntConsumer<T> {
+		void accept(Id<T> id, int value);
+	}
+
+	private final int noEntryValue;
+	private int[] data;
+
+	public IdIntMap(Class<T> idClass) {
+		this(idClass, Math.max(Id.getNumberOfIds(idClass), 100));
+	}
+
+	public IdIntMap(Class<T> idClass, int size) {
+		this(idClass, size, 0);
+	}
+
+	public IdIntMap(Class<T> idClass, int size, int noEntryValue) {
+		super(idClass, size);
+		this.noEntryValue = noEntryValue;
+		this.data = new int[size];
+		if (noEntryValue != 0) {
+			Arrays.fill(this.data, noEntryValue);
+		}
+	}
+
+	public int getNoEntryValue() {
+		return this.noEntryValue;
+	}
+
+	/**
+	 * @return the value stored for <code>key</code>, or <code>noEntryValue</code> if there is none.
+	 */
+	public int get(Id<T> key) {
+		int idx = key.index();
+		if (idx < this.data.length) {
+			return this.data[idx];
+		}
+		return this.noEntryValue;
+	}
+
+	public int getOrDefault(Id<T> key, int defaultValue) {
+		int idx = key.index();
+		return containsIndex(idx) ? this.data[idx] : defaultValue;
+	}
+
+	/**
+	 * @return the previously stored value, or <code>noEntryValue</code> if there was none.
+	 */
+	public int put(Id<T> key, int value) {
+		int idx = key.index();
+		ensureCapacity(idx);
+		int oldValue = this.data[idx];
+		this.data[idx] = value;
+		addIndex(idx);
+		return oldValue;
+	}
+
+	/**
+	 * Adds <code>amount</code> to the value stored for <code>key</code>. If there is no value stored yet,
+	 * <code>amount</code> is stored.
+	 *
+	 * @return the new value
+	 */
+	public int add(Id<T> key, int amount) {
+		int idx = key.index();
+		ensureCapacity(idx);
+		int value = containsIndex(idx) ? this.data[idx] + amount : amount;
+		this.data[idx] = value;
+		addIndex(idx);
+		return value;
+	}
+
+	/**
+	 * @return the removed value, or <code>noEntryValue</code> if there was none.
+	 */
+	public int remove(Id<T> key) {
+		int idx = key.index();
+		if (removeIndex(idx)) {
+			int oldValue = this.data[idx];
+			this.data[idx] = this.noEntryValue;
+			return oldValue;
+		}
+		return this.noEntryValue;
+	}
+
+	public void forEach(IdIntConsumer<T> action) {
+		for (int idx = nextKey(0); idx >= 0; idx = nextKey(idx + 1)) {
+			action.accept(Id.get(idx, this.idClass), this.data[idx]);
+		}
+	}
+
+	@Override
+	int capacity() {
+		return this.data.length;
+	}
+
+	@Override
+	void grow(int newLength) {
+		int oldLength = this.data.length;
+		this.data = Arrays.copyOf(this.data, newLength);
+		if (this.noEntryValue != 0) {
+			Arrays.fill(this.data, oldLength, newLength, this.noEntryValue);
+		}
+	}
+
+	@Override
+	void clearValues() {
+		Arrays.fill(this.data, this.noEntryValue);
+	}
+
+	@Override
+	void appendValue(StringBuilder str, int idx) {
+		str.append(this.data[idx]);
+	}
+}
@@ -131,6 +131,12 @@ public class IdMap<T, V> implements Map<Id<T>, V>, Iterable<V> {
 		return null;
 	}
 
+	@Override
+	public V getOrDefault(Object key, V defaultValue) {
+		V value = get(key);
+		return value == null ? defaultValue : value;
+	}
+
 	@Override
 	public V put(Id<T> key, V value) {
 		return this.put(key.index(), value);
@@ -151,7 +157,9 @@ public class IdMap<T, V> implements Map<Id<T>, V>, Iterable<V> {
 
 	private void ensureCapacity(int index) {
 		if (index >= this.data.length) {
-			Object[] tmp = new Object[index + 100];
+			// grow by at least 50% so filling a map id by id is not quadratic
+			int newLength = Math.max(index + 100, this.data.length + (this.data.length >> 1));
+			Object[] tmp = new Object[newLength];
 			System.arraycopy(this.data, 0, tmp, 0, this.data.length);
 			this.data = tmp;
 		}
@@ -208,6 +216,56 @@ public class IdMap<T, V> implements Map<Id<T>, V>, Iterable<V> {
 		return new DataIterator<>(this);
 	}
 
+	@Override
+	public boolean equals(Object o) {
+		if (o == this) {
+			return true;
+		}
+		if (!(o instanceof Map)) {
+			return false;
+		}
+		Map<?, ?> m = (Map<?, ?>) o;
+		if (m.size() != this.size) {
+			return false;
+		}
+		for (int i = 0; i < this.data.length; i++) {
+			Object value = this.data[i];
+			if (value != null && !value.equals(m.get(Id.get(i, this.idClass)))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public int hashCode() {
+		int hashCode = 0;
+		for (int i = 0; i < this.data.length; i++) {
+			Object value = this.data[i];
+			if (value != null) {
+				hashCode += Id.get(i, this.idClass).hashCode() ^ value.hashCode();
+			}
+		}
+		return hashCode;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder str = new StringBuilder("{");
+		boolean first = true;
+		for (int i = 0; i < this.data.length; i++) {
+			Object value = this.data[i];
+			if (value != null) {
+				if (!first) {
+					str.append(", ");
+				}
+				str.append(Id.get(i, this.idClass)).append('=').append(value);
+				first = false;
+			}
+		}
+		return str.append('}').toString();
+	}
+
 	private static class DataCollection<K, V> implements Collection<V> {
 
 		private final IdMap<K, V> map;
@@ -322,7 +380,7 @@ public class IdMap<T, V> implements Map<Id<T>, V>, Iterable<V> {
 			Object[] data = this.map.data;
 			for (int i = 0; i < data.length; i++) {
 				Object v = data[i];
-				if (!set.contains(v)) {
+				if (v != null && !set.contains(v)) {
 					this.map.data[i] = null;
 					this.map.size--;
 					changed = true;
@@ -383,16 +441,19 @@ public class IdMap<T, V> implements Map<Id<T>, V>, Iterable<V> {
 		}
 	}
 
-	private static class IdIterator<T, D> implements Iterator<Id<T>> {
+	private static class IdIterator<T, V> implements Iterator<Id<T>> {
 
-		private final D[] data;
+		private final IdMap<T, V> map;
+		private final Object[] data;
 		private final Class<T> idClass;
 		private int index = 0;
 		private Id<T> next;
+		private Id<T> current;
 
-		IdIterator(D[] data, Class<T> idClass) {
-			this.data = data;
-			this.idClass = idClass;
+		IdIterator(IdMap<T, V> map) {
+			this.map = map;
+			this.data = map.data;
+			this.idClass = map.idClass;
 			findNext();
 		}
 
@@ -413,9 +474,21 @@ public class IdMap<T, V> implements Map<Id<T>, V>, Iterable<V> {
 
 		@Override
 		public Id<T> next() {
-			Id<T> tmp = this.next;
+			if (this.next == null) {
+				throw new NoSuchElementException();
+			}
+			this.current = this.next;
 			findNext();
-			return tmp;
+			return this.current;
+		}
+
+		@Override
+		public void remove() {
+			if (this.current == null) {
+				throw new IllegalStateException();
+			}
+			this.map.remove(this.current.index());
+			this.current = null;
 		}
 	}
 
@@ -444,7 +517,7 @@ public class IdMap<T, V> implements Map<Id<T>, V>, Iterable<V> {
 
 		@Override
 		public Iterator<Id<T>> iterator() {
-			return new IdIterator<>(this.map.data, this.map.idClass);
+			return new IdIterator<>(this.map);
 		}
 
 		@Override
@@ -486,7 +559,33 @@ public class IdMap<T, V> implements Map<Id<T>, V>, Iterable<V> {
 
 		@Override
 		public boolean containsAll(Collection<?> c) {
-			return false;
+			for (Object o : c) {
+				if (!this.map.containsKey(o)) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (o == this) {
+				return true;
+			}
+			if (!(o instanceof Set)) {
+				return false;
+			}
+			Set<?> set = (Set<?>) o;
+			return set.size() == this.size() && containsAll(set);
+		}
+
+		@Override
+		public int hashCode() {
+			int hashCode = 0;
+			for (Id<T> id : this) {
+				hashCode += id.hashCode();
+			}
+			return hashCode;
 		}
 
 		@Override
@@ -565,8 +664,9 @@ public class IdMap<T, V> implements Map<Id<T>, V>, Iterable<V> {
 		@Override
 		public boolean contains(Object o) {
 			if (o instanceof Map.Entry) {
-				Map.Entry e = (Entry) o;
-				return e.getValue().equals(this.map.get(e.getKey()));
+				Map.Entry e = (Map.Entry) o;
+				Object value = e.getValue();
+				return value != null && value.equals(this.map.get(e.getKey()));
 			}
 			return false;
 		}
@@ -611,7 +711,7 @@ public class IdMap<T, V> implements Map<Id<T>, V>, Iterable<V> {
 		@Override
 		public boolean remove(Object o) {
 			if (o instanceof Map.Entry) {
-				Map.Entry e = (Entry) o;
+				Map.Entry e = (Map.Entry) o;
 				Object k = e.getKey();
 				if (k instanceof Id) {
 					Id id = (Id) k;
@@ -628,7 +728,12 @@ public class IdMap<T, V> implements Map<Id<T>, V>, Iterable<V> {
 
 		@Override
 		public boolean containsAll(Collection<?> c) {
-			throw new UnsupportedOperationException();
+			for (Object o : c) {
+				if (!contains(o)) {
+					return false;
+				}
+			}
+			return true;
 		}
 
 		@Override
@@ -636,14 +741,43 @@ public class IdMap<T, V> implements Map<Id<T>, V>, Iterable<V> {
 			throw new UnsupportedOperationException();
 		}
 
+		@Override
+		public boolean equals(Object o) {
+			if (o == this) {
+				return true;
+			}
+			if (!(o instanceof Set)) {
+				return false;
+			}
+			Set<?> set = (Set<?>) o;
+			return set.size() == this.size() && containsAll(set);
+		}
+
+		@Override
+		public int hashCode() {
+			return this.map.hashCode();
+		}
+
 		@Override
 		public boolean retainAll(Collection<?> c) {
-			throw new UnsupportedOperationException();
+			boolean changed = false;
+			Iterator<Map.Entry<Id<T>, V>> iter = iterator();
+			while (iter.hasNext()) {
+				if (!c.contains(iter.next())) {
+					iter.remove();
+					changed = true;
+				}
+			}
+			return changed;
 		}
 
 		@Override
 		public boolean removeAll(Collection<?> c) {
-			throw new UnsupportedOperationException();
+			boolean changed = false;
+			for (Object o : c) {
+				changed = this.remove(o) | changed;
+			}
+			return changed;
 		}
 
 		@Override
@@ -682,16 +816,21 @@ public class IdMap<T, V> implements Map<Id<T>, V>, Iterable<V> {
 		@Override
 		public boolean equals(Object o) {
 			if (this == o) return true;
-			if (o == null || getClass() != o.getClass()) return false;
-			Entry<?, ?> entry = (Entry<?, ?>) o;
-			return this.index == entry.index &&
-					this.map.equals(entry.map) &&
-					this.value.equals(entry.value);
+			if (!(o instanceof Map.Entry)) return false;
+			Map.Entry<?, ?> entry = (Map.Entry<?, ?>) o;
+			return Objects.equals(getKey(), entry.getKey()) &&
+					Objects.equals(this.value, entry.getValue());
 		}
 
 		@Override
 		public int hashCode() {
-			return Objects.hash(this.map, this.value, this.index);
+			// as defined by Map.Entry
+			return Objects.hashCode(getKey()) ^ Objects.hashCode(this.value);
+		}
+
+		@Override
+		public String toString() {
+			return getKey() + "=" + this.value;
 		}
 	}
 
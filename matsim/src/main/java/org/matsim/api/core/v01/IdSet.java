@@ -219,6 +219,41 @@ public class IdSet<T> implements Set<Id<T>> {
 		this.data.clear();
 	}
 
+	@Override
+	public boolean equals(Object o) {
+		if (o == this) {
+			return true;
+		}
+		if (!(o instanceof Set)) {
+			return false;
+		}
+		Set<?> set = (Set<?>) o;
+		return set.size() == this.size && containsAll(set);
+	}
+
+	@Override
+	public int hashCode() {
+		int hashCode = 0;
+		for (Id<T> id : this) {
+			hashCode += id.hashCode();
+		}
+		return hashCode;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder str = new StringBuilder("[");
+		boolean first = true;
+		for (Id<T> id : this) {
+			if (!first) {
+				str.append(", ");
+			}
+			str.append(id);
+			first = false;
+		}
+		return str.append(']').toString();
+	}
+
 	private static class IdSetIterator<T> implements Iterator<Id<T>> {
 
 		private final IdSet<T> set;
@@ -245,7 +280,10 @@ public class IdSet<T> implements Set<Id<T>> {
 
 		@Override
 		public void remove() {
-			this.set.data.clear(this.currentIndex);
+			if (this.currentIndex < 0 || !this.set.data.get(this.currentIndex)) {
+				throw new IllegalStateException();
+			}
+			this.set.remove(this.currentIndex);
 		}
 	}
 
@@ -158,6 +158,12 @@ public final class ConfigConsistencyCheckerImpl implements ConfigConsistencyChec
 				config.controler().getRoutingAlgorithmType() != RoutingAlgorithmType.Dijkstra ) {
 			log.warn("We don't know if non-Dijkstra routing works together with LinkToLink routing.");
 		}
+
+		if ( config.controler().getRoutingAlgorithmType() == RoutingAlgorithmType.ContractionHierarchies &&
+				config.plansCalcRoute().getRoutingRandomness() != 0. ) {
+			throw new IllegalStateException(RoutingAlgorithmType.ContractionHierarchies + " routing does not support person-dependent travel " +
+					"disutilities, set the routingRandomness in the planscalcroute config group to 0.");
+		}
 		
 	}
 
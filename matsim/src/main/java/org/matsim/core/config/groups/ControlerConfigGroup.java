@@ -38,9 +38,9 @@ import java.util.Set;
 public final class ControlerConfigGroup extends ReflectiveConfigGroup {
 	private static final Logger log = Logger.getLogger( ControlerConfigGroup.class );
 
-	public enum RoutingAlgorithmType {Dijkstra, AStarLandmarks, FastDijkstra, FastAStarLandmarks}
+	public enum RoutingAlgorithmType {Dijkstra, AStarLandmarks, FastDijkstra, FastAStarLandmarks, ContractionHierarchies}
 
-	public enum EventsFileFormat {xml}
+	public enum EventsFileFormat {xml, binary}
 
 	public enum CompressionType {
 		none(""),
@@ -62,6 +62,7 @@ public final class ControlerConfigGroup extends ReflectiveConfigGroup {
 	private static final String LAST_ITERATION = "lastIteration";
 	private static final String ROUTINGALGORITHM_TYPE = "routingAlgorithmType";
 	private static final String RUNID = "runId";
+	private static final String LANDMARKS_CACHE_DIRECTORY = "landmarksCacheDirectory";
 	private static final String LINKTOLINK_ROUTING_ENABLED = "enableLinkToLinkRouting";
 	/*package*/ static final String EVENTS_FILE_FORMAT = "eventsFileFormat";
 	private static final String SNAPSHOT_FORMAT = "snapshotFormat";
@@ -71,6 +72,7 @@ public final class ControlerConfigGroup extends ReflectiveConfigGroup {
 	private static final String CREATE_GRAPHS = "createGraphs";
 	private static final String DUMP_DATA_AT_END = "dumpDataAtEnd";
 	private static final String COMPRESSION_TYPE = "compressionType";
+	private static final String COMPRESSION_THREADS = "compressionThreads";
 
 	/*package*/ static final String MOBSIM = "mobsim";
 	public enum MobsimType {qsim, JDEQSim}
@@ -87,6 +89,8 @@ public final class ControlerConfigGroup extends ReflectiveConfigGroup {
 
 	private String runId = null;
 
+	private String landmarksCacheDirectory = null;
+
 	private Set<EventsFileFormat> eventsFileFormats = Collections.unmodifiableSet(EnumSet.of(EventsFileFormat.xml));
 
 	private int writeEventsInterval=10;
@@ -97,6 +101,7 @@ public final class ControlerConfigGroup extends ReflectiveConfigGroup {
 	private boolean createGraphs = true;
 	private boolean dumpDataAtEnd = true;
 	private CompressionType compressionType = CompressionType.gzip;
+	private int compressionThreads = 1;
 	private OverwriteFileSetting overwriteFileSetting = OverwriteFileSetting.failIfDirectoryExists;
 
 	public ControlerConfigGroup() {
@@ -107,9 +112,12 @@ public final class ControlerConfigGroup extends ReflectiveConfigGroup {
 	public final Map<String, String> getComments() {
 		Map<String,String> map = super.getComments();
 		map.put(ROUTINGALGORITHM_TYPE, "The type of routing (least cost path) algorithm used, may have the values: " + RoutingAlgorithmType.Dijkstra + ", " + 
-				RoutingAlgorithmType.FastDijkstra + ", " + RoutingAlgorithmType.AStarLandmarks + " or "  + RoutingAlgorithmType.FastAStarLandmarks);
+				RoutingAlgorithmType.FastDijkstra + ", " + RoutingAlgorithmType.AStarLandmarks + ", "  + RoutingAlgorithmType.FastAStarLandmarks + " or " +
+				RoutingAlgorithmType.ContractionHierarchies + ". " + RoutingAlgorithmType.ContractionHierarchies + " requires a routingRandomness of 0.");
 		map.put(RUNID, "An identifier for the current run which is used as prefix for output files and mentioned in output xml files etc.");
-		map.put(EVENTS_FILE_FORMAT, "Default="+EventsFileFormat.xml+"; Specifies the file format for writing events. Currently supported: xml."+IOUtils.NATIVE_NEWLINE+ "\t\t" +
+		map.put(LANDMARKS_CACHE_DIRECTORY, "Default=null; If set, the distances to the landmarks used by " + RoutingAlgorithmType.AStarLandmarks + " and " +
+				RoutingAlgorithmType.FastAStarLandmarks + " are stored in this directory and re-used by later runs on the same network.");
+		map.put(EVENTS_FILE_FORMAT, "Default="+EventsFileFormat.xml+"; Specifies the file format for writing events. Currently supported: xml, binary."+IOUtils.NATIVE_NEWLINE+ "\t\t" +
 				"Multiple values can be specified separated by commas (',').");
 		map.put(WRITE_EVENTS_INTERVAL, "iterationNumber % writeEventsInterval == 0 defines in which iterations events are written " +
 				"to a file. `0' disables events writing completely.");
@@ -123,6 +131,8 @@ public final class ControlerConfigGroup extends ReflectiveConfigGroup {
 				" The generation of graphs usually takes a small amount of time that does not have any weight in big simulations," +
 				" but add a significant overhead in smaller runs or in test cases where the graphical output is not even requested." );
 		map.put(COMPRESSION_TYPE, "Compression algorithm to use when writing out data to files. Possible values: " + Arrays.toString(CompressionType.values()));
+		map.put(COMPRESSION_THREADS, "Default=1; Number of threads used to compress gzip and zstd output files while the controler runs. "
+				+ "With more than one thread, the files are compressed in parallel.");
 
 		StringBuilder mobsimTypes = new StringBuilder();
 		for ( MobsimType mtype : MobsimType.values() ) {
@@ -191,6 +201,19 @@ public final class ControlerConfigGroup extends ReflectiveConfigGroup {
 		this.compressionType = type;
 	}
 
+	@StringGetter( COMPRESSION_THREADS )
+	public int getCompressionThreads() {
+		return this.compressionThreads;
+	}
+
+	@StringSetter( COMPRESSION_THREADS )
+	public void setCompressionThreads(int compressionThreads) {
+		if (compressionThreads < 1) {
+			throw new IllegalArgumentException("The number of compression threads must be at least 1, but is " + compressionThreads);
+		}
+		this.compressionThreads = compressionThreads;
+	}
+
 	@StringGetter( RUNID )
 	public String getRunId() {
 		return this.runId;
@@ -210,6 +233,20 @@ public final class ControlerConfigGroup extends ReflectiveConfigGroup {
 		}
 	}
 
+	@StringGetter( LANDMARKS_CACHE_DIRECTORY )
+	public String getLandmarksCacheDirectory() {
+		return this.landmarksCacheDirectory;
+	}
+
+	@StringSetter( LANDMARKS_CACHE_DIRECTORY )
+	public void setLandmarksCacheDirectory(final String landmarksCacheDirectory) {
+		if (landmarksCacheDirectory == null || landmarksCacheDirectory.equals("")) {
+			this.landmarksCacheDirectory = null;
+		} else {
+			this.landmarksCacheDirectory = landmarksCacheDirectory;
+		}
+	}
+
 	@StringGetter( LINKTOLINK_ROUTING_ENABLED )
 	public boolean isLinkToLinkRoutingEnabled() {
 		return this.linkToLinkRoutingEnabled;
@@ -44,6 +44,12 @@ public final class ParallelEventHandlingConfigGroup extends ReflectiveConfigGrou
 	
 	private final static String ONE_THREAD_PER_HANDLER = "oneThreadPerHandler"; 
 	private Boolean oneThreadPerHandler = false;
+
+	private final static String USE_RING_BUFFER = "useRingBuffer";
+	private boolean useRingBuffer = false;
+
+	private final static String RING_BUFFER_SIZE = "ringBufferSize";
+	private int ringBufferSize = 65536;
 	
 	private boolean locked = false;
 
@@ -60,6 +66,9 @@ public final class ParallelEventHandlingConfigGroup extends ReflectiveConfigGrou
 				+ "before the next time step is simulated. E.g. neccessary when within-day replanning is used.");
 		comments.put(ONE_THREAD_PER_HANDLER, "If enabled, each event handler is assigned to its own thread. Note that enabling this feature disabled the " + NUMBER_OF_THREADS + " option! "
 				+ "This feature is still experimental!");
+		comments.put(USE_RING_BUFFER, "If enabled (and " + SYNCHRONIZE_ON_SIMSTEPS + " is enabled), events are handed over to the events processing threads "
+				+ "through a preallocated ring buffer instead of linked queues. This feature is still experimental!");
+		comments.put(RING_BUFFER_SIZE, "Number of events the ring buffer can hold, must be a power of 2. Only used if " + USE_RING_BUFFER + " is enabled.");
 		return comments;
 	}
 
@@ -127,6 +136,34 @@ public final class ParallelEventHandlingConfigGroup extends ReflectiveConfigGrou
 		}
 	}
 	
+	@StringGetter( USE_RING_BUFFER )
+	public boolean isUseRingBuffer() {
+		return this.useRingBuffer;
+	}
+
+	@StringSetter( USE_RING_BUFFER )
+	public void setUseRingBuffer(boolean useRingBuffer) {
+		if ( !this.locked ) {
+			this.useRingBuffer = useRingBuffer;
+		} else {
+			throw new RuntimeException("it is too late in the control flow to modify this parameter");
+		}
+	}
+
+	@StringGetter( RING_BUFFER_SIZE )
+	public int getRingBufferSize() {
+		return this.ringBufferSize;
+	}
+
+	@StringSetter( RING_BUFFER_SIZE )
+	public void setRingBufferSize(int ringBufferSize) {
+		if ( !this.locked ) {
+			this.ringBufferSize = ringBufferSize;
+		} else {
+			throw new RuntimeException("it is too late in the control flow to modify this parameter");
+		}
+	}
+
 	public void makeLocked() {
 		this.locked = true;
 	}
@@ -34,9 +34,11 @@ public final class PlansConfigGroup extends ReflectiveConfigGroup {
 	public abstract static class NetworkRouteType {
 		public static final String LinkNetworkRoute = "LinkNetworkRoute";
 		public static final String CompressedNetworkRoute = "CompressedNetworkRoute";
+		public static final String IndexedNetworkRoute = "IndexedNetworkRoute";
 	}
 
 	public enum ActivityDurationInterpretation { minOfDurationAndEndTime, tryEndTimeThenDuration, @Deprecated endTimeOnly }
+	public enum PlanElementStorage { objects, columnar }
 	private static final String INPUT_FILE = "inputPlansFile";
 	private static final String INPUT_PERSON_ATTRIBUTES_FILE = "inputPersonAttributesFile";
 	private static final String NETWORK_ROUTE_TYPE = "networkRouteType";
@@ -67,7 +69,8 @@ public final class PlansConfigGroup extends ReflectiveConfigGroup {
 				NETWORK_ROUTE_TYPE,
 				"Defines how routes are stored in memory. Currently supported: " +
 				NetworkRouteType.LinkNetworkRoute + ", " +
-				NetworkRouteType.CompressedNetworkRoute + ".");
+				NetworkRouteType.CompressedNetworkRoute + ", " +
+				NetworkRouteType.IndexedNetworkRoute + " (stores the links by their index, which needs the least memory).");
 //		comments.put(
 //				INPUT_PERSON_ATTRIBUTES_FILE,
 //				"Path to a file containing person attributes (required file format: ObjectAttributes).");
@@ -87,6 +90,11 @@ public final class PlansConfigGroup extends ReflectiveConfigGroup {
 		comments.put(REMOVING_UNNECESSARY_PLAN_ATTRIBUTES, "(not tested) will remove plan attributes that are presumably not used, such as " +
                 "activityStartTime. default=false. Use with Caution!");
 
+		comments.put(PLAN_ELEMENT_STORAGE, "Defines how activities and legs are stored in memory. Possible values: "
+				+ PlanElementStorage.objects + " (one object per activity and leg), "
+				+ PlanElementStorage.columnar + " (the activities and legs of the population share columns of values, which needs "
+				+ "less memory with large populations; the persons and plans remain objects).");
+
 		comments.put( INPUT_CRS , "The Coordinates Reference System in which the coordinates are expressed in the input file." +
 				" At import, the coordinates will be converted to the coordinate system defined in \"global\", and will" +
 				"be converted back at export. If not specified, no conversion happens." );
@@ -193,6 +201,18 @@ public final class PlansConfigGroup extends ReflectiveConfigGroup {
 		this.removingUnneccessaryPlanAttributes = removingUnneccessaryPlanAttributes;
 	}
 
+	// ---
+
+	private static final String PLAN_ELEMENT_STORAGE = "planElementStorage";
+	private PlanElementStorage planElementStorage = PlanElementStorage.objects;
+	@StringGetter(PLAN_ELEMENT_STORAGE)
+	public PlanElementStorage getPlanElementStorage() {
+		return this.planElementStorage;
+	}
+	@StringSetter(PLAN_ELEMENT_STORAGE)
+	public void setPlanElementStorage(final PlanElementStorage planElementStorage) {
+		this.planElementStorage = planElementStorage;
+	}
 
 	@StringGetter( INPUT_CRS )
 	public String getInputCRS() {
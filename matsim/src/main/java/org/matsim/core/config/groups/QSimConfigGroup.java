@@ -270,6 +270,55 @@ public final class QSimConfigGroup extends ReflectiveConfigGroup {
 		map.put(USE_PERSON_ID_FOR_MISSING_VEHICLE_ID, "If a route does not reference a vehicle, agents will use the vehicle with the same id as their own.");
 		map.put(USING_THREADPOOL, "if the qsim should use as many runners as there are threads (Christoph's dissertation version)"
 				+ " or more of them, together with a thread pool (seems to be faster in some situations, but is not tested).") ;
+		{
+			StringBuilder stb = new StringBuilder() ;
+			for ( RunnerLoadBalancing lb : RunnerLoadBalancing.values() ) {
+				stb.append(" ").append(lb.toString());
+			}
+			map.put(RUNNER_LOAD_BALANCING, "Defines if the nodes and links of the network are re-distributed between the QNetsimEngine "
+					+ "runners during the simulation, so that no runner keeps the others waiting at the barriers. "
+					+ RunnerLoadBalancing.byProcessedElements + " balances the number of simulated nodes and links and keeps the distribution "
+					+ "independent of the machine, " + RunnerLoadBalancing.byWallTime + " balances the measured run times of the runners, but the distribution "
+					+ "then depends on the machine load. Only has an effect with numberOfThreads > 1. Default: "
+					+ RunnerLoadBalancing.off + "; options:" + stb );
+		}
+		{
+			StringBuilder stb = new StringBuilder() ;
+			for ( RunnerNetworkPartitioning np : RunnerNetworkPartitioning.values() ) {
+				stb.append(" ").append(np.toString());
+			}
+			map.put(RUNNER_NETWORK_PARTITIONING, "Defines how the nodes and links of the network are initially distributed between the "
+					+ "QNetsimEngine runners. " + RunnerNetworkPartitioning.roundRobin + " deals them out one by one, "
+					+ RunnerNetworkPartitioning.spaceFillingCurve + " gives each runner a contiguous region of the network (along a "
+					+ "Hilbert curve over the node coordinates), so fewer vehicles move between runners. Default: "
+					+ RunnerNetworkPartitioning.roundRobin + "; options:" + stb );
+		}
+		{
+			StringBuilder stb = new StringBuilder() ;
+			for ( RunnerBarrier rb : RunnerBarrier.values() ) {
+				stb.append(" ").append(rb.toString());
+			}
+			map.put(RUNNER_BARRIER, "Defines how the QNetsimEngine runners wait for each other in every sim step. "
+					+ RunnerBarrier.phaser + " puts waiting threads to sleep immediately, " + RunnerBarrier.spinThenPark
+					+ " lets them busy-wait for a short time before, which reduces the latency per sim step but burns CPU time. "
+					+ "Use " + RunnerBarrier.spinThenPark + " only if there is a core for every thread. Default: "
+					+ RunnerBarrier.phaser + "; options:" + stb );
+		}
+		map.put(NUMBER_OF_ACTIVITY_ENGINE_THREADS, "Number of threads used by the ActivityEngine to end the activities of the agents "
+				+ "leaving in the same sim step. The agents are then handed over to the departure handlers in the same order as with "
+				+ "one thread, so the results do not depend on this setting. Only use more than one thread if ending an activity "
+				+ "is thread-safe for all agents, as it is for the default plan-based agents. Default: 1.");
+		map.put(USE_EVENT_DRIVEN_LINKS, "If true, links on which no vehicle can leave in the current sim step are not simulated "
+				+ "until the first vehicle can leave. Links on which vehicles are held back by the flow capacity or by the "
+				+ "downstream links are simulated in every sim step, as before. The results are the same, only the order of events "
+				+ "within a sim step may differ. Only used with trafficDynamics=" + TrafficDynamics.queue + ", the fast capacity "
+				+ "update, no lanes and no seepage. Default: false.");
+		map.put(SKIP_IDLE_TIME, "If true, the qsim jumps over sim steps in which none of the mobsim engines has anything to do, "
+				+ "e.g. at night when all agents are at activities. This only happens if all mobsim engines can tell when they have "
+				+ "something to do next, which is not the case e.g. with transit or within-day replanning. Note that mobsim "
+				+ "listeners are only called for the sim steps that are actually simulated. Default: false.");
+		map.put(RUNNER_LOAD_BALANCING_INTERVAL, "The interval (in seconds of simulated time) in which the runner loads are compared and the "
+				+ "nodes and links are re-distributed if necessary. Default: 300.");
 		map.put(FAST_CAPACITY_UPDATE, "If false, the qsim accumulates fractional flows up to one flow unit in every time step.  If true, "
 				+ "flows are updated only if an agent wants to enter the link or an agent is added to buffer. "
 				+ "Default is true.") ;
@@ -623,4 +672,95 @@ public final class QSimConfigGroup extends ReflectiveConfigGroup {
 //		this.creatingVehiclesForAllNetworkModes = creatingVehiclesForAllNetworkModes;
 //	}
 	
+	// ---
+	private static final String RUNNER_NETWORK_PARTITIONING = "runnerNetworkPartitioning";
+	public enum RunnerNetworkPartitioning { roundRobin, spaceFillingCurve }
+	private RunnerNetworkPartitioning runnerNetworkPartitioning = RunnerNetworkPartitioning.roundRobin;
+
+	@StringGetter(RUNNER_NETWORK_PARTITIONING)
+	public RunnerNetworkPartitioning getRunnerNetworkPartitioning() {
+		return this.runnerNetworkPartitioning;
+	}
+	@StringSetter(RUNNER_NETWORK_PARTITIONING)
+	public void setRunnerNetworkPartitioning(RunnerNetworkPartitioning runnerNetworkPartitioning) {
+		this.runnerNetworkPartitioning = runnerNetworkPartitioning;
+	}
+	// ---
+	private static final String RUNNER_BARRIER = "runnerBarrier";
+	public enum RunnerBarrier { phaser, spinThenPark }
+	private RunnerBarrier runnerBarrier = RunnerBarrier.phaser;
+
+	@StringGetter(RUNNER_BARRIER)
+	public RunnerBarrier getRunnerBarrier() {
+		return this.runnerBarrier;
+	}
+	@StringSetter(RUNNER_BARRIER)
+	public void setRunnerBarrier(RunnerBarrier runnerBarrier) {
+		this.runnerBarrier = runnerBarrier;
+	}
+	// ---
+	private static final String RUNNER_LOAD_BALANCING = "runnerLoadBalancing";
+	private static final String RUNNER_LOAD_BALANCING_INTERVAL = "runnerLoadBalancingInterval";
+	public enum RunnerLoadBalancing { off, byProcessedElements, byWallTime }
+	private RunnerLoadBalancing runnerLoadBalancing = RunnerLoadBalancing.off;
+	@Positive
+	private double runnerLoadBalancingInterval = 300.0;
+
+	@StringGetter(RUNNER_LOAD_BALANCING)
+	public RunnerLoadBalancing getRunnerLoadBalancing() {
+		return this.runnerLoadBalancing;
+	}
+	@StringSetter(RUNNER_LOAD_BALANCING)
+	public void setRunnerLoadBalancing(RunnerLoadBalancing runnerLoadBalancing) {
+		this.runnerLoadBalancing = runnerLoadBalancing;
+	}
+	@StringGetter(RUNNER_LOAD_BALANCING_INTERVAL)
+	public double getRunnerLoadBalancingInterval() {
+		return this.runnerLoadBalancingInterval;
+	}
+	@StringSetter(RUNNER_LOAD_BALANCING_INTERVAL)
+	public void setRunnerLoadBalancingInterval(double runnerLoadBalancingInterval) {
+		this.runnerLoadBalancingInterval = runnerLoadBalancingInterval;
+	}
+	// ---
+	private static final String SKIP_IDLE_TIME = "skipIdleTime";
+	private boolean skipIdleTime = false;
+
+	@StringGetter(SKIP_IDLE_TIME)
+	public boolean isSkipIdleTime() {
+		return this.skipIdleTime;
+	}
+	@StringSetter(SKIP_IDLE_TIME)
+	public void setSkipIdleTime(boolean skipIdleTime) {
+		this.skipIdleTime = skipIdleTime;
+	}
+	// ---
+	private static final String NUMBER_OF_ACTIVITY_ENGINE_THREADS = "numberOfActivityEngineThreads";
+	@Positive
+	private int numberOfActivityEngineThreads = 1;
+
+	@StringGetter(NUMBER_OF_ACTIVITY_ENGINE_THREADS)
+	public int getNumberOfActivityEngineThreads() {
+		return this.numberOfActivityEngineThreads;
+	}
+	@StringSetter(NUMBER_OF_ACTIVITY_ENGINE_THREADS)
+	public void setNumberOfActivityEngineThreads(int numberOfActivityEngineThreads) {
+		if ( numberOfActivityEngineThreads < 1 ) {
+			throw new IllegalArgumentException( "Number of threads must be strictly positive, got " + numberOfActivityEngineThreads );
+		}
+		this.numberOfActivityEngineThreads = numberOfActivityEngineThreads;
+	}
+	// ---
+	private static final String USE_EVENT_DRIVEN_LINKS = "useEventDrivenLinks";
+	private boolean useEventDrivenLinks = false;
+
+	@StringGetter(USE_EVENT_DRIVEN_LINKS)
+	public boolean isUseEventDrivenLinks() {
+		return this.useEventDrivenLinks;
+	}
+	@StringSetter(USE_EVENT_DRIVEN_LINKS)
+	public void setUseEventDrivenLinks(boolean useEventDrivenLinks) {
+		this.useEventDrivenLinks = useEventDrivenLinks;
+	}
+
 }
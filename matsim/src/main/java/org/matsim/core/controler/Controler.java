@@ -41,6 +41,7 @@ import org.matsim.core.config.consistency.ConfigConsistencyCheckerImpl;
 import org.matsim.core.config.consistency.UnmaterializedConfigGroupChecker;
 import org.matsim.core.controler.corelisteners.ControlerDefaultCoreListenersModule;
 import org.matsim.core.controler.listener.ControlerListener;
+import org.matsim.core.events.algorithms.EventsBinaryFormat;
 import org.matsim.core.events.handler.EventHandler;
 import org.matsim.core.gbl.Gbl;
 import org.matsim.core.mobsim.qsim.AbstractQSimModule;
@@ -57,6 +58,7 @@ import org.matsim.core.router.util.TravelTime;
 import org.matsim.core.scenario.ScenarioByConfigModule;
 import org.matsim.core.scenario.ScenarioByInstanceModule;
 import org.matsim.core.scoring.ScoringFunctionFactory;
+import org.matsim.core.utils.io.IOUtils;
 
 import java.util.*;
 
@@ -86,6 +88,7 @@ public final class Controler implements ControlerI, MatsimServices, AllowsConfig
 		households("households.xml"),
 		facilities("facilities.xml"),
 		events("events.xml"),
+		eventsBinary("events" + EventsBinaryFormat.FILE_EXTENSION),// binary files are never compressed
 		transitSchedule("transitSchedule.xml"),
 		transitVehicles("transitVehicles.xml"),
 		vehicles("vehicles.xml"),
@@ -244,7 +247,15 @@ public final class Controler implements ControlerI, MatsimServices, AllowsConfig
 												  );
 		this.injector = Injector.createInjector( config, AbstractModule.override( standardModules, overrides ) );
 		ControlerI controler = injector.getInstance(ControlerI.class);
-		controler.run();
+
+		// the compression threads are a static setting of IOUtils, so only change them for the duration of this run:
+		final int previousCompressionThreads = IOUtils.getCompressionThreads();
+		IOUtils.setCompressionThreads( config.controler().getCompressionThreads() );
+		try {
+			controler.run();
+		} finally {
+			IOUtils.setCompressionThreads( previousCompressionThreads );
+		}
 	}
 
 
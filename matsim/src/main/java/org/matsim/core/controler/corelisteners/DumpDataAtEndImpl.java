@@ -30,6 +30,7 @@ import org.matsim.api.core.v01.population.PopulationWriter;
 import org.matsim.core.config.Config;
 import org.matsim.core.config.ConfigWriter;
 import org.matsim.core.config.groups.ControlerConfigGroup;
+import org.matsim.core.config.groups.ControlerConfigGroup.EventsFileFormat;
 import org.matsim.core.config.groups.VspExperimentalConfigGroup;
 import org.matsim.core.controler.Controler;
 import org.matsim.core.controler.OutputDirectoryHierarchy;
@@ -138,17 +139,32 @@ final class DumpDataAtEndImpl implements DumpDataAtEnd, ShutdownListener {
 	}
 
 	private void dumpOutputEvents() {
-		try {
-			File toFile = new File(this.controlerIO.getOutputFilename(Controler.DefaultFiles.events));
-			File fromFile = new File(this.controlerIO.getIterationFilename(this.controlerConfigGroup.getLastIteration(), Controler.DefaultFiles.events));
+		final int lastIteration = this.controlerConfigGroup.getLastIteration();
+		for (EventsFileFormat format : this.controlerConfigGroup.getEventsFileFormats()) {
 			try {
-				Files.copy(fromFile.toPath(), toFile.toPath(),StandardCopyOption.REPLACE_EXISTING,StandardCopyOption.COPY_ATTRIBUTES);
-			} catch (IOException e) {
-				throw new UncheckedIOException(e);
+				File toFile;
+				File fromFile;
+				switch (format) {
+				case xml:
+					toFile = new File(this.controlerIO.getOutputFilename(Controler.DefaultFiles.events));
+					fromFile = new File(this.controlerIO.getIterationFilename(lastIteration, Controler.DefaultFiles.events));
+					break;
+				case binary:
+					toFile = new File(this.controlerIO.getOutputFilename(Controler.DefaultFiles.eventsBinary, null));
+					fromFile = new File(this.controlerIO.getIterationFilename(lastIteration, Controler.DefaultFiles.eventsBinary, null));
+					break;
+				default:
+					continue;
+				}
+				try {
+					Files.copy(fromFile.toPath(), toFile.toPath(),StandardCopyOption.REPLACE_EXISTING,StandardCopyOption.COPY_ATTRIBUTES);
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			} catch ( Exception ee ) {
+				Logger.getLogger(this.getClass()).error("writing output events (" + format + ") did not work; probably parameters were such "
+						+ "that no events were generated in the final iteration" );
 			}
-		} catch ( Exception ee ) {
-			Logger.getLogger(this.getClass()).error("writing output events did not work; probably parameters were such that no events were "
-					+ "generated in the final iteration" );
 		}
 	}
 
@@ -37,6 +37,7 @@ import org.matsim.core.controler.listener.BeforeMobsimListener;
 import org.matsim.core.controler.listener.IterationEndsListener;
 import org.matsim.core.controler.listener.ShutdownListener;
 import org.matsim.core.events.algorithms.EventWriter;
+import org.matsim.core.events.algorithms.EventWriterBinary;
 import org.matsim.core.events.algorithms.EventWriterXML;
 
 import com.google.inject.Inject;
@@ -86,7 +87,11 @@ final class EventsHandlingImpl implements EventsHandling, BeforeMobsimListener,
 				switch (format) {
 				case xml:
 					this.eventWriters.add(new EventWriterXML(controlerIO.getIterationFilename(event.getIteration(), 
-							Controler.DefaultFiles.events)));
+							Controler.DefaultFiles.events), true));
+					break;
+				case binary:
+					this.eventWriters.add(new EventWriterBinary(controlerIO.getIterationFilename(event.getIteration(),
+							Controler.DefaultFiles.eventsBinary, null)));
 					break;
 				default:
 					log.warn("Unknown events file format specified: " + format.toString() + ".");
@@ -62,6 +62,7 @@ import org.matsim.core.api.experimental.events.VehicleDepartsAtFacilityEvent;
 import org.matsim.core.api.experimental.events.handler.AgentWaitingForPtEventHandler;
 import org.matsim.core.api.experimental.events.handler.VehicleArrivesAtFacilityEventHandler;
 import org.matsim.core.api.experimental.events.handler.VehicleDepartsAtFacilityEventHandler;
+import org.matsim.core.events.HandlerCallers.HandlerCaller;
 import org.matsim.core.events.handler.BasicEventHandler;
 import org.matsim.core.events.handler.EventHandler;
 
@@ -77,6 +78,10 @@ import org.matsim.core.events.handler.EventHandler;
  * up execution!</li>
  * </ol>
  *
+ * Handlers for event classes not covered by callHandlerFast() are called through
+ * callers generated once per handler interface (see {@link HandlerCallMode}), so
+ * custom events do not need reflection on every call.
+ *
  * @author dstrippgen
  * @author mrieser
  */
@@ -84,14 +89,26 @@ public final class EventsManagerImpl implements EventsManager {
 
 	private static final Logger log = Logger.getLogger(EventsManagerImpl.class);
 
+	/**
+	 * Defines how handlers are called for event classes that are not covered by callHandlerFast().
+	 */
+	public enum HandlerCallMode {
+		/** call the handleEvent-methods with {@link Method#invoke(Object, Object...)} */
+		reflective,
+		/** generate a typed caller per handleEvent-method once, falls back to reflection if this is not possible */
+		generated
+	}
+
 	static private class HandlerData {
 
 		protected Class<?> eventklass;
 		protected ArrayList<EventHandler> handlerList = new ArrayList<EventHandler>(5);
 		protected Method method;
-		protected HandlerData(final Class<?> eventklass, final Method method) {
+		protected HandlerCaller caller;
+		protected HandlerData(final Class<?> eventklass, final Method method, final HandlerCaller caller) {
 			this.eventklass = eventklass;
 			this.method = method;
+			this.caller = caller;
 		}
 		protected void removeHandler(final EventHandler handler) {
 			this.handlerList.remove(handler);
@@ -102,14 +119,18 @@ public final class EventsManagerImpl implements EventsManager {
 		protected final Class<?> eventClass;
 		protected final EventHandler eventHandler;
 		protected final Method method;
+		protected final HandlerCaller caller;
 
-		protected HandlerInfo(final Class<?> eventClass, final EventHandler eventHandler, final Method method) {
+		protected HandlerInfo(final Class<?> eventClass, final EventHandler eventHandler, final Method method, final HandlerCaller caller) {
 			this.eventClass = eventClass;
 			this.eventHandler = eventHandler;
 			this.method = method;
+			this.caller = caller;
 		}
 	}
 
+	private final HandlerCallMode handlerCallMode;
+
 	private final List<HandlerData> handlerData = new ArrayList<HandlerData>();
 
 	private final Map<Class<?>, HandlerInfo[]> cacheHandlers = new ConcurrentHashMap<Class<?>, HandlerInfo[]>(15);
@@ -117,6 +138,14 @@ public final class EventsManagerImpl implements EventsManager {
 	private long counter = 0;
 	private long nextCounterMsg = 1;
 
+	public EventsManagerImpl() {
+		this(HandlerCallMode.generated);
+	}
+
+	public EventsManagerImpl(final HandlerCallMode handlerCallMode) {
+		this.handlerCallMode = handlerCallMode;
+	}
+
 	private HandlerData findHandler(final Class<?> evklass) {
 		for (HandlerData handler : this.handlerData) {
 			if (handler.eventklass == evklass) {
@@ -207,7 +236,11 @@ public final class EventsManagerImpl implements EventsManager {
 					log.info("    > " + eventClass.getName());
 					HandlerData dat = findHandler(eventClass);
 					if (dat == null) {
-						dat = new HandlerData(eventClass, method);
+						HandlerCaller caller = null;
+						if (this.handlerCallMode == HandlerCallMode.generated) {
+							caller = HandlerCallers.createCaller(method);
+						}
+						dat = new HandlerData(eventClass, method, caller);
 						this.handlerData.add(dat);
 					}
 					dat.handlerList.add(handler);
@@ -222,6 +255,14 @@ public final class EventsManagerImpl implements EventsManager {
 				if (callHandlerFast(info.eventClass, event, info.eventHandler)) {
 					continue;
 				}
+				if (info.caller != null) {
+					try {
+						info.caller.call(info.eventHandler, event);
+					} catch (RuntimeException e) {
+						throw new RuntimeException("problem invoking EventHandler " + info.eventHandler.getClass().getCanonicalName() + " for event-class " + info.eventClass.getCanonicalName(), e);
+					}
+					continue;
+				}
 				try {
 					info.method.invoke(info.eventHandler, event);
 				} catch (IllegalArgumentException | IllegalAccessException e) {
@@ -246,7 +287,7 @@ public final class EventsManagerImpl implements EventsManager {
 			HandlerData dat = findHandler(klass);
 			if (dat != null) {
 				for(EventHandler handler: dat.handlerList) {
-					info.add(new HandlerInfo(klass, handler, dat.method));
+					info.add(new HandlerInfo(klass, handler, dat.method, dat.caller));
 				}
 			}
 			klass = klass.getSuperclass();
@@ -256,7 +297,7 @@ public final class EventsManagerImpl implements EventsManager {
 			HandlerData dat = findHandler(intfc);
 			if (dat != null) {
 				for(EventHandler handler: dat.handlerList) {
-					info.add(new HandlerInfo(intfc, handler, dat.method));
+					info.add(new HandlerInfo(intfc, handler, dat.method, dat.caller));
 				}
 			}
 		}
@@ -36,10 +36,16 @@ public final class EventsManagerModule extends AbstractModule {
 			bindEventsManager().to(ParallelEventsManager.class).asEagerSingleton();
 		} else if (getConfig().parallelEventHandling().getNumberOfThreads() != null) {
 			if (getConfig().parallelEventHandling().getSynchronizeOnSimSteps() != null && getConfig().parallelEventHandling().getSynchronizeOnSimSteps()) {
-				bindEventsManager().to(SimStepParallelEventsManagerImpl.class).asEagerSingleton();
+				if (getConfig().parallelEventHandling().isUseRingBuffer()) {
+					bindEventsManager().to(SimStepRingBufferEventsManagerImpl.class).asEagerSingleton();
+				} else {
+					bindEventsManager().to(SimStepParallelEventsManagerImpl.class).asEagerSingleton();
+				}
 			} else {
 				bindEventsManager().to(ParallelEventsManagerImpl.class).asEagerSingleton();
 			}
+		} else if (getConfig().parallelEventHandling().isUseRingBuffer()) {
+			bindEventsManager().to(SimStepRingBufferEventsManagerImpl.class).asEagerSingleton();
 		} else {
 			bindEventsManager().to(SimStepParallelEventsManagerImpl.class).asEagerSingleton();
 		}
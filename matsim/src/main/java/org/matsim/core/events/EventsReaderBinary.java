@@ -0,0 +1,419 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * EventsReaderBinary.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2020 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.events;
+
+import static org.matsim.core.events.algorithms.EventsBinaryFormat.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+import org.apache.log4j.Logger;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.events.ActivityEndEvent;
+import org.matsim.api.core.v01.events.ActivityStartEvent;
+import org.matsim.api.core.v01.events.Event;
+import org.matsim.api.core.v01.events.LinkEnterEvent;
+import org.matsim.api.core.v01.events.LinkLeaveEvent;
+import org.matsim.api.core.v01.events.PersonArrivalEvent;
+import org.matsim.api.core.v01.events.PersonDepartureEvent;
+import org.matsim.api.core.v01.events.PersonEntersVehicleEvent;
+import org.matsim.api.core.v01.events.PersonLeavesVehicleEvent;
+import org.matsim.api.core.v01.events.VehicleEntersTrafficEvent;
+import org.matsim.api.core.v01.events.VehicleLeavesTrafficEvent;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.api.internal.MatsimReader;
+import org.matsim.core.events.EventsReaderXMLv1.CustomEventMapper;
+import org.matsim.core.utils.io.IOUtils;
+import org.matsim.core.utils.io.UncheckedIOException;
+import org.matsim.facilities.ActivityFacility;
+import org.matsim.vehicles.Vehicle;
+import org.xml.sax.helpers.AttributesImpl;
+
+/**
+ * Reads events files in the {@link org.matsim.core.events.algorithms.EventsBinaryFormat binary format} and passes
+ * the events to an events manager.  Local files are memory-mapped; with
+ * {@link #readFile(String, double, double)}, only the blocks containing events of the requested time window are
+ * read.
+ * <p></p>
+ * Events that are not stored with a type of their own are created exactly like the xml reader creates them,
+ * including the custom event mappers.
+ */
+public final class EventsReaderBinary implements MatsimReader {
+
+	private static final Logger log = Logger.getLogger(EventsReaderBinary.class);
+
+	private static final long MAPPING_SIZE = 1L << 30;
+
+	private final EventsManager events;
+	// creates all other events the way the xml reader does
+	private final EventsReaderXMLv1 xmlReader;
+
+	private String[] dictionary;
+	private Id<?>[] personIds;
+	private Id<?>[] linkIds;
+	private Id<?>[] vehicleIds;
+	private Id<?>[] facilityIds;
+
+	public EventsReaderBinary(final EventsManager events) {
+		this.events = events;
+		this.xmlReader = new EventsReaderXMLv1(events);
+	}
+
+	public void addCustomEventMapper(final String eventType, final CustomEventMapper mapper) {
+		this.xmlReader.addCustomEventMapper(eventType, mapper);
+	}
+
+	@Override
+	public void readFile(final String filename) {
+		readURL(IOUtils.resolveFileOrResource(filename));
+	}
+
+	/**
+	 * Reads the events with <code>fromTime &lt;= time &lt; toTime</code>.
+	 */
+	public void readFile(final String filename, final double fromTime, final double toTime) {
+		readURL(IOUtils.resolveFileOrResource(filename), fromTime, toTime);
+	}
+
+	@Override
+	public void readURL(final URL url) {
+		readURL(url, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY);
+	}
+
+	/**
+	 * Reads the events with <code>fromTime &lt;= time &lt; toTime</code>.
+	 */
+	public void readURL(final URL url, final double fromTime, final double toTime) {
+		log.info("starting to read binary events from " + url + " ...");
+		try (BlockSource source = openSource(url)) {
+			read(source, fromTime, toTime);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		} finally {
+			this.dictionary = null;
+			this.personIds = null;
+			this.linkIds = null;
+			this.vehicleIds = null;
+			this.facilityIds = null;
+		}
+	}
+
+	private static BlockSource openSource(final URL url) throws IOException {
+		if ("file".equals(url.getProtocol())) {
+			try {
+				return new MappedBlockSource(FileChannel.open(Paths.get(url.toURI()), StandardOpenOption.READ));
+			} catch (URISyntaxException e) {
+				throw new IOException(e);
+			}
+		}
+		// e.g. a resource within a jar file, which is read into memory
+		try (InputStream in = IOUtils.getInputStream(url)) {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			IOUtils.copyStream(in, bytes);
+			return new ArrayBlockSource(ByteBuffer.wrap(bytes.toByteArray()));
+		}
+	}
+
+	private void read(final BlockSource source, final double fromTime, final double toTime) throws IOException {
+		long size = source.size();
+		if (size < HEADER_LENGTH + TRAILER_LENGTH) {
+			throw new IOException("not a binary events file: too short.");
+		}
+		ByteBuffer header = source.read(0, HEADER_LENGTH);
+		if (header.getLong() != MAGIC) {
+			throw new IOException("not a binary events file.");
+		}
+		int version = header.getInt();
+		if (version != VERSION) {
+			throw new IOException("unsupported version of binary events file: " + version);
+		}
+		ByteBuffer trailer = source.read(size - TRAILER_LENGTH, TRAILER_LENGTH);
+		long indexPosition = trailer.getLong();
+		if (trailer.getLong() != MAGIC) {
+			throw new IOException("binary events file is incomplete.");
+		}
+
+		ByteBuffer index = source.read(indexPosition, (int) (size - TRAILER_LENGTH - indexPosition));
+		int numberOfBlocks = (int) readVarLong(index);
+		long[] positions = new long[numberOfBlocks];
+		int[] lengths = new int[numberOfBlocks];
+		double[] minTimes = new double[numberOfBlocks];
+		double[] maxTimes = new double[numberOfBlocks];
+		for (int i = 0; i < numberOfBlocks; i++) {
+			positions[i] = index.getLong();
+			lengths[i] = index.getInt();
+			readVarLong(index); // the number of events
+			minTimes[i] = index.getDouble();
+			maxTimes[i] = index.getDouble();
+		}
+		int numberOfStrings = (int) readVarLong(index);
+		this.dictionary = new String[numberOfStrings];
+		for (int i = 0; i < numberOfStrings; i++) {
+			int length = (int) readVarLong(index);
+			this.dictionary[i] = new String(index.array(), index.arrayOffset() + index.position(), length, StandardCharsets.UTF_8);
+			index.position(index.position() + length);
+		}
+		this.personIds = new Id<?>[numberOfStrings];
+		this.linkIds = new Id<?>[numberOfStrings];
+		this.vehicleIds = new Id<?>[numberOfStrings];
+		this.facilityIds = new Id<?>[numberOfStrings];
+
+		// the events are usually, but not necessarily, sorted by time.  The blocks before the first one reaching
+		// fromTime, and after the last one starting before toTime, can be skipped nevertheless.
+		double[] maxTimeUntil = new double[numberOfBlocks];
+		double[] minTimeFrom = new double[numberOfBlocks];
+		for (int i = 0; i < numberOfBlocks; i++) {
+			maxTimeUntil[i] = Math.max(maxTimes[i], i == 0 ? Double.NEGATIVE_INFINITY : maxTimeUntil[i - 1]);
+		}
+		for (int i = numberOfBlocks - 1; i >= 0; i--) {
+			minTimeFrom[i] = Math.min(minTimes[i], i == numberOfBlocks - 1 ? Double.POSITIVE_INFINITY : minTimeFrom[i + 1]);
+		}
+		int first = 0;
+		int last = numberOfBlocks;
+		while (first < last) {
+			int middle = (first + last) >>> 1;
+			if (maxTimeUntil[middle] < fromTime) {
+				first = middle + 1;
+			} else {
+				last = middle;
+			}
+		}
+		for (int i = first; i < numberOfBlocks && minTimeFrom[i] < toTime; i++) {
+			if (maxTimes[i] >= fromTime && minTimes[i] < toTime) {
+				readBlock(source.block(positions[i], lengths[i]), fromTime, toTime);
+			}
+		}
+	}
+
+	private void readBlock(final ByteBuffer block, final double fromTime, final double toTime) {
+		double time = 0.0;
+		while (block.hasRemaining()) {
+			int type = block.get();
+			long code = readVarLong(block);
+			time = (code & 1) != 0 ? block.getDouble() : time + (code >>> 1);
+			Event event;
+			switch (type) {
+				case LINK_ENTER:
+					event = new LinkEnterEvent(time, vehicleId(block), linkId(block));
+					break;
+				case LINK_LEAVE:
+					event = new LinkLeaveEvent(time, vehicleId(block), linkId(block));
+					break;
+				case VEHICLE_ENTERS_TRAFFIC:
+					event = new VehicleEntersTrafficEvent(time, personId(block), linkId(block), vehicleId(block), string(block), block.getDouble());
+					break;
+				case VEHICLE_LEAVES_TRAFFIC:
+					event = new VehicleLeavesTrafficEvent(time, personId(block), linkId(block), vehicleId(block), string(block), block.getDouble());
+					break;
+				case PERSON_DEPARTURE:
+					event = new PersonDepartureEvent(time, personId(block), linkId(block), string(block));
+					break;
+				case PERSON_ARRIVAL:
+					event = new PersonArrivalEvent(time, personId(block), linkId(block), string(block));
+					break;
+				case ACTIVITY_END:
+					event = new ActivityEndEvent(time, personId(block), linkId(block), facilityId(block), string(block));
+					break;
+				case ACTIVITY_START:
+					event = new ActivityStartEvent(time, personId(block), linkId(block), facilityId(block), string(block));
+					break;
+				case PERSON_ENTERS_VEHICLE:
+					event = new PersonEntersVehicleEvent(time, personId(block), vehicleId(block));
+					break;
+				case PERSON_LEAVES_VEHICLE:
+					event = new PersonLeavesVehicleEvent(time, personId(block), vehicleId(block));
+					break;
+				case GENERIC:
+					event = readGenericEvent(block, time);
+					break;
+				default:
+					throw new UncheckedIOException(new IOException("unknown type of event in binary events file: " + type));
+			}
+			if (time >= fromTime && time < toTime) {
+				this.events.processEvent(event);
+			}
+		}
+	}
+
+	private Event readGenericEvent(final ByteBuffer block, final double time) {
+		AttributesImpl atts = new AttributesImpl();
+		atts.addAttribute("", Event.ATTRIBUTE_TIME, Event.ATTRIBUTE_TIME, "CDATA", Double.toString(time));
+		atts.addAttribute("", Event.ATTRIBUTE_TYPE, Event.ATTRIBUTE_TYPE, "CDATA", string(block));
+		int size = (int) readVarLong(block);
+		for (int i = 0; i < size; i++) {
+			String key = string(block);
+			int length = (int) readVarLong(block);
+			byte[] bytes = new byte[length];
+			block.get(bytes);
+			atts.addAttribute("", key, key, "CDATA", new String(bytes, StandardCharsets.UTF_8));
+		}
+		return this.xmlReader.createEvent(atts);
+	}
+
+	private String string(final ByteBuffer block) {
+		int ref = (int) readVarLong(block);
+		return ref == 0 ? null : this.dictionary[ref - 1];
+	}
+
+	private Id<Person> personId(final ByteBuffer block) {
+		return id(block, this.personIds, Person.class);
+	}
+
+	private Id<Link> linkId(final ByteBuffer block) {
+		return id(block, this.linkIds, Link.class);
+	}
+
+	private Id<Vehicle> vehicleId(final ByteBuffer block) {
+		return id(block, this.vehicleIds, Vehicle.class);
+	}
+
+	private Id<ActivityFacility> facilityId(final ByteBuffer block) {
+		return id(block, this.facilityIds, ActivityFacility.class);
+	}
+
+	@SuppressWarnings("unchecked")
+	private <T> Id<T> id(final ByteBuffer block, final Id<?>[] ids, final Class<T> type) {
+		int ref = (int) readVarLong(block);
+		if (ref == 0) {
+			return null;
+		}
+		Id<?> id = ids[ref - 1];
+		if (id == null) {
+			id = Id.create(this.dictionary[ref - 1], type);
+			ids[ref - 1] = id;
+		}
+		return (Id<T>) id;
+	}
+
+	private static long readVarLong(final ByteBuffer buffer) {
+		long value = 0;
+		int shift = 0;
+		byte b;
+		do {
+			b = buffer.get();
+			value |= (long) (b & 0x7f) << shift;
+			shift += 7;
+		} while (b < 0);
+		return value;
+	}
+
+	private interface BlockSource extends AutoCloseable {
+		long size() throws IOException;
+
+		/** returns the given range in a buffer backed by an array */
+		ByteBuffer read(long position, int length) throws IOException;
+
+		/** returns the given range of the blocks */
+		ByteBuffer block(long position, int length) throws IOException;
+
+		@Override
+		void close() throws IOException;
+	}
+
+	/*
+	 * Maps the blocks window by window, each window containing many blocks.
+	 */
+	private static final class MappedBlockSource implements BlockSource {
+		private final FileChannel channel;
+		private ByteBuffer window = null;
+		private long windowStart = 0;
+
+		MappedBlockSource(final FileChannel channel) {
+			this.channel = channel;
+		}
+
+		@Override
+		public long size() throws IOException {
+			return this.channel.size();
+		}
+
+		@Override
+		public ByteBuffer read(final long position, final int length) throws IOException {
+			ByteBuffer buffer = ByteBuffer.allocate(length);
+			while (buffer.hasRemaining()) {
+				if (this.channel.read(buffer, position + buffer.position()) < 0) {
+					throw new IOException("unexpected end of binary events file.");
+				}
+			}
+			buffer.flip();
+			return buffer;
+		}
+
+		@Override
+		public ByteBuffer block(final long position, final int length) throws IOException {
+			if (this.window == null || position < this.windowStart || position + length > this.windowStart + this.window.capacity()) {
+				long size = Math.min(this.channel.size() - position, Math.max(MAPPING_SIZE, length));
+				this.window = this.channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+				this.windowStart = position;
+			}
+			ByteBuffer buffer = this.window.duplicate();
+			buffer.position((int) (position - this.windowStart));
+			buffer.limit(buffer.position() + length);
+			return buffer.slice();
+		}
+
+		@Override
+		public void close() throws IOException {
+			this.channel.close();
+		}
+	}
+
+	private static final class ArrayBlockSource implements BlockSource {
+		private final ByteBuffer bytes;
+
+		ArrayBlockSource(final ByteBuffer bytes) {
+			this.bytes = bytes;
+		}
+
+		@Override
+		public long size() {
+			return this.bytes.capacity();
+		}
+
+		@Override
+		public ByteBuffer read(final long position, final int length) {
+			return block(position, length);
+		}
+
+		@Override
+		public ByteBuffer block(final long position, final int length) {
+			ByteBuffer buffer = this.bytes.duplicate();
+			buffer.position((int) position);
+			buffer.limit((int) position + length);
+			return buffer.slice();
+		}
+
+		@Override
+		public void close() {
+		}
+	}
+
+}
@@ -41,13 +41,15 @@ public class EventsUtils {
     }
 
     /**
-     * The SimStepParallelEventsManagerImpl can handle events from multiple threads.
+     * The SimStepParallelEventsManagerImpl and SimStepRingBufferEventsManagerImpl can handle events from multiple threads.
      * The (Parallel)EventsMangerImpl cannot, therefore it has to be wrapped into a
      * SynchronizedEventsManagerImpl.
      */
     public static EventsManager getParallelFeedableInstance(EventsManager events) {
     	if (events instanceof SimStepParallelEventsManagerImpl) {
     		return events;
+    	} else if (events instanceof SimStepRingBufferEventsManagerImpl) {
+    		return events;
     	} else if (events instanceof ParallelEventsManager) {
     		return events;
     	}
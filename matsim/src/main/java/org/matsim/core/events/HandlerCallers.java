@@ -0,0 +1,72 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * HandlerCallers.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2020 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.events;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Creates {@link HandlerCaller}s for <code>handleEvent</code> methods. The callers are generated with
+ * {@link LambdaMetafactory}, so calling them is a plain (type-checked) interface call instead of a
+ * reflective {@link Method#invoke(Object, Object...)}.
+ */
+final class HandlerCallers {
+
+	private static final Logger log = Logger.getLogger(HandlerCallers.class);
+
+	private static final MethodType CALLER_TYPE = MethodType.methodType(HandlerCaller.class);
+	private static final MethodType CALL_SIGNATURE = MethodType.methodType(void.class, Object.class, Object.class);
+
+	/**
+	 * Calls <code>handler.handleEvent(event)</code> for one specific handler interface.
+	 */
+	@FunctionalInterface
+	interface HandlerCaller {
+		void call(Object handler, Object event);
+	}
+
+	private HandlerCallers() {
+	}
+
+	/**
+	 * @return a generated caller for the given <code>handleEvent</code> method, or <code>null</code> if no caller
+	 * could be generated (e.g. because the handler interface is not accessible from this package). In that case,
+	 * the method should be called by reflection.
+	 */
+	static HandlerCaller createCaller(final Method method) {
+		try {
+			MethodHandles.Lookup lookup = MethodHandles.lookup();
+			MethodHandle target = lookup.unreflect(method);
+			CallSite site = LambdaMetafactory.metafactory(lookup, "call", CALLER_TYPE, CALL_SIGNATURE, target, target.type());
+			return (HandlerCaller) site.getTarget().invokeExact();
+		} catch (Throwable e) {
+			log.info("could not generate handler caller for " + method.getDeclaringClass().getName() + ", falling back to reflection. Reason: " + e.getMessage());
+			return null;
+		}
+	}
+
+}
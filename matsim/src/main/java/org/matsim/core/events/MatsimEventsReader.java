@@ -31,7 +31,9 @@ import org.apache.log4j.Logger;
 import org.matsim.core.api.experimental.events.EventsManager;
 import org.matsim.core.api.internal.MatsimReader;
 import org.matsim.core.events.EventsReaderXMLv1.CustomEventMapper;
+import org.matsim.core.events.algorithms.EventsBinaryFormat;
 import org.matsim.core.utils.io.MatsimXmlParser;
+import org.matsim.core.utils.io.MatsimXmlParser.ParallelParser;
 import org.xml.sax.Attributes;
 import org.xml.sax.SAXException;
 
@@ -47,6 +49,7 @@ public final class MatsimEventsReader implements MatsimReader {
 	private final EventsManager events;
 
 	private final Map<String, CustomEventMapper> map = new LinkedHashMap<>(  ) ;
+	private int numberOfThreads = 1;
 
 	public void addCustomEventMapper( String eventType, CustomEventMapper mapper ) {
 		map.put( eventType, mapper ) ;
@@ -61,6 +64,15 @@ public final class MatsimEventsReader implements MatsimReader {
 		this.events = events;
 	}
 
+	/**
+	 * Sets the number of threads used to create the events.  The events are still passed to the events manager one
+	 * after the other, in the order of the file, on the calling thread; custom event mappers however have to be
+	 * thread-safe when reading with more than one thread.
+	 */
+	public void setNumberOfThreads(final int numberOfThreads) {
+		this.numberOfThreads = numberOfThreads;
+	}
+
 	/**
 	 * Parses the specified events file.
 	 *
@@ -69,8 +81,14 @@ public final class MatsimEventsReader implements MatsimReader {
 	@Override
 	public void readFile(final String filename) {
 		String lcFilename = filename.toLowerCase(Locale.ROOT);
-		if (lcFilename.endsWith(".xml") || lcFilename.endsWith(".xml.gz")) {
-			new XmlEventsReader(this.events, map ).readFile(filename );
+		if (EventsBinaryFormat.isBinaryFile(lcFilename)) {
+			EventsReaderBinary reader = new EventsReaderBinary(this.events);
+			for (Map.Entry<String, CustomEventMapper> entry : map.entrySet()) {
+				reader.addCustomEventMapper(entry.getKey(), entry.getValue());
+			}
+			reader.readFile(filename);
+		} else if (lcFilename.endsWith(".xml") || lcFilename.endsWith(".xml.gz")) {
+			new XmlEventsReader(this.events, map, this.numberOfThreads ).readFile(filename );
 		} else if (lcFilename.endsWith(".txt") || lcFilename.endsWith(".txt.gz")) {
 			throw new RuntimeException("text events are no longer supported. Please use MATSim 0.6.1 or earlier to read text events.");
 		} else {
@@ -79,15 +97,15 @@ public final class MatsimEventsReader implements MatsimReader {
 	}
 
 	public void readStream(final InputStream stream) {
-		new XmlEventsReader(this.events, map ).parse(stream );
+		new XmlEventsReader(this.events, map, this.numberOfThreads ).parse(stream );
 	}
 
 	@Override
 	public void readURL( final URL url ) {
-		new XmlEventsReader( this.events, map ).readURL( url );
+		new XmlEventsReader( this.events, map, this.numberOfThreads ).readURL( url );
 	}
 
-	private static class XmlEventsReader extends MatsimXmlParser {
+	private static class XmlEventsReader extends MatsimXmlParser implements ParallelParser {
 
 		final EventsManager events;
 		private final static String EVENTS_V1 = "events_v1.dtd";
@@ -95,10 +113,11 @@ public final class MatsimEventsReader implements MatsimReader {
 
 		private final Map<String, CustomEventMapper> map ;
 
-		private XmlEventsReader( final EventsManager events, Map<String, CustomEventMapper> map ) {
+		private XmlEventsReader( final EventsManager events, Map<String, CustomEventMapper> map, int numberOfThreads ) {
 			this.events = events;
 			this.map = map;
 			this.setValidating(false); // events-files have no DTD, thus they cannot validate
+			this.setNumberOfThreads(numberOfThreads);
 			setDoctype("events_v1.dtd"); // manually set a doctype, otherwise delegate would not be initialized
 		}
 
@@ -123,6 +142,21 @@ public final class MatsimEventsReader implements MatsimReader {
 			this.delegate.endTag(name, content, context);
 		}
 
+		@Override
+		public boolean isChunkElement(final String name) {
+			return this.delegate instanceof ParallelParser && ((ParallelParser) this.delegate).isChunkElement(name);
+		}
+
+		@Override
+		public void startChunkElement(final String name, final Attributes atts) {
+			((ParallelParser) this.delegate).startChunkElement(name, atts);
+		}
+
+		@Override
+		public ChunkParser createChunkParser() {
+			return ((ParallelParser) this.delegate).createChunkParser();
+		}
+
 		@Override
 		protected void setDoctype(final String doctype) {
 			super.setDoctype(doctype);
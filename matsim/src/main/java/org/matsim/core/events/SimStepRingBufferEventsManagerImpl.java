@@ -0,0 +1,454 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * SimStepRingBufferEventsManagerImpl.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2020 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.events;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+import javax.inject.Inject;
+
+import org.apache.log4j.Logger;
+import org.matsim.api.core.v01.events.Event;
+import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.config.groups.ParallelEventHandlingConfigGroup;
+import org.matsim.core.events.handler.EventHandler;
+import org.matsim.core.gbl.Gbl;
+
+/**
+ * An EventsHandler that handles all occurring Events in separate Threads, like
+ * {@link SimStepParallelEventsManagerImpl}: when a time step of the QSim ends, all
+ * Events that have been created in that time step are processed before the
+ * simulation can go on.
+ * <p></p>
+ * Instead of a chain of linked queues, all events are published into one preallocated
+ * ring buffer. Every events processing thread reads the whole buffer with its own
+ * sequence, processes the events that are available in batches, and only publishes
+ * its progress once per batch. The producers only have to claim a slot, no node is
+ * allocated and no lock is taken per event. If the buffer is full, producers wait
+ * for the slowest events processing thread (back-pressure).
+ * <p></p>
+ * Events that are created by event handlers (i.e. on one of the events processing
+ * threads) are collected separately and published by the simulation thread, at latest
+ * at the end of the time step. Otherwise an events processing thread could wait for
+ * free space in the buffer that only it could release.
+ */
+class SimStepRingBufferEventsManagerImpl implements EventsManager {
+
+	private final static Logger log = Logger.getLogger(SimStepRingBufferEventsManagerImpl.class);
+
+	public static final int DEFAULT_RING_BUFFER_SIZE = 65536;
+
+	/** maximum number of events an events processing thread handles before it publishes its progress */
+	private static final int MAX_BATCH_SIZE = 256;
+
+	/** number of {@link #idle(int)} rounds an events processing thread waits before it blocks */
+	private static final int IDLE_SPINS_BEFORE_PARKING = 200;
+
+	private final int numOfThreads;
+	private final int bufferSize;
+	private final int mask;
+	private final EventsManagerImpl[] eventsManagers;
+	private final EventsManagerImpl delegate;
+
+	private Event[] entries;
+	private AtomicLongArray published;
+	private final AtomicLong cursor = new AtomicLong(-1);
+	private volatile long cachedMinSequence = -1;
+	private final Queue<Event> handlerEvents = new ConcurrentLinkedQueue<>();
+
+	private ConsumerThread[] consumers;
+	/** number of events processing threads that are blocked until new events are published */
+	private final AtomicInteger parkedConsumers = new AtomicInteger(0);
+	private volatile boolean parallelMode = false;
+	private int handlerCount = 0;
+	private final AtomicReference<Throwable> hadException = new AtomicReference<>();
+
+	private final AtomicLong counter = new AtomicLong(0);
+	private final AtomicLong backPressureWaits = new AtomicLong(0);
+	private final AtomicLong backPressureNanos = new AtomicLong(0);
+	private long simStepWaitNanos = 0;
+	private long startNanos = 0;
+	private long firstSequence = 0;
+
+	@Inject
+	SimStepRingBufferEventsManagerImpl(ParallelEventHandlingConfigGroup config) {
+		this(config.getNumberOfThreads() != null ? config.getNumberOfThreads() : 1, config.getRingBufferSize());
+	}
+
+	public SimStepRingBufferEventsManagerImpl() {
+		this(1, DEFAULT_RING_BUFFER_SIZE);
+	}
+
+	public SimStepRingBufferEventsManagerImpl(int numOfThreads, int bufferSize) {
+		if (bufferSize < 2 || Integer.bitCount(bufferSize) != 1) {
+			throw new IllegalArgumentException("size of the ring buffer must be a power of 2, but is " + bufferSize);
+		}
+		this.numOfThreads = numOfThreads;
+		this.bufferSize = bufferSize;
+		this.mask = bufferSize - 1;
+		log.info("number of threads=" + numOfThreads + ", ring buffer size=" + bufferSize);
+
+		this.delegate = new EventsManagerImpl();
+		this.eventsManagers = new EventsManagerImpl[this.numOfThreads];
+		for (int i = 0; i < numOfThreads; i++) this.eventsManagers[i] = new EventsManagerImpl();
+	}
+
+	@Override
+	public void processEvent(final Event event) {
+		this.counter.incrementAndGet();
+
+		if (!this.parallelMode) {
+			this.delegate.processEvent(event);
+			return;
+		}
+		if (this.hadException.get() != null) {
+			// the events processing threads are gone, the exception is reported in finishProcessing()
+			return;
+		}
+		Thread thread = Thread.currentThread();
+		if (thread instanceof ConsumerThread && ((ConsumerThread) thread).getEventsManager() == this) {
+			this.handlerEvents.add(event);
+			return;
+		}
+		if (!this.handlerEvents.isEmpty()) {
+			publishHandlerEvents();
+		}
+		publish(event);
+	}
+
+	@Override
+	public void addHandler(final EventHandler handler) {
+		this.delegate.addHandler(handler);
+
+		this.eventsManagers[this.handlerCount % this.numOfThreads].addHandler(handler);
+		this.handlerCount++;
+	}
+
+	@Override
+	public void removeHandler(final EventHandler handler) {
+		this.delegate.removeHandler(handler);
+
+		for (EventsManager eventsManager : this.eventsManagers) eventsManager.removeHandler(handler);
+	}
+
+	@Override
+	public void resetHandlers(int iteration) {
+		this.delegate.resetHandlers(iteration);
+		this.counter.set(0);
+	}
+
+	@Override
+	public void initProcessing() {
+		this.delegate.initProcessing();
+		for (EventsManager eventsManager : this.eventsManagers) eventsManager.initProcessing();
+
+		if (this.entries == null) {
+			this.entries = new Event[this.bufferSize];
+			this.published = new AtomicLongArray(this.bufferSize);
+			for (int i = 0; i < this.bufferSize; i++) this.published.set(i, -1);
+		}
+		this.hadException.set(null);
+		this.handlerEvents.clear();
+		this.backPressureWaits.set(0);
+		this.backPressureNanos.set(0);
+		this.simStepWaitNanos = 0;
+		this.firstSequence = this.cursor.get() + 1;
+
+		this.consumers = new ConsumerThread[this.numOfThreads];
+		for (int i = 0; i < this.numOfThreads; i++) {
+			ConsumerThread consumer = new ConsumerThread(this, this.eventsManagers[i], this.cursor.get());
+			consumer.setDaemon(true);
+			consumer.setName("RingBufferEventsProcessingThread-" + i);
+			this.consumers[i] = consumer;
+		}
+		this.startNanos = System.nanoTime();
+		for (ConsumerThread consumer : this.consumers) consumer.start();
+
+		/*
+		 * During the simulation Events are processed in
+		 * the events processing threads.
+		 */
+		this.parallelMode = true;
+	}
+
+	@Override
+	public synchronized void finishProcessing() {
+		if (this.parallelMode) {
+			if (this.hadException.get() == null) {
+				waitForProcessedEvents();
+				publish(new LastEventOfIteration(Double.POSITIVE_INFINITY));
+			}
+			for (ConsumerThread consumer : this.consumers) {
+				try {
+					consumer.join();
+				} catch (InterruptedException e) {
+					this.hadException.compareAndSet(null, e);
+				}
+			}
+			logStatistics();
+		}
+
+		this.delegate.finishProcessing();
+		for (EventsManager eventsManager : this.eventsManagers) eventsManager.finishProcessing();
+
+		/*
+		 * After the simulation Events are processed in
+		 * the Main Thread.
+		 */
+		this.parallelMode = false;
+
+		Throwable throwable = this.hadException.get();
+		if (throwable != null) {
+			throw new RuntimeException("Exception while processing events. Cannot guarantee that all events have been fully processed.", throwable);
+		}
+	}
+
+	@Override
+	public void afterSimStep(double time) {
+		/*
+		 * If an exception occurred, the events processing threads have
+		 * stopped, there is nothing to wait for.
+		 */
+		if (!this.parallelMode || this.hadException.get() != null) {
+			return;
+		}
+		long start = System.nanoTime();
+		waitForProcessedEvents();
+		this.simStepWaitNanos += System.nanoTime() - start;
+	}
+
+	/**
+	 * Waits until all events that have been published so far, including the events created by event handlers
+	 * while processing them, have been processed by all events processing threads.
+	 */
+	private void waitForProcessedEvents() {
+		long target;
+		do {
+			publishHandlerEvents();
+			target = this.cursor.get();
+			int idleCounter = 0;
+			while (minConsumerSequence() < target) {
+				if (this.hadException.get() != null) {
+					return;
+				}
+				idle(idleCounter++);
+			}
+		} while (!this.handlerEvents.isEmpty() || this.cursor.get() != target);
+	}
+
+	private void publishHandlerEvents() {
+		Event event;
+		while ((event = this.handlerEvents.poll()) != null) {
+			publish(event);
+		}
+	}
+
+	private void publish(final Event event) {
+		long sequence = this.cursor.incrementAndGet();
+		long wrapPoint = sequence - this.bufferSize;
+		if (wrapPoint > this.cachedMinSequence) {
+			long minSequence = minConsumerSequence();
+			if (wrapPoint > minSequence) {
+				minSequence = waitForCapacity(wrapPoint);
+			}
+			this.cachedMinSequence = minSequence;
+		}
+		int index = (int) (sequence & this.mask);
+		this.entries[index] = event;
+		this.published.set(index, sequence);
+		if (this.parkedConsumers.get() > 0) {
+			unparkConsumers();
+		}
+	}
+
+	private void unparkConsumers() {
+		for (ConsumerThread consumer : this.consumers) {
+			if (consumer.parked) {
+				LockSupport.unpark(consumer);
+			}
+		}
+	}
+
+	private long waitForCapacity(final long wrapPoint) {
+		this.backPressureWaits.incrementAndGet();
+		long start = System.nanoTime();
+		int idleCounter = 0;
+		long minSequence;
+		while (wrapPoint > (minSequence = minConsumerSequence())) {
+			if (this.hadException.get() != null) {
+				throw new RuntimeException("Events processing thread died, cannot publish further events.", this.hadException.get());
+			}
+			idle(idleCounter++);
+		}
+		this.backPressureNanos.addAndGet(System.nanoTime() - start);
+		return minSequence;
+	}
+
+	private long minConsumerSequence() {
+		long min = Long.MAX_VALUE;
+		for (ConsumerThread consumer : this.consumers) {
+			min = Math.min(min, consumer.sequence);
+		}
+		return min;
+	}
+
+	/**
+	 * Spin first, then yield, then park for a short time. Waiting times between two events are usually very short.
+	 * The events processing threads stop calling this after {@link #IDLE_SPINS_BEFORE_PARKING} rounds and block until
+	 * the next event is published, so they do not poll while the simulation thread does other work.
+	 */
+	private static void idle(final int idleCounter) {
+		if (idleCounter < 100) {
+			// busy spin
+		} else if (idleCounter < 200) {
+			Thread.yield();
+		} else {
+			LockSupport.parkNanos(50_000);
+		}
+	}
+
+	private void logStatistics() {
+		long events = this.cursor.get() + 1 - this.firstSequence;
+		double seconds = (System.nanoTime() - this.startNanos) / 1e9;
+		log.info("ring buffer events processing: " + events + " events in " + String.format("%.2f", seconds) + " seconds, "
+				+ String.format("%.0f", seconds > 0 ? events / seconds : 0.0) + " events/s.");
+		log.info("ring buffer events processing: back-pressure (full buffer) " + this.backPressureWaits.get() + " times, "
+				+ this.backPressureNanos.get() / 1000000 + " ms in total; waiting for events processing at end of sim steps "
+				+ this.simStepWaitNanos / 1000000 + " ms in total.");
+	}
+
+	/**
+	 * @return number of times an event could not be published immediately because the ring buffer was full.
+	 */
+	long getBackPressureWaits() {
+		return this.backPressureWaits.get();
+	}
+
+	/**
+	 * @return total time in nanoseconds producers waited for free space in the ring buffer.
+	 */
+	long getBackPressureNanos() {
+		return this.backPressureNanos.get();
+	}
+
+	private static class ConsumerThread extends Thread {
+
+		private final SimStepRingBufferEventsManagerImpl ring;
+		private final EventsManager eventsManager;
+		/** sequence of the last event this thread has processed */
+		private volatile long sequence;
+		/** true while this thread is (about to be) blocked until the next event is published */
+		private volatile boolean parked = false;
+		private double lastEventTime = 0.0;
+
+		ConsumerThread(SimStepRingBufferEventsManagerImpl ring, EventsManager eventsManager, long sequence) {
+			this.ring = ring;
+			this.eventsManager = eventsManager;
+			this.sequence = sequence;
+		}
+
+		SimStepRingBufferEventsManagerImpl getEventsManager() {
+			return this.ring;
+		}
+
+		@Override
+		public void run() {
+			try {
+				processEvents();
+			} catch (Throwable e) {
+				this.ring.hadException.compareAndSet(null, e);
+				log.error("Thread " + getName() + " died with exception while handling events.", e);
+				// the other events processing threads must not wait for events that will never be published
+				this.ring.unparkConsumers();
+			}
+			Gbl.printCurrentThreadCpuTime();
+		}
+
+		private void processEvents() {
+			final Event[] entries = this.ring.entries;
+			final AtomicLongArray published = this.ring.published;
+			final int mask = this.ring.mask;
+			long next = this.sequence + 1;
+			int idleCounter = 0;
+			while (true) {
+				int index = (int) (next & mask);
+				if (published.get(index) != next) {
+					if (this.ring.hadException.get() != null) {
+						return;
+					}
+					if (idleCounter < IDLE_SPINS_BEFORE_PARKING) {
+						idle(idleCounter++);
+					} else {
+						waitForPublication(published, index, next);
+					}
+					continue;
+				}
+				idleCounter = 0;
+				int batchSize = 0;
+				do {
+					Event event = entries[index];
+					if (event instanceof LastEventOfIteration) {
+						this.sequence = next;
+						return;
+					}
+					/*
+					 * Check whether the events are ordered chronologically.
+					 */
+					if (event.getTime() < this.lastEventTime) {
+						throw new RuntimeException("Events in the ring buffer are not ordered chronologically. " +
+								"This should never happen. Is the SimStepRingBufferEventsManager registered " +
+								"as a MobsimAfterSimStepListener?");
+					}
+					this.lastEventTime = event.getTime();
+					this.eventsManager.processEvent(event);
+					next++;
+					batchSize++;
+					index = (int) (next & mask);
+				} while (batchSize < MAX_BATCH_SIZE && published.get(index) == next);
+				this.sequence = next - 1;
+			}
+		}
+
+		/**
+		 * Blocks until the producer publishes the event with the given sequence. The producer checks
+		 * {@link #parkedConsumers} after each publication; since this thread registers itself before checking the
+		 * buffer again, either the event is seen here or the producer sees the registration and unparks this thread.
+		 */
+		private void waitForPublication(final AtomicLongArray published, final int index, final long next) {
+			this.parked = true;
+			this.ring.parkedConsumers.incrementAndGet();
+			try {
+				while (published.get(index) != next && this.ring.hadException.get() == null) {
+					LockSupport.park(this);
+				}
+			} finally {
+				this.ring.parkedConsumers.decrementAndGet();
+				this.parked = false;
+			}
+		}
+	}
+
+}
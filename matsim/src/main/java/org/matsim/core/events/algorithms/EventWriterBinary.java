@@ -0,0 +1,345 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * EventWriterBinary.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2020 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.events.algorithms;
+
+import static org.matsim.core.events.algorithms.EventsBinaryFormat.*;
+
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.matsim.api.core.v01.events.ActivityEndEvent;
+import org.matsim.api.core.v01.events.ActivityStartEvent;
+import org.matsim.api.core.v01.events.Event;
+import org.matsim.api.core.v01.events.LinkEnterEvent;
+import org.matsim.api.core.v01.events.LinkLeaveEvent;
+import org.matsim.api.core.v01.events.PersonArrivalEvent;
+import org.matsim.api.core.v01.events.PersonDepartureEvent;
+import org.matsim.api.core.v01.events.PersonEntersVehicleEvent;
+import org.matsim.api.core.v01.events.PersonLeavesVehicleEvent;
+import org.matsim.api.core.v01.events.VehicleEntersTrafficEvent;
+import org.matsim.api.core.v01.events.VehicleLeavesTrafficEvent;
+import org.matsim.core.events.handler.BasicEventHandler;
+import org.matsim.core.utils.io.UncheckedIOException;
+
+/**
+ * Writes events in the {@link EventsBinaryFormat binary format}, which is a lot smaller and faster to read than
+ * xml.  Use {@link org.matsim.core.events.MatsimEventsReader} or {@link org.matsim.core.events.EventsReaderBinary}
+ * to read the files again.
+ * <p></p>
+ * The ids and other strings are collected in memory until the file is closed, since the dictionary is written at its
+ * end.
+ */
+public class EventWriterBinary implements EventWriter, BasicEventHandler {
+
+	private final OutputStream out;
+	private long position;
+
+	private final Map<String, Integer> strings = new HashMap<>();
+	private final List<String> dictionary = new ArrayList<>();
+
+	private final Buffer block = new Buffer(BLOCK_SIZE + 1024);
+	private int blockEvents = 0;
+	private double blockMinTime = Double.POSITIVE_INFINITY;
+	private double blockMaxTime = Double.NEGATIVE_INFINITY;
+	private double previousTime = 0.0;
+
+	private final Buffer index = new Buffer(1024);
+	private int blocks = 0;
+
+	public EventWriterBinary(final String outfilename) {
+		try {
+			this.out = new BufferedOutputStream(new FileOutputStream(outfilename), 1 << 16);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		Buffer header = new Buffer(HEADER_LENGTH);
+		header.writeLong(MAGIC);
+		header.writeInt(VERSION);
+		write(header);
+	}
+
+	@Override
+	public void closeFile() {
+		if (this.blockEvents > 0) {
+			writeBlock();
+		}
+		long indexPosition = this.position;
+		Buffer head = new Buffer(5);
+		head.writeVarInt(this.blocks);
+		write(head);
+		write(this.index);
+		Buffer strings = new Buffer(1 << 16);
+		strings.writeVarInt(this.dictionary.size());
+		for (String string : this.dictionary) {
+			byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+			strings.writeVarInt(bytes.length);
+			strings.writeBytes(bytes);
+			if (strings.length > (1 << 16)) {
+				write(strings);
+				strings.length = 0;
+			}
+		}
+		write(strings);
+		Buffer trailer = new Buffer(TRAILER_LENGTH);
+		trailer.writeLong(indexPosition);
+		trailer.writeLong(MAGIC);
+		write(trailer);
+		try {
+			this.out.close();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	@Override
+	public void reset(final int iter) {
+	}
+
+	@Override
+	public void handleEvent(final Event event) {
+		Buffer b = this.block;
+		Class<?> clazz = event.getClass();
+		if (clazz == LinkEnterEvent.class) {
+			LinkEnterEvent e = (LinkEnterEvent) event;
+			b.writeByte(LINK_ENTER);
+			writeTime(e.getTime());
+			writeString(e.getVehicleId());
+			writeString(e.getLinkId());
+		} else if (clazz == LinkLeaveEvent.class) {
+			LinkLeaveEvent e = (LinkLeaveEvent) event;
+			b.writeByte(LINK_LEAVE);
+			writeTime(e.getTime());
+			writeString(e.getVehicleId());
+			writeString(e.getLinkId());
+		} else if (clazz == VehicleEntersTrafficEvent.class) {
+			VehicleEntersTrafficEvent e = (VehicleEntersTrafficEvent) event;
+			b.writeByte(VEHICLE_ENTERS_TRAFFIC);
+			writeTime(e.getTime());
+			writeString(e.getPersonId());
+			writeString(e.getLinkId());
+			writeString(e.getVehicleId());
+			writeString(e.getNetworkMode());
+			b.writeDouble(e.getRelativePositionOnLink());
+		} else if (clazz == VehicleLeavesTrafficEvent.class) {
+			VehicleLeavesTrafficEvent e = (VehicleLeavesTrafficEvent) event;
+			b.writeByte(VEHICLE_LEAVES_TRAFFIC);
+			writeTime(e.getTime());
+			writeString(e.getPersonId());
+			writeString(e.getLinkId());
+			writeString(e.getVehicleId());
+			writeString(e.getNetworkMode());
+			b.writeDouble(e.getRelativePositionOnLink());
+		} else if (clazz == PersonDepartureEvent.class) {
+			PersonDepartureEvent e = (PersonDepartureEvent) event;
+			b.writeByte(PERSON_DEPARTURE);
+			writeTime(e.getTime());
+			writeString(e.getPersonId());
+			writeString(e.getLinkId());
+			writeString(e.getLegMode());
+		} else if (clazz == PersonArrivalEvent.class) {
+			PersonArrivalEvent e = (PersonArrivalEvent) event;
+			b.writeByte(PERSON_ARRIVAL);
+			writeTime(e.getTime());
+			writeString(e.getPersonId());
+			writeString(e.getLinkId());
+			writeString(e.getLegMode());
+		} else if (clazz == ActivityEndEvent.class) {
+			ActivityEndEvent e = (ActivityEndEvent) event;
+			b.writeByte(ACTIVITY_END);
+			writeTime(e.getTime());
+			writeString(e.getPersonId());
+			writeString(e.getLinkId());
+			writeString(e.getFacilityId());
+			writeString(e.getActType());
+		} else if (clazz == ActivityStartEvent.class) {
+			ActivityStartEvent e = (ActivityStartEvent) event;
+			b.writeByte(ACTIVITY_START);
+			writeTime(e.getTime());
+			writeString(e.getPersonId());
+			writeString(e.getLinkId());
+			writeString(e.getFacilityId());
+			writeString(e.getActType());
+		} else if (clazz == PersonEntersVehicleEvent.class) {
+			PersonEntersVehicleEvent e = (PersonEntersVehicleEvent) event;
+			b.writeByte(PERSON_ENTERS_VEHICLE);
+			writeTime(e.getTime());
+			writeString(e.getPersonId());
+			writeString(e.getVehicleId());
+		} else if (clazz == PersonLeavesVehicleEvent.class) {
+			PersonLeavesVehicleEvent e = (PersonLeavesVehicleEvent) event;
+			b.writeByte(PERSON_LEAVES_VEHICLE);
+			writeTime(e.getTime());
+			writeString(e.getPersonId());
+			writeString(e.getVehicleId());
+		} else {
+			// everything else is written as it would be in xml, and read like xml again
+			Map<String, String> attributes = event.getAttributes();
+			b.writeByte(GENERIC);
+			writeTime(event.getTime());
+			writeString(event.getEventType());
+			int size = attributes.size();
+			size -= attributes.containsKey(Event.ATTRIBUTE_TIME) ? 1 : 0;
+			size -= attributes.containsKey(Event.ATTRIBUTE_TYPE) ? 1 : 0;
+			b.writeVarInt(size);
+			for (Map.Entry<String, String> entry : attributes.entrySet()) {
+				if (entry.getKey().equals(Event.ATTRIBUTE_TIME) || entry.getKey().equals(Event.ATTRIBUTE_TYPE)) {
+					continue;
+				}
+				writeString(entry.getKey());
+				// the xml writer writes missing values as "null", too
+				b.writeText(String.valueOf(entry.getValue()));
+			}
+		}
+
+		this.blockEvents++;
+		this.blockMinTime = Math.min(this.blockMinTime, event.getTime());
+		this.blockMaxTime = Math.max(this.blockMaxTime, event.getTime());
+		if (b.length >= BLOCK_SIZE) {
+			writeBlock();
+		}
+	}
+
+	private void writeTime(final double time) {
+		double previous = this.previousTime;
+		if (time >= previous && time < 1e15 && time == Math.rint(time) && previous == Math.rint(previous)) {
+			this.block.writeVarLong(((long) (time - previous)) << 1);
+		} else {
+			this.block.writeVarLong(1);
+			this.block.writeDouble(time);
+		}
+		this.previousTime = time;
+	}
+
+	private void writeString(final Object value) {
+		if (value == null) {
+			this.block.writeVarInt(0);
+			return;
+		}
+		String string = value.toString();
+		Integer index = this.strings.get(string);
+		if (index == null) {
+			index = this.dictionary.size();
+			this.strings.put(string, index);
+			this.dictionary.add(string);
+		}
+		this.block.writeVarInt(index + 1);
+	}
+
+	private void writeBlock() {
+		this.index.writeLong(this.position);
+		this.index.writeInt(this.block.length);
+		this.index.writeVarInt(this.blockEvents);
+		this.index.writeDouble(this.blockMinTime);
+		this.index.writeDouble(this.blockMaxTime);
+		this.blocks++;
+		write(this.block);
+		this.block.length = 0;
+		this.blockEvents = 0;
+		this.blockMinTime = Double.POSITIVE_INFINITY;
+		this.blockMaxTime = Double.NEGATIVE_INFINITY;
+		// every block starts from scratch, so it can be read without the ones before it
+		this.previousTime = 0.0;
+	}
+
+	private void write(final Buffer buffer) {
+		try {
+			this.out.write(buffer.bytes, 0, buffer.length);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		this.position += buffer.length;
+	}
+
+	/*
+	 * A growing byte array with the encodings of the format.
+	 */
+	private static final class Buffer {
+		byte[] bytes;
+		int length = 0;
+
+		Buffer(final int initialCapacity) {
+			this.bytes = new byte[initialCapacity];
+		}
+
+		private void ensureCapacity(final int additional) {
+			if (this.length + additional > this.bytes.length) {
+				this.bytes = Arrays.copyOf(this.bytes, Math.max(this.length + additional, this.bytes.length * 2));
+			}
+		}
+
+		void writeByte(final int value) {
+			ensureCapacity(1);
+			this.bytes[this.length++] = (byte) value;
+		}
+
+		void writeVarInt(final int value) {
+			writeVarLong(value & 0xffffffffL);
+		}
+
+		void writeVarLong(long value) {
+			ensureCapacity(10);
+			while ((value & ~0x7fL) != 0) {
+				this.bytes[this.length++] = (byte) ((value & 0x7f) | 0x80);
+				value >>>= 7;
+			}
+			this.bytes[this.length++] = (byte) value;
+		}
+
+		void writeInt(final int value) {
+			ensureCapacity(4);
+			for (int shift = 24; shift >= 0; shift -= 8) {
+				this.bytes[this.length++] = (byte) (value >>> shift);
+			}
+		}
+
+		void writeLong(final long value) {
+			ensureCapacity(8);
+			for (int shift = 56; shift >= 0; shift -= 8) {
+				this.bytes[this.length++] = (byte) (value >>> shift);
+			}
+		}
+
+		void writeDouble(final double value) {
+			writeLong(Double.doubleToRawLongBits(value));
+		}
+
+		void writeBytes(final byte[] value) {
+			ensureCapacity(value.length);
+			System.arraycopy(value, 0, this.bytes, this.length, value.length);
+			this.length += value.length;
+		}
+
+		void writeText(final String value) {
+			byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+			writeVarInt(utf8.length);
+			writeBytes(utf8);
+		}
+	}
+
+}
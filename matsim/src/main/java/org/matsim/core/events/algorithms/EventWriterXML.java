@@ -27,16 +27,36 @@ import org.matsim.core.utils.io.UncheckedIOException;
 
 import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 public class EventWriterXML implements EventWriter, BasicEventHandler {
 	private final BufferedWriter out;
 
 	public EventWriterXML(final String outfilename) {
-		this.out = IOUtils.getBufferedWriter(outfilename);
+		this(outfilename, false);
+	}
+
+	/**
+	 * @param asynchronous if <code>true</code>, the events are still formatted on the thread handling them, but the
+	 * resulting blocks of bytes are written and compressed on a background thread.  The file is the same in both
+	 * modes, but in the asynchronous one a slow compression (e.g. for .gz files) no longer holds up the events
+	 * handling, and thus the mobsim.
+	 */
+	public EventWriterXML(final String outfilename, final boolean asynchronous) {
+		if (asynchronous) {
+			OutputStream stream = IOUtils.getOutputStream(IOUtils.getFileUrl(outfilename), false);
+			this.out = new BufferedWriter(new OutputStreamWriter(new BackgroundOutputStream(stream, outfilename), StandardCharsets.UTF_8));
+		} else {
+			this.out = IOUtils.getBufferedWriter(outfilename);
+		}
 		this.writeHeader();
 	}
 
@@ -148,4 +168,150 @@ public class EventWriterXML implements EventWriter, BasicEventHandler {
 
 	}
 
+	/**
+	 * Collects the bytes written to it into blocks and hands the full blocks to a background thread, which writes
+	 * them to the underlying stream.  The blocks are recycled, so there are never more than {@link #BLOCKS} of them.
+	 * A failure of the background thread is reported at the next block handed over, or at the latest when closing.
+	 * While waiting for the background thread, the failure is checked regularly, so a failed thread never blocks the
+	 * events handling.
+	 */
+	/* package */ static final class BackgroundOutputStream extends OutputStream {
+
+		private static final int BLOCK_SIZE = 256 * 1024;
+		private static final int BLOCKS = 4;
+		private static final byte[] END = new byte[0];
+		private static final long WAIT_MILLIS = 100;
+
+		private final OutputStream stream;
+		private final BlockingQueue<byte[]> freeBlocks = new ArrayBlockingQueue<>(BLOCKS);
+		private final BlockingQueue<byte[]> fullBlocks = new ArrayBlockingQueue<>(BLOCKS + 1);
+		private final Thread thread;
+		private volatile IOException failure = null;
+
+		private byte[] block = new byte[BLOCK_SIZE];
+		private int position = 0;
+		private boolean closed = false;
+
+		BackgroundOutputStream(final OutputStream stream, final String filename) {
+			this.stream = stream;
+			for (int i = 1; i < BLOCKS; i++) {
+				this.freeBlocks.add(new byte[BLOCK_SIZE]);
+			}
+			this.thread = new Thread(this::run, "EventWriterXML " + filename);
+			this.thread.setDaemon(true);
+			this.thread.start();
+		}
+
+		private void run() {
+			while (true) {
+				byte[] data;
+				try {
+					data = this.fullBlocks.take();
+				} catch (InterruptedException e) {
+					this.failure = new InterruptedIOException("writing events was interrupted.");
+					return;
+				}
+				if (data == END) {
+					return;
+				}
+				if (this.failure == null) {
+					try {
+						// the blocks are only handed over when full, except the last one which is trimmed
+						this.stream.write(data, 0, data.length);
+					} catch (IOException e) {
+						this.failure = e;
+					} catch (RuntimeException | Error e) {
+						this.failure = new IOException("writing events failed.", e);
+					}
+				}
+				if (data.length == BLOCK_SIZE) {
+					this.freeBlocks.offer(data);
+				}
+			}
+		}
+
+		@Override
+		public void write(final int b) throws IOException {
+			if (this.position == BLOCK_SIZE) {
+				handOver(this.block);
+			}
+			this.block[this.position++] = (byte) b;
+		}
+
+		@Override
+		public void write(final byte[] b, int off, int len) throws IOException {
+			while (len > 0) {
+				if (this.position == BLOCK_SIZE) {
+					handOver(this.block);
+				}
+				int n = Math.min(len, BLOCK_SIZE - this.position);
+				System.arraycopy(b, off, this.block, this.position, n);
+				this.position += n;
+				off += n;
+				len -= n;
+			}
+		}
+
+		private void handOver(final byte[] data) throws IOException {
+			checkFailure();
+			try {
+				put(data);
+				if (data.length == BLOCK_SIZE) {
+					byte[] free;
+					while ((free = this.freeBlocks.poll(WAIT_MILLIS, TimeUnit.MILLISECONDS)) == null) {
+						checkAlive();
+					}
+					this.block = free;
+					this.position = 0;
+				}
+			} catch (InterruptedException e) {
+				throw new InterruptedIOException("writing events was interrupted.");
+			}
+		}
+
+		private void put(final byte[] data) throws IOException, InterruptedException {
+			while (!this.fullBlocks.offer(data, WAIT_MILLIS, TimeUnit.MILLISECONDS)) {
+				checkAlive();
+			}
+		}
+
+		private void checkFailure() throws IOException {
+			if (this.failure != null) {
+				throw this.failure;
+			}
+		}
+
+		private void checkAlive() throws IOException {
+			checkFailure();
+			if (!this.thread.isAlive()) {
+				checkFailure();
+				throw new IOException("the thread writing the events stopped unexpectedly.");
+			}
+		}
+
+		@Override
+		public void close() throws IOException {
+			if (this.closed) {
+				return;
+			}
+			this.closed = true;
+			try {
+				if (this.position == BLOCK_SIZE) {
+					handOver(this.block);
+				}
+				if (this.position > 0) {
+					handOver(Arrays.copyOf(this.block, this.position));
+				}
+				put(END);
+				this.thread.join();
+			} catch (InterruptedException e) {
+				throw new InterruptedIOException("writing events was interrupted.");
+			} finally {
+				this.stream.close();
+			}
+			checkFailure();
+		}
+
+	}
+
 }
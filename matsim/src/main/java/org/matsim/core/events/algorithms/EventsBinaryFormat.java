@@ -0,0 +1,73 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * EventsBinaryFormat.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2020 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.events.algorithms;
+
+import java.util.Locale;
+
+/**
+ * Constants of the binary events format, as written by {@link EventWriterBinary} and read by
+ * {@link org.matsim.core.events.EventsReaderBinary}.
+ * <p></p>
+ * A file consists of<ul>
+ * <li> a header: {@link #MAGIC} and {@link #VERSION}, </li>
+ * <li> the blocks: the events in the order they were handled, a few thousand per block, </li>
+ * <li> the index: for every block its position, length, number of events and the minimal and maximal time of its
+ * events, followed by the dictionary of all ids and other strings the events refer to, </li>
+ * <li> the trailer: the position of the index and {@link #MAGIC}. </li>
+ * </ul>
+ * Every event is a record of its type, its time and its values.  The frequent event types are written with their
+ * values only, strings are written as references into the dictionary, and times are written as the difference to the
+ * previous event where possible.  All other events are written with the attributes they would have in xml.  The blocks
+ * are not compressed, so they can be memory-mapped, and every block can be decoded without the ones before it.
+ */
+public final class EventsBinaryFormat {
+
+	/** the file extension by which binary events files are recognized */
+	public static final String FILE_EXTENSION = ".meb";
+
+	public static final long MAGIC = 0x4d4154534d455654L; // "MATSMEVT"
+	public static final int VERSION = 1;
+	public static final int HEADER_LENGTH = 12;
+	public static final int TRAILER_LENGTH = 16;
+
+	/** the size in bytes after which a block is completed */
+	public static final int BLOCK_SIZE = 64 * 1024;
+
+	public static final int GENERIC = 0;
+	public static final int LINK_ENTER = 1;
+	public static final int LINK_LEAVE = 2;
+	public static final int VEHICLE_ENTERS_TRAFFIC = 3;
+	public static final int VEHICLE_LEAVES_TRAFFIC = 4;
+	public static final int PERSON_DEPARTURE = 5;
+	public static final int PERSON_ARRIVAL = 6;
+	public static final int ACTIVITY_END = 7;
+	public static final int ACTIVITY_START = 8;
+	public static final int PERSON_ENTERS_VEHICLE = 9;
+	public static final int PERSON_LEAVES_VEHICLE = 10;
+
+	private EventsBinaryFormat() {
+	}
+
+	public static boolean isBinaryFile(final String filename) {
+		return filename.toLowerCase(Locale.ROOT).endsWith(FILE_EXTENSION);
+	}
+
+}
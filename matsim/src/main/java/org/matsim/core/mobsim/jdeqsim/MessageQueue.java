@@ -85,6 +85,21 @@ public class MessageQueue {
 		return m;
 	}
 
+	/**
+	 * 
+	 * get the first message in the queue (with least time stamp) without removing it
+	 *
+	 * @return
+	 */
+	public Message peekNextMessage() {
+		Message m;
+		// discard dead messages at the head of the queue, they were already subtracted from the queue size
+		while ((m = queue1.peek()) != null && !m.isAlive()) {
+			queue1.poll();
+		}
+		return m;
+	}
+
 	public boolean isEmpty() {
 		return queue1.size() == 0;
 	}
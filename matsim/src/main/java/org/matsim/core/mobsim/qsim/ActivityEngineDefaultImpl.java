@@ -19,25 +19,35 @@
 
 package org.matsim.core.mobsim.qsim;
 
+import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Queue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.log4j.Logger;
 import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.events.Event;
 import org.matsim.api.core.v01.events.PersonStuckEvent;
 import org.matsim.api.core.v01.network.Link;
 import org.matsim.api.core.v01.population.Person;
 import org.matsim.core.api.experimental.events.EventsManager;
 import org.matsim.core.mobsim.framework.MobsimAgent;
 import org.matsim.core.mobsim.framework.MobsimAgent.State;
+import org.matsim.core.mobsim.qsim.BufferingEventsManager.BufferingThread;
 import org.matsim.core.mobsim.qsim.interfaces.AgentCounter;
+import org.matsim.core.mobsim.qsim.interfaces.HasNextRelevantTime;
 import org.matsim.core.utils.misc.Time;
 
 import javax.inject.Inject;
 
-public class ActivityEngineDefaultImpl implements ActivityEngine {
+public class ActivityEngineDefaultImpl implements ActivityEngine, HasNextRelevantTime {
 	private static final Logger log = Logger.getLogger( ActivityEngineDefaultImpl.class ) ;
 
 	private EventsManager eventsManager;
@@ -68,13 +78,23 @@ public class ActivityEngineDefaultImpl implements ActivityEngine {
 		final double activityEndTime;
 	}
 
-	private InternalInterface internalInterface;
-	
 	/**
-	 * This list needs to be a "blocking" queue since this is needed for
-	 * thread-safety in the parallel qsim. cdobler, oct'10
+	 * Remembers the link an agent was at when its activity was ended by one of the threads, together with the events
+	 * the agent created meanwhile.
 	 */
-	private final Queue<AgentEntry> activityEndsList = new PriorityBlockingQueue<>(500, new Comparator<AgentEntry>() {
+	private static class ActivityEnd {
+		ActivityEnd(AgentEntry entry) {
+			this.entry = entry;
+			this.linkId = entry.agent.getCurrentLinkId();
+		}
+		final AgentEntry entry;
+		final Id<Link> linkId;
+		final List<Event> events = new ArrayList<>(2);
+	}
+
+	private InternalInterface internalInterface;
+	
+	private static final Comparator<AgentEntry> AGENT_ENTRY_COMPARATOR = new Comparator<AgentEntry>() {
 
 		@Override
 		public int compare(AgentEntry arg0, AgentEntry arg1) {
@@ -94,19 +114,68 @@ public class ActivityEngineDefaultImpl implements ActivityEngine {
 			return cmp;
 		}
 
-	});
+	};
+
+	/**
+	 * These lists need to be "blocking" queues since this is needed for
+	 * thread-safety in the parallel qsim. cdobler, oct'10
+	 * <p></p>
+	 * With one thread, there is only one list. With more threads, the agents are distributed between the lists by their id,
+	 * and every thread ends the activities of the agents in one list, see {@link #endActivitiesInParallel(double)}.
+	 */
+	private List<Queue<AgentEntry>> activityEndsLists = createActivityEndsLists(1);
+
+	private ExecutorService executor = null;
 	
 	// See handleActivity for the reason for this.
 	private boolean beforeFirstSimStep = true;
 
 	@Override
 	public void onPrepareSim() {
-		// Nothing to do here
+		int numberOfThreads = this.internalInterface.getMobsim().getScenario().getConfig().qsim().getNumberOfActivityEngineThreads();
+		if (numberOfThreads > 1) {
+			if (this.internalInterface.getMobsim().getEventsManager() instanceof BufferingEventsManager) {
+				List<AgentEntry> entries = new ArrayList<>();
+				for (Queue<AgentEntry> activityEndsList : this.activityEndsLists) {
+					entries.addAll(activityEndsList);
+				}
+				this.activityEndsLists = createActivityEndsLists(numberOfThreads);
+				for (AgentEntry entry : entries) {
+					getActivityEndsList(entry.agent).add(entry);
+				}
+				AtomicInteger threadCounter = new AtomicInteger(0);
+				this.executor = Executors.newFixedThreadPool(numberOfThreads, runnable -> {
+					Thread thread = new BufferingThread(runnable, "ActivityEngine_" + threadCounter.getAndIncrement());
+					thread.setDaemon(true);
+					return thread;
+				});
+			} else {
+				log.warn("the events of the mobsim cannot be buffered, so activities are ended by one thread only.");
+			}
+		}
+	}
+
+	private static List<Queue<AgentEntry>> createActivityEndsLists(int numberOfLists) {
+		List<Queue<AgentEntry>> activityEndsLists = new ArrayList<>(numberOfLists);
+		for (int i = 0; i < numberOfLists; i++) {
+			activityEndsLists.add(new PriorityBlockingQueue<>(500, AGENT_ENTRY_COMPARATOR));
+		}
+		return activityEndsLists;
+	}
+
+	private Queue<AgentEntry> getActivityEndsList(MobsimAgent agent) {
+		int numberOfLists = this.activityEndsLists.size();
+		return numberOfLists == 1 ? this.activityEndsLists.get(0) : this.activityEndsLists.get(agent.getId().index() % numberOfLists);
 	}
 
 	@Override
 	public void doSimStep(double time) {
 		beforeFirstSimStep = false;
+		if (this.executor != null) {
+			endActivitiesInParallel(time);
+			return;
+		}
+		Queue<AgentEntry> activityEndsList = this.activityEndsLists.get(0);
 		while (activityEndsList.peek() != null) {
 			if (activityEndsList.peek().activityEndTime <= time) {
 				MobsimAgent agent = activityEndsList.poll().agent;
@@ -119,17 +188,97 @@ public class ActivityEngineDefaultImpl implements ActivityEngine {
 		}
 	}
 
+	/*
+	 * Every thread ends the activities of the agents in its list, which includes computing their next state, and collects
+	 * the events the agents create meanwhile. Afterwards, the agents are handed over one by one, in the same order as with
+	 * a single list, and their events are passed on in between. So the result does not depend on the number of threads.
+	 */
+	private void endActivitiesInParallel(double time) {
+		List<Future<List<ActivityEnd>>> futures = new ArrayList<>();
+		for (Queue<AgentEntry> activityEndsList : this.activityEndsLists) {
+			AgentEntry next = activityEndsList.peek();
+			if (next != null && next.activityEndTime <= time) {
+				futures.add(this.executor.submit(() -> endActivities(activityEndsList, time)));
+			}
+		}
+		if (futures.isEmpty()) {
+			return;
+		}
+
+		List<ActivityEnd> activityEnds = new ArrayList<>();
+		try {
+			for (Future<List<ActivityEnd>> future : futures) {
+				activityEnds.addAll(future.get());
+			}
+		} catch (InterruptedException | ExecutionException e) {
+			throw new RuntimeException("exception while ending activities", e);
+		}
+		activityEnds.sort((a1, a2) -> AGENT_ENTRY_COMPARATOR.compare(a1.entry, a2.entry));
+
+		EventsManager events = this.internalInterface.getMobsim().getEventsManager();
+		for (ActivityEnd activityEnd : activityEnds) {
+			MobsimAgent agent = activityEnd.entry.agent;
+			if (activityEnd.linkId != null) { // may be bushwacking
+				internalInterface.unregisterAdditionalAgentOnLink(agent.getId(), activityEnd.linkId);
+			}
+			for (Event event : activityEnd.events) {
+				events.processEvent(event);
+			}
+			internalInterface.arrangeNextAgentState(agent);
+		}
+	}
+
+	private static List<ActivityEnd> endActivities(Queue<AgentEntry> activityEndsList, double time) {
+		BufferingThread thread = (BufferingThread) Thread.currentThread();
+		List<ActivityEnd> activityEnds = new ArrayList<>();
+		while (activityEndsList.peek() != null && activityEndsList.peek().activityEndTime <= time) {
+			ActivityEnd activityEnd = new ActivityEnd(activityEndsList.poll());
+			thread.setBuffer(activityEnd.events);
+			try {
+				activityEnd.entry.agent.endActivityAndComputeNextState(time);
+			} finally {
+				thread.setBuffer(null);
+			}
+			activityEnds.add(activityEnd);
+		}
+		return activityEnds;
+	}
+
+	@Override
+	public double getNextRelevantTime(double now) {
+		double nextTime = Double.POSITIVE_INFINITY;
+		for (Queue<AgentEntry> activityEndsList : this.activityEndsLists) {
+			AgentEntry next = activityEndsList.peek();
+			if (next != null) {
+				nextTime = Math.min(nextTime, next.activityEndTime);
+			}
+		}
+		return nextTime;
+	}
+
 	@Override
 	public void afterSim() {
+		if (this.executor != null) {
+			this.executor.shutdown();
+			this.executor = null;
+		}
 		double now = this.internalInterface.getMobsim().getSimTimer().getTimeOfDay();
-		for (AgentEntry entry : activityEndsList) {
+		List<AgentEntry> entries = new ArrayList<>();
+		for (Queue<AgentEntry> activityEndsList : this.activityEndsLists) {
+			entries.addAll(activityEndsList);
+			activityEndsList.clear();
+		}
+		if (this.activityEndsLists.size() > 1) {
+			// the order must not depend on how the agents are distributed between the lists
+			entries.sort(AGENT_ENTRY_COMPARATOR);
+		}
+		for (AgentEntry entry : entries) {
 			if (entry.activityEndTime!=Double.POSITIVE_INFINITY && entry.activityEndTime!=Time.UNDEFINED_TIME) {
 				// since we are at an activity, it is not plausible to assume that the agents know mode or destination
 				// link id.  Thus generating the event with ``null'' in the corresponding entries.  kai, mar'12
 				eventsManager.processEvent(new PersonStuckEvent(now, entry.agent.getId(), null, null));
 			}
 		}
-		activityEndsList.clear();
 	}
 
 	@Override
@@ -162,7 +311,7 @@ public class ActivityEngineDefaultImpl implements ActivityEngine {
 		} else {
 			// The agent commences an activity on this link.
 			final AgentEntry agentEntry = new AgentEntry(agent, agent.getActivityEndTime());
-			activityEndsList.add(agentEntry);
+			getActivityEndsList(agent).add(agentEntry);
 			internalInterface.registerAdditionalAgentOnLink(agent);
 		}
 		// Why beforeFirstSimStep matters:
@@ -203,7 +352,7 @@ public class ActivityEngineDefaultImpl implements ActivityEngine {
 				// agent was de-activated and still should be de-activated - nothing to do here
 			} else {
 				// re-activate the agent
-				activityEndsList.add(new AgentEntry(agent, newActivityEndTime));
+				getActivityEndsList(agent).add(new AgentEntry(agent, newActivityEndTime));
 				internalInterface.registerAdditionalAgentOnLink(agent);
 				((org.matsim.core.mobsim.qsim.AgentCounter) internalInterface.getMobsim().getAgentCounter()).incLiving();
 			}
@@ -218,12 +367,12 @@ public class ActivityEngineDefaultImpl implements ActivityEngine {
 			/*
 			 *  The activity is just rescheduled during the day, so we keep the agent active. cdobler, oct'11
 			 */
-			activityEndsList.add(new AgentEntry(agent, newActivityEndTime));
+			getActivityEndsList(agent).add(new AgentEntry(agent, newActivityEndTime));
 		}
 	}
 
 	private AgentEntry removeAgentFromQueue(MobsimAgent agent) {
-		Iterator<AgentEntry> iterator = activityEndsList.iterator();
+		Iterator<AgentEntry> iterator = getActivityEndsList(agent).iterator();
 		while (iterator.hasNext()) {
 			AgentEntry entry = iterator.next();
 			if (entry.agent == agent) {
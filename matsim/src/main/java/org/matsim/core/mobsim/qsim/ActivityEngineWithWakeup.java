@@ -28,13 +28,14 @@ import org.matsim.core.api.internal.HasPersonId;
 import org.matsim.core.mobsim.framework.MobsimAgent;
 import org.matsim.core.mobsim.qsim.agents.WithinDayAgentUtils;
 import org.matsim.core.mobsim.qsim.interfaces.ActivityHandler;
+import org.matsim.core.mobsim.qsim.interfaces.HasNextRelevantTime;
 import org.matsim.core.mobsim.qsim.interfaces.MobsimEngine;
 
 import javax.inject.Inject;
 import java.util.*;
 import java.util.concurrent.PriorityBlockingQueue;
 
-public final class ActivityEngineWithWakeup implements ActivityEngine {
+public final class ActivityEngineWithWakeup implements ActivityEngine, HasNextRelevantTime {
 
 	public static final String PREBOOKING_OFFSET_ATTRIBUTE_NAME = "prebookingOffset_s";
 	// moved to here for time being so I can make some other clase package-private. kai, mar'19
@@ -71,6 +72,14 @@ public final class ActivityEngineWithWakeup implements ActivityEngine {
 		delegate.doSimStep(now);
 	}
 
+	@Override
+	public double getNextRelevantTime(double now) {
+		AgentEntry next = wakeUpList.peek();
+		double nextWakeup = next == null ? Double.POSITIVE_INFINITY : next.time;
+		double nextActivityEnd = delegate instanceof HasNextRelevantTime ? ((HasNextRelevantTime) delegate).getNextRelevantTime(now) : now;
+		return Math.min(nextWakeup, nextActivityEnd);
+	}
+
 	@Override
 	public void afterSim() {
 		delegate.afterSim();
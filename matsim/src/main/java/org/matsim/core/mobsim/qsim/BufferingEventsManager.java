@@ -0,0 +1,103 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * BufferingEventsManager.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2020 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.mobsim.qsim;
+
+import java.util.List;
+
+import org.matsim.api.core.v01.events.Event;
+import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.events.handler.EventHandler;
+
+/**
+ * Passes all events on to the delegate, except for events created by a {@link BufferingThread} while it has a buffer
+ * set. These are collected in the buffer, so the creator of the buffer can pass them on later in a deterministic order.
+ * <p></p>
+ * Used by the {@link ActivityEngineDefaultImpl} to end activities in parallel, see
+ * {@link org.matsim.core.config.groups.QSimConfigGroup#getNumberOfActivityEngineThreads()}.
+ */
+final class BufferingEventsManager implements EventsManager {
+
+	private final EventsManager delegate;
+
+	BufferingEventsManager(EventsManager delegate) {
+		this.delegate = delegate;
+	}
+
+	@Override
+	public void processEvent(Event event) {
+		Thread thread = Thread.currentThread();
+		if (thread instanceof BufferingThread) {
+			List<Event> buffer = ((BufferingThread) thread).buffer;
+			if (buffer != null) {
+				buffer.add(event);
+				return;
+			}
+		}
+		this.delegate.processEvent(event);
+	}
+
+	@Override
+	public void addHandler(EventHandler handler) {
+		this.delegate.addHandler(handler);
+	}
+
+	@Override
+	public void removeHandler(EventHandler handler) {
+		this.delegate.removeHandler(handler);
+	}
+
+	@Override
+	public void resetHandlers(int iteration) {
+		this.delegate.resetHandlers(iteration);
+	}
+
+	@Override
+	public void initProcessing() {
+		this.delegate.initProcessing();
+	}
+
+	@Override
+	public void afterSimStep(double time) {
+		this.delegate.afterSimStep(time);
+	}
+
+	@Override
+	public void finishProcessing() {
+		this.delegate.finishProcessing();
+	}
+
+	static final class BufferingThread extends Thread {
+
+		private List<Event> buffer = null;
+
+		BufferingThread(Runnable target, String name) {
+			super(target, name);
+		}
+
+		/**
+		 * @param buffer the list to collect the events of this thread in, or <code>null</code> to pass them on directly.
+		 */
+		void setBuffer(List<Event> buffer) {
+			this.buffer = buffer;
+		}
+	}
+
+}
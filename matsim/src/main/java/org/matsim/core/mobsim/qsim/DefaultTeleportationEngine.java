@@ -32,6 +32,7 @@ import org.matsim.core.api.experimental.events.EventsManager;
 import org.matsim.core.api.experimental.events.TeleportationArrivalEvent;
 import org.matsim.core.mobsim.framework.MobsimAgent;
 import org.matsim.core.mobsim.qsim.interfaces.DepartureHandler;
+import org.matsim.core.mobsim.qsim.interfaces.HasNextRelevantTime;
 import org.matsim.core.mobsim.qsim.interfaces.MobsimEngine;
 import org.matsim.core.network.NetworkUtils;
 import org.matsim.core.utils.collections.Tuple;
@@ -48,7 +49,7 @@ import java.util.*;
  * Includes all agents that have transportation modes unknown to the
  * NetsimEngine (often all != "car") or have two activities on the same link
  */
-public final class DefaultTeleportationEngine implements TeleportationEngine {
+public final class DefaultTeleportationEngine implements TeleportationEngine, HasNextRelevantTime {
 	private static final Logger log = Logger.getLogger( DefaultTeleportationEngine.class ) ;
 	
 	private final Queue<Tuple<Double, MobsimAgent>> teleportationList = new PriorityQueue<>(
@@ -124,6 +125,12 @@ public final class DefaultTeleportationEngine implements TeleportationEngine {
 		handleTeleportationArrivals();
 	}
 
+	@Override
+	public double getNextRelevantTime(double now) {
+		Tuple<Double, MobsimAgent> next = teleportationList.peek();
+		return next == null ? Double.POSITIVE_INFINITY : next.getFirst();
+	}
+
 	private void handleTeleportationArrivals() {
 		double now = internalInterface.getMobsim().getSimTimer().getTimeOfDay();
 		while (teleportationList.peek() != null) {
@@ -28,6 +28,7 @@ import org.matsim.core.mobsim.framework.events.MobsimBeforeCleanupEvent;
 import org.matsim.core.mobsim.framework.events.MobsimBeforeSimStepEvent;
 import org.matsim.core.mobsim.framework.events.MobsimInitializedEvent;
 import org.matsim.core.mobsim.framework.listeners.*;
+import org.matsim.core.mobsim.qsim.interfaces.HasNextRelevantTime;
 import org.matsim.core.utils.misc.ClassUtils;
 
 import javax.swing.event.EventListenerList;
@@ -107,4 +108,24 @@ class MobsimListenerManager implements MatsimManager {
         }
 	}
 
+	/**
+	 * @return the earliest time at which one of the before or after sim step listeners needs to be notified. If any of
+	 * them does not implement {@link HasNextRelevantTime}, it must be notified in every sim step and <code>now</code>
+	 * is returned.
+	 */
+	double getNextRelevantTime(double now) {
+		double nextTime = Double.POSITIVE_INFINITY;
+		for (MobsimListener[] listeners : new MobsimListener[][] {
+				this.listenerList.getListeners(MobsimBeforeSimStepListener.class),
+				this.listenerList.getListeners(MobsimAfterSimStepListener.class) }) {
+			for (MobsimListener aListener : listeners) {
+				if (!(aListener instanceof HasNextRelevantTime)) {
+					return now;
+				}
+				nextTime = Math.min(nextTime, ((HasNextRelevantTime) aListener).getNextRelevantTime(now));
+			}
+		}
+		return nextTime;
+	}
+
 }
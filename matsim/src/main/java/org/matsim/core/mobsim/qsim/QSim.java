@@ -42,6 +42,7 @@ import org.matsim.core.mobsim.qsim.changeeventsengine.NetworkChangeEventsEngineI
 import org.matsim.core.mobsim.qsim.interfaces.ActivityHandler;
 import org.matsim.core.mobsim.qsim.interfaces.AgentCounter;
 import org.matsim.core.mobsim.qsim.interfaces.DepartureHandler;
+import org.matsim.core.mobsim.qsim.interfaces.HasNextRelevantTime;
 import org.matsim.core.mobsim.qsim.interfaces.MobsimEngine;
 import org.matsim.core.mobsim.qsim.interfaces.MobsimVehicle;
 import org.matsim.core.mobsim.qsim.interfaces.Netsim;
@@ -122,6 +123,7 @@ public final class QSim extends Thread implements VisMobsim, Netsim, ActivityEnd
 
 	private final Date realWorldStarttime = new Date();
 	private double stopTime = 100 * 3600;
+	private long skippedSimSteps = 0;
 	private final MobsimListenerManager listenerManager;
 	private final Scenario scenario;
 	private final List<ActivityHandler> activityHandlers = new ArrayList<>();
@@ -215,10 +217,13 @@ public final class QSim extends Thread implements VisMobsim, Netsim, ActivityEnd
 	private QSim( final Scenario sc, EventsManager events, Injector childInjector ) {
 		this.scenario = sc;
 		if ( sc.getConfig().qsim().getNumberOfThreads() > 1) {
-			this.events = EventsUtils.getParallelFeedableInstance( events );
-		} else {
-			this.events = events;
+			events = EventsUtils.getParallelFeedableInstance( events );
+		}
+		if ( sc.getConfig().qsim().getNumberOfActivityEngineThreads() > 1 ) {
+			// the ActivityEngine collects the events of the agents while ending their activities in parallel
+			events = new BufferingEventsManager( events );
 		}
+		this.events = events;
 		this.listenerManager = new MobsimListenerManager( this );
 		this.agentCounter = new org.matsim.core.mobsim.qsim.AgentCounter();
 		this.simTimer = new MobsimTimer( sc.getConfig().qsim().getTimeStepSize());
@@ -342,6 +347,9 @@ public final class QSim extends Thread implements VisMobsim, Netsim, ActivityEnd
 
 		if (gotException) throw new RuntimeException( "got exception while cleaning up the QSim. Please check the error messages above for details.");
 		events.finishProcessing();
+		if (this.skippedSimSteps > 0) {
+			log.info("skipped " + this.skippedSimSteps + " idle sim steps.");
+		}
 		if (analyzeRunTimes) {
 			log.info("qsim internal cpu time (nanos): " + qSimInternalTime);
 			for (Entry<MobsimEngine, AtomicLong> entry : this.mobsimEngineRunTimes.entrySet()) {
@@ -410,6 +418,9 @@ public final class QSim extends Thread implements VisMobsim, Netsim, ActivityEnd
 
 		if (doContinue) {
 			this.simTimer.incrementTime();
+			if (qsimConfigGroup.isSkipIdleTime()) {
+				skipIdleTime();
+			}
 		}
 		
 		if (analyzeRunTimes) this.qSimInternalTime += System.nanoTime() - this.startTime;
@@ -417,6 +428,40 @@ public final class QSim extends Thread implements VisMobsim, Netsim, ActivityEnd
 		return doContinue;
 	}
 
+	/**
+	 * Moves the sim timer forward to the next sim step in which any of the engines has something to do. This is only
+	 * possible if all engines, as well as all before and after sim step listeners (which might e.g. deliver messages
+	 * or replan agents), can tell when that is, see {@link HasNextRelevantTime}.
+	 */
+	private void skipIdleTime() {
+		final double now = this.simTimer.getTimeOfDay();
+		double nextTime = this.listenerManager.getNextRelevantTime(now);
+		if (nextTime <= now) {
+			return;
+		}
+		for (MobsimEngine mobsimEngine : this.mobsimEngines) {
+			if (!(mobsimEngine instanceof HasNextRelevantTime)) {
+				return;
+			}
+			nextTime = Math.min(nextTime, ((HasNextRelevantTime) mobsimEngine).getNextRelevantTime(now));
+			if (nextTime <= now) {
+				return;
+			}
+		}
+		// do not jump over the end of the simulation, and stay on the grid of sim steps
+		nextTime = Math.min(nextTime, this.stopTime);
+		if (nextTime == Double.POSITIVE_INFINITY || nextTime == Double.MAX_VALUE) {
+			return;
+		}
+		final double stepSize = this.simTimer.getSimTimestepSize();
+		final double startTime = this.simTimer.getSimStartTime();
+		nextTime = startTime + Math.ceil((nextTime - startTime) / stepSize) * stepSize;
+		if (nextTime > now) {
+			this.skippedSimSteps += Math.round((nextTime - now) / stepSize);
+			this.simTimer.setTime(nextTime);
+		}
+	}
+
 	public void insertAgentIntoMobsim(final MobsimAgent agent) {
 		if (this.agents.containsKey(agent.getId())) {
 			throw new RuntimeException("Agent with same Id (" + agent.getId().toString() + ") already in mobsim; aborting ... ") ;
@@ -523,7 +568,8 @@ public final class QSim extends Thread implements VisMobsim, Netsim, ActivityEnd
 	private void printSimLog(final double time) {
 		if (time >= this.infoTime) {
 			//		if(true){
-			this.infoTime += INFO_PERIOD;
+			// idle sim steps may have been skipped, so this may be more than one period
+			this.infoTime = (Math.floor(time / INFO_PERIOD) + 1) * INFO_PERIOD;
 			Date endtime = new Date();
 			long diffreal = (endtime.getTime() - this.realWorldStarttime
 					.getTime()) / 1000;
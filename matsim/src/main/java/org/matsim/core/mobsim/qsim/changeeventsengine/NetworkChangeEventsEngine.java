@@ -27,20 +27,24 @@ import org.matsim.api.core.v01.network.Network;
 import org.matsim.core.mobsim.jdeqsim.Message;
 import org.matsim.core.mobsim.jdeqsim.MessageQueue;
 import org.matsim.core.mobsim.qsim.InternalInterface;
+import org.matsim.core.mobsim.qsim.interfaces.HasNextRelevantTime;
 import org.matsim.core.mobsim.qsim.interfaces.NetsimLink;
 import org.matsim.core.mobsim.qsim.interfaces.TimeVariantLink;
 import org.matsim.core.network.NetworkChangeEvent;
 import org.matsim.core.network.NetworkUtils;
 
 import javax.inject.Inject;
+import java.util.PriorityQueue;
 import java.util.Queue;
 
-class NetworkChangeEventsEngine implements NetworkChangeEventsEngineI {
+class NetworkChangeEventsEngine implements NetworkChangeEventsEngineI, HasNextRelevantTime {
 	private static final Logger log = Logger.getLogger( NetworkChangeEventsEngine.class ) ;
 
 	private final MessageQueue messageQueue;
 	private final Network network;
 	private InternalInterface internalInterface;
+	// the change events themselves are applied through the message queue, this only remembers when that happens
+	private final Queue<Double> pendingChangeTimes = new PriorityQueue<>();
 
 	@Inject
 	NetworkChangeEventsEngine(Network network, MessageQueue messageQueue) {
@@ -70,6 +74,7 @@ class NetworkChangeEventsEngine implements NetworkChangeEventsEngineI {
 		};
 		m.setMessageArrivalTime(changeEvent.getStartTime());
 		this.messageQueue.putMessage(m);
+		this.pendingChangeTimes.add(changeEvent.getStartTime());
 	}
 	
 	private void applyTheChangeEvent(NetworkChangeEvent changeEvent) {
@@ -109,8 +114,16 @@ class NetworkChangeEventsEngine implements NetworkChangeEventsEngineI {
 	
 	
 	@Override
-	public void afterSim() {
+	public double getNextRelevantTime(double now) {
+		while (!this.pendingChangeTimes.isEmpty() && this.pendingChangeTimes.peek() < now) {
+			this.pendingChangeTimes.poll();
+		}
+		return this.pendingChangeTimes.isEmpty() ? Double.POSITIVE_INFINITY : this.pendingChangeTimes.peek();
+	}
 
+	@Override
+	public void afterSim() {
+		this.pendingChangeTimes.clear();
 	}
 
 	@Override
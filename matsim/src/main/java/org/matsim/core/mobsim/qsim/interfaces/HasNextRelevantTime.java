@@ -0,0 +1,39 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2020 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.mobsim.qsim.interfaces;
+
+import org.matsim.core.config.groups.QSimConfigGroup;
+
+/**
+ * Implemented by {@link MobsimEngine}s and by before/after sim step listeners that know when they have something to do
+ * next. If all engines and all such listeners of the QSim implement this interface, the QSim can skip the sim steps in
+ * which none of them has anything to do, see {@link QSimConfigGroup#isSkipIdleTime()}.
+ */
+public interface HasNextRelevantTime {
+
+	/**
+	 * @param now the time of the sim step that is about to be simulated.
+	 * @return the earliest time at which the engine needs its doSimStep(...) (or the listener its notification) to be called, e.g. the next activity end.
+	 * If the engine needs to be called in every sim step (e.g. because vehicles are moving), this should be <code>now</code>.
+	 * If the engine has nothing to do anymore, this should be {@link Double#POSITIVE_INFINITY}.
+	 */
+	double getNextRelevantTime(double now);
+
+}
@@ -65,6 +65,18 @@ public class SteppableScheduler extends Scheduler implements Steppable {
 		finished = true; // queue has run dry.
 	}
 
+	/**
+	 * @return the arrival time of the next message, or {@link Double#POSITIVE_INFINITY} if there is none.
+	 */
+	public double getNextMessageArrivalTime() {
+		double time = lookahead == null ? Double.POSITIVE_INFINITY : lookahead.getMessageArrivalTime();
+		Message next = queue.peekNextMessage();
+		if (next != null) {
+			time = Math.min(time, next.getMessageArrivalTime());
+		}
+		return time;
+	}
+
 	public boolean isFinished() {
 		return finished;
 	}
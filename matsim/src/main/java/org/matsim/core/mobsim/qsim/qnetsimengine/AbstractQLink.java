@@ -545,6 +545,14 @@ abstract class AbstractQLink implements QLinkI {
 		public void activateLink() {
 			AbstractQLink.this.activateLink();
 		}
+
+		/**
+		 * @return true if the link will be activated at the given time, false if it needs to stay active on its own
+		 * to get there.
+		 */
+		public boolean scheduleActivation(double time) {
+			return AbstractQLink.this.netElementActivationRegistry.scheduleLinkActivation(AbstractQLink.this, time);
+		}
 		
 		public double getMaximumVelocityFromLinkSpeedCalculator(QVehicle veh, double now) {
 			final LinkSpeedCalculator linkSpeedCalculator = AbstractQLink.this.linkSpeedCalculator;
@@ -0,0 +1,272 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * EventDrivenQueueWithBuffer.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2020 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.mobsim.qsim.qnetsimengine;
+
+import java.util.Collection;
+
+import org.apache.log4j.Logger;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.core.config.groups.QSimConfigGroup;
+import org.matsim.core.config.groups.QSimConfigGroup.LinkDynamics;
+import org.matsim.core.config.groups.QSimConfigGroup.TrafficDynamics;
+import org.matsim.core.mobsim.qsim.interfaces.MobsimVehicle;
+import org.matsim.core.mobsim.qsim.interfaces.SignalGroupState;
+import org.matsim.core.mobsim.qsim.interfaces.SignalizeableItem;
+import org.matsim.core.mobsim.qsim.qnetsimengine.QLinkImpl.LaneFactory;
+import org.matsim.lanes.Lane;
+import org.matsim.vehicles.Vehicle;
+
+/**
+ * A {@link QueueWithBuffer} that is only simulated when there is something to do.
+ * <p></p>
+ * The vehicles on a {@link QueueWithBuffer} do nothing until the first of them reaches its earliest link exit time, but
+ * the link is nevertheless simulated in every sim step.  This lane instead asks the {@link NetElementActivationRegistry}
+ * of its link to activate the link at that time, and reports itself as inactive until then.  Vehicles entering the
+ * lane wake it up immediately, as does everything else that may change its state.
+ * <p></p>
+ * As soon as the first vehicle may leave but is held back, e.g. by the flow capacity or since it does not fit
+ * on the next link, the lane stays active in every sim step, i.e. it falls back to the queue model for as long as
+ * the link is congested.
+ * <p></p>
+ * The vehicles move exactly as on a {@link QueueWithBuffer}, since the skipped sim steps would not have moved any of
+ * them.  Only the order in which the links, and thus the nodes, are simulated within a sim step may differ.
+ * <p></p>
+ * Notes:<ul>
+ * <li> With the slow capacity update, with holes and with lanes, {@link QueueWithBuffer} has something to do in (almost)
+ * every sim step anyway, so this lane is only used without them, see {@link #isApplicable(QSimConfigGroup)}.  Seepage
+ * may let vehicles other than the first one leave, and is also excluded. </li>
+ * </ul>
+ */
+final class EventDrivenQueueWithBuffer implements QLaneI, SignalizeableItem {
+	private static final Logger log = Logger.getLogger( EventDrivenQueueWithBuffer.class ) ;
+
+	static final class Builder implements LaneFactory {
+		private final NetsimEngineContext context;
+		private final QueueWithBuffer.Builder delegateBuilder;
+		Builder( final NetsimEngineContext context ) {
+			this.context = context ;
+			this.delegateBuilder = new QueueWithBuffer.Builder( context ) ;
+		}
+		@Override public EventDrivenQueueWithBuffer createLane( AbstractQLink qLink ) {
+			return new EventDrivenQueueWithBuffer( qLink.getInternalInterface(), delegateBuilder.createLane( qLink ), context ) ;
+		}
+	}
+
+	private static int wrnCnt = 0 ;
+
+	/**
+	 * @return true if the {@link QSimConfigGroup} asks for event-driven links, and the link model allows for them.
+	 */
+	static boolean isApplicable( QSimConfigGroup qsimConfig ) {
+		if ( !qsimConfig.isUseEventDrivenLinks() ) {
+			return false ;
+		}
+		boolean applicable = qsimConfig.getTrafficDynamics() == TrafficDynamics.queue
+				&& qsimConfig.isUsingFastCapacityUpdate()
+				&& !qsimConfig.isUseLanes()
+				&& qsimConfig.getLinkDynamics() != LinkDynamics.SeepageQ ;
+		if ( !applicable && wrnCnt < 1 ) {
+			wrnCnt++ ;
+			log.warn( "Event-driven links are only available with trafficDynamics=" + TrafficDynamics.queue
+					+ ", the fast capacity update, no lanes and no seepage. Using the default links instead." ) ;
+		}
+		return applicable ;
+	}
+
+	private final AbstractQLink.QLinkInternalInterface qLink ;
+	private final QueueWithBuffer delegate ;
+	private final NetsimEngineContext context ;
+
+	private boolean sleeping = false ;
+	private double wakeUpTime = Double.NEGATIVE_INFINITY ;
+
+	private EventDrivenQueueWithBuffer( AbstractQLink.QLinkInternalInterface qLink, QueueWithBuffer delegate, NetsimEngineContext context ) {
+		this.qLink = qLink ;
+		this.delegate = delegate ;
+		this.context = context ;
+	}
+
+	@Override
+	public boolean doSimStep() {
+		double now = context.getSimTimer().getTimeOfDay() ;
+		if ( sleeping && now < wakeUpTime ) {
+			// the link is active for some other reason, e.g. vehicles waiting to enter it
+			return true ;
+		}
+		sleeping = false ;
+		delegate.doSimStep() ;
+
+		double nextExitTime = delegate.getEarliestLinkExitTimeOfFirstVehicle() ;
+		if ( nextExitTime > now && nextExitTime < Double.POSITIVE_INFINITY ) {
+			// the activation is scheduled only once, even if the lane was woken up in between
+			if ( nextExitTime == wakeUpTime || qLink.scheduleActivation( nextExitTime ) ) {
+				sleeping = true ;
+				wakeUpTime = nextExitTime ;
+			}
+		}
+		return true ;
+	}
+
+	@Override
+	public boolean isActive() {
+		return !sleeping && delegate.isActive() ;
+	}
+
+	private void wakeUp() {
+		sleeping = false ;
+	}
+
+	@Override
+	public void addFromWait( final QVehicle veh ) {
+		wakeUp() ;
+		delegate.addFromWait( veh ) ;
+	}
+
+	@Override
+	public void addFromUpstream( final QVehicle veh ) {
+		wakeUp() ;
+		delegate.addFromUpstream( veh ) ;
+	}
+
+	@Override
+	public void addTransitSlightlyUpstreamOfStop( final QVehicle veh ) {
+		wakeUp() ;
+		delegate.addTransitSlightlyUpstreamOfStop( veh ) ;
+	}
+
+	@Override
+	public void clearVehicles() {
+		wakeUp() ;
+		delegate.clearVehicles() ;
+	}
+
+	@Override
+	public boolean isAcceptingFromWait( QVehicle veh ) {
+		return delegate.isAcceptingFromWait( veh ) ;
+	}
+
+	@Override
+	public double getSimulatedFlowCapacityPerTimeStep() {
+		return delegate.getSimulatedFlowCapacityPerTimeStep() ;
+	}
+
+	@Override
+	public void recalcTimeVariantAttributes() {
+		delegate.recalcTimeVariantAttributes() ;
+	}
+
+	@Override
+	public QVehicle getVehicle( final Id<Vehicle> vehicleId ) {
+		return delegate.getVehicle( vehicleId ) ;
+	}
+
+	@Override
+	public double getStorageCapacity() {
+		return delegate.getStorageCapacity() ;
+	}
+
+	@Override
+	public VisData getVisData() {
+		return delegate.getVisData() ;
+	}
+
+	@Override
+	public void changeUnscaledFlowCapacityPerSecond( final double val ) {
+		delegate.changeUnscaledFlowCapacityPerSecond( val ) ;
+	}
+
+	@Override
+	public void changeEffectiveNumberOfLanes( final double val ) {
+		delegate.changeEffectiveNumberOfLanes( val ) ;
+	}
+
+	@Override
+	public Collection<MobsimVehicle> getAllVehicles() {
+		return delegate.getAllVehicles() ;
+	}
+
+	@Override
+	public boolean isNotOfferingVehicle() {
+		return delegate.isNotOfferingVehicle() ;
+	}
+
+	@Override
+	public QVehicle popFirstVehicle() {
+		return delegate.popFirstVehicle() ;
+	}
+
+	@Override
+	public QVehicle getFirstVehicle() {
+		return delegate.getFirstVehicle() ;
+	}
+
+	@Override
+	public double getLastMovementTimeOfFirstVehicle() {
+		return delegate.getLastMovementTimeOfFirstVehicle() ;
+	}
+
+	@Override
+	public boolean isAcceptingFromUpstream() {
+		return delegate.isAcceptingFromUpstream() ;
+	}
+
+	@Override
+	public double getLoadIndicator() {
+		return delegate.getLoadIndicator() ;
+	}
+
+	@Override
+	public void initBeforeSimStep() {
+		delegate.initBeforeSimStep() ;
+	}
+
+	@Override
+	public Id<Lane> getId() {
+		return delegate.getId() ;
+	}
+
+	@Override
+	public void setSignalized( final boolean isSignalized ) {
+		delegate.setSignalized( isSignalized ) ;
+	}
+
+	@Override
+	public void setSignalStateAllTurningMoves( final SignalGroupState state ) {
+		delegate.setSignalStateAllTurningMoves( state ) ;
+	}
+
+	@Override
+	public void setSignalStateForTurningMove( final SignalGroupState state, final Id<Link> toLinkId ) {
+		delegate.setSignalStateForTurningMove( state, toLinkId ) ;
+	}
+
+	@Override
+	public boolean hasGreenForAllToLinks() {
+		return delegate.hasGreenForAllToLinks() ;
+	}
+
+	@Override
+	public boolean hasGreenForToLink( final Id<Link> toLinkId ) {
+		return delegate.hasGreenForToLink( toLinkId ) ;
+	}
+
+}
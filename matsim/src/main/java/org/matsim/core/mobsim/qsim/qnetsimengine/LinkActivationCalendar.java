@@ -0,0 +1,143 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * LinkActivationCalendar.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2020 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.mobsim.qsim.qnetsimengine;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * A calendar queue of links that are to be activated at a given time, as used by the {@link QNetsimEngineRunner} for
+ * the {@link EventDrivenQueueWithBuffer}s.
+ * <p></p>
+ * There is one bucket per second, and the buckets are re-used in a circular way, so scheduling an activation is O(1)
+ * and activating the due links only looks at the buckets of the seconds passed since the last call. Activations more
+ * than {@link #NUMBER_OF_BUCKETS} seconds ahead simply stay in their bucket until they are due.
+ * <p></p>
+ * Not thread-safe, every runner has a calendar of its own.
+ */
+final class LinkActivationCalendar {
+
+	private static final int NUMBER_OF_BUCKETS = 1024;
+	private static final int MASK = NUMBER_OF_BUCKETS - 1;
+
+	private final List<List<Entry>> buckets = new ArrayList<>(NUMBER_OF_BUCKETS);
+	private int size = 0;
+	private long lastActivatedSecond = Long.MIN_VALUE;
+
+	LinkActivationCalendar() {
+		for (int i = 0; i < NUMBER_OF_BUCKETS; i++) {
+			this.buckets.add(new ArrayList<>());
+		}
+	}
+
+	void schedule(AbstractQLink link, double time) {
+		this.buckets.get(bucketIndex((long) Math.floor(time))).add(new Entry(link, time));
+		this.size++;
+	}
+
+	/**
+	 * Removes all links that are due at the given time and passes them to the consumer, in the order they were
+	 * scheduled in per second.
+	 */
+	void activateDueLinks(double now, Consumer<AbstractQLink> activator) {
+		long nowSecond = (long) Math.floor(now);
+		if (this.size > 0) {
+			// the bucket of the last call may contain links that were not yet due within that second
+			long firstSecond = this.lastActivatedSecond == Long.MIN_VALUE ? nowSecond - MASK : Math.max(this.lastActivatedSecond, nowSecond - MASK);
+			for (long second = firstSecond; second <= nowSecond; second++) {
+				activateDueLinks(this.buckets.get(bucketIndex(second)), now, activator);
+			}
+		}
+		this.lastActivatedSecond = nowSecond;
+	}
+
+	private void activateDueLinks(List<Entry> bucket, double now, Consumer<AbstractQLink> activator) {
+		int remaining = 0;
+		for (int i = 0; i < bucket.size(); i++) {
+			Entry entry = bucket.get(i);
+			if (entry.time <= now) {
+				activator.accept(entry.link);
+				this.size--;
+			} else {
+				bucket.set(remaining++, entry);
+			}
+		}
+		bucket.subList(remaining, bucket.size()).clear();
+	}
+
+	/**
+	 * @return the earliest time a link is scheduled for, or infinity if there is none.
+	 */
+	double getNextActivationTime() {
+		double next = Double.POSITIVE_INFINITY;
+		if (this.size > 0) {
+			for (List<Entry> bucket : this.buckets) {
+				for (Entry entry : bucket) {
+					next = Math.min(next, entry.time);
+				}
+			}
+		}
+		return next;
+	}
+
+	/**
+	 * Moves the activations of the given links to another calendar, e.g. when the links are moved to another runner.
+	 */
+	void transferTo(LinkActivationCalendar other, Set<QLinkI> links) {
+		if (this.size == 0) {
+			return;
+		}
+		for (List<Entry> bucket : this.buckets) {
+			int remaining = 0;
+			for (int i = 0; i < bucket.size(); i++) {
+				Entry entry = bucket.get(i);
+				if (links.contains(entry.link)) {
+					other.schedule(entry.link, entry.time);
+					this.size--;
+				} else {
+					bucket.set(remaining++, entry);
+				}
+			}
+			bucket.subList(remaining, bucket.size()).clear();
+		}
+	}
+
+	int size() {
+		return this.size;
+	}
+
+	private static int bucketIndex(long second) {
+		return (int) (second & MASK);
+	}
+
+	private static final class Entry {
+		private final AbstractQLink link;
+		private final double time;
+
+		Entry(AbstractQLink link, double time) {
+			this.link = link;
+			this.time = time;
+		}
+	}
+
+}
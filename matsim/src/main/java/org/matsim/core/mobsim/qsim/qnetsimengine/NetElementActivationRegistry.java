@@ -31,4 +31,14 @@ abstract class NetElementActivationRegistry {
 	abstract void registerLinkAsActive(final QLinkI link);
 
 	abstract int getNumberOfSimulatedLinks();
+
+	/**
+	 * Asks the registry to activate the link at the given time, see {@link EventDrivenQueueWithBuffer}.  Is only called
+	 * by the link itself while it is moved.
+	 *
+	 * @return false if the registry does not support this, i.e. the link needs to stay active on its own.
+	 */
+	boolean scheduleLinkActivation(final AbstractQLink link, final double time) {
+		return false;
+	}
 } 
\ No newline at end of file
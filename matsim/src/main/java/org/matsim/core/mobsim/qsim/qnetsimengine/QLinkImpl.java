@@ -81,7 +81,11 @@ public final class QLinkImpl extends AbstractQLink implements SignalizeableItem
 		
 		QLinkImpl build( Link link, QNodeI toNode ) {
 			if ( laneFactory == null ) {
-				laneFactory = new QueueWithBuffer.Builder( context ) ;
+				if ( EventDrivenQueueWithBuffer.isApplicable( context.qsimConfig ) ) {
+					laneFactory = new EventDrivenQueueWithBuffer.Builder( context ) ;
+				} else {
+					laneFactory = new QueueWithBuffer.Builder( context ) ;
+				}
 			}
 			return new QLinkImpl( link, toNode, laneFactory, context, netsimEngine, linkSpeedCalculator, vehicleHandler) ;
 		}
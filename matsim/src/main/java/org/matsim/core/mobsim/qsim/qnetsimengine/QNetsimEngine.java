@@ -22,14 +22,19 @@ package org.matsim.core.mobsim.qsim.qnetsimengine;
 
 import org.apache.log4j.Logger;
 import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.IdIntMap;
 import org.matsim.api.core.v01.Scenario;
 import org.matsim.api.core.v01.events.PersonLeavesVehicleEvent;
 import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Node;
 import org.matsim.api.core.v01.population.Person;
 import org.matsim.core.api.experimental.events.EventsManager;
 import org.matsim.core.config.Config;
 import org.matsim.core.config.groups.QSimConfigGroup;
 import org.matsim.core.config.groups.QSimConfigGroup.LinkDynamics;
+import org.matsim.core.config.groups.QSimConfigGroup.RunnerBarrier;
+import org.matsim.core.config.groups.QSimConfigGroup.RunnerLoadBalancing;
+import org.matsim.core.config.groups.QSimConfigGroup.RunnerNetworkPartitioning;
 import org.matsim.core.config.groups.QSimConfigGroup.SnapshotStyle;
 import org.matsim.core.config.groups.QSimConfigGroup.StarttimeInterpretation;
 import org.matsim.core.config.groups.QSimConfigGroup.VehicleBehavior;
@@ -40,6 +45,7 @@ import org.matsim.core.mobsim.framework.MobsimTimer;
 import org.matsim.core.mobsim.qsim.InternalInterface;
 import org.matsim.core.mobsim.qsim.QSim;
 import org.matsim.core.mobsim.qsim.interfaces.AgentCounter;
+import org.matsim.core.mobsim.qsim.interfaces.HasNextRelevantTime;
 import org.matsim.core.mobsim.qsim.interfaces.MobsimEngine;
 import org.matsim.core.mobsim.qsim.interfaces.MobsimVehicle;
 import org.matsim.core.mobsim.qsim.interfaces.NetsimNetwork;
@@ -55,11 +61,11 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
-import java.util.concurrent.Phaser;
 import java.util.concurrent.ThreadFactory;
 
 /**
@@ -69,7 +75,7 @@ import java.util.concurrent.ThreadFactory;
  * @author dgrether
  * @author dstrippgen
  */
-public class QNetsimEngine implements MobsimEngine, NetsimEngine {
+public class QNetsimEngine implements MobsimEngine, NetsimEngine, HasNextRelevantTime {
 
 	public interface NetsimInternalInterface {
 		QNetwork getNetsimNetwork();
@@ -93,6 +99,10 @@ public class QNetsimEngine implements MobsimEngine, NetsimEngine {
 
 	private static final int INFO_PERIOD = 3600;
 
+	// how long to busy-wait for the runners in the thread pool with RunnerBarrier.spinThenPark
+	private static final int FUTURE_SPINS = 10_000;
+	private static final int FUTURE_YIELDS = 100;
+
 	private QNetwork network;
 
 	private final Map<Id<Vehicle>, QVehicle> vehicles = new HashMap<>();
@@ -107,8 +117,9 @@ public class QNetsimEngine implements MobsimEngine, NetsimEngine {
 
 	private List<QNetsimEngineRunner> engines;
 
-	private Phaser startBarrier;
-	private Phaser endBarrier;
+	private final RunnerBarrier runnerBarrier;
+	private StepBarrier startBarrier;
+	private StepBarrier endBarrier;
 
 	private final Set<QLinkI> linksToActivateInitially = new HashSet<>();
 
@@ -119,6 +130,20 @@ public class QNetsimEngine implements MobsimEngine, NetsimEngine {
 	private ExecutorService pool;
 
 	private final boolean usingThreadpool;
+
+	// nodes sorted along a space filling curve, or null if the nodes are distributed round robin
+	private final List<Node> sortedNodes;
+	private int numberOfCutLinks = 0;
+
+	private final RunnerLoadBalancing runnerLoadBalancing;
+	private final double runnerLoadBalancingInterval;
+	private QNetsimEngineLoadBalancer loadBalancer = null;
+	private double nextLoadBalancingTime;
+
+	// wall time spent in run(...), used together with the runners' busy times for the utilisation statistics
+	private long simStepTime = 0;
+	private long lastLoggedSimStepTime = 0;
+	private long[] lastLoggedBusyTimes;
 	
 	// for detailed run time analysis - used in combination with QSim.analyzeRunTimes
 	public static int numObservedTimeSteps = 24*3600;
@@ -140,6 +165,9 @@ public class QNetsimEngine implements MobsimEngine, NetsimEngine {
 		final Config config = sim.getScenario().getConfig();
 		final QSimConfigGroup qsimConfigGroup = config.qsim();
 		this.usingThreadpool = qsimConfigGroup.isUsingThreadpool();
+		this.runnerBarrier = qsimConfigGroup.getRunnerBarrier();
+		this.runnerLoadBalancing = qsimConfigGroup.getRunnerLoadBalancing();
+		this.runnerLoadBalancingInterval = qsimConfigGroup.getRunnerLoadBalancingInterval();
 
 
 		// configuring the car departure hander (including the vehicle behavior)
@@ -174,7 +202,13 @@ public class QNetsimEngine implements MobsimEngine, NetsimEngine {
 			netsimNetworkFactory2.initializeFactory(agentCounter, mobsimTimer, ii );
 			network = new QNetwork(sim.getScenario().getNetwork(), netsimNetworkFactory2 );
 		}
-		network.initialize(this, sim.getAgentCounter(), sim.getSimTimer() );
+		if (qsimConfigGroup.getRunnerNetworkPartitioning() == RunnerNetworkPartitioning.spaceFillingCurve) {
+			this.sortedNodes = SpaceFillingCurvePartitioning.sortNodes(sim.getScenario().getNetwork().getNodes().values());
+			network.initialize(this, sim.getAgentCounter(), sim.getSimTimer(), this.sortedNodes);
+		} else {
+			this.sortedNodes = null;
+			network.initialize(this, sim.getAgentCounter(), sim.getSimTimer() );
+		}
 
 		this.numOfThreads = sim.getScenario().getConfig().qsim().getNumberOfThreads();
 	}
@@ -227,6 +261,8 @@ public class QNetsimEngine implements MobsimEngine, NetsimEngine {
 		 */
 
 		initQSimEngineThreads();
+
+		this.nextLoadBalancingTime = this.infoTime + this.runnerLoadBalancingInterval;
 	}
 
 	@Override
@@ -269,9 +305,33 @@ public class QNetsimEngine implements MobsimEngine, NetsimEngine {
 	public void doSimStep(final double time) {
 		run(time);
 
+		if (this.loadBalancer != null && time >= this.nextLoadBalancingTime) {
+			// the qsim may have skipped idle sim steps, so this may be more than one interval
+			this.nextLoadBalancingTime += (Math.floor((time - this.nextLoadBalancingTime) / this.runnerLoadBalancingInterval) + 1)
+					* this.runnerLoadBalancingInterval;
+			this.loadBalancer.rebalance();
+		}
+
 		this.printSimLog(time);
 	}
 
+	/**
+	 * As long as any node or link is active, the network needs to be simulated in every sim step. Vehicles entering
+	 * the network activate the corresponding links, so an idle network has nothing to do until then, or until the
+	 * first of the links that are scheduled for activation is due.
+	 */
+	@Override
+	public double getNextRelevantTime(double now) {
+		double next = Double.POSITIVE_INFINITY;
+		for (QNetsimEngineRunner engine : this.engines) {
+			if (engine.hasActiveElements()) {
+				return now;
+			}
+			next = Math.min(next, engine.getNextLinkActivationTime());
+		}
+		return next;
+	}
+
 	/*
 	 * The Threads are waiting at the startBarrier.
 	 * We trigger them by reaching this Barrier. Now the
@@ -307,6 +367,8 @@ public class QNetsimEngine implements MobsimEngine, NetsimEngine {
 		// So make sure that no thread sticks out in terms of slowness.  Difficult to achieve, though.  A decade back, we used a "typical" run
 		// as input for the domain decomposition under (b).
 
+		long start = System.nanoTime();
+
 		// set current Time
 		for (QNetsimEngineRunner engine : this.engines) {
 			engine.setTime(time);
@@ -317,15 +379,11 @@ public class QNetsimEngine implements MobsimEngine, NetsimEngine {
 				for (QNetsimEngineRunner engine : this.engines) {
 					engine.setMovingNodes(true);
 				}
-				for (Future<Boolean> future : pool.invokeAll(this.engines)) {
-					future.get();
-				}
+				runAllEngines();
 				for (QNetsimEngineRunner engine : this.engines) {
 					engine.setMovingNodes(false);
 				}
-				for (Future<Boolean> future : pool.invokeAll(this.engines)) {
-					future.get();
-				}
+				runAllEngines();
 			} catch (InterruptedException e) {
 				throw new RuntimeException(e) ;
 			} catch (ExecutionException e) {
@@ -335,20 +393,114 @@ public class QNetsimEngine implements MobsimEngine, NetsimEngine {
 			this.startBarrier.arriveAndAwaitAdvance();
 			this.endBarrier.arriveAndAwaitAdvance();
 		}
+
+		this.simStepTime += System.nanoTime() - start;
 	}
 
 
+	private void runAllEngines() throws InterruptedException, ExecutionException {
+		if (this.runnerBarrier == RunnerBarrier.spinThenPark) {
+			/*
+			 * Same as invokeAll(...), but busy-wait for the runners to finish instead of
+			 * sleeping in future.get() right away.
+			 */
+			List<Future<Boolean>> futures = new ArrayList<>(this.engines.size());
+			for (QNetsimEngineRunner engine : this.engines) {
+				futures.add(this.pool.submit((Callable<Boolean>) engine));
+			}
+			for (Future<Boolean> future : futures) {
+				for (int i = 0; i < FUTURE_SPINS && !future.isDone(); i++) {
+					// busy-wait
+				}
+				for (int i = 0; i < FUTURE_YIELDS && !future.isDone(); i++) {
+					Thread.yield();
+				}
+				future.get();
+			}
+		} else {
+			for (Future<Boolean> future : this.pool.invokeAll(this.engines)) {
+				future.get();
+			}
+		}
+	}
+
 	/*package*/ void printSimLog(double time) {
 		if (time >= this.infoTime) {
-			this.infoTime += INFO_PERIOD;
+			// the qsim may have skipped idle sim steps, so this may be more than one period
+			this.infoTime = (Math.floor(time / INFO_PERIOD) + 1) * INFO_PERIOD;
 			int nofActiveLinks = this.getNumberOfSimulatedLinks();
 			int nofActiveNodes = this.getNumberOfSimulatedNodes();
 			log.info("SIMULATION (QNetsimEngine) AT " + Time.writeTime(time)
 					+ " : #links=" + nofActiveLinks
 					+ " #nodes=" + nofActiveNodes);
+			if (this.engines.size() > 1) {
+				printRunnerUtilisation();
+			}
 		}
 	}
 
+	private void printRunnerUtilisation() {
+		long stepTime = this.simStepTime - this.lastLoggedSimStepTime;
+		this.lastLoggedSimStepTime = this.simStepTime;
+		long sumBusyTime = 0;
+		StringBuilder sb = new StringBuilder("QNetsimEngineRunner utilisation:");
+		for (int i = 0; i < this.engines.size(); i++) {
+			long busyTime = this.engines.get(i).getBusyTime();
+			long delta = busyTime - this.lastLoggedBusyTimes[i];
+			this.lastLoggedBusyTimes[i] = busyTime;
+			sumBusyTime += delta;
+			sb.append(" #").append(i).append("=").append(stepTime == 0 ? 0 : Math.round(100.0 * delta / stepTime)).append("%");
+		}
+		// the sum of the busy times is about the time a single thread would have needed
+		sb.append(" ; speedup vs. sequential: ").append(stepTime == 0 ? "-" : String.format("%.2f", (double) sumBusyTime / stepTime));
+		if (this.loadBalancer != null) {
+			sb.append(" ; moved nodes so far: ").append(this.loadBalancer.getNumberOfMovedNodes());
+		}
+		log.info(sb.toString());
+	}
+
+	/**
+	 * The utilisation of a runner is the time it spent moving nodes and links, divided by the wall time of all
+	 * sim steps of the QNetsimEngine so far. A runner with a low utilisation spent most of the time waiting for the
+	 * other runners at the barriers.
+	 *
+	 * @return the utilisation (between 0 and 1) of each QNetsimEngineRunner since the beginning of the simulation.
+	 */
+	public double[] getRunnerUtilisations() {
+		double[] utilisations = new double[this.engines.size()];
+		for (int i = 0; i < utilisations.length; i++) {
+			utilisations[i] = this.simStepTime == 0 ? 0.0 : (double) this.engines.get(i).getBusyTime() / this.simStepTime;
+		}
+		return utilisations;
+	}
+
+	/**
+	 * @return the number of links whose from- and to-node are handled by different runners after the initial
+	 * distribution of the network, see {@link QSimConfigGroup#getRunnerNetworkPartitioning()}.
+	 */
+	public int getNumberOfCutLinks() {
+		return this.numberOfCutLinks;
+	}
+
+	/**
+	 * @return the number of nodes that were moved to another runner by the load balancing, see
+	 * {@link QSimConfigGroup#getRunnerLoadBalancing()}.
+	 */
+	public int getNumberOfRebalancedNodes() {
+		return this.loadBalancer == null ? 0 : this.loadBalancer.getNumberOfMovedNodes();
+	}
+
+	/**
+	 * @return the number of node and link sim steps performed by all runners since the beginning of the simulation.
+	 */
+	public long getNumberOfProcessedElements() {
+		long processedElements = 0;
+		for (QNetsimEngineRunner engine : this.engines) {
+			processedElements += engine.getProcessedElements();
+		}
+		return processedElements;
+	}
+
 	public int getNumberOfSimulatedLinks() {
 
 		int numLinks = 0;
@@ -421,9 +573,9 @@ public class QNetsimEngine implements MobsimEngine, NetsimEngine {
 
 		this.engines = new ArrayList<>();
 
-		this.startBarrier = new Phaser(this.numOfThreads + 1);
-		Phaser separationBarrier = new Phaser(this.numOfThreads);
-		this.endBarrier = new Phaser(this.numOfThreads + 1);
+		this.startBarrier = StepBarrier.create(this.runnerBarrier, this.numOfThreads + 1);
+		StepBarrier separationBarrier = StepBarrier.create(this.runnerBarrier, this.numOfThreads);
+		this.endBarrier = StepBarrier.create(this.runnerBarrier, this.numOfThreads + 1);
 
 		numOfRunners = this.numOfThreads;
 		if (this.usingThreadpool) {
@@ -456,6 +608,16 @@ public class QNetsimEngine implements MobsimEngine, NetsimEngine {
 		 *  should become obsolete.
 		 */
 		assignNetElementActivators();
+
+		this.lastLoggedBusyTimes = new long[numOfRunners];
+		this.lastLoggedSimStepTime = 0;
+		this.simStepTime = 0;
+		if (this.runnerLoadBalancing != RunnerLoadBalancing.off && numOfRunners > 1) {
+			log.info("Using load balancing between the QNetsimEngineRunners: " + this.runnerLoadBalancing);
+			this.loadBalancer = new QNetsimEngineLoadBalancer(this.network, this.engines, this.runnerLoadBalancing);
+		} else {
+			this.loadBalancer = null;
+		}
 	}
 
 	/*
@@ -469,9 +631,26 @@ public class QNetsimEngine implements MobsimEngine, NetsimEngine {
 		int nodes[] = new int[numOfRunners];
 		int links[] = new int[numOfRunners];
 
-		int roundRobin = 0;
-		for (QNodeI node : network.getNetsimNodes().values()) {
-			int i = roundRobin % this.numOfRunners;
+		List<QNodeI> qNodes = new ArrayList<>(network.getNetsimNodes().size());
+		int[] runnerIndices;
+		if (this.sortedNodes != null) {
+			for (Node node : this.sortedNodes) {
+				qNodes.add(network.getNetsimNodes().get(node.getId()));
+			}
+			runnerIndices = SpaceFillingCurvePartitioning.partition(this.sortedNodes, this.numOfRunners);
+		} else {
+			qNodes.addAll(network.getNetsimNodes().values());
+			runnerIndices = new int[qNodes.size()];
+			for (int k = 0; k < runnerIndices.length; k++) {
+				runnerIndices[k] = k % this.numOfRunners;
+			}
+		}
+		IdIntMap<Node> runnerOfNode = new IdIntMap<>(Node.class, qNodes.size(), -1);
+
+		for (int k = 0; k < qNodes.size(); k++) {
+			QNodeI node = qNodes.get(k);
+			int i = runnerIndices[k];
+			runnerOfNode.put(node.getNode().getId(), i);
 			if( node instanceof AbstractQNode){
 				((AbstractQNode) node).setNetElementActivationRegistry(this.engines.get(i));
 			}
@@ -497,8 +676,6 @@ public class QNetsimEngine implements MobsimEngine, NetsimEngine {
 				links[i]++;
 
 			}
-
-			roundRobin++;
 		}
 
 		// print some statistics
@@ -506,6 +683,19 @@ public class QNetsimEngine implements MobsimEngine, NetsimEngine {
 			log.info("Assigned " + nodes[i] + " nodes and " + links[i] + " links to QSimEngineRunner #" + i);
 		}
 
+		/*
+		 * A link whose to-node is handled by another runner than its from-node is "cut": vehicles
+		 * leaving the link are handed over to the other runner.
+		 */
+		this.numberOfCutLinks = 0;
+		for (QLinkI qLink : network.getNetsimLinks().values()) {
+			Link link = qLink.getLink();
+			if (runnerOfNode.get(link.getFromNode().getId()) != runnerOfNode.get(link.getToNode().getId())) {
+				this.numberOfCutLinks++;
+			}
+		}
+		log.info(this.numberOfCutLinks + " of " + network.getNetsimLinks().size() + " links connect nodes handled by different QSimEngineRunners.");
+
 		this.linksToActivateInitially.clear();
 	}
 
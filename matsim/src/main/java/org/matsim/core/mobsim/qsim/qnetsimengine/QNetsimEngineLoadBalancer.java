@@ -0,0 +1,182 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * QNetsimEngineLoadBalancer.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2020 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.mobsim.qsim.qnetsimengine;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.log4j.Logger;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.core.config.groups.QSimConfigGroup.RunnerLoadBalancing;
+
+/**
+ * Re-distributes the nodes (together with their out-links) between the {@link QNetsimEngineRunner}s, so that all runners
+ * have about the same load. The load of a runner is either the number of nodes and links it moved or the time it spent
+ * moving them, measured since the last call to {@link #rebalance()}.
+ * <p></p>
+ * Only nodes that are currently active, or that have active out-links, are moved, as these are the ones generating the
+ * load. A node is always moved together with all its out-links, as the links are activated by the runner handling the node.
+ * Rebalancing must only happen between two sim steps, i.e. while all runners are waiting at the barriers.
+ */
+final class QNetsimEngineLoadBalancer {
+
+	private static final Logger log = Logger.getLogger(QNetsimEngineLoadBalancer.class);
+
+	/*
+	 * Runners whose load is at most this fraction above the mean load are considered to be balanced.
+	 */
+	private static final double TOLERANCE = 0.1;
+
+	/*
+	 * Only this fraction of the excess load is moved per rebalancing, as the load in the next interval
+	 * will not be exactly the same as in the last one. Moving everything tends to oscillate.
+	 */
+	private static final double DAMPING = 0.5;
+
+	private final QNetwork network;
+	private final List<QNetsimEngineRunner> runners;
+	private final RunnerLoadBalancing loadBalancing;
+	private final long[] lastLoads;
+
+	private int numberOfRebalancings = 0;
+	private int numberOfMovedNodes = 0;
+
+	QNetsimEngineLoadBalancer(QNetwork network, List<QNetsimEngineRunner> runners, RunnerLoadBalancing loadBalancing) {
+		if (loadBalancing == RunnerLoadBalancing.off) {
+			throw new IllegalArgumentException("load balancing is switched off.");
+		}
+		this.network = network;
+		this.runners = runners;
+		this.loadBalancing = loadBalancing;
+		this.lastLoads = new long[runners.size()];
+	}
+
+	/**
+	 * @return the number of nodes that were moved to another runner.
+	 */
+	int rebalance() {
+		int n = this.runners.size();
+		double[] loads = new double[n];
+		double sum = 0;
+		for (int i = 0; i < n; i++) {
+			QNetsimEngineRunner runner = this.runners.get(i);
+			long load = this.loadBalancing == RunnerLoadBalancing.byWallTime ? runner.getBusyTime() : runner.getProcessedElements();
+			loads[i] = load - this.lastLoads[i];
+			this.lastLoads[i] = load;
+			sum += loads[i];
+		}
+		double mean = sum / n;
+		if (mean <= 0) {
+			return 0;
+		}
+
+		int movedNodes = 0;
+		// every round moves load from the most to the least loaded runner
+		for (int round = 0; round < n - 1; round++) {
+			int max = 0;
+			int min = 0;
+			for (int i = 1; i < n; i++) {
+				if (loads[i] > loads[max]) max = i;
+				if (loads[i] < loads[min]) min = i;
+			}
+			if (loads[max] <= mean * (1.0 + TOLERANCE)) {
+				break;
+			}
+			double excess = Math.min(loads[max] - mean, mean - loads[min]);
+			movedNodes += moveLoad(this.runners.get(max), this.runners.get(min), DAMPING * excess / loads[max]);
+			loads[max] -= excess;
+			loads[min] += excess;
+		}
+
+		this.numberOfRebalancings++;
+		this.numberOfMovedNodes += movedNodes;
+		if (movedNodes > 0 && log.isDebugEnabled()) {
+			log.debug("moved " + movedNodes + " nodes between QNetsimEngineRunners.");
+		}
+		return movedNodes;
+	}
+
+	/**
+	 * Moves approximately the given fraction of the currently active nodes and links from one runner to the other.
+	 * The nodes with the most active elements are moved first, so as few nodes as possible change the runner.
+	 */
+	private int moveLoad(QNetsimEngineRunner from, QNetsimEngineRunner to, double fraction) {
+		Map<AbstractQNode, Integer> weights = new LinkedHashMap<>();
+		int totalWeight = 0;
+		for (QNodeI node : from.getActiveNodes()) {
+			if (node instanceof AbstractQNode) {
+				weights.merge((AbstractQNode) node, 1, Integer::sum);
+				totalWeight++;
+			}
+		}
+		for (QLinkI link : from.getActiveLinks()) {
+			QNodeI fromNode = this.network.getNetsimNodes().get(link.getLink().getFromNode().getId());
+			if (fromNode instanceof AbstractQNode) {
+				weights.merge((AbstractQNode) fromNode, 1, Integer::sum);
+				totalWeight++;
+			}
+		}
+		double targetWeight = fraction * totalWeight;
+		if (targetWeight < 1.0) {
+			return 0;
+		}
+
+		List<Map.Entry<AbstractQNode, Integer>> candidates = new ArrayList<>(weights.entrySet());
+		// sort by weight, and by id for equal weights, so the result does not depend on the order of activation
+		candidates.sort((e1, e2) -> {
+			int cmp = Integer.compare(e2.getValue(), e1.getValue());
+			return cmp != 0 ? cmp : e1.getKey().getNode().getId().compareTo(e2.getKey().getNode().getId());
+		});
+
+		Set<QNodeI> nodes = new HashSet<>();
+		Set<QLinkI> links = new HashSet<>();
+		int movedWeight = 0;
+		for (Map.Entry<AbstractQNode, Integer> e : candidates) {
+			if (movedWeight + e.getValue() > targetWeight && movedWeight > 0) {
+				break;
+			}
+			AbstractQNode node = e.getKey();
+			node.setNetElementActivationRegistry(to);
+			nodes.add(node);
+			for (Link outLink : node.getNode().getOutLinks().values()) {
+				AbstractQLink qLink = (AbstractQLink) this.network.getNetsimLink(outLink.getId());
+				qLink.setNetElementActivationRegistry(to);
+				links.add(qLink);
+			}
+			movedWeight += e.getValue();
+		}
+		from.transferActiveElementsTo(to, nodes, links);
+		return nodes.size();
+	}
+
+	int getNumberOfRebalancings() {
+		return this.numberOfRebalancings;
+	}
+
+	int getNumberOfMovedNodes() {
+		return this.numberOfMovedNodes;
+	}
+
+}
@@ -26,7 +26,6 @@ import org.matsim.core.mobsim.qsim.QSim;
 import java.util.*;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentLinkedQueue;
-import java.util.concurrent.Phaser;
 
 /**
  * These are the "threads" of the {@link QNetsimEngine}. The "run()" method is implicitly called by starting the thread.
@@ -40,9 +39,9 @@ class QNetsimEngineRunner extends NetElementActivationRegistry implements Runnab
 
 	private volatile boolean simulationRunning = true;
 
-	private final Phaser startBarrier;
-	private final Phaser separationBarrier;
-	private final Phaser endBarrier;
+	private final StepBarrier startBarrier;
+	private final StepBarrier separationBarrier;
+	private final StepBarrier endBarrier;
 
 	/*
 	 * This needs to be thread-safe since QNodes could be activated concurrently
@@ -62,6 +61,12 @@ class QNetsimEngineRunner extends NetElementActivationRegistry implements Runnab
 	 */
 	private final List<QLinkI> linksList = new LinkedList<>();
 
+	/*
+	 * Links that are inactive until the first vehicle on them can leave, see EventDrivenQueueWithBuffer.
+	 * Like the linksList, this is only written by the links of this runner while they are moved.
+	 */
+	private final LinkActivationCalendar activationCalendar = new LinkActivationCalendar();
+
 	/*
 	 * Ensure that nodes and links are only activate during times where we expect it.
 	 * Otherwise this could result in unpredictable behavior. Therefore we throw
@@ -76,6 +81,14 @@ class QNetsimEngineRunner extends NetElementActivationRegistry implements Runnab
 
 	private boolean movingNodes;
 
+	/*
+	 * Statistics for the load balancing between the runners. Only written by the
+	 * runner itself while moving, and only read while the runners are waiting at
+	 * the barriers, so there is no need for volatile fields.
+	 */
+	private long busyTime = 0;
+	private long processedElements = 0;
+
 	/*package*/ long[] runTimes;
 	private long startTime = 0;
 	{	
@@ -83,7 +96,7 @@ class QNetsimEngineRunner extends NetElementActivationRegistry implements Runnab
 		else runTimes = null;
 	}
 	
-	/*package*/ QNetsimEngineRunner(Phaser startBarrier, Phaser separationBarrier, Phaser endBarrier) {
+	/*package*/ QNetsimEngineRunner(StepBarrier startBarrier, StepBarrier separationBarrier, StepBarrier endBarrier) {
 		this.startBarrier = startBarrier;
 		this.separationBarrier = separationBarrier;
 		this.endBarrier = endBarrier;
@@ -116,11 +129,13 @@ class QNetsimEngineRunner extends NetElementActivationRegistry implements Runnab
 			return false;
 		}
 
+		long start = System.nanoTime();
 		if (this.movingNodes) {
 			moveNodes();
 		} else {
 			moveLinks();
 		}
+		this.busyTime += System.nanoTime() - start;
 		return true ;
 	}
 
@@ -144,15 +159,20 @@ class QNetsimEngineRunner extends NetElementActivationRegistry implements Runnab
 				return;
 			}
 
+			long start = System.nanoTime();
 			moveNodes();
+			long end = System.nanoTime();
+			this.busyTime += end - start;
 
-			// After moving the QNodes all we use a Phaser to synchronize the threads.
+			// After moving the QNodes all we use a barrier to synchronize the threads.
 			this.separationBarrier.arriveAndAwaitAdvance();
 
+			start = System.nanoTime();
 			moveLinks();
+			end = System.nanoTime();
+			this.busyTime += end - start;
 
 			if (QSim.analyzeRunTimes) {
-				long end = System.nanoTime();
 				int bin = (int) this.time;
 				if (bin < this.runTimes.length) this.runTimes[bin] = end - this.startTime;
 			}
@@ -173,10 +193,12 @@ class QNetsimEngineRunner extends NetElementActivationRegistry implements Runnab
 			node = simNodes.next();
 			remainsActive = node.doSimStep(time);
 			if (!remainsActive) simNodes.remove();
+			this.processedElements++;
 		}
 		this.lockNodes = false;
 	}
 	private void moveLinks() {
+		this.activationCalendar.activateDueLinks(time, link -> link.getInternalInterface().activateLink());
 		boolean remainsActive;
 		lockLinks = true;
 		QLinkI link;
@@ -187,6 +209,7 @@ class QNetsimEngineRunner extends NetElementActivationRegistry implements Runnab
 			remainsActive = link.doSimStep();
 
 			if (!remainsActive) simLinks.remove();
+			this.processedElements++;
 		}
 		lockLinks = false;
 	}
@@ -202,6 +225,19 @@ class QNetsimEngineRunner extends NetElementActivationRegistry implements Runnab
 		else throw new RuntimeException("Tried to activate a QLink at a time where this was not allowed. Aborting!");
 	}
 
+	@Override
+	boolean scheduleLinkActivation(AbstractQLink link, double time) {
+		this.activationCalendar.schedule(link, time);
+		return true;
+	}
+
+	/**
+	 * @return the earliest time a link of this runner is scheduled to be activated at, or infinity if there is none.
+	 */
+	/*package*/ double getNextLinkActivationTime() {
+		return this.activationCalendar.getNextActivationTime();
+	}
+
 	@Override
 	public int getNumberOfSimulatedLinks() {
 		return this.linksList.size();
@@ -229,7 +265,66 @@ class QNetsimEngineRunner extends NetElementActivationRegistry implements Runnab
 		return this.nodesQueue.size();
 	}
 
+	/**
+	 * @return true if there is at least one active node or link, i.e. if this runner has something to do in the next
+	 * sim step. Unlike the counts above, this is cheap.
+	 */
+	boolean hasActiveElements() {
+		return !this.nodesQueue.isEmpty() || !this.linksList.isEmpty();
+	}
+
 	public void setMovingNodes(boolean movingNodes) {
 		this.movingNodes = movingNodes;
 	}
+
+	/**
+	 * @return the accumulated time (in nanoseconds) this runner spent moving nodes and links, i.e. without the time spent
+	 * waiting at the barriers.
+	 */
+	/*package*/ long getBusyTime() {
+		return this.busyTime;
+	}
+
+	/**
+	 * @return the accumulated number of node and link sim steps performed by this runner.
+	 */
+	/*package*/ long getProcessedElements() {
+		return this.processedElements;
+	}
+
+	/*package*/ Collection<QNodeI> getActiveNodes() {
+		return Collections.unmodifiableCollection(this.nodesQueue);
+	}
+
+	/*package*/ List<QLinkI> getActiveLinks() {
+		return Collections.unmodifiableList(this.linksList);
+	}
+
+	/*
+	 * Hands the given nodes and links over to another runner, including their current activation state. The caller
+	 * is responsible for re-assigning the NetElementActivationRegistry of the elements. Must only be called between two
+	 * sim steps, i.e. while no runner is moving nodes or links.
+	 */
+	/*package*/ void transferActiveElementsTo(QNetsimEngineRunner other, Set<QNodeI> nodes, Set<QLinkI> links) {
+		if (this.lockNodes || this.lockLinks || other.lockNodes || other.lockLinks) {
+			throw new RuntimeException("Tried to transfer nodes or links between runners at a time where this was not allowed. Aborting!");
+		}
+		Iterator<QNodeI> nodeIter = this.nodesQueue.iterator();
+		while (nodeIter.hasNext()) {
+			QNodeI node = nodeIter.next();
+			if (nodes.contains(node)) {
+				nodeIter.remove();
+				other.nodesQueue.add(node);
+			}
+		}
+		Iterator<QLinkI> linkIter = this.linksList.iterator();
+		while (linkIter.hasNext()) {
+			QLinkI link = linkIter.next();
+			if (links.contains(link)) {
+				linkIter.remove();
+				other.linksList.add(link);
+			}
+		}
+		this.activationCalendar.transferTo(other.activationCalendar, links);
+	}
 }
\ No newline at end of file
@@ -32,6 +32,7 @@ import org.matsim.core.mobsim.qsim.interfaces.NetsimNode;
 import org.matsim.vis.snapshotwriters.VisLink;
 
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -74,6 +75,32 @@ public class QNetwork implements NetsimNetwork {
 			n.init();
 		}
 	}
+
+	/**
+	 * Creates the QNodes in the given order, and then the QLinks grouped by their from-node in the same order. Objects created
+	 * one after the other usually end up next to each other in memory, so if the order keeps nodes of the same
+	 * region together, a runner moving the nodes and links of that region touches less memory.
+	 */
+	/*package*/ void initialize(QNetsimEngine simEngine, AgentCounter agentCounter, MobsimTimer simTimer, List<? extends Node> nodeOrder) {
+		if (nodeOrder.size() != this.network.getNodes().size()) {
+			throw new IllegalArgumentException("the node order must contain all " + this.network.getNodes().size() + " nodes of the network, "
+					+ "but has " + nodeOrder.size() + " entries.");
+		}
+		this.simEngine = simEngine;
+		this.queueNetworkFactory.initializeFactory( agentCounter, simTimer, simEngine.ii);
+		for (Node n : nodeOrder) {
+			this.nodes.put(n.getId(), this.queueNetworkFactory.createNetsimNode(n));
+		}
+		for (Node n : nodeOrder) {
+			for (Link l : n.getOutLinks().values()) {
+				final QLinkI qlink = this.queueNetworkFactory.createNetsimLink(l, this.nodes.get(l.getToNode().getId()));
+				this.links.put(l.getId(), qlink);
+			}
+		}
+		for (QNodeI n : this.nodes.values()) {
+			n.init();
+		}
+	}
 	
 	@Override
 	public Network getNetwork() {
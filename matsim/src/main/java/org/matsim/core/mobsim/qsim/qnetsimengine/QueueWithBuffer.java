@@ -980,6 +980,15 @@ final class QueueWithBuffer implements QLaneI, SignalizeableItem {
 		return returnVeh;
 	}
 
+	/**
+	 * @return the time at which the first vehicle on the link (i.e. not in the buffer) may leave it, or infinity if there
+	 * is none.
+	 */
+	/*package*/ double getEarliestLinkExitTimeOfFirstVehicle() {
+		QVehicle veh = peekFromVehQueue();
+		return veh == null ? Double.POSITIVE_INFINITY : veh.getEarliestLinkExitTime();
+	}
+
 	private QVehicle pollFromVehQueue(QVehicle veh2Remove){
 		if(vehQueue.remove(veh2Remove)){
 			return veh2Remove;
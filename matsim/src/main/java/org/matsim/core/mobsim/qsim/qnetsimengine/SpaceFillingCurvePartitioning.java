@@ -0,0 +1,134 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * SpaceFillingCurvePartitioning.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2020 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.mobsim.qsim.qnetsimengine;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.network.Node;
+
+/**
+ * Orders nodes along a Hilbert curve over their coordinates and cuts the ordered sequence into parts of about the same
+ * size. Nodes that are close to each other in space are close to each other on the curve, so every part covers a
+ * contiguous region of the network and only few links connect nodes of different parts.
+ * <p></p>
+ * The size of a node is 1 plus the number of its out-links, as a runner handles a node together with its out-links.
+ */
+final class SpaceFillingCurvePartitioning {
+
+	/*
+	 * The coordinates are mapped to a grid of 2^16 x 2^16 cells, which is fine enough to
+	 * separate the nodes of any realistic network.
+	 */
+	private static final int ORDER = 16;
+	private static final int CELLS = 1 << ORDER;
+
+	private SpaceFillingCurvePartitioning() {
+	}
+
+	/**
+	 * @return the nodes, sorted by their position on the Hilbert curve.
+	 */
+	static List<Node> sortNodes(Collection<? extends Node> nodes) {
+		double minX = Double.POSITIVE_INFINITY;
+		double minY = Double.POSITIVE_INFINITY;
+		double maxX = Double.NEGATIVE_INFINITY;
+		double maxY = Double.NEGATIVE_INFINITY;
+		for (Node node : nodes) {
+			Coord c = node.getCoord();
+			minX = Math.min(minX, c.getX());
+			minY = Math.min(minY, c.getY());
+			maxX = Math.max(maxX, c.getX());
+			maxY = Math.max(maxY, c.getY());
+		}
+		// use the same scale in both directions, so the regions are not distorted
+		double extent = Math.max(maxX - minX, maxY - minY);
+		double scale = extent > 0 ? (CELLS - 1) / extent : 0.0;
+
+		Map<Node, Long> positions = new HashMap<>();
+		for (Node node : nodes) {
+			Coord c = node.getCoord();
+			int x = (int) ((c.getX() - minX) * scale);
+			int y = (int) ((c.getY() - minY) * scale);
+			positions.put(node, hilbertIndex(x, y));
+		}
+
+		List<Node> sorted = new ArrayList<>(nodes);
+		sorted.sort(Comparator.<Node>comparingLong(positions::get).thenComparing(Node::getId));
+		return sorted;
+	}
+
+	/**
+	 * Cuts the sorted nodes into <code>numberOfParts</code> contiguous parts of about the same size.
+	 *
+	 * @return the part of each node, in the order of <code>sortedNodes</code>.
+	 */
+	static int[] partition(List<? extends Node> sortedNodes, int numberOfParts) {
+		long totalSize = 0;
+		for (Node node : sortedNodes) {
+			totalSize += getSize(node);
+		}
+		int[] parts = new int[sortedNodes.size()];
+		long size = 0;
+		for (int i = 0; i < parts.length; i++) {
+			Node node = sortedNodes.get(i);
+			// assign the node to the part which contains the middle of the node
+			long middle = 2 * size + getSize(node);
+			parts[i] = (int) Math.min(numberOfParts - 1, middle * numberOfParts / (2 * totalSize));
+			size += getSize(node);
+		}
+		return parts;
+	}
+
+	private static int getSize(Node node) {
+		return 1 + node.getOutLinks().size();
+	}
+
+	/**
+	 * Converts the cell (x, y) into its position on the Hilbert curve through all cells.
+	 * See e.g. https://en.wikipedia.org/wiki/Hilbert_curve for the algorithm.
+	 */
+	static long hilbertIndex(int x, int y) {
+		long d = 0;
+		for (int s = CELLS / 2; s > 0; s /= 2) {
+			int rx = (x & s) > 0 ? 1 : 0;
+			int ry = (y & s) > 0 ? 1 : 0;
+			d += (long) s * s * ((3 * rx) ^ ry);
+			// rotate the quadrant
+			if (ry == 0) {
+				if (rx == 1) {
+					x = CELLS - 1 - x;
+					y = CELLS - 1 - y;
+				}
+				int t = x;
+				x = y;
+				y = t;
+			}
+		}
+		return d;
+	}
+
+}
@@ -0,0 +1,137 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * StepBarrier.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2020 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.mobsim.qsim.qnetsimengine;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Phaser;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import org.matsim.core.config.groups.QSimConfigGroup.RunnerBarrier;
+
+/**
+ * A reusable barrier for a fixed number of parties, as used by the {@link QNetsimEngine} to synchronize its runners
+ * in every sim step.
+ * <p></p>
+ * The {@link RunnerBarrier#phaser} variant simply wraps a {@link Phaser}, which parks waiting threads immediately.
+ * The {@link RunnerBarrier#spinThenPark} variant first busy-waits, then yields, and only then parks. With a sim step
+ * of a few microseconds, waking up parked threads takes a considerable part of the step, which is saved if the
+ * threads are still spinning when the barrier opens. The price is CPU time burnt while spinning, so this should only
+ * be used if every runner has a core of its own.
+ */
+public abstract class StepBarrier {
+
+	StepBarrier() {
+	}
+
+	public static StepBarrier create(RunnerBarrier type, int parties) {
+		switch (type) {
+			case phaser:
+				return new PhaserStepBarrier(parties);
+			case spinThenPark:
+				return new SpinningStepBarrier(parties);
+			default:
+				throw new IllegalArgumentException("unknown barrier type: " + type);
+		}
+	}
+
+	/**
+	 * Waits until all parties arrived at the barrier.
+	 */
+	public abstract void arriveAndAwaitAdvance();
+
+	private static final class PhaserStepBarrier extends StepBarrier {
+
+		private final Phaser phaser;
+
+		PhaserStepBarrier(int parties) {
+			this.phaser = new Phaser(parties);
+		}
+
+		@Override
+		public void arriveAndAwaitAdvance() {
+			this.phaser.arriveAndAwaitAdvance();
+		}
+	}
+
+	/*
+	 * A sense-reversing counting barrier: the last party to arrive resets the counter and starts
+	 * the next phase, all others wait for the phase to change.
+	 */
+	private static final class SpinningStepBarrier extends StepBarrier {
+
+		private static final int SPINS = 10_000;
+		private static final int YIELDS = 100;
+
+		private final int parties;
+		// busy-waiting only makes sense if the party we wait for can run on another core at the same time
+		private final int spins;
+		private final AtomicInteger arrived = new AtomicInteger(0);
+		private volatile int phase = 0;
+		private final Queue<Thread> parkedThreads = new ConcurrentLinkedQueue<>();
+
+		SpinningStepBarrier(int parties) {
+			if (parties < 1) {
+				throw new IllegalArgumentException("number of parties must be positive, but is " + parties);
+			}
+			this.parties = parties;
+			this.spins = Runtime.getRuntime().availableProcessors() >= parties ? SPINS : 0;
+		}
+
+		@Override
+		public void arriveAndAwaitAdvance() {
+			int currentPhase = this.phase;
+			if (this.arrived.incrementAndGet() == this.parties) {
+				this.arrived.set(0);
+				this.phase = currentPhase + 1;
+				Thread thread;
+				while ((thread = this.parkedThreads.poll()) != null) {
+					LockSupport.unpark(thread);
+				}
+				return;
+			}
+
+			for (int i = 0; i < this.spins; i++) {
+				if (this.phase != currentPhase) {
+					return;
+				}
+			}
+			for (int i = 0; i < YIELDS; i++) {
+				if (this.phase != currentPhase) {
+					return;
+				}
+				Thread.yield();
+			}
+			Thread current = Thread.currentThread();
+			this.parkedThreads.add(current);
+			/*
+			 * Check the phase again after registering, the last party might have started the next phase
+			 * in between. In that case, a later phase change unparks this thread once more, which is harmless
+			 * as park() may return spuriously anyway.
+			 */
+			while (this.phase == currentPhase) {
+				LockSupport.park(this);
+			}
+		}
+	}
+
+}
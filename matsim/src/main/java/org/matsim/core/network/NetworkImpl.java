@@ -94,6 +94,8 @@ import java.util.Queue;
 
 	private int nextMsg2=1;
 
+	private int modificationCount = 0;
+
 	private boolean locked = false ;
 	private final Attributes attributes = new Attributes();
 
@@ -128,6 +130,7 @@ import java.util.Queue;
 		toNode.addInLink(link);
 
 		links.put(link.getId(), link);
+		this.modificationCount++;
 
 		if (this.linkQuadTree != null) {
 			double linkMinX = Math.min(link.getFromNode().getCoord().getX(), link.getToNode().getCoord().getX());
@@ -180,6 +183,7 @@ import java.util.Queue;
 					".\nNode is not added to the network.");
 		}
 		this.nodes.put(id, nn);
+		this.modificationCount++;
 		if (this.nodeQuadTree != null) {
 			if (Double.isInfinite(this.nodeQuadTree.getMinEasting())) {
 				// looks like the quad tree was initialized with infinite bounds, see MATSIM-278.
@@ -216,6 +220,7 @@ import java.util.Queue;
 		if (n == null) {
 			return null;
 		}
+		this.modificationCount++;
 		HashSet<Link> links1 = new HashSet<>();
 		links1.addAll(n.getInLinks().values());
 		links1.addAll(n.getOutLinks().values());
@@ -234,6 +239,7 @@ import java.util.Queue;
 		if (l == null) {
 			return null;
 		}
+		this.modificationCount++;
 		l.getFromNode().removeOutLink(l.getId()) ;
 		l.getToNode().removeInLink(l.getId()) ;
 
@@ -324,6 +330,10 @@ import java.util.Queue;
 		}
 	}
 
+	/*deliberately package*/ int getModificationCount() {
+		return this.modificationCount;
+	}
+
 	@Override
 	public double getCapacityPeriod() {
 		return this.capacityPeriod;
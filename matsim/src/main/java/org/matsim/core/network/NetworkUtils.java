@@ -741,6 +741,18 @@ public final class NetworkUtils {
 	}
 
 
+	/**
+	 * @return a number that changes whenever nodes or links are added to or removed from the network, or -1 if the
+	 * network implementation does not keep track of its modifications
+	 */
+	public static int getModificationCount(Network network) {
+		if ( network instanceof NetworkImpl ) {
+			return ((NetworkImpl) network).getModificationCount();
+		}
+		return -1;
+	}
+
+
 	public static Link getNearestLinkExactly(Network network, Coord coord) {
 		if ( network instanceof SearchableNetwork ) {
 			return ((SearchableNetwork) network).getNearestLinkExactly(coord) ;
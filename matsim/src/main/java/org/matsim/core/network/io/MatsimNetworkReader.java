@@ -30,6 +30,7 @@ import org.matsim.core.scenario.ProjectionUtils;
 import org.matsim.core.utils.geometry.transformations.IdentityTransformation;
 import org.matsim.core.utils.geometry.transformations.TransformationFactory;
 import org.matsim.core.utils.io.MatsimXmlParser;
+import org.matsim.core.utils.io.MatsimXmlParser.ParallelParser;
 import org.matsim.utils.objectattributes.AttributeConverter;
 import org.xml.sax.Attributes;
 import org.xml.sax.SAXException;
@@ -40,7 +41,7 @@ import org.xml.sax.SAXException;
  *
  * @author mrieser
  */
-public final class MatsimNetworkReader extends MatsimXmlParser {
+public final class MatsimNetworkReader extends MatsimXmlParser implements ParallelParser {
 
 	private final static Logger log = Logger.getLogger(MatsimNetworkReader.class);
 	private final static String NETWORK_V1 = "network_v1.dtd";
@@ -88,6 +89,21 @@ public final class MatsimNetworkReader extends MatsimXmlParser {
 		this.delegate.endTag(name, content, context);
 	}
 
+	@Override
+	public boolean isChunkElement(final String name) {
+		return this.delegate instanceof ParallelParser && ((ParallelParser) this.delegate).isChunkElement(name);
+	}
+
+	@Override
+	public void startChunkElement(final String name, final Attributes atts) {
+		((ParallelParser) this.delegate).startChunkElement(name, atts);
+	}
+
+	@Override
+	public ChunkParser createChunkParser() {
+		return ((ParallelParser) this.delegate).createChunkParser();
+	}
+
 	@Override
 	public void endDocument() {
 		try {
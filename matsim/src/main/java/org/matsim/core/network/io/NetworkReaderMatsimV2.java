@@ -32,13 +32,17 @@ import org.matsim.core.utils.geometry.CoordinateTransformation;
 import org.matsim.core.utils.geometry.transformations.IdentityTransformation;
 import org.matsim.core.utils.geometry.transformations.TransformationFactory;
 import org.matsim.core.utils.io.MatsimXmlParser;
+import org.matsim.core.utils.io.MatsimXmlParser.ParallelParser;
 import org.matsim.core.utils.misc.StringUtils;
 import org.matsim.core.utils.misc.Time;
 import org.matsim.utils.objectattributes.AttributeConverter;
 import org.matsim.utils.objectattributes.attributable.AttributesXmlReaderDelegate;
 import org.xml.sax.Attributes;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.Stack;
@@ -48,7 +52,7 @@ import java.util.Stack;
  *
  * @author mrieser
  */
-final class NetworkReaderMatsimV2 extends MatsimXmlParser {
+class NetworkReaderMatsimV2 extends MatsimXmlParser implements ParallelParser {
 
 	private final static String NETWORK = "network";
 	private final static String LINKS = "links";
@@ -60,6 +64,7 @@ final class NetworkReaderMatsimV2 extends MatsimXmlParser {
 	private final Network network;
 
 	private final AttributesXmlReaderDelegate attributesDelegate = new AttributesXmlReaderDelegate();
+	private final Map<Class<?>, AttributeConverter<?>> converters = new HashMap<>();
 	private org.matsim.utils.objectattributes.attributable.Attributes currentAttributes = null;
 
 	private final String externalInputCRS;
@@ -81,6 +86,36 @@ final class NetworkReaderMatsimV2 extends MatsimXmlParser {
 		this.network = network;
 	}
 
+	/**
+	 * Creates a reader for the nodes or links of one chunk, with the current state of the given reader.
+	 */
+	private NetworkReaderMatsimV2(final NetworkReaderMatsimV2 reader) {
+		this.externalInputCRS = reader.externalInputCRS;
+		this.targetCRS = reader.targetCRS;
+		this.coordinateTransformation = reader.coordinateTransformation;
+		this.network = reader.network;
+		putAttributeConverters(reader.converters);
+	}
+
+	@Override
+	public boolean isChunkElement(final String name) {
+		return NODE.equals(name) || LINK.equals(name);
+	}
+
+	@Override
+	public void startChunkElement(final String name, final Attributes atts) {
+		if (NODE.equals(name)) {
+			Id.create(atts.getValue("id"), Node.class);
+		} else {
+			Id.create(atts.getValue("id"), Link.class);
+		}
+	}
+
+	@Override
+	public ChunkParser createChunkParser() {
+		return new NetworkChunkParser(this);
+	}
+
 	@Override
 	public void startTag(final String name, final Attributes atts, final Stack<String> context) {
 		switch( name ) {
@@ -182,7 +217,7 @@ final class NetworkReaderMatsimV2 extends MatsimXmlParser {
 				this.network.getFactory().createNode(
 						Id.create(atts.getValue("id"), Node.class),
 						parseCoord(atts));
-		this.network.addNode(node);
+		addNode(node);
 
 		NetworkUtils.setType(node,atts.getValue("type"));
 		// (did not have a null check when I found it.  kai, jul'16) 
@@ -222,7 +257,7 @@ final class NetworkReaderMatsimV2 extends MatsimXmlParser {
 		l.setFreespeed(Double.parseDouble(atts.getValue("freespeed")));
 		l.setCapacity(Double.parseDouble(atts.getValue("capacity")));
 		l.setNumberOfLanes(Double.parseDouble(atts.getValue("permlanes")));
-		this.network.addLink(l);
+		addLink(l);
 		{
 			String value = atts.getValue(NetworkUtils.ORIGID);
 			if ( value != null ) {
@@ -252,7 +287,49 @@ final class NetworkReaderMatsimV2 extends MatsimXmlParser {
 		currentAttributes = l.getAttributes();
 	}
 
+	void addNode(final Node node) {
+		this.network.addNode(node);
+	}
+
+	void addLink(final Link link) {
+		this.network.addLink(link);
+	}
+
 	public void putAttributeConverters(Map<Class<?>, AttributeConverter<?>> converters) {
 		this.attributesDelegate.putAttributeConverters( converters );
+		this.converters.putAll( converters );
+	}
+
+	/*
+	 * Parses the nodes or links of one chunk, and adds them to the network when the chunk is finished.  A chunk never
+	 * contains both, so all nodes are in the network before the first link is parsed.
+	 */
+	private static final class NetworkChunkParser extends NetworkReaderMatsimV2 implements ChunkParser {
+		private final List<Node> nodes = new ArrayList<>();
+		private final List<Link> links = new ArrayList<>();
+
+		NetworkChunkParser(final NetworkReaderMatsimV2 reader) {
+			super(reader);
+		}
+
+		@Override
+		void addNode(final Node node) {
+			this.nodes.add(node);
+		}
+
+		@Override
+		void addLink(final Link link) {
+			this.links.add(link);
+		}
+
+		@Override
+		public void finish() {
+			for (Node node : this.nodes) {
+				super.addNode(node);
+			}
+			for (Link link : this.links) {
+				super.addLink(link);
+			}
+		}
 	}
 }
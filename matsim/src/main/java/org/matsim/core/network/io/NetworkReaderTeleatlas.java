@@ -220,6 +220,7 @@ public final class NetworkReaderTeleatlas implements MatsimSomeReader {
 	private void readNodesFromJCshp() throws IOException {
 		int nCnt = network.getNodes().size();
 		SimpleFeatureSource fs = ShapeFileReader.readDataFile(jcShpFileName);
+		Id.ensureCapacity(Node.class, Id.getNumberOfIds(Node.class) + fs.getFeatures().size());
 		SimpleFeatureIterator fIt = fs.getFeatures().features();
 		while (fIt.hasNext()) {
 			SimpleFeature f = fIt.next();
@@ -344,6 +345,8 @@ public final class NetworkReaderTeleatlas implements MatsimSomeReader {
 		int lCnt = network.getLinks().size();
 		int ignoreCnt = 0;
 		SimpleFeatureSource fs = ShapeFileReader.readDataFile(this.nwShpFileName);
+		// at most one link per direction of every feature
+		Id.ensureCapacity(Link.class, Id.getNumberOfIds(Link.class) + 2 * fs.getFeatures().size());
 		SimpleFeatureIterator fIt = fs.getFeatures().features();
 		while (fIt.hasNext()) {
 			SimpleFeature f = fIt.next();
@@ -0,0 +1,238 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * ColumnarActivity.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2020 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.population;
+
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.population.Activity;
+import org.matsim.core.utils.misc.Time;
+import org.matsim.facilities.ActivityFacility;
+import org.matsim.utils.objectattributes.attributable.Attributes;
+import org.matsim.utils.objectattributes.attributable.AttributesUtils;
+
+/**
+ * An {@link Activity} whose values are kept in a {@link ColumnarPlanElementStore}.  The object itself only knows its
+ * slot in the store, so it behaves like an {@link ActivityImpl}, including its identity, but needs less memory.
+ * <p></p>
+ * Notes:<ul>
+ * <li> {@link #getCoord()} returns a new {@link Coord} on every call, with the same values as the one set. </li>
+ * <li> After {@link #release()}, e.g. since its plan was removed, the activity keeps its values in an {@link ActivityImpl}
+ * of its own, so it can still be used by whoever still holds a reference to it. </li>
+ * </ul>
+ */
+/* package */ final class ColumnarActivity implements Activity {
+
+	private final ColumnarPlanElementStore store;
+	private final int slot;
+	private ActivityImpl detached = null;
+
+	ColumnarActivity(final ColumnarPlanElementStore store, final String type) {
+		this.store = store;
+		this.slot = store.allocateActivity();
+		this.store.activityTypes.set(this.slot, type.intern());
+	}
+
+	/**
+	 * @return a new activity in the same store, with the same values as this one.
+	 */
+	ColumnarActivity copy() {
+		ColumnarActivity copy = new ColumnarActivity(this.store, getType());
+		copyTo(copy);
+		return copy;
+	}
+
+	/**
+	 * Frees the slot of this activity in the store. The activity keeps its values, but no longer in the store.
+	 */
+	void release() {
+		if (this.detached != null) {
+			return;
+		}
+		ActivityImpl act = new ActivityImpl(getType());
+		copyTo(act);
+		this.detached = act;
+		this.store.releaseActivity(this.slot);
+	}
+
+	/*
+	 * Like PopulationUtils.copyFromTo(...), but keeps the z-value of the coord and does not create attributes where there are none.
+	 */
+	private void copyTo(final Activity other) {
+		other.setType(getType());
+		other.setCoord(getCoord());
+		other.setLinkId(getLinkId());
+		other.setFacilityId(getFacilityId());
+		other.setStartTime(getStartTime());
+		other.setEndTime(getEndTime());
+		other.setMaximumDuration(getMaximumDuration());
+		Attributes attributes = getAttributesIfPresent();
+		if (attributes != null && !attributes.isEmpty()) {
+			AttributesUtils.copyTo(attributes, other.getAttributes());
+		}
+	}
+
+	@Override
+	public double getEndTime() {
+		return this.detached == null ? this.store.activityEndTimes.get(this.slot) : this.detached.getEndTime();
+	}
+
+	@Override
+	public void setEndTime(final double endTime) {
+		if (this.detached == null) {
+			this.store.activityEndTimes.set(this.slot, endTime);
+		} else {
+			this.detached.setEndTime(endTime);
+		}
+	}
+
+	@Override
+	public double getStartTime() {
+		return this.detached == null ? this.store.activityStartTimes.getIfPresent(this.slot) : this.detached.getStartTime();
+	}
+
+	@Override
+	public void setStartTime(final double startTime) {
+		if (this.detached == null) {
+			this.store.setSparse(this.store.activityStartTimes, this.slot, startTime);
+		} else {
+			this.detached.setStartTime(startTime);
+		}
+	}
+
+	@Override
+	public double getMaximumDuration() {
+		return this.detached == null ? this.store.activityMaxDurations.getIfPresent(this.slot) : this.detached.getMaximumDuration();
+	}
+
+	@Override
+	public void setMaximumDuration(final double dur) {
+		if (this.detached == null) {
+			this.store.setSparse(this.store.activityMaxDurations, this.slot, dur);
+		} else {
+			this.detached.setMaximumDuration(dur);
+		}
+	}
+
+	@Override
+	public String getType() {
+		return this.detached == null ? this.store.activityTypes.get(this.slot) : this.detached.getType();
+	}
+
+	@Override
+	public void setType(final String type) {
+		if (this.detached == null) {
+			this.store.activityTypes.set(this.slot, type.intern());
+		} else {
+			this.detached.setType(type);
+		}
+	}
+
+	@Override
+	public Coord getCoord() {
+		if (this.detached != null) {
+			return this.detached.getCoord();
+		}
+		double x = this.store.activityX.get(this.slot);
+		if (ColumnarPlanElementStore.isNoCoord(x)) {
+			return null;
+		}
+		double y = this.store.activityY.get(this.slot);
+		double z = this.store.activityZ.getIfPresent(this.slot);
+		return z == Double.NEGATIVE_INFINITY ? new Coord(x, y) : new Coord(x, y, z);
+	}
+
+	@Override
+	public void setCoord(final Coord coord) {
+		if (this.detached != null) {
+			this.detached.setCoord(coord);
+		} else if (coord == null) {
+			this.store.activityX.set(this.slot, ColumnarPlanElementStore.NO_COORD);
+			this.store.activityY.set(this.slot, Double.NaN);
+			this.store.setSparse(this.store.activityZ, this.slot, Double.NEGATIVE_INFINITY);
+		} else {
+			this.store.activityX.set(this.slot, coord.getX());
+			this.store.activityY.set(this.slot, coord.getY());
+			this.store.setSparse(this.store.activityZ, this.slot, coord.hasZ() ? coord.getZ() : Double.NEGATIVE_INFINITY);
+		}
+	}
+
+	@Override
+	public Id<Link> getLinkId() {
+		return this.detached == null ? this.store.activityLinkIds.get(this.slot) : this.detached.getLinkId();
+	}
+
+	@Override
+	public void setLinkId(final Id<Link> linkId) {
+		if (this.detached == null) {
+			this.store.activityLinkIds.set(this.slot, linkId);
+		} else {
+			this.detached.setLinkId(linkId);
+		}
+	}
+
+	@Override
+	public Id<ActivityFacility> getFacilityId() {
+		return this.detached == null ? this.store.activityFacilityIds.getIfPresent(this.slot) : this.detached.getFacilityId();
+	}
+
+	@Override
+	public void setFacilityId(final Id<ActivityFacility> facilityId) {
+		if (this.detached == null) {
+			this.store.setSparse(this.store.activityFacilityIds, this.slot, facilityId);
+		} else {
+			this.detached.setFacilityId(facilityId);
+		}
+	}
+
+	@Override
+	public Attributes getAttributes() {
+		if (this.detached != null) {
+			return this.detached.getAttributes();
+		}
+		Attributes attributes = this.store.activityAttributes.getIfPresent(this.slot);
+		if (attributes == null) {
+			// most activities never have attributes, so they are only created when asked for
+			attributes = new Attributes();
+			this.store.setSparse(this.store.activityAttributes, this.slot, attributes);
+		}
+		return attributes;
+	}
+
+	/**
+	 * @return the attributes of this activity, or <code>null</code> if they were never asked for.
+	 */
+	Attributes getAttributesIfPresent() {
+		return this.detached == null ? this.store.activityAttributes.getIfPresent(this.slot) : this.detached.getAttributes();
+	}
+
+	@Override
+	public String toString() {
+		return "act [type=" + this.getType() + "]" +
+				"[coord=" + this.getCoord() + "]" +
+				"[linkId=" + this.getLinkId() + "]" +
+				"[startTime=" + Time.writeTime(this.getStartTime()) + "]" +
+				"[endTime=" + Time.writeTime(this.getEndTime()) + "]" +
+				"[duration=" + Time.writeTime(this.getMaximumDuration()) + "]" +
+				"[facilityId=" + this.getFacilityId() + "]" ;
+	}
+
+}
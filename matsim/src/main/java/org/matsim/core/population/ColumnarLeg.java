@@ -0,0 +1,166 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * ColumnarLeg.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2020 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.population;
+
+import org.matsim.api.core.v01.population.Leg;
+import org.matsim.api.core.v01.population.Route;
+import org.matsim.core.utils.misc.Time;
+import org.matsim.utils.objectattributes.attributable.Attributes;
+import org.matsim.utils.objectattributes.attributable.AttributesUtils;
+
+/**
+ * A {@link Leg} whose values are kept in a {@link ColumnarPlanElementStore}, see {@link ColumnarActivity}.
+ */
+/* package */ final class ColumnarLeg implements Leg {
+
+	private final ColumnarPlanElementStore store;
+	private final int slot;
+	private LegImpl detached = null;
+
+	ColumnarLeg(final ColumnarPlanElementStore store, final String transportMode) {
+		this.store = store;
+		this.slot = store.allocateLeg();
+		this.store.legModes.set(this.slot, transportMode);
+	}
+
+	/**
+	 * @return a new leg in the same store, with the same values as this one, and a copy of its route.
+	 */
+	ColumnarLeg copy() {
+		ColumnarLeg copy = new ColumnarLeg(this.store, getMode());
+		copy.setDepartureTime(getDepartureTime());
+		copy.setTravelTime(getTravelTime());
+		if (getRoute() != null) {
+			copy.setRoute(getRoute().clone());
+		}
+		copyAttributesTo(copy);
+		return copy;
+	}
+
+	/**
+	 * Frees the slot of this leg in the store. The leg keeps its values, including its route, but no longer in the store.
+	 */
+	void release() {
+		if (this.detached != null) {
+			return;
+		}
+		LegImpl leg = new LegImpl(getMode());
+		leg.setDepartureTime(getDepartureTime());
+		leg.setTravelTime(getTravelTime());
+		leg.setRoute(getRoute());
+		copyAttributesTo(leg);
+		this.detached = leg;
+		this.store.releaseLeg(this.slot);
+	}
+
+	private void copyAttributesTo(final Leg other) {
+		Attributes attributes = getAttributesIfPresent();
+		if (attributes != null && !attributes.isEmpty()) {
+			AttributesUtils.copyTo(attributes, other.getAttributes());
+		}
+	}
+
+	@Override
+	public String getMode() {
+		return this.detached == null ? this.store.legModes.get(this.slot) : this.detached.getMode();
+	}
+
+	@Override
+	public void setMode(final String transportMode) {
+		if (this.detached == null) {
+			this.store.legModes.set(this.slot, transportMode);
+		} else {
+			this.detached.setMode(transportMode);
+		}
+	}
+
+	@Override
+	public double getDepartureTime() {
+		return this.detached == null ? this.store.legDepartureTimes.get(this.slot) : this.detached.getDepartureTime();
+	}
+
+	@Override
+	public void setDepartureTime(final double depTime) {
+		if (this.detached == null) {
+			this.store.legDepartureTimes.set(this.slot, depTime);
+		} else {
+			this.detached.setDepartureTime(depTime);
+		}
+	}
+
+	@Override
+	public double getTravelTime() {
+		return this.detached == null ? this.store.legTravelTimes.get(this.slot) : this.detached.getTravelTime();
+	}
+
+	@Override
+	public void setTravelTime(final double travTime) {
+		if (this.detached == null) {
+			this.store.legTravelTimes.set(this.slot, travTime);
+		} else {
+			this.detached.setTravelTime(travTime);
+		}
+	}
+
+	@Override
+	public Route getRoute() {
+		return this.detached == null ? this.store.legRoutes.get(this.slot) : this.detached.getRoute();
+	}
+
+	@Override
+	public void setRoute(final Route route) {
+		if (this.detached == null) {
+			this.store.legRoutes.set(this.slot, route);
+		} else {
+			this.detached.setRoute(route);
+		}
+	}
+
+	@Override
+	public Attributes getAttributes() {
+		if (this.detached != null) {
+			return this.detached.getAttributes();
+		}
+		Attributes attributes = this.store.legAttributes.getIfPresent(this.slot);
+		if (attributes == null) {
+			attributes = new Attributes();
+			this.store.setSparse(this.store.legAttributes, this.slot, attributes);
+		}
+		return attributes;
+	}
+
+	/**
+	 * @return the attributes of this leg, or <code>null</code> if they were never asked for.
+	 */
+	Attributes getAttributesIfPresent() {
+		return this.detached == null ? this.store.legAttributes.getIfPresent(this.slot) : this.detached.getAttributes();
+	}
+
+	@Override
+	public String toString() {
+		return "leg [mode=" + this.getMode() + "]" +
+				"[depTime=" + Time.writeTime(this.getDepartureTime()) + "]" +
+				"[travTime=" + Time.writeTime(this.getTravelTime()) + "]" +
+				"[arrTime=" + Time.writeTime(this.getDepartureTime() + this.getTravelTime()) + "]" +
+				"[route=" + this.getRoute() + "]";
+	}
+
+}
@@ -0,0 +1,209 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2020 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.population;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+
+import org.matsim.api.core.v01.population.PlanElement;
+
+/**
+ * The list of plan elements of the plans created by the {@link ColumnarPopulationFactory}.  Columnar activities and
+ * legs that are removed from the list, e.g. by <code>subList(...).clear()</code> when a trip is replaced, free their
+ * slots in the store.  They keep their values, so they can still be used, or even be added to a plan again.
+ * <p></p>
+ * Iterators remove elements through {@link #remove(int)}.  The sub lists of {@link ArrayList} would bypass the
+ * methods below, so {@link #subList(int, int)} returns a view that changes the elements through this list instead.
+ */
+/* package */ final class ColumnarPlanElementList extends ArrayList<PlanElement> {
+
+	private static final long serialVersionUID = 1L;
+
+	@Override
+	public PlanElement set(int index, PlanElement element) {
+		PlanElement old = super.set(index, element);
+		if (old != element) {
+			ColumnarPlanElementStore.release(old);
+		}
+		return old;
+	}
+
+	@Override
+	public PlanElement remove(int index) {
+		PlanElement old = super.remove(index);
+		ColumnarPlanElementStore.release(old);
+		return old;
+	}
+
+	@Override
+	public boolean remove(Object o) {
+		int index = indexOf(o);
+		if (index < 0) {
+			return false;
+		}
+		remove(index);
+		return true;
+	}
+
+	@Override
+	public void clear() {
+		forEach(ColumnarPlanElementStore::release);
+		super.clear();
+	}
+
+	@Override
+	protected void removeRange(int fromIndex, int toIndex) {
+		for (int i = fromIndex; i < toIndex; i++) {
+			ColumnarPlanElementStore.release(get(i));
+		}
+		super.removeRange(fromIndex, toIndex);
+	}
+
+	@Override
+	public boolean removeIf(Predicate<? super PlanElement> filter) {
+		Objects.requireNonNull(filter);
+		return super.removeIf(pe -> {
+			if (filter.test(pe)) {
+				ColumnarPlanElementStore.release(pe);
+				return true;
+			}
+			return false;
+		});
+	}
+
+	@Override
+	public boolean removeAll(Collection<?> c) {
+		Objects.requireNonNull(c);
+		return removeIf(c::contains);
+	}
+
+	@Override
+	public boolean retainAll(Collection<?> c) {
+		Objects.requireNonNull(c);
+		return removeIf(pe -> !c.contains(pe));
+	}
+
+	@Override
+	public void replaceAll(UnaryOperator<PlanElement> operator) {
+		Objects.requireNonNull(operator);
+		super.replaceAll(pe -> {
+			PlanElement replacement = operator.apply(pe);
+			if (replacement != pe) {
+				ColumnarPlanElementStore.release(pe);
+			}
+			return replacement;
+		});
+	}
+
+	@Override
+	public List<PlanElement> subList(int fromIndex, int toIndex) {
+		if (fromIndex < 0 || toIndex > size() || fromIndex > toIndex) {
+			throw new IndexOutOfBoundsException("fromIndex: " + fromIndex + ", toIndex: " + toIndex + ", size: " + size());
+		}
+		return new SubList(fromIndex, toIndex);
+	}
+
+	/**
+	 * Sub lists of this view are created by {@link AbstractList#subList(int, int)}, which changes the elements
+	 * through this view, i.e. through the list above as well.
+	 */
+	private final class SubList extends AbstractList<PlanElement> implements RandomAccess {
+
+		private final int offset;
+		private int size;
+		private int expectedModCount;
+
+		SubList(int fromIndex, int toIndex) {
+			this.offset = fromIndex;
+			this.size = toIndex - fromIndex;
+			this.expectedModCount = ColumnarPlanElementList.this.modCount;
+		}
+
+		@Override
+		public PlanElement get(int index) {
+			checkIndex(index, this.size);
+			checkForComodification();
+			return ColumnarPlanElementList.this.get(this.offset + index);
+		}
+
+		@Override
+		public PlanElement set(int index, PlanElement element) {
+			checkIndex(index, this.size);
+			checkForComodification();
+			return ColumnarPlanElementList.this.set(this.offset + index, element);
+		}
+
+		@Override
+		public int size() {
+			checkForComodification();
+			return this.size;
+		}
+
+		@Override
+		public void add(int index, PlanElement element) {
+			checkIndex(index, this.size + 1);
+			checkForComodification();
+			ColumnarPlanElementList.this.add(this.offset + index, element);
+			modified(1);
+		}
+
+		@Override
+		public PlanElement remove(int index) {
+			checkIndex(index, this.size);
+			checkForComodification();
+			PlanElement old = ColumnarPlanElementList.this.remove(this.offset + index);
+			modified(-1);
+			return old;
+		}
+
+		@Override
+		protected void removeRange(int fromIndex, int toIndex) {
+			checkForComodification();
+			ColumnarPlanElementList.this.removeRange(this.offset + fromIndex, this.offset + toIndex);
+			modified(fromIndex - toIndex);
+		}
+
+		private void modified(int sizeChange) {
+			this.expectedModCount = ColumnarPlanElementList.this.modCount;
+			this.size += sizeChange;
+			this.modCount++;
+		}
+
+		private void checkForComodification() {
+			if (ColumnarPlanElementList.this.modCount != this.expectedModCount) {
+				throw new ConcurrentModificationException();
+			}
+		}
+
+		private void checkIndex(int index, int length) {
+			if (index < 0 || index >= length) {
+				throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + this.size);
+			}
+		}
+	}
+
+}
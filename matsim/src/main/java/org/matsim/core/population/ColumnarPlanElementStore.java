@@ -0,0 +1,309 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * ColumnarPlanElementStore.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2020 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.population;
+
+import java.util.Arrays;
+
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.population.PlanElement;
+import org.matsim.api.core.v01.population.Route;
+import org.matsim.core.utils.misc.Time;
+import org.matsim.facilities.ActivityFacility;
+import org.matsim.utils.objectattributes.attributable.Attributes;
+
+/**
+ * Holds the data of {@link ColumnarActivity}s and {@link ColumnarLeg}s in columns, i.e. one (chunked) array per
+ * attribute, instead of one object per activity or leg.  This saves the object headers and references of the
+ * individual objects, in particular of the {@link org.matsim.api.core.v01.Coord}s and {@link Attributes}, which
+ * are only created on demand.  Columns of values that most plan elements do not have (z-values, start times,
+ * maximum durations, facility ids, attributes) are sparse: their chunks are only allocated once a value is stored
+ * in them.
+ * <p></p>
+ * Activities and legs are identified by their slot in the columns.  Slots are handed out by
+ * {@link #allocateActivity()} and {@link #allocateLeg()} and re-used after they were released.  Allocating and
+ * releasing slots is thread-safe; reading and writing the slot of one activity or leg is as thread-safe as the
+ * fields of a plain object.
+ */
+final class ColumnarPlanElementStore {
+
+	private static final int CHUNK_BITS = 14;
+	private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+	private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+	/** marks activities without a coordinate in the x column; a NaN that no arithmetic operation produces */
+	static final double NO_COORD = Double.longBitsToDouble(0x7ff80000c00dL);
+
+	// activities
+	final ObjectColumn<String> activityTypes = new ObjectColumn<>();
+	final DoubleColumn activityX = new DoubleColumn(NO_COORD);
+	final DoubleColumn activityY = new DoubleColumn(Double.NaN);
+	final DoubleColumn activityEndTimes = new DoubleColumn(Time.getUndefinedTime());
+	final ObjectColumn<Id<Link>> activityLinkIds = new ObjectColumn<>();
+	// sparse
+	final DoubleColumn activityZ = new DoubleColumn(Double.NEGATIVE_INFINITY);
+	final DoubleColumn activityStartTimes = new DoubleColumn(Time.getUndefinedTime());
+	final DoubleColumn activityMaxDurations = new DoubleColumn(Time.getUndefinedTime());
+	final ObjectColumn<Id<ActivityFacility>> activityFacilityIds = new ObjectColumn<>();
+	final ObjectColumn<Attributes> activityAttributes = new ObjectColumn<>();
+	private final SlotAllocator activitySlots = new SlotAllocator();
+
+	// legs
+	final ObjectColumn<String> legModes = new ObjectColumn<>();
+	final DoubleColumn legDepartureTimes = new DoubleColumn(Time.getUndefinedTime());
+	final DoubleColumn legTravelTimes = new DoubleColumn(Time.getUndefinedTime());
+	final ObjectColumn<Route> legRoutes = new ObjectColumn<>();
+	// sparse
+	final ObjectColumn<Attributes> legAttributes = new ObjectColumn<>();
+	private final SlotAllocator legSlots = new SlotAllocator();
+
+	synchronized int allocateActivity() {
+		int slot = this.activitySlots.allocate();
+		this.activityTypes.ensureChunk(slot);
+		this.activityX.ensureChunk(slot);
+		this.activityY.ensureChunk(slot);
+		this.activityEndTimes.ensureChunk(slot);
+		this.activityLinkIds.ensureChunk(slot);
+		return slot;
+	}
+
+	synchronized void releaseActivity(int slot) {
+		this.activityTypes.set(slot, null);
+		this.activityX.set(slot, NO_COORD);
+		this.activityY.set(slot, Double.NaN);
+		this.activityEndTimes.set(slot, Time.getUndefinedTime());
+		this.activityLinkIds.set(slot, null);
+		this.activityZ.clearIfPresent(slot);
+		this.activityStartTimes.clearIfPresent(slot);
+		this.activityMaxDurations.clearIfPresent(slot);
+		this.activityFacilityIds.clearIfPresent(slot);
+		this.activityAttributes.clearIfPresent(slot);
+		this.activitySlots.release(slot);
+	}
+
+	/**
+	 * Frees the slot of a columnar activity or leg, which keeps its values outside of the store from then on.  Other
+	 * plan elements are ignored.
+	 */
+	static void release(PlanElement pe) {
+		if (pe instanceof ColumnarActivity) {
+			((ColumnarActivity) pe).release();
+		} else if (pe instanceof ColumnarLeg) {
+			((ColumnarLeg) pe).release();
+		}
+	}
+
+	static boolean isNoCoord(double x) {
+		return Double.doubleToRawLongBits(x) == Double.doubleToRawLongBits(NO_COORD);
+	}
+
+	/**
+	 * Sets a value in a sparse column, allocating the chunk of the slot only if the value is not the default one.
+	 */
+	void setSparse(DoubleColumn column, int slot, double value) {
+		if (!column.hasChunk(slot)) {
+			if (column.isDefault(value)) {
+				return;
+			}
+			synchronized (this) {
+				column.ensureChunk(slot);
+			}
+		}
+		column.set(slot, value);
+	}
+
+	<T> void setSparse(ObjectColumn<T> column, int slot, T value) {
+		if (!column.hasChunk(slot)) {
+			if (value == null) {
+				return;
+			}
+			synchronized (this) {
+				column.ensureChunk(slot);
+			}
+		}
+		column.set(slot, value);
+	}
+
+	synchronized int allocateLeg() {
+		int slot = this.legSlots.allocate();
+		this.legModes.ensureChunk(slot);
+		this.legDepartureTimes.ensureChunk(slot);
+		this.legTravelTimes.ensureChunk(slot);
+		this.legRoutes.ensureChunk(slot);
+		return slot;
+	}
+
+	synchronized void releaseLeg(int slot) {
+		this.legModes.set(slot, null);
+		this.legDepartureTimes.set(slot, Time.getUndefinedTime());
+		this.legTravelTimes.set(slot, Time.getUndefinedTime());
+		this.legRoutes.set(slot, null);
+		this.legAttributes.clearIfPresent(slot);
+		this.legSlots.release(slot);
+	}
+
+	/**
+	 * @return the number of activities currently stored, i.e. allocated and not yet released.
+	 */
+	synchronized int getNumberOfActivities() {
+		return this.activitySlots.size();
+	}
+
+	/**
+	 * @return the number of legs currently stored, i.e. allocated and not yet released.
+	 */
+	synchronized int getNumberOfLegs() {
+		return this.legSlots.size();
+	}
+
+	/*
+	 * Hands out the lowest never used slot, or a released one.
+	 */
+	private static final class SlotAllocator {
+		private int nextSlot = 0;
+		private int[] freeSlots = new int[16];
+		private int numberOfFreeSlots = 0;
+
+		int allocate() {
+			if (this.numberOfFreeSlots > 0) {
+				return this.freeSlots[--this.numberOfFreeSlots];
+			}
+			if (this.nextSlot == Integer.MAX_VALUE) {
+				throw new IllegalStateException("too many plan elements.");
+			}
+			return this.nextSlot++;
+		}
+
+		void release(int slot) {
+			if (this.numberOfFreeSlots == this.freeSlots.length) {
+				this.freeSlots = Arrays.copyOf(this.freeSlots, this.freeSlots.length * 2);
+			}
+			this.freeSlots[this.numberOfFreeSlots++] = slot;
+		}
+
+		int size() {
+			return this.nextSlot - this.numberOfFreeSlots;
+		}
+	}
+
+	/*
+	 * The chunks are never moved once allocated, so the columns can grow while other threads access existing slots.
+	 * Only the array of chunks is replaced when growing, which is why it is volatile.
+	 */
+	static final class DoubleColumn {
+		private final double defaultValue;
+		private volatile double[][] chunks = new double[0][];
+
+		DoubleColumn(double defaultValue) {
+			this.defaultValue = defaultValue;
+		}
+
+		double get(int slot) {
+			return this.chunks[slot >>> CHUNK_BITS][slot & CHUNK_MASK];
+		}
+
+		/**
+		 * Like {@link #get(int)}, but returns the default value if the chunk of a sparse column is absent.
+		 */
+		double getIfPresent(int slot) {
+			return hasChunk(slot) ? get(slot) : this.defaultValue;
+		}
+
+		boolean isDefault(double value) {
+			return Double.doubleToRawLongBits(value) == Double.doubleToRawLongBits(this.defaultValue);
+		}
+
+		void clearIfPresent(int slot) {
+			if (hasChunk(slot)) {
+				set(slot, this.defaultValue);
+			}
+		}
+
+		void set(int slot, double value) {
+			this.chunks[slot >>> CHUNK_BITS][slot & CHUNK_MASK] = value;
+		}
+
+		boolean hasChunk(int slot) {
+			double[][] c = this.chunks;
+			int chunk = slot >>> CHUNK_BITS;
+			return chunk < c.length && c[chunk] != null;
+		}
+
+		void ensureChunk(int slot) {
+			int chunk = slot >>> CHUNK_BITS;
+			double[][] c = this.chunks;
+			if (chunk >= c.length) {
+				c = Arrays.copyOf(c, Math.max(chunk + 1, c.length * 2));
+			}
+			if (c[chunk] == null) {
+				double[] values = new double[CHUNK_SIZE];
+				Arrays.fill(values, this.defaultValue);
+				c[chunk] = values;
+			}
+			this.chunks = c;
+		}
+	}
+
+	static final class ObjectColumn<T> {
+		private volatile Object[][] chunks = new Object[0][];
+
+		@SuppressWarnings("unchecked")
+		T get(int slot) {
+			return (T) this.chunks[slot >>> CHUNK_BITS][slot & CHUNK_MASK];
+		}
+
+		/**
+		 * Like {@link #get(int)}, but returns <code>null</code> if the chunk of a sparse column is absent.
+		 */
+		T getIfPresent(int slot) {
+			return hasChunk(slot) ? get(slot) : null;
+		}
+
+		void set(int slot, T value) {
+			this.chunks[slot >>> CHUNK_BITS][slot & CHUNK_MASK] = value;
+		}
+
+		boolean hasChunk(int slot) {
+			Object[][] c = this.chunks;
+			int chunk = slot >>> CHUNK_BITS;
+			return chunk < c.length && c[chunk] != null;
+		}
+
+		void clearIfPresent(int slot) {
+			if (hasChunk(slot)) {
+				set(slot, null);
+			}
+		}
+
+		void ensureChunk(int slot) {
+			int chunk = slot >>> CHUNK_BITS;
+			Object[][] c = this.chunks;
+			if (chunk >= c.length) {
+				c = Arrays.copyOf(c, Math.max(chunk + 1, c.length * 2));
+			}
+			if (c[chunk] == null) {
+				c[chunk] = new Object[CHUNK_SIZE];
+			}
+			this.chunks = c;
+		}
+	}
+
+}
@@ -0,0 +1,95 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * ColumnarPopulationFactory.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2020 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.population;
+
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.population.Activity;
+import org.matsim.api.core.v01.population.Leg;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.api.core.v01.population.Plan;
+import org.matsim.api.core.v01.population.PopulationFactory;
+import org.matsim.core.config.groups.PlansConfigGroup;
+import org.matsim.core.population.routes.RouteFactories;
+import org.matsim.facilities.ActivityFacility;
+
+/**
+ * A {@link PopulationFactory} that creates activities and legs which keep their values in one
+ * {@link ColumnarPlanElementStore} per population, see {@link PlansConfigGroup.PlanElementStorage#columnar}.
+ * Persons and plans are the same as the ones of the default factory, except that the plans free the slots of the
+ * activities and legs removed from them, see {@link ColumnarPlanElementList}.
+ */
+/* deliberately package */ final class ColumnarPopulationFactory implements PopulationFactory {
+
+	private final RouteFactories routeFactory;
+	private final ColumnarPlanElementStore store = new ColumnarPlanElementStore();
+
+	ColumnarPopulationFactory(RouteFactories routeFactory) {
+		this.routeFactory = routeFactory;
+	}
+
+	@Override
+	public Person createPerson(final Id<Person> id) {
+		return new PersonImpl(id);
+	}
+
+	@Override
+	public Plan createPlan() {
+		return new PlanImpl(new ColumnarPlanElementList());
+	}
+
+	@Override
+	public Activity createActivityFromCoord(final String actType, final Coord coord) {
+		Activity act = new ColumnarActivity(this.store, actType);
+		act.setCoord(coord);
+		return act;
+	}
+
+	@Override
+	public Activity createActivityFromLinkId(final String actType, final Id<Link> linkId) {
+		Activity act = new ColumnarActivity(this.store, actType);
+		act.setLinkId(linkId);
+		return act;
+	}
+
+	@Override
+	public Activity createActivityFromActivityFacilityId(String actType, Id<ActivityFacility> activityFacilityId) {
+		Activity act = new ColumnarActivity(this.store, actType);
+		act.setFacilityId(activityFacilityId);
+		return act;
+	}
+
+	@Override
+	public Leg createLeg(final String legMode) {
+		return new ColumnarLeg(this.store, legMode);
+	}
+
+	@Override
+	public RouteFactories getRouteFactories() {
+		return this.routeFactory;
+	}
+
+	ColumnarPlanElementStore getStore() {
+		return this.store;
+	}
+
+}
@@ -120,6 +120,10 @@ import org.matsim.utils.objectattributes.attributable.Attributes;
 		if ((this.getSelectedPlan() == plan) && result) {
 			this.setSelectedPlan(new RandomPlanSelector<Plan, Person>().selectPlan(this));
 		}
+		if (result) {
+			// columnar plan elements free their slots, but keep their values in case someone still uses them
+			plan.getPlanElements().forEach(ColumnarPlanElementStore::release);
+		}
 		return result;
 	}
 
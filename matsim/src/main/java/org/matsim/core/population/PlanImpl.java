@@ -36,7 +36,7 @@ import org.matsim.utils.objectattributes.attributable.Attributes;
 
 /* deliberately package */  final class PlanImpl implements Plan {
 
-	private ArrayList<PlanElement> actsLegs = new ArrayList<>();
+	private final ArrayList<PlanElement> actsLegs;
 
 	private Double score = null;
 	private Person person = null;
@@ -55,7 +55,13 @@ import org.matsim.utils.objectattributes.attributable.Attributes;
 		return this.attributes;
 	}
 
-	/* package */ PlanImpl() {}
+	/* package */ PlanImpl() {
+		this(new ArrayList<>());
+	}
+
+	/* package */ PlanImpl(ArrayList<PlanElement> actsLegs) {
+		this.actsLegs = actsLegs;
+	}
 
 //	@Override
 //	public final Activity createAndAddActivity(final String type1) {
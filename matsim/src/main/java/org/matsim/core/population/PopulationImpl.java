@@ -24,6 +24,7 @@ import java.util.Map;
 import org.apache.log4j.Logger;
 import org.matsim.api.core.v01.Id;
 import org.matsim.api.core.v01.population.Person;
+import org.matsim.api.core.v01.population.Plan;
 import org.matsim.api.core.v01.population.Population;
 import org.matsim.api.core.v01.population.PopulationFactory;
 import org.matsim.core.scenario.Lockable;
@@ -69,7 +70,14 @@ import org.matsim.utils.objectattributes.attributable.Attributes;
 
 	@Override
 	public Person removePerson(Id<Person> personId) {
-		return this.persons.remove(personId) ;
+		Person person = this.persons.remove(personId) ;
+		if ( person != null && this.populationFactory instanceof ColumnarPopulationFactory ) {
+			// free the slots of the person's activities and legs; they keep their values in case the person is still used
+			for ( Plan plan : person.getPlans() ) {
+				plan.getPlanElements().forEach( ColumnarPlanElementStore::release );
+			}
+		}
+		return person ;
 	}
 
 	@Override
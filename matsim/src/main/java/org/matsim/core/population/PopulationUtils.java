@@ -43,6 +43,7 @@ import org.matsim.core.population.io.PopulationReader;
 import org.matsim.core.population.io.PopulationWriter;
 import org.matsim.core.population.io.StreamingPopulationReader;
 import org.matsim.core.population.routes.CompressedNetworkRouteFactory;
+import org.matsim.core.population.routes.IndexedNetworkRouteFactory;
 import org.matsim.core.population.routes.LinkNetworkRouteFactory;
 import org.matsim.core.population.routes.NetworkRoute;
 import org.matsim.core.population.routes.RouteFactories;
@@ -110,10 +111,15 @@ public final class PopulationUtils {
 			factory = new LinkNetworkRouteFactory();
 		} else if (PlansConfigGroup.NetworkRouteType.CompressedNetworkRoute.equals(networkRouteType) && network != null) {
 			factory = new CompressedNetworkRouteFactory(network);
+		} else if (PlansConfigGroup.NetworkRouteType.IndexedNetworkRoute.equals(networkRouteType)) {
+			factory = new IndexedNetworkRouteFactory();
 		} else {
 			throw new IllegalArgumentException("The type \"" + networkRouteType + "\" is not a supported type for network routes.");
 		}
 		routeFactory.setRouteFactory(NetworkRoute.class, factory);
+		if (plansConfigGroup.getPlanElementStorage() == PlansConfigGroup.PlanElementStorage.columnar) {
+			return new PopulationImpl(new ColumnarPopulationFactory(routeFactory));
+		}
 		return new PopulationImpl(new PopulationFactoryImpl(routeFactory));
 	}
 
@@ -763,21 +769,35 @@ public final class PopulationUtils {
 	// createAndAdd methods:
 
 	public static Activity createAndAddActivityFromCoord( Plan plan, String type, Coord coord ) {
-		Activity act = getFactory().createActivityFromCoord(type, coord) ;
+		return createAndAddActivityFromCoord( getFactory(), plan, type, coord ) ;
+	}
+	public static Activity createAndAddActivityFromLinkId( Plan plan, String type, Id<Link> linkId ) {
+		return createAndAddActivityFromLinkId( getFactory(), plan, type, linkId ) ;
+	}
+
+	public static Leg createAndAddLeg(Plan plan, String mode) {
+		return createAndAddLeg( getFactory(), plan, mode ) ;
+	}
+
+	/**
+	 * Variants of the methods above that use the factory of a population, e.g. so that the activities and legs are of
+	 * the same kind as the ones of the population.
+	 */
+	public static Activity createAndAddActivityFromCoord( PopulationFactory factory, Plan plan, String type, Coord coord ) {
+		Activity act = factory.createActivityFromCoord(type, coord) ;
 		plan.addActivity(act);
 		act.setCoord(coord);
 		return act ;
 	}
-	public static Activity createAndAddActivityFromLinkId( Plan plan, String type, Id<Link> linkId ) {
-		Activity act = getFactory().createActivityFromLinkId(type, linkId) ;
+	public static Activity createAndAddActivityFromLinkId( PopulationFactory factory, Plan plan, String type, Id<Link> linkId ) {
+		Activity act = factory.createActivityFromLinkId(type, linkId) ;
 		plan.addActivity(act);
 		act.setLinkId(linkId);
 		return act ;
 	}
-
-	public static Leg createAndAddLeg(Plan plan, String mode) {
+	public static Leg createAndAddLeg( PopulationFactory factory, Plan plan, String mode ) {
 		verifyCreateLeg( plan ) ;
-		Leg leg = getFactory().createLeg(mode) ;
+		Leg leg = factory.createLeg(mode) ;
 		plan.addLeg( leg );
 		return leg ;
 	}
@@ -845,6 +865,10 @@ public final class PopulationUtils {
 	// --- copy factories:
 
 	public static Activity createActivity(Activity act) {
+		if (act instanceof ColumnarActivity) {
+			// keep the copy in the same store
+			return ((ColumnarActivity) act).copy();
+		}
 		Activity newAct = getFactory().createActivityFromLinkId(act.getType(), act.getLinkId()) ;
 
 		copyFromTo(act, newAct);
@@ -864,6 +888,10 @@ public final class PopulationUtils {
 	 * @param leg
 	 */
 	public static Leg createLeg(Leg leg) {
+		if (leg instanceof ColumnarLeg) {
+			// keep the copy in the same store
+			return ((ColumnarLeg) leg).copy();
+		}
 		Leg newLeg = createLeg( leg.getMode() ) ;
 
 		copyFromTo( leg, newLeg ) ;
@@ -1101,4 +1129,22 @@ public final class PopulationUtils {
 		person.getAttributes().clear();
 	}
 
+	/**
+	 * Returns the attributes of an activity or leg for reading them, e.g. when writing the population.  In contrast to
+	 * {@link PlanElement#getAttributes()}, this does not store attributes for columnar activities and legs that have
+	 * none.  In that case, a new empty instance is returned, which is not connected to the activity or leg, i.e.
+	 * modifying it has no effect.
+	 */
+	public static Attributes getAttributesForReading( PlanElement pe ) {
+		Attributes attributes ;
+		if ( pe instanceof ColumnarActivity ) {
+			attributes = ((ColumnarActivity) pe).getAttributesIfPresent() ;
+		} else if ( pe instanceof ColumnarLeg ) {
+			attributes = ((ColumnarLeg) pe).getAttributesIfPresent() ;
+		} else {
+			attributes = pe.getAttributes() ;
+		}
+		return attributes == null ? new Attributes() : attributes ;
+	}
+
 }
@@ -0,0 +1,256 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * PopulationBinaryFormat.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2020 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.population.io;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Constants and helpers of the binary population format, as written by {@link PopulationWriterBinary} and read by
+ * {@link PopulationReaderBinary}.
+ * <p></p>
+ * A file consists of<ul>
+ * <li> a header: {@link #MAGIC} and {@link #VERSION}, </li>
+ * <li> the chunks: the persons, a few thousand at a time, each chunk deflated on its own, </li>
+ * <li> the index: the name and attributes of the population, and for every chunk its position, length, the ids of
+ * its persons and the link, facility and vehicle ids that occur in it for the first time in the file, </li>
+ * <li> the trailer: the position of the index and {@link #MAGIC}. </li>
+ * </ul>
+ * Since the chunks do not depend on each other, they can be compressed and decompressed in parallel.  Within a chunk,
+ * repeated strings such as ids, activity types or modes are only written once and then referenced.  Since the ids
+ * are listed in the index, a reader can create them in the order of the file before decoding the chunks in parallel.
+ */
+final class PopulationBinaryFormat {
+
+	/** the file extension by which binary population files are recognized */
+	static final String FILE_EXTENSION = ".mpb";
+
+	static final long MAGIC = 0x4d4154534d504f50L; // "MATSMPOP"
+	static final int VERSION = 2;
+	static final int HEADER_LENGTH = 12;
+	static final int TRAILER_LENGTH = 16;
+
+	// plans
+	static final int PLAN_SELECTED = 1;
+	static final int PLAN_SCORE = 2;
+	static final int PLAN_TYPE = 4;
+
+	// plan elements; legs have the LEG bit set, activities do not
+	static final int LEG = 1;
+	static final int ACT_LINK = 2;
+	static final int ACT_FACILITY = 4;
+	static final int ACT_COORD = 8;
+	static final int ACT_Z = 16;
+	static final int ACT_START_TIME = 32;
+	static final int ACT_MAX_DUR = 64;
+	static final int ACT_END_TIME = 128;
+	static final int LEG_DEP_TIME = 2;
+	static final int LEG_TRAV_TIME = 4;
+	static final int LEG_ROUTE = 8;
+	static final int LEG_NETWORK_ROUTE = 16;
+	static final int LEG_VEHICLE = 32;
+
+	// the types of the ids listed in the index, in the order in which they are listed
+	static final int LINK_IDS = 0;
+	static final int FACILITY_IDS = 1;
+	static final int VEHICLE_IDS = 2;
+	static final int NUMBER_OF_ID_TYPES = 3;
+
+	private PopulationBinaryFormat() {
+	}
+
+	static boolean isBinaryFile(final String filename) {
+		return filename.toLowerCase(Locale.ROOT).endsWith(FILE_EXTENSION);
+	}
+
+	/*
+	 * Writes values to a growing byte array.  Strings written with writeString() are remembered, and written as a
+	 * reference when they occur again.
+	 */
+	static final class Output {
+		private byte[] buffer;
+		private int length = 0;
+		private final Map<String, Integer> strings = new HashMap<>();
+
+		Output(final int initialCapacity) {
+			this.buffer = new byte[initialCapacity];
+		}
+
+		private void ensureCapacity(final int additional) {
+			if (this.length + additional > this.buffer.length) {
+				this.buffer = Arrays.copyOf(this.buffer, Math.max(this.length + additional, this.buffer.length * 2));
+			}
+		}
+
+		void writeByte(final int value) {
+			ensureCapacity(1);
+			this.buffer[this.length++] = (byte) value;
+		}
+
+		void writeVarInt(int value) {
+			ensureCapacity(5);
+			while ((value & ~0x7f) != 0) {
+				this.buffer[this.length++] = (byte) ((value & 0x7f) | 0x80);
+				value >>>= 7;
+			}
+			this.buffer[this.length++] = (byte) value;
+		}
+
+		void writeInt(final int value) {
+			ensureCapacity(4);
+			for (int shift = 24; shift >= 0; shift -= 8) {
+				this.buffer[this.length++] = (byte) (value >>> shift);
+			}
+		}
+
+		void writeLong(final long value) {
+			ensureCapacity(8);
+			for (int shift = 56; shift >= 0; shift -= 8) {
+				this.buffer[this.length++] = (byte) (value >>> shift);
+			}
+		}
+
+		void writeDouble(final double value) {
+			writeLong(Double.doubleToRawLongBits(value));
+		}
+
+		/** writes a string that is likely to occur again, such as an id; may be null */
+		void writeString(final String value) {
+			if (value == null) {
+				writeVarInt(0);
+				return;
+			}
+			Integer index = this.strings.get(value);
+			if (index != null) {
+				writeVarInt(index + 2);
+			} else {
+				this.strings.put(value, this.strings.size());
+				writeVarInt(1);
+				writeUtf8(value);
+			}
+		}
+
+		/** writes a string that is unlikely to occur again, such as a route description; may be null */
+		void writeText(final String value) {
+			if (value == null) {
+				writeVarInt(0);
+			} else {
+				writeVarInt(1);
+				writeUtf8(value);
+			}
+		}
+
+		private void writeUtf8(final String value) {
+			byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+			writeVarInt(bytes.length);
+			ensureCapacity(bytes.length);
+			System.arraycopy(bytes, 0, this.buffer, this.length, bytes.length);
+			this.length += bytes.length;
+		}
+
+		byte[] getBuffer() {
+			return this.buffer;
+		}
+
+		int getLength() {
+			return this.length;
+		}
+	}
+
+	/*
+	 * Reads what an Output wrote.
+	 */
+	static final class Input {
+		private final byte[] buffer;
+		private int position = 0;
+		private final List<String> strings = new ArrayList<>();
+
+		Input(final byte[] buffer) {
+			this.buffer = buffer;
+		}
+
+		int readByte() {
+			return this.buffer[this.position++] & 0xff;
+		}
+
+		int readVarInt() {
+			int value = 0;
+			int shift = 0;
+			byte b;
+			do {
+				b = this.buffer[this.position++];
+				value |= (b & 0x7f) << shift;
+				shift += 7;
+			} while (b < 0);
+			return value;
+		}
+
+		int readInt() {
+			int value = 0;
+			for (int i = 0; i < 4; i++) {
+				value = (value << 8) | (this.buffer[this.position++] & 0xff);
+			}
+			return value;
+		}
+
+		long readLong() {
+			long value = 0;
+			for (int i = 0; i < 8; i++) {
+				value = (value << 8) | (this.buffer[this.position++] & 0xff);
+			}
+			return value;
+		}
+
+		double readDouble() {
+			return Double.longBitsToDouble(readLong());
+		}
+
+		String readString() {
+			int code = readVarInt();
+			if (code == 0) {
+				return null;
+			}
+			if (code == 1) {
+				String value = readUtf8();
+				this.strings.add(value);
+				return value;
+			}
+			return this.strings.get(code - 2);
+		}
+
+		String readText() {
+			return readVarInt() == 0 ? null : readUtf8();
+		}
+
+		private String readUtf8() {
+			int length = readVarInt();
+			String value = new String(this.buffer, this.position, length, StandardCharsets.UTF_8);
+			this.position += length;
+			return value;
+		}
+	}
+
+}
@@ -20,6 +20,7 @@
 
 package org.matsim.core.population.io;
 
+import java.net.URL;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Stack;
@@ -31,18 +32,21 @@ import org.matsim.core.scenario.ProjectionUtils;
 import org.matsim.core.utils.geometry.CoordinateTransformation;
 import org.matsim.core.utils.geometry.transformations.IdentityTransformation;
 import org.matsim.core.utils.geometry.transformations.TransformationFactory;
+import org.matsim.core.utils.io.IOUtils;
 import org.matsim.core.utils.io.MatsimXmlParser;
+import org.matsim.core.utils.io.MatsimXmlParser.ParallelParser;
 import org.matsim.utils.objectattributes.AttributeConverter;
 import org.xml.sax.Attributes;
 import org.xml.sax.SAXException;
 
 /**
  * A population reader that reads the MATSim format. This reader recognizes the format of the plans-file and uses
- * the correct reader for the specific plans-version, without manual setting.
+ * the correct reader for the specific plans-version, without manual setting.  Files in the
+ * {@link PopulationBinaryFormat binary format} are recognized by their name.
  *
  * @author mrieser
  */
-public final class PopulationReader extends MatsimXmlParser {
+public final class PopulationReader extends MatsimXmlParser implements ParallelParser {
 
 	private final static String PLANS    = "plans.dtd"; // a special, inofficial case, handle it like plans_v0
 	private final static String PLANS_V0 = "plans_v0.dtd";
@@ -91,6 +95,37 @@ public final class PopulationReader extends MatsimXmlParser {
 		attributeConverters.putAll( converters );
 	}
 
+	/**
+	 * Reads the file, either in one of the xml formats or, if its name ends with
+	 * {@value PopulationBinaryFormat#FILE_EXTENSION}, in the binary format.
+	 */
+	@Override
+	public void readFile(final String filename) {
+		if (PopulationBinaryFormat.isBinaryFile(filename)) {
+			readBinary(IOUtils.resolveFileOrResource(filename));
+		} else {
+			super.readFile(filename);
+		}
+	}
+
+	@Override
+	public void readURL(final URL url) {
+		if (PopulationBinaryFormat.isBinaryFile(url.getPath())) {
+			readBinary(url);
+		} else {
+			super.readURL(url);
+		}
+	}
+
+	private void readBinary(final URL url) {
+		PopulationReaderBinary reader = new PopulationReaderBinary(this.inputCRS, this.targetCRS, this.scenario);
+		reader.putAttributeConverters(this.attributeConverters);
+		reader.readURL(url);
+		if (this.targetCRS != null) {
+			ProjectionUtils.putCRS(this.scenario.getPopulation(), this.targetCRS);
+		}
+	}
+
 	@Override
 	public void startTag(final String name, final Attributes atts, final Stack<String> context) {
 		this.delegate.startTag(name, atts, context);
@@ -101,6 +136,21 @@ public final class PopulationReader extends MatsimXmlParser {
 		this.delegate.endTag(name, content, context);
 	}
 
+	@Override
+	public boolean isChunkElement(final String name) {
+		return this.delegate instanceof ParallelParser && ((ParallelParser) this.delegate).isChunkElement(name);
+	}
+
+	@Override
+	public void startChunkElement(final String name, final Attributes atts) {
+		((ParallelParser) this.delegate).startChunkElement(name, atts);
+	}
+
+	@Override
+	public ChunkParser createChunkParser() {
+		return ((ParallelParser) this.delegate).createChunkParser();
+	}
+
 	@Override
 	protected void setDoctype(final String doctype) {
 		super.setDoctype(doctype);
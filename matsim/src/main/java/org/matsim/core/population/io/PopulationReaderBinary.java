@@ -0,0 +1,498 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * PopulationReaderBinary.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2020 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.population.io;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import org.apache.log4j.Logger;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.Scenario;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.population.Activity;
+import org.matsim.api.core.v01.population.Leg;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.api.core.v01.population.Plan;
+import org.matsim.api.core.v01.population.Population;
+import org.matsim.api.core.v01.population.PopulationFactory;
+import org.matsim.api.core.v01.population.Route;
+import org.matsim.core.population.PersonUtils;
+import org.matsim.core.population.PopulationUtils;
+import org.matsim.core.population.io.PopulationBinaryFormat.Input;
+import org.matsim.core.population.routes.NetworkRoute;
+import org.matsim.core.population.routes.RouteFactories;
+import org.matsim.core.scenario.ProjectionUtils;
+import org.matsim.core.utils.geometry.CoordinateTransformation;
+import org.matsim.core.utils.geometry.transformations.IdentityTransformation;
+import org.matsim.core.utils.geometry.transformations.TransformationFactory;
+import org.matsim.core.utils.io.IOUtils;
+import org.matsim.core.utils.io.UncheckedIOException;
+import org.matsim.facilities.ActivityFacility;
+import org.matsim.utils.objectattributes.AttributeConverter;
+import org.matsim.utils.objectattributes.ObjectAttributesConverter;
+import org.matsim.utils.objectattributes.attributable.Attributable;
+import org.matsim.utils.objectattributes.attributable.Attributes;
+import org.matsim.vehicles.Vehicle;
+
+import static org.matsim.core.population.io.PopulationBinaryFormat.*;
+
+/**
+ * Reads a population in the {@link PopulationBinaryFormat}.  The chunks are decompressed and decoded in parallel.  As in
+ * the {@link ParallelPopulationReaderMatsimV4}, the main thread creates the persons and adds them to the population,
+ * so their order does not depend on the threads.  It also creates the ids of the persons and the link, facility and
+ * vehicle ids listed in the index, and sets the route descriptions (which might create ids), so the ids are created
+ * in the order of the file and their indices do not depend on the threads either.
+ */
+/* package */ final class PopulationReaderBinary {
+	private static final Logger log = Logger.getLogger(PopulationReaderBinary.class);
+
+	/** the types of the ids listed in the index, see {@link PopulationBinaryFormat#NUMBER_OF_ID_TYPES} */
+	private static final Class<?>[] ID_TYPES = { Link.class, ActivityFacility.class, Vehicle.class };
+
+	private final Population population;
+	private final String externalInputCRS;
+	private final String targetCRS;
+	private final Map<Class<?>, AttributeConverter<?>> converters = new HashMap<>();
+	private final int numberOfThreads;
+
+	PopulationReaderBinary(final String inputCRS, final String targetCRS, final Scenario scenario) {
+		this.externalInputCRS = inputCRS;
+		this.targetCRS = targetCRS;
+		this.population = scenario.getPopulation();
+		this.numberOfThreads = Math.max(1, scenario.getConfig().global().getNumberOfThreads());
+	}
+
+	void putAttributeConverters(final Map<Class<?>, AttributeConverter<?>> converters) {
+		this.converters.putAll(converters);
+	}
+
+	void readURL(final URL url) {
+		log.info("starting to read binary population from " + url + " ...");
+		try (ChunkSource source = openSource(url)) {
+			read(source);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private static ChunkSource openSource(final URL url) throws IOException {
+		if ("file".equals(url.getProtocol())) {
+			try {
+				return new FileChunkSource(FileChannel.open(Paths.get(url.toURI()), StandardOpenOption.READ));
+			} catch (URISyntaxException e) {
+				throw new IOException(e);
+			}
+		}
+		// e.g. a resource within a jar file, which is read into memory
+		try (InputStream in = IOUtils.getInputStream(url)) {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			IOUtils.copyStream(in, bytes);
+			return new ArrayChunkSource(bytes.toByteArray());
+		}
+	}
+
+	private void read(final ChunkSource source) throws IOException {
+		long size = source.size();
+		if (size < HEADER_LENGTH + TRAILER_LENGTH) {
+			throw new IOException("not a binary population file: too short.");
+		}
+		Input header = new Input(source.read(0, HEADER_LENGTH));
+		if (header.readLong() != MAGIC) {
+			throw new IOException("not a binary population file.");
+		}
+		int version = header.readInt();
+		if (version != VERSION) {
+			throw new IOException("unsupported version of binary population file: " + version);
+		}
+		Input trailer = new Input(source.read(size - TRAILER_LENGTH, TRAILER_LENGTH));
+		long indexPosition = trailer.readLong();
+		if (trailer.readLong() != MAGIC) {
+			throw new IOException("binary population file is incomplete.");
+		}
+
+		Input index = new Input(source.read(indexPosition, (int) (size - TRAILER_LENGTH - indexPosition)));
+		String name = index.readText();
+		if (name != null) {
+			this.population.setName(name);
+		}
+		new Decoder(new IdentityTransformation()).readAttributes(index, this.population);
+		CoordinateTransformation transformation = getCoordinateTransformation();
+
+		int numberOfChunks = index.readVarInt();
+		List<Chunk> chunks = new ArrayList<>(numberOfChunks);
+		int totalNumberOfPersons = 0;
+		for (int i = 0; i < numberOfChunks; i++) {
+			long position = index.readLong();
+			int length = index.readInt();
+			int numberOfPersons = index.readVarInt();
+			List<String> personIds = new ArrayList<>(numberOfPersons);
+			for (int p = 0; p < numberOfPersons; p++) {
+				personIds.add(index.readText());
+			}
+			totalNumberOfPersons += numberOfPersons;
+			// the ids are created here, in the order of the file, so their indices do not depend on the threads
+			for (Class<?> idType : ID_TYPES) {
+				int numberOfIds = index.readVarInt();
+				Id.ensureCapacity(idType, Id.getNumberOfIds(idType) + numberOfIds);
+				for (int n = 0; n < numberOfIds; n++) {
+					Id.create(index.readText(), idType);
+				}
+			}
+			chunks.add(new Chunk(position, length, personIds));
+		}
+		Id.ensureCapacity(Person.class, Id.getNumberOfIds(Person.class) + totalNumberOfPersons);
+
+		ExecutorService executor = Executors.newFixedThreadPool(this.numberOfThreads, r -> {
+			Thread thread = new Thread(r, PopulationReaderBinary.class.getSimpleName());
+			thread.setDaemon(true);
+			return thread;
+		});
+		try {
+			// keep a few chunks per thread in flight; the persons are added to the population in their order once
+			// they are complete, which also works with a streaming population
+			PopulationFactory factory = this.population.getFactory();
+			Deque<Future<Decoder>> pending = new ArrayDeque<>();
+			int next = 0;
+			int added = 0;
+			while (added < chunks.size()) {
+				while (next < chunks.size() && pending.size() < 2 * this.numberOfThreads) {
+					Chunk chunk = chunks.get(next++);
+					// the persons are created here, so the indices of their ids do not depend on the threads
+					List<Person> persons = new ArrayList<>(chunk.personIds.size());
+					for (String personId : chunk.personIds) {
+						persons.add(factory.createPerson(Id.create(personId, Person.class)));
+					}
+					pending.add(executor.submit(() -> readChunk(source, chunk, persons, transformation)));
+				}
+				Decoder decoded = pending.poll().get();
+				decoded.setRouteDescriptions();
+				for (Person person : decoded.persons) {
+					this.population.addPerson(person);
+				}
+				added++;
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException(e);
+		} catch (ExecutionException e) {
+			throw new RuntimeException(e.getCause());
+		} finally {
+			executor.shutdownNow();
+		}
+		log.info("read " + numberOfChunks + " chunks of persons.");
+	}
+
+	/*
+	 * Same logic as in PopulationReaderMatsimV6: a CRS given in the file wins over the one given from outside.
+	 */
+	private CoordinateTransformation getCoordinateTransformation() {
+		String fileCRS = ProjectionUtils.getCRS(this.population);
+		if (fileCRS != null && this.targetCRS != null) {
+			if (this.externalInputCRS != null) {
+				log.warn("coordinate transformation defined both in config and in input file: setting from input file will be used");
+			}
+			ProjectionUtils.putCRS(this.population, this.targetCRS);
+			return TransformationFactory.getCoordinateTransformation(fileCRS, this.targetCRS);
+		}
+		if (this.externalInputCRS != null && this.targetCRS != null) {
+			ProjectionUtils.putCRS(this.population, this.targetCRS);
+			return TransformationFactory.getCoordinateTransformation(this.externalInputCRS, this.targetCRS);
+		}
+		return new IdentityTransformation();
+	}
+
+	private Decoder readChunk(final ChunkSource source, final Chunk chunk, final List<Person> persons,
+			final CoordinateTransformation transformation) throws IOException, DataFormatException {
+		byte[] compressed = source.read(chunk.position, chunk.length);
+		int rawLength = new Input(compressed).readInt();
+		byte[] raw = new byte[rawLength];
+		Inflater inflater = new Inflater();
+		try {
+			inflater.setInput(compressed, 4, compressed.length - 4);
+			int length = 0;
+			while (length < rawLength) {
+				int n = inflater.inflate(raw, length, rawLength - length);
+				if (n == 0 && (inflater.finished() || inflater.needsInput())) {
+					throw new IOException("corrupt chunk at position " + chunk.position);
+				}
+				length += n;
+			}
+		} finally {
+			inflater.end();
+		}
+		Input in = new Input(raw);
+		Decoder decoder = new Decoder(transformation);
+		for (Person person : persons) {
+			decoder.readPerson(in, person);
+		}
+		decoder.persons = persons;
+		return decoder;
+	}
+
+	/*
+	 * One per chunk, since the attribute converter is not thread-safe.
+	 */
+	private final class Decoder {
+		private final ObjectAttributesConverter attributeConverter;
+		private List<Person> persons;
+		// parsing a route description might create ids (e.g. of transit stops), so it is left to the reading thread
+		private final List<Route> describedRoutes = new ArrayList<>();
+		private final List<String> routeDescriptions = new ArrayList<>();
+		private final CoordinateTransformation transformation;
+		private final PopulationFactory factory = PopulationReaderBinary.this.population.getFactory();
+		private final RouteFactories routeFactories = this.factory.getRouteFactories();
+
+		Decoder(final CoordinateTransformation transformation) {
+			this.attributeConverter = new ObjectAttributesConverter(PopulationReaderBinary.this.converters);
+			this.transformation = transformation;
+		}
+
+		void readPerson(final Input in, final Person person) {
+			readAttributes(in, person);
+			int numberOfPlans = in.readVarInt();
+			for (int p = 0; p < numberOfPlans; p++) {
+				int flags = in.readByte();
+				Plan plan = PersonUtils.createAndAddPlan(person, (flags & PLAN_SELECTED) != 0);
+				if ((flags & PLAN_SCORE) != 0) {
+					plan.setScore(in.readDouble());
+				}
+				if ((flags & PLAN_TYPE) != 0) {
+					plan.setType(in.readString());
+				}
+				readAttributes(in, plan);
+				int numberOfElements = in.readVarInt();
+				for (int e = 0; e < numberOfElements; e++) {
+					int elementFlags = in.readByte();
+					if ((elementFlags & LEG) != 0) {
+						readLeg(in, plan, elementFlags);
+					} else {
+						readActivity(in, plan, elementFlags);
+					}
+				}
+				if (plan.getPlanElements() instanceof ArrayList<?>) {
+					((ArrayList<?>) plan.getPlanElements()).trimToSize();
+				}
+			}
+		}
+
+		private void readActivity(final Input in, final Plan plan, final int flags) {
+			String type = in.readString();
+			Id<Link> linkId = (flags & ACT_LINK) != 0 ? Id.create(in.readString(), Link.class) : null;
+			Id<ActivityFacility> facilityId = (flags & ACT_FACILITY) != 0 ? Id.create(in.readString(), ActivityFacility.class) : null;
+			Coord coord = null;
+			if ((flags & ACT_COORD) != 0) {
+				double x = in.readDouble();
+				double y = in.readDouble();
+				coord = (flags & ACT_Z) != 0 ? new Coord(x, y, in.readDouble()) : new Coord(x, y);
+				coord = this.transformation.transform(coord);
+			}
+			Activity act;
+			if (linkId != null) {
+				act = PopulationUtils.createAndAddActivityFromLinkId(this.factory, plan, type, linkId);
+				if (coord != null) {
+					act.setCoord(coord);
+				}
+			} else {
+				act = PopulationUtils.createAndAddActivityFromCoord(this.factory, plan, type, coord);
+			}
+			act.setFacilityId(facilityId);
+			if ((flags & ACT_START_TIME) != 0) {
+				act.setStartTime(in.readDouble());
+			}
+			if ((flags & ACT_MAX_DUR) != 0) {
+				act.setMaximumDuration(in.readDouble());
+			}
+			if ((flags & ACT_END_TIME) != 0) {
+				act.setEndTime(in.readDouble());
+			}
+			readAttributes(in, act);
+		}
+
+		private void readLeg(final Input in, final Plan plan, final int flags) {
+			Leg leg = PopulationUtils.createAndAddLeg(this.factory, plan, in.readString());
+			if ((flags & LEG_DEP_TIME) != 0) {
+				leg.setDepartureTime(in.readDouble());
+			}
+			if ((flags & LEG_TRAV_TIME) != 0) {
+				leg.setTravelTime(in.readDouble());
+			}
+			readAttributes(in, leg);
+			if ((flags & LEG_ROUTE) == 0) {
+				return;
+			}
+			String routeType = in.readString();
+			String startLinkId = in.readString();
+			String endLinkId = in.readString();
+			Class<? extends Route> routeClass = this.routeFactories.getRouteClassForType(routeType);
+			Route route = this.routeFactories.createRoute(routeClass,
+					startLinkId == null ? null : Id.create(startLinkId, Link.class),
+					endLinkId == null ? null : Id.create(endLinkId, Link.class));
+			route.setTravelTime(in.readDouble());
+			route.setDistance(in.readDouble());
+			if ((flags & LEG_NETWORK_ROUTE) != 0) {
+				if (!(route instanceof NetworkRoute)) {
+					throw new RuntimeException("route type " + routeType + " was written as a network route, but is read as " + routeClass.getName());
+				}
+				NetworkRoute networkRoute = (NetworkRoute) route;
+				if ((flags & LEG_VEHICLE) != 0) {
+					networkRoute.setVehicleId(Id.create(in.readString(), Vehicle.class));
+				}
+				networkRoute.setTravelCost(in.readDouble());
+				int numberOfLinks = in.readVarInt();
+				List<Id<Link>> linkIds = new ArrayList<>(numberOfLinks);
+				for (int i = 0; i < numberOfLinks; i++) {
+					linkIds.add(Id.create(in.readString(), Link.class));
+				}
+				networkRoute.setLinkIds(route.getStartLinkId(), linkIds, route.getEndLinkId());
+			} else {
+				String description = in.readText();
+				if (description != null) {
+					this.describedRoutes.add(route);
+					this.routeDescriptions.add(description);
+				}
+			}
+			leg.setRoute(route);
+		}
+
+		void setRouteDescriptions() {
+			for (int i = 0; i < this.describedRoutes.size(); i++) {
+				this.describedRoutes.get(i).setRouteDescription(this.routeDescriptions.get(i));
+			}
+		}
+
+		void readAttributes(final Input in, final Attributable attributable) {
+			int numberOfAttributes = in.readVarInt();
+			if (numberOfAttributes == 0) {
+				// do not create the attributes of columnar activities and legs without attributes
+				return;
+			}
+			Attributes attributes = attributable.getAttributes();
+			for (int i = 0; i < numberOfAttributes; i++) {
+				String key = in.readString();
+				String className = in.readString();
+				Object value = this.attributeConverter.convert(className, in.readText());
+				if (value != null) {
+					attributes.putAttribute(key, value);
+				}
+			}
+		}
+	}
+
+	private static final class Chunk {
+		final long position;
+		final int length;
+		final List<String> personIds;
+
+		Chunk(final long position, final int length, final List<String> personIds) {
+			this.position = position;
+			this.length = length;
+			this.personIds = personIds;
+		}
+	}
+
+	/*
+	 * Reads parts of the file, concurrently.
+	 */
+	private interface ChunkSource extends AutoCloseable {
+		long size() throws IOException;
+
+		byte[] read(long position, int length) throws IOException;
+
+		@Override
+		void close() throws IOException;
+	}
+
+	private static final class FileChunkSource implements ChunkSource {
+		private final FileChannel channel;
+
+		FileChunkSource(final FileChannel channel) {
+			this.channel = channel;
+		}
+
+		@Override
+		public long size() throws IOException {
+			return this.channel.size();
+		}
+
+		@Override
+		public byte[] read(final long position, final int length) throws IOException {
+			byte[] bytes = new byte[length];
+			ByteBuffer buffer = ByteBuffer.wrap(bytes);
+			while (buffer.hasRemaining()) {
+				// positional reads do not change the position of the channel, so they can be done concurrently
+				if (this.channel.read(buffer, position + buffer.position()) < 0) {
+					throw new IOException("unexpected end of file.");
+				}
+			}
+			return bytes;
+		}
+
+		@Override
+		public void close() throws IOException {
+			this.channel.close();
+		}
+	}
+
+	private static final class ArrayChunkSource implements ChunkSource {
+		private final byte[] bytes;
+
+		ArrayChunkSource(final byte[] bytes) {
+			this.bytes = bytes;
+		}
+
+		@Override
+		public long size() {
+			return this.bytes.length;
+		}
+
+		@Override
+		public byte[] read(final long position, final int length) {
+			byte[] copy = new byte[length];
+			System.arraycopy(this.bytes, (int) position, copy, 0, length);
+			return copy;
+		}
+
+		@Override
+		public void close() {
+		}
+	}
+
+}
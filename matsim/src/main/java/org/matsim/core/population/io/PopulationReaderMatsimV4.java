@@ -263,14 +263,14 @@ import org.xml.sax.Attributes;
 		if (atts.getValue("link") != null) {
 			Id<Link> linkId = Id.create(atts.getValue("link"), Link.class);
 			final Id<Link> linkId1 = linkId;
-			this.curract = PopulationUtils.createAndAddActivityFromLinkId(this.currplan, atts.getValue(ATTR_TYPE), linkId1);
+			this.curract = PopulationUtils.createAndAddActivityFromLinkId(this.plans.getFactory(), this.currplan, atts.getValue(ATTR_TYPE), linkId1);
 			if ((atts.getValue("x") != null) && (atts.getValue("y") != null)) {
 				final Coord coord = parseCoord( atts );
 				this.curract.setCoord(coord);
 			}
 		} else if ((atts.getValue("x") != null) && (atts.getValue("y") != null)) {
 			final Coord coord = parseCoord( atts );
-			this.curract = PopulationUtils.createAndAddActivityFromCoord(this.currplan, atts.getValue(ATTR_TYPE), coord);
+			this.curract = PopulationUtils.createAndAddActivityFromCoord(this.plans.getFactory(), this.currplan, atts.getValue(ATTR_TYPE), coord);
 		} else {
 			throw new IllegalArgumentException(
 					"In this version of MATSim either the coords or the link must be specified for an Act.");
@@ -319,7 +319,7 @@ import org.xml.sax.Attributes;
 		if (mode.equals("undef")) {
 			mode = "undefined";
 		}
-		this.currleg = PopulationUtils.createAndAddLeg( this.currplan, mode.intern() );
+		this.currleg = PopulationUtils.createAndAddLeg( this.plans.getFactory(), this.currplan, mode.intern() );
 		this.currleg.setDepartureTime(Time.parseTime(atts.getValue("dep_time")));
 		this.currleg.setTravelTime(Time.parseTime(atts.getValue("trav_time")));
 //		LegImpl r = this.currleg;
@@ -208,14 +208,14 @@ import org.xml.sax.Attributes;
 	private void startAct(final Attributes atts) {
 		if (atts.getValue(ATTR_ACT_LINK) != null) {
 			Id<Link> linkId1 = Id.create(atts.getValue(ATTR_ACT_LINK), Link.class);
-			this.curract = PopulationUtils.createAndAddActivityFromLinkId(this.currplan, atts.getValue(ATTR_ACT_TYPE), linkId1);
+			this.curract = PopulationUtils.createAndAddActivityFromLinkId(this.plans.getFactory(), this.currplan, atts.getValue(ATTR_ACT_TYPE), linkId1);
 			if ((atts.getValue(ATTR_ACT_X) != null) && (atts.getValue(ATTR_ACT_Y) != null)) {
 				final Coord coord = parseCoord( atts );
 				this.curract.setCoord(coord);
 			}
 		} else if ((atts.getValue(ATTR_ACT_X) != null) && (atts.getValue(ATTR_ACT_Y) != null)) {
 			final Coord coord = parseCoord( atts );
-			this.curract = PopulationUtils.createAndAddActivityFromCoord(this.currplan, atts.getValue(ATTR_ACT_TYPE), coord);
+			this.curract = PopulationUtils.createAndAddActivityFromCoord(this.plans.getFactory(), this.currplan, atts.getValue(ATTR_ACT_TYPE), coord);
 		} else {
 			throw new IllegalArgumentException("In this version of MATSim either the coords or the link must be specified for an Act.");
 		}
@@ -309,7 +309,7 @@ import org.xml.sax.Attributes;
 		if (VALUE_UNDEF.equals(mode)) {
 			mode = "undefined";
 		}
-		this.currleg = PopulationUtils.createAndAddLeg( this.currplan, mode.intern() );
+		this.currleg = PopulationUtils.createAndAddLeg( this.plans.getFactory(), this.currplan, mode.intern() );
 		this.currleg.setDepartureTime(Time.parseTime(atts.getValue(ATTR_LEG_DEPTIME)));
 		this.currleg.setTravelTime(Time.parseTime(atts.getValue(ATTR_LEG_TRAVTIME)));
 //		LegImpl r = this.currleg;
@@ -38,6 +38,7 @@ import org.matsim.core.utils.geometry.CoordinateTransformation;
 import org.matsim.core.utils.geometry.transformations.IdentityTransformation;
 import org.matsim.core.utils.geometry.transformations.TransformationFactory;
 import org.matsim.core.utils.io.MatsimXmlParser;
+import org.matsim.core.utils.io.MatsimXmlParser.ParallelParser;
 import org.matsim.core.utils.misc.Time;
 import org.matsim.facilities.ActivityFacility;
 import org.matsim.utils.objectattributes.AttributeConverter;
@@ -46,6 +47,8 @@ import org.matsim.vehicles.Vehicle;
 import org.xml.sax.Attributes;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Stack;
 
@@ -56,7 +59,7 @@ import java.util.Stack;
  * @author mrieser
  * @author balmermi
  */
-/* deliberately package */ class PopulationReaderMatsimV6 extends MatsimXmlParser implements MatsimReader {
+/* deliberately package */ class PopulationReaderMatsimV6 extends MatsimXmlParser implements MatsimReader, ParallelParser {
     private static final Logger log = Logger.getLogger(PopulationReaderMatsimV6.class);
 
 	private final static String POPULATION = "population";
@@ -95,6 +98,7 @@ import java.util.Stack;
 
 	// TODO: infrastructure to configure converters
 	private final AttributesXmlReaderDelegate attributesReader = new AttributesXmlReaderDelegate();
+	private final Map<Class<?>, AttributeConverter<?>> converters = new HashMap<>();
 
 	private final Scenario scenario;
 	private final Population plans;
@@ -128,13 +132,42 @@ import java.util.Stack;
 	    }
 	}
 
+	/**
+	 * Creates a reader for the persons of one chunk, with the current state of the given reader.
+	 */
+	private PopulationReaderMatsimV6(final PopulationReaderMatsimV6 reader) {
+		this.externalInputCRS = reader.externalInputCRS;
+		this.targetCRS = reader.targetCRS;
+		this.scenario = reader.scenario;
+		this.plans = reader.plans;
+		this.coordinateTransformation = reader.coordinateTransformation;
+		putAttributeConverters(reader.converters);
+	}
+
 	public void putAttributeConverter( final Class<?> clazz , AttributeConverter<?> converter ) {
 		attributesReader.putAttributeConverter( clazz , converter );
+		this.converters.put( clazz , converter );
 	}
 
 	@Inject
 	public void putAttributeConverters( final Map<Class<?>, AttributeConverter<?>> converters ) {
 		attributesReader.putAttributeConverters( converters );
+		this.converters.putAll( converters );
+	}
+
+	@Override
+	public boolean isChunkElement(final String name) {
+		return PERSON.equals(name);
+	}
+
+	@Override
+	public void startChunkElement(final String name, final Attributes atts) {
+		Id.create(atts.getValue(ATTR_PERSON_ID), Person.class);
+	}
+
+	@Override
+	public ChunkParser createChunkParser() {
+		return new PersonChunkParser(this);
 	}
 
 	@Override
@@ -191,7 +224,7 @@ import java.util.Stack;
 	public void endTag(final String name, final String content, final Stack<String> context) {
 		switch ( name ) {
 			case PERSON:
-				this.plans.addPerson(this.currperson);
+				addPerson(this.currperson);
 				this.currperson = null;
 				break;
 			case ATTRIBUTE:
@@ -227,6 +260,10 @@ import java.util.Stack;
 		}
 	}
 
+	void addPerson(final Person person) {
+		this.plans.addPerson(person);
+	}
+
 	private void startPopulation(final Attributes atts) {
 		this.plans.setName(atts.getValue(ATTR_POPULATION_DESC));
 	}
@@ -267,14 +304,14 @@ import java.util.Stack;
 		if (atts.getValue(ATTR_ACT_LINK) != null) {
 			Id<Link> linkId = Id.create(atts.getValue(ATTR_ACT_LINK), Link.class);
 			final Id<Link> linkId1 = linkId;
-			this.curract = PopulationUtils.createAndAddActivityFromLinkId(this.currplan, atts.getValue(ATTR_ACT_TYPE), linkId1);
+			this.curract = PopulationUtils.createAndAddActivityFromLinkId(this.plans.getFactory(), this.currplan, atts.getValue(ATTR_ACT_TYPE), linkId1);
 			if ((atts.getValue(ATTR_ACT_X) != null) && (atts.getValue(ATTR_ACT_Y) != null)) {
 				final Coord coord = parseCoord( atts );
 				this.curract.setCoord(coord);
 			}
 		} else if ((atts.getValue(ATTR_ACT_X) != null) && (atts.getValue(ATTR_ACT_Y) != null)) {
 			final Coord coord = parseCoord( atts );
-			this.curract = PopulationUtils.createAndAddActivityFromCoord(this.currplan, atts.getValue(ATTR_ACT_TYPE), coord);
+			this.curract = PopulationUtils.createAndAddActivityFromCoord(this.plans.getFactory(), this.currplan, atts.getValue(ATTR_ACT_TYPE), coord);
 		} else {
 			throw new IllegalArgumentException("In this version of MATSim either the coords or the link must be specified for an Act.");
 		}
@@ -380,7 +417,7 @@ import java.util.Stack;
 		if (VALUE_UNDEF.equals(mode)) {
 			mode = "undefined";
 		}
-		this.currleg = PopulationUtils.createAndAddLeg( this.currplan, mode.intern() );
+		this.currleg = PopulationUtils.createAndAddLeg( this.plans.getFactory(), this.currplan, mode.intern() );
 		this.currleg.setDepartureTime(Time.parseTime(atts.getValue(ATTR_LEG_DEPTIME)));
 		this.currleg.setTravelTime(Time.parseTime(atts.getValue(ATTR_LEG_TRAVTIME)));
 //		LegImpl r = this.currleg;
@@ -462,4 +499,27 @@ import java.util.Stack;
 		}
 	}
 
+	/*
+	 * Parses the persons of one chunk, and adds them to the population when the chunk is finished.
+	 */
+	private static final class PersonChunkParser extends PopulationReaderMatsimV6 implements ChunkParser {
+		private final List<Person> persons = new ArrayList<>();
+
+		PersonChunkParser(final PopulationReaderMatsimV6 reader) {
+			super(reader);
+		}
+
+		@Override
+		void addPerson(final Person person) {
+			this.persons.add(person);
+		}
+
+		@Override
+		public void finish() {
+			for (Person person : this.persons) {
+				super.addPerson(person);
+			}
+		}
+	}
+
 }
@@ -22,7 +22,9 @@ package org.matsim.core.population.io;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.apache.log4j.Logger;
@@ -35,6 +37,7 @@ import org.matsim.core.population.PopulationUtils;
 import org.matsim.core.utils.geometry.CoordinateTransformation;
 import org.matsim.core.utils.geometry.transformations.IdentityTransformation;
 import org.matsim.core.utils.io.AbstractMatsimWriter;
+import org.matsim.core.utils.io.IOUtils;
 import org.matsim.core.utils.io.UncheckedIOException;
 import org.matsim.core.utils.misc.Counter;
 import org.matsim.utils.objectattributes.AttributeConverter;
@@ -51,6 +54,7 @@ public final class PopulationWriter extends AbstractMatsimWriter implements Mats
 
 	private final static Logger log = Logger.getLogger(PopulationWriter.class);
 	private Map<Class<?>,AttributeConverter<?>> converters = new HashMap<>();
+	private int numberOfThreads = 1;
 
 
 	public PopulationWriter(final Population population) {
@@ -129,10 +133,24 @@ public final class PopulationWriter extends AbstractMatsimWriter implements Mats
 	}
 
 	/**
-	 * Writes all plans to the file.
+	 * Sets the number of threads used to compress the chunks of the binary format, usually
+	 * {@link org.matsim.core.config.groups.GlobalConfigGroup#getNumberOfThreads()}.  Xml is always written on the calling
+	 * thread.
+	 */
+	public void setNumberOfThreads( final int numberOfThreads ) {
+		this.numberOfThreads = numberOfThreads;
+	}
+
+	/**
+	 * Writes all plans to the file, in the binary format if its name ends with
+	 * {@value PopulationBinaryFormat#FILE_EXTENSION}, see {@link #writeBinary(String)}.
 	 */
 	@Override
 	public final void write(final String filename) {
+		if (PopulationBinaryFormat.isBinaryFile(filename)) {
+			writeBinary(filename);
+			return;
+		}
 		try {
 			this.handler.putAttributeConverters(converters);
 			this.openFile(filename);
@@ -217,6 +235,28 @@ public final class PopulationWriter extends AbstractMatsimWriter implements Mats
 		write(stream);
 	}
 
+	/**
+	 * Writes all plans to the file in the binary format, which is much faster to write and to read than xml.  The
+	 * persons are written in chunks, which are compressed in parallel, see {@link #setNumberOfThreads(int)}.
+	 */
+	public final void writeBinary(final String filename) {
+		List<Person> persons = new ArrayList<>();
+		for (Person p : PopulationUtils.getSortedPersons(this.population).values()) {
+			if ((this.write_person_fraction < 1.0) && (MatsimRandom.getRandom().nextDouble() >= this.write_person_fraction)) {
+				continue;
+			}
+			persons.add(p);
+		}
+		PopulationWriterBinary writer = new PopulationWriterBinary(this.population, this.coordinateTransformation,
+				this.converters, this.numberOfThreads);
+		try {
+			writer.write(persons, IOUtils.getOutputStream(IOUtils.getFileUrl(filename), false));
+			log.info("Population written to: " + filename);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
 	public final void setWriterHandler(final PopulationWriterHandler handler) {
 		this.handler = handler;
 	}
@@ -0,0 +1,406 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * PopulationWriterBinary.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2020 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.population.io;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.Deflater;
+
+import org.apache.log4j.Logger;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.population.Activity;
+import org.matsim.api.core.v01.population.Leg;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.api.core.v01.population.Plan;
+import org.matsim.api.core.v01.population.PlanElement;
+import org.matsim.api.core.v01.population.Population;
+import org.matsim.api.core.v01.population.Route;
+import org.matsim.core.population.PersonUtils;
+import org.matsim.core.population.PopulationUtils;
+import org.matsim.core.population.io.PopulationBinaryFormat.Output;
+import org.matsim.core.population.routes.NetworkRoute;
+import org.matsim.core.utils.geometry.CoordinateTransformation;
+import org.matsim.core.utils.misc.Time;
+import org.matsim.utils.objectattributes.AttributeConverter;
+import org.matsim.utils.objectattributes.ObjectAttributesConverter;
+import org.matsim.utils.objectattributes.attributable.Attributes;
+
+import static org.matsim.core.population.io.PopulationBinaryFormat.*;
+
+/**
+ * Writes a population in the {@link PopulationBinaryFormat}.  The chunks of persons are encoded and compressed in
+ * parallel, and written in the order of the persons passed to {@link #write(Collection, OutputStream)}.
+ */
+/* package */ final class PopulationWriterBinary {
+	private static final Logger log = Logger.getLogger(PopulationWriterBinary.class);
+
+	static final int DEFAULT_PERSONS_PER_CHUNK = 2000;
+
+	private final Population population;
+	private final CoordinateTransformation coordinateTransformation;
+	private final Map<Class<?>, AttributeConverter<?>> converters;
+	private final int numberOfThreads;
+	private int personsPerChunk = DEFAULT_PERSONS_PER_CHUNK;
+
+	PopulationWriterBinary(final Population population, final CoordinateTransformation coordinateTransformation,
+			final Map<Class<?>, AttributeConverter<?>> converters, final int numberOfThreads) {
+		this.population = population;
+		this.coordinateTransformation = coordinateTransformation;
+		this.converters = converters;
+		this.numberOfThreads = Math.max(1, numberOfThreads);
+	}
+
+	void setPersonsPerChunk(final int personsPerChunk) {
+		this.personsPerChunk = personsPerChunk;
+	}
+
+	/**
+	 * Writes the given persons of the population, and closes the stream.
+	 */
+	void write(final Collection<? extends Person> persons, final OutputStream stream) throws IOException {
+		ExecutorService executor = Executors.newFixedThreadPool(this.numberOfThreads, r -> {
+			Thread thread = new Thread(r, PopulationWriterBinary.class.getSimpleName());
+			thread.setDaemon(true);
+			return thread;
+		});
+		try (OutputStream out = stream) {
+			Output header = new Output(HEADER_LENGTH);
+			header.writeLong(MAGIC);
+			header.writeInt(VERSION);
+			out.write(header.getBuffer(), 0, header.getLength());
+			long position = header.getLength();
+
+			Output index = new Output(1024);
+			index.writeText(this.population.getName());
+			new Encoder(this.converters).writeAttributes(index, this.population.getAttributes());
+			List<List<Person>> chunks = new ArrayList<>();
+			List<Person> chunk = new ArrayList<>(this.personsPerChunk);
+			for (Person person : persons) {
+				chunk.add(person);
+				if (chunk.size() == this.personsPerChunk) {
+					chunks.add(chunk);
+					chunk = new ArrayList<>(this.personsPerChunk);
+				}
+			}
+			if (!chunk.isEmpty()) {
+				chunks.add(chunk);
+			}
+			index.writeVarInt(chunks.size());
+
+			// the ids already listed in the index for an earlier chunk, per id type
+			List<Set<String>> listedIds = new ArrayList<>();
+			for (int i = 0; i < NUMBER_OF_ID_TYPES; i++) {
+				listedIds.add(new HashSet<>());
+			}
+
+			// keep a few chunks per thread in flight, so the threads stay busy while the encoded chunks are written
+			Deque<Future<EncodedChunk>> pending = new ArrayDeque<>();
+			int next = 0;
+			int written = 0;
+			while (written < chunks.size()) {
+				while (next < chunks.size() && pending.size() < 2 * this.numberOfThreads) {
+					List<Person> c = chunks.get(next++);
+					pending.add(executor.submit(() -> encodeChunk(c)));
+				}
+				EncodedChunk encoded = pending.poll().get();
+				byte[] compressed = encoded.compressed;
+				List<Person> c = chunks.get(written++);
+				out.write(compressed, 0, compressed.length);
+				index.writeLong(position);
+				index.writeInt(compressed.length);
+				index.writeVarInt(c.size());
+				for (Person person : c) {
+					index.writeText(person.getId().toString());
+				}
+				for (int i = 0; i < NUMBER_OF_ID_TYPES; i++) {
+					List<String> newIds = new ArrayList<>();
+					for (String id : encoded.ids.get(i)) {
+						if (listedIds.get(i).add(id)) {
+							newIds.add(id);
+						}
+					}
+					index.writeVarInt(newIds.size());
+					for (String id : newIds) {
+						index.writeText(id);
+					}
+				}
+				position += compressed.length;
+			}
+
+			out.write(index.getBuffer(), 0, index.getLength());
+			Output trailer = new Output(TRAILER_LENGTH);
+			trailer.writeLong(position);
+			trailer.writeLong(MAGIC);
+			out.write(trailer.getBuffer(), 0, trailer.getLength());
+			log.info("wrote " + persons.size() + " persons in " + chunks.size() + " chunks.");
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException(e);
+		} catch (ExecutionException e) {
+			throw new RuntimeException(e.getCause());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private static final class EncodedChunk {
+		final byte[] compressed;
+		/** per id type, the ids in the order of their first occurrence in the chunk */
+		final List<Set<String>> ids;
+
+		EncodedChunk(final byte[] compressed, final List<Set<String>> ids) {
+			this.compressed = compressed;
+			this.ids = ids;
+		}
+	}
+
+	private EncodedChunk encodeChunk(final List<Person> persons) {
+		Output out = new Output(persons.size() * 512);
+		// the raw length, so the reader can allocate the buffer at once
+		out.writeInt(0);
+		Encoder encoder = new Encoder(this.converters);
+		for (Person person : persons) {
+			encoder.writePerson(out, person);
+		}
+		int rawLength = out.getLength() - 4;
+		byte[] raw = out.getBuffer();
+
+		Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+		try {
+			deflater.setInput(raw, 4, rawLength);
+			deflater.finish();
+			byte[] compressed = new byte[4 + rawLength / 2 + 64];
+			int length = 4;
+			while (!deflater.finished()) {
+				if (length == compressed.length) {
+					compressed = Arrays.copyOf(compressed, compressed.length * 2);
+				}
+				length += deflater.deflate(compressed, length, compressed.length - length);
+			}
+			for (int i = 0; i < 4; i++) {
+				compressed[i] = (byte) (rawLength >>> (24 - 8 * i));
+			}
+			return new EncodedChunk(Arrays.copyOf(compressed, length), encoder.ids);
+		} finally {
+			deflater.end();
+		}
+	}
+
+	/*
+	 * One per chunk, since the attribute converter is not thread-safe.
+	 */
+	private final class Encoder {
+		private final ObjectAttributesConverter attributeConverter;
+		private final List<Set<String>> ids = new ArrayList<>();
+
+		Encoder(final Map<Class<?>, AttributeConverter<?>> converters) {
+			this.attributeConverter = new ObjectAttributesConverter(converters);
+			for (int i = 0; i < NUMBER_OF_ID_TYPES; i++) {
+				this.ids.add(new LinkedHashSet<>());
+			}
+		}
+
+		private void writeId(final Output out, final Id<?> id, final int idType) {
+			if (id == null) {
+				out.writeString(null);
+			} else {
+				String value = id.toString();
+				this.ids.get(idType).add(value);
+				out.writeString(value);
+			}
+		}
+
+		void writePerson(final Output out, final Person person) {
+			writeAttributes(out, person.getAttributes());
+			out.writeVarInt(person.getPlans().size());
+			for (Plan plan : person.getPlans()) {
+				int flags = 0;
+				if (PersonUtils.isSelected(plan)) {
+					flags |= PLAN_SELECTED;
+				}
+				if (plan.getScore() != null) {
+					flags |= PLAN_SCORE;
+				}
+				if (plan.getType() != null) {
+					flags |= PLAN_TYPE;
+				}
+				out.writeByte(flags);
+				if (plan.getScore() != null) {
+					out.writeDouble(plan.getScore());
+				}
+				if (plan.getType() != null) {
+					out.writeString(plan.getType());
+				}
+				writeAttributes(out, plan.getAttributes());
+				out.writeVarInt(plan.getPlanElements().size());
+				for (PlanElement pe : plan.getPlanElements()) {
+					if (pe instanceof Activity) {
+						writeActivity(out, (Activity) pe);
+					} else if (pe instanceof Leg) {
+						writeLeg(out, (Leg) pe);
+					}
+				}
+			}
+		}
+
+		private void writeActivity(final Output out, final Activity act) {
+			Coord coord = act.getCoord() == null ? null : PopulationWriterBinary.this.coordinateTransformation.transform(act.getCoord());
+			int flags = 0;
+			if (act.getLinkId() != null) {
+				flags |= ACT_LINK;
+			}
+			if (act.getFacilityId() != null) {
+				flags |= ACT_FACILITY;
+			}
+			if (coord != null) {
+				flags |= ACT_COORD;
+				if (act.getCoord().hasZ()) {
+					flags |= ACT_Z;
+				}
+			}
+			if (!Time.isUndefinedTime(act.getStartTime())) {
+				flags |= ACT_START_TIME;
+			}
+			if (!Time.isUndefinedTime(act.getMaximumDuration())) {
+				flags |= ACT_MAX_DUR;
+			}
+			if (!Time.isUndefinedTime(act.getEndTime())) {
+				flags |= ACT_END_TIME;
+			}
+			out.writeByte(flags);
+			out.writeString(act.getType());
+			if ((flags & ACT_LINK) != 0) {
+				writeId(out, act.getLinkId(), LINK_IDS);
+			}
+			if ((flags & ACT_FACILITY) != 0) {
+				writeId(out, act.getFacilityId(), FACILITY_IDS);
+			}
+			if (coord != null) {
+				out.writeDouble(coord.getX());
+				out.writeDouble(coord.getY());
+				if ((flags & ACT_Z) != 0) {
+					out.writeDouble(coord.getZ());
+				}
+			}
+			if ((flags & ACT_START_TIME) != 0) {
+				out.writeDouble(act.getStartTime());
+			}
+			if ((flags & ACT_MAX_DUR) != 0) {
+				out.writeDouble(act.getMaximumDuration());
+			}
+			if ((flags & ACT_END_TIME) != 0) {
+				out.writeDouble(act.getEndTime());
+			}
+			writeAttributes(out, PopulationUtils.getAttributesForReading(act));
+		}
+
+		private void writeLeg(final Output out, final Leg leg) {
+			Route route = leg.getRoute();
+			int flags = LEG;
+			if (!Time.isUndefinedTime(leg.getDepartureTime())) {
+				flags |= LEG_DEP_TIME;
+			}
+			if (!Time.isUndefinedTime(leg.getTravelTime())) {
+				flags |= LEG_TRAV_TIME;
+			}
+			if (route != null) {
+				flags |= LEG_ROUTE;
+				if (route instanceof NetworkRoute) {
+					flags |= LEG_NETWORK_ROUTE;
+					if (((NetworkRoute) route).getVehicleId() != null) {
+						flags |= LEG_VEHICLE;
+					}
+				}
+			}
+			out.writeByte(flags);
+			out.writeString(leg.getMode());
+			if ((flags & LEG_DEP_TIME) != 0) {
+				out.writeDouble(leg.getDepartureTime());
+			}
+			if ((flags & LEG_TRAV_TIME) != 0) {
+				out.writeDouble(leg.getTravelTime());
+			}
+			writeAttributes(out, PopulationUtils.getAttributesForReading(leg));
+			if (route != null) {
+				out.writeString(route.getRouteType());
+				writeId(out, route.getStartLinkId(), LINK_IDS);
+				writeId(out, route.getEndLinkId(), LINK_IDS);
+				out.writeDouble(route.getTravelTime());
+				out.writeDouble(route.getDistance());
+				if (route instanceof NetworkRoute) {
+					NetworkRoute networkRoute = (NetworkRoute) route;
+					if ((flags & LEG_VEHICLE) != 0) {
+						writeId(out, networkRoute.getVehicleId(), VEHICLE_IDS);
+					}
+					out.writeDouble(networkRoute.getTravelCost());
+					List<Id<Link>> linkIds = networkRoute.getLinkIds();
+					out.writeVarInt(linkIds.size());
+					for (Id<Link> linkId : linkIds) {
+						writeId(out, linkId, LINK_IDS);
+					}
+				} else {
+					out.writeText(route.getRouteDescription());
+				}
+			}
+		}
+
+		void writeAttributes(final Output out, final Attributes attributes) {
+			if (attributes.isEmpty()) {
+				out.writeVarInt(0);
+				return;
+			}
+			List<String> keys = new ArrayList<>(attributes.size());
+			List<String> values = new ArrayList<>(attributes.size());
+			List<String> classNames = new ArrayList<>(attributes.size());
+			for (Map.Entry<String, Object> entry : attributes.getAsMap().entrySet()) {
+				String converted = this.attributeConverter.convertToString(entry.getValue());
+				if (converted != null) {
+					keys.add(entry.getKey());
+					values.add(converted);
+					classNames.add(entry.getValue().getClass().getName());
+				}
+			}
+			out.writeVarInt(keys.size());
+			for (int i = 0; i < keys.size(); i++) {
+				out.writeString(keys.get(i));
+				out.writeString(classNames.get(i));
+				out.writeText(values.get(i));
+			}
+		}
+	}
+
+}
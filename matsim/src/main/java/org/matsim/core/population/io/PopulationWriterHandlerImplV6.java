@@ -31,6 +31,7 @@ import org.matsim.api.core.v01.population.PlanElement;
 import org.matsim.api.core.v01.population.Population;
 import org.matsim.api.core.v01.population.Route;
 import org.matsim.core.population.PersonUtils;
+import org.matsim.core.population.PopulationUtils;
 import org.matsim.core.population.routes.NetworkRoute;
 import org.matsim.core.utils.geometry.CoordinateTransformation;
 import org.matsim.core.utils.io.MatsimXmlWriter;
@@ -205,7 +206,7 @@ import static org.matsim.core.utils.io.XmlUtils.encodeContent;
 		}
 		out.write(" >\n");
 
-		this.attributesWriter.writeAttributes( "\t\t\t\t" , out , act.getAttributes() );
+		this.attributesWriter.writeAttributes( "\t\t\t\t" , out , PopulationUtils.getAttributesForReading( act ) );
 
 		out.write("\t\t\t</activity>\n");
 	}
@@ -236,7 +237,7 @@ import static org.matsim.core.utils.io.XmlUtils.encodeContent;
 
 		out.write(">\n");
 
-		this.attributesWriter.writeAttributes( "\t\t\t\t" , out , leg.getAttributes() );
+		this.attributesWriter.writeAttributes( "\t\t\t\t" , out , PopulationUtils.getAttributesForReading( leg ) );
 	}
 
 	private static void endLeg(final BufferedWriter out) throws IOException {
@@ -0,0 +1,341 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * IndexedNetworkRouteImpl.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2020 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.population.routes;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.NoSuchElementException;
+
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.core.network.NetworkUtils;
+import org.matsim.vehicles.Vehicle;
+
+/**
+ * Implementation of {@link NetworkRoute} that stores the links of the route by their {@link Id#index()} instead of
+ * references to their ids, in order to save memory with many stored plans.
+ *
+ * <p>The indices are stored as the differences between subsequent links, zig-zag and variable-length encoded, i.e.
+ * with 7 bits per byte. Since the links of a network usually get their ids in the order they are read, neighbouring
+ * links tend to have similar indices, and most links of a route take one or two bytes instead of a four byte
+ * reference (plus the overhead of the list holding the references).</p>
+ *
+ * <p>{@link #getLinkIds()} does not create a list of the ids, but returns a view that decodes the links on access.
+ * Its iterators decode the links one after the other, so iterating over the route is cheap. Access by position does
+ * not keep any state and needs to decode the route up to the requested position.</p>
+ *
+ * @see IndexedNetworkRouteFactory
+ */
+final class IndexedNetworkRouteImpl extends AbstractRoute implements NetworkRoute {
+
+	private static final byte[] NO_LINKS = new byte[0];
+
+	private byte[] encodedLinks = NO_LINKS;
+	private int numberOfLinks = 0;
+	private double travelCost = Double.NaN;
+	private Id<Vehicle> vehicleId = null;
+
+	IndexedNetworkRouteImpl(final Id<Link> startLinkId, final Id<Link> endLinkId) {
+		super(startLinkId, endLinkId);
+	}
+
+	@Override
+	public IndexedNetworkRouteImpl clone() {
+		// the encoded links are never changed, only replaced, so they can be shared with the clone
+		return (IndexedNetworkRouteImpl) super.clone();
+	}
+
+	@Override
+	public List<Id<Link>> getLinkIds() {
+		return new LinkIds();
+	}
+
+	@Override
+	public void setLinkIds(final Id<Link> startLinkId, final List<Id<Link>> srcRoute, final Id<Link> endLinkId) {
+		setStartLinkId(startLinkId);
+		setEndLinkId(endLinkId);
+		if (srcRoute == null || srcRoute.isEmpty()) {
+			this.encodedLinks = NO_LINKS;
+			this.numberOfLinks = 0;
+		} else {
+			byte[] buffer = new byte[srcRoute.size() * 5];
+			int length = 0;
+			int previousIndex = 0;
+			for (Id<Link> linkId : srcRoute) {
+				int index = linkId.index();
+				length = writeVarInt(buffer, length, zigZag(index - previousIndex));
+				previousIndex = index;
+			}
+			this.encodedLinks = Arrays.copyOf(buffer, length);
+			this.numberOfLinks = srcRoute.size();
+		}
+	}
+
+	/**
+	 * @return the index of the link at the given position of the route.
+	 */
+	private int getLinkIndex(final int position) {
+		if (position < 0 || position >= this.numberOfLinks) {
+			throw new IndexOutOfBoundsException("position " + position + " is not within the route of " + this.numberOfLinks + " links.");
+		}
+		byte[] bytes = this.encodedLinks;
+		int offset = 0;
+		int linkIndex = 0;
+		for (int i = 0; i <= position; i++) {
+			int value = 0;
+			int shift = 0;
+			byte b;
+			do {
+				b = bytes[offset++];
+				value |= (b & 0x7f) << shift;
+				shift += 7;
+			} while (b < 0);
+			linkIndex += unZigZag(value);
+		}
+		return linkIndex;
+	}
+
+	private static int writeVarInt(final byte[] buffer, int offset, int value) {
+		while ((value & ~0x7f) != 0) {
+			buffer[offset++] = (byte) ((value & 0x7f) | 0x80);
+			value >>>= 7;
+		}
+		buffer[offset++] = (byte) value;
+		return offset;
+	}
+
+	private static int zigZag(final int value) {
+		return (value << 1) ^ (value >> 31);
+	}
+
+	private static int unZigZag(final int value) {
+		return (value >>> 1) ^ -(value & 1);
+	}
+
+	@Override
+	public NetworkRoute getSubRoute(final Id<Link> fromLinkId, final Id<Link> toLinkId) {
+		NetworkRoute subRoute = RouteUtils.createLinkNetworkRouteImpl(getStartLinkId(), getLinkIds(), getEndLinkId())
+				.getSubRoute(fromLinkId, toLinkId);
+		IndexedNetworkRouteImpl ret = new IndexedNetworkRouteImpl(fromLinkId, toLinkId);
+		ret.setLinkIds(fromLinkId, subRoute.getLinkIds(), toLinkId);
+		return ret;
+	}
+
+	@Override
+	public double getTravelCost() {
+		return this.travelCost;
+	}
+
+	@Override
+	public void setTravelCost(final double travelCost) {
+		this.travelCost = travelCost;
+	}
+
+	@Override
+	public Id<Vehicle> getVehicleId() {
+		return this.vehicleId;
+	}
+
+	@Override
+	public void setVehicleId(final Id<Vehicle> vehicleId) {
+		this.vehicleId = vehicleId;
+	}
+
+	@Override
+	public String getRouteDescription() {
+		StringBuilder desc = new StringBuilder(100);
+		desc.append(this.getStartLinkId().toString());
+		for (Id<Link> linkId : this.getLinkIds()) {
+			desc.append(" ");
+			desc.append(linkId.toString());
+		}
+		// If the start links equals the end link additionally check if its is a round trip.
+		if (!this.getEndLinkId().equals(this.getStartLinkId()) || this.numberOfLinks > 0) {
+			desc.append(" ");
+			desc.append(this.getEndLinkId().toString());
+		}
+		return desc.toString();
+	}
+
+	@Override
+	public void setRouteDescription(final String routeDescription) {
+		List<Id<Link>> linkIds = NetworkUtils.getLinkIds(routeDescription);
+		Id<Link> startLinkId = getStartLinkId();
+		Id<Link> endLinkId = getEndLinkId();
+		if (linkIds.size() > 0) {
+			startLinkId = linkIds.remove(0);
+			setStartLinkId(startLinkId);
+		}
+		if (linkIds.size() > 0) {
+			endLinkId = linkIds.remove(linkIds.size() - 1);
+			setEndLinkId(endLinkId);
+		}
+		this.setLinkIds(startLinkId, linkIds, endLinkId);
+	}
+
+	@Override
+	public String getRouteType() {
+		return LinkNetworkRouteImpl.ROUTE_TYPE;
+	}
+
+	@Override
+	public String toString() {
+		String str = super.toString();
+		str += " linkIds=" + this.getLinkIds() ;
+		str += " travelCost=" + this.getTravelCost() ;
+		return str ;
+	}
+
+	private final class LinkIds extends AbstractList<Id<Link>> {
+		@Override
+		public Id<Link> get(final int position) {
+			return Id.get(getLinkIndex(position), Link.class);
+		}
+
+		@Override
+		public int size() {
+			return IndexedNetworkRouteImpl.this.numberOfLinks;
+		}
+
+		@Override
+		public Iterator<Id<Link>> iterator() {
+			return new LinkIdsIterator(0);
+		}
+
+		@Override
+		public ListIterator<Id<Link>> listIterator() {
+			return new LinkIdsIterator(0);
+		}
+
+		@Override
+		public ListIterator<Id<Link>> listIterator(final int position) {
+			if (position < 0 || position > size()) {
+				throw new IndexOutOfBoundsException("position " + position + " is not within the route of " + size() + " links.");
+			}
+			return new LinkIdsIterator(position);
+		}
+	}
+
+	/**
+	 * Decodes the links one after the other, in both directions.  It works on the links of the route at the time it
+	 * was created, since the encoded links are never changed, only replaced.
+	 */
+	private final class LinkIdsIterator implements ListIterator<Id<Link>> {
+		private final byte[] bytes = IndexedNetworkRouteImpl.this.encodedLinks;
+		private final int size = IndexedNetworkRouteImpl.this.numberOfLinks;
+		/** the number of links before the cursor */
+		private int position = 0;
+		/** the offset of the link after the cursor in the encoded links */
+		private int offset = 0;
+		/** the index of the link before the cursor, or 0 at the start */
+		private int linkIndex = 0;
+
+		LinkIdsIterator(final int position) {
+			while (this.position < position) {
+				forward();
+			}
+		}
+
+		private void forward() {
+			int value = 0;
+			int shift = 0;
+			byte b;
+			do {
+				b = this.bytes[this.offset++];
+				value |= (b & 0x7f) << shift;
+				shift += 7;
+			} while (b < 0);
+			this.linkIndex += unZigZag(value);
+			this.position++;
+		}
+
+		@Override
+		public boolean hasNext() {
+			return this.position < this.size;
+		}
+
+		@Override
+		public Id<Link> next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			forward();
+			return Id.get(this.linkIndex, Link.class);
+		}
+
+		@Override
+		public boolean hasPrevious() {
+			return this.position > 0;
+		}
+
+		@Override
+		public Id<Link> previous() {
+			if (!hasPrevious()) {
+				throw new NoSuchElementException();
+			}
+			Id<Link> linkId = Id.get(this.linkIndex, Link.class);
+			// the last byte of a value is the only one without the continuation bit
+			int start = this.offset - 1;
+			while (start > 0 && this.bytes[start - 1] < 0) {
+				start--;
+			}
+			int value = 0;
+			int shift = 0;
+			for (int i = start; i < this.offset; i++) {
+				value |= (this.bytes[i] & 0x7f) << shift;
+				shift += 7;
+			}
+			this.linkIndex -= unZigZag(value);
+			this.offset = start;
+			this.position--;
+			return linkId;
+		}
+
+		@Override
+		public int nextIndex() {
+			return this.position;
+		}
+
+		@Override
+		public int previousIndex() {
+			return this.position - 1;
+		}
+
+		@Override
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void set(final Id<Link> linkId) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void add(final Id<Link> linkId) {
+			throw new UnsupportedOperationException();
+		}
+	}
+
+}
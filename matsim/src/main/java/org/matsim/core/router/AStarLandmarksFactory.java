@@ -27,6 +27,7 @@ import javax.inject.Inject;
 import javax.inject.Singleton;
 
 import org.matsim.api.core.v01.network.Network;
+import org.matsim.core.config.groups.ControlerConfigGroup;
 import org.matsim.core.config.groups.GlobalConfigGroup;
 import org.matsim.core.router.util.LeastCostPathCalculator;
 import org.matsim.core.router.util.LeastCostPathCalculatorFactory;
@@ -43,8 +44,14 @@ public class AStarLandmarksFactory implements LeastCostPathCalculatorFactory {
 	private final Map<Network, PreProcessLandmarks> preProcessData = new HashMap<>();
 
 	private final int nThreads;
+	private String cacheDirectory = null;
 	
 	@Inject
+	public AStarLandmarksFactory(final GlobalConfigGroup globalConfigGroup, final ControlerConfigGroup controlerConfigGroup) {
+		this(globalConfigGroup);
+		this.cacheDirectory = controlerConfigGroup.getLandmarksCacheDirectory();
+	}
+
 	public AStarLandmarksFactory(final GlobalConfigGroup globalConfigGroup) {
 		this(globalConfigGroup.getNumberOfThreads());
 	}
@@ -59,6 +66,7 @@ public class AStarLandmarksFactory implements LeastCostPathCalculatorFactory {
 		if (preProcessLandmarks == null) {
 			preProcessLandmarks = new PreProcessLandmarks(travelCosts);
 			preProcessLandmarks.setNumberOfThreads(nThreads);
+			preProcessLandmarks.setCacheDirectory(cacheDirectory);
 			preProcessLandmarks.run(network);
 			this.preProcessData.put(network, preProcessLandmarks);
 		}
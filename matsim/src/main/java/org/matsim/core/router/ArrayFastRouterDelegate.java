@@ -25,11 +25,15 @@ import org.matsim.core.router.util.ArrayRoutingNetwork;
 import org.matsim.core.router.util.ArrayRoutingNetworkNode;
 import org.matsim.core.router.util.NodeData;
 import org.matsim.core.router.util.NodeDataFactory;
+import org.matsim.core.router.util.PreProcessDijkstra;
+import org.matsim.core.router.util.PreProcessDijkstra.DeadEndData;
+import org.matsim.core.router.util.RoutingNetworkNode;
 
 /*package*/ class ArrayFastRouterDelegate extends AbstractFastRouterDelegate {
 
 	private final ArrayRoutingNetwork network;
 	private final NodeData[] nodeData;
+	private final DeadEndData[] deadEndData;
 	private boolean isInitialized = false;
 	
 	/*package*/ ArrayFastRouterDelegate(final Dijkstra dijkstra, final NodeDataFactory nodeDataFactory,
@@ -37,6 +41,23 @@ import org.matsim.core.router.util.NodeDataFactory;
 		super(dijkstra, nodeDataFactory);
 		this.network = network;
 		this.nodeData = new NodeData[network.getNodes().size()];
+
+		/*
+		 * The preprocessing data is kept by the router and not in the nodes, so that the routing
+		 * network can be shared by all routers, whatever preprocessing they use. It is looked up
+		 * here, as the routers are created by their factories one after the other, while the
+		 * lazy initialization might run in several threads concurrently.
+		 */
+		PreProcessDijkstra preProcessData = dijkstra.getPreProcessDijkstra();
+		if (preProcessData != null) {
+			this.deadEndData = new DeadEndData[this.nodeData.length];
+			for (Node node : this.network.getNodes().values()) {
+				int index = ((ArrayRoutingNetworkNode) node).getArrayIndex();
+				this.deadEndData[index] = preProcessData.getNodeData(((RoutingNetworkNode) node).getNode());
+			}
+		} else {
+			this.deadEndData = null;
+		}
 	}
 
 	@Override
@@ -59,4 +80,15 @@ import org.matsim.core.router.util.NodeDataFactory;
 		ArrayRoutingNetworkNode routingNetworkNode = (ArrayRoutingNetworkNode) n;
 		return this.nodeData[routingNetworkNode.getArrayIndex()];
 	}
+
+	/*
+	 * The DeadEndData is taken from the array, if the router has preprocessing data.
+	 */
+	@Override
+	public PreProcessDijkstra.DeadEndData getPreProcessData(final Node n) {
+		if (this.deadEndData == null) {
+			return super.getPreProcessData(n);
+		}
+		return this.deadEndData[((ArrayRoutingNetworkNode) n).getArrayIndex()];
+	}
 }
\ No newline at end of file
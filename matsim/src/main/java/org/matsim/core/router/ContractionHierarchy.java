@@ -0,0 +1,429 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * ContractionHierarchy.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2020 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.router;
+
+import java.util.Arrays;
+
+import org.apache.log4j.Logger;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.Node;
+
+/**
+ * The metric-independent part of a customizable contraction hierarchy: the order in which the nodes are contracted
+ * and the resulting graph of all links and shortcuts, independent of any travel times or costs.  It only depends on
+ * the topology of the network, so it is computed once per network and shared by all routers, which then
+ * {@link ContractionHierarchyRouter customize} it with their weights.
+ * <p></p>
+ * The nodes are ordered by a nested dissection along their coordinates: the network is split in two halves, the nodes
+ * connecting the halves are ranked highest, and the halves are ordered recursively.  Contracting the nodes in this
+ * order adds a shortcut between every two higher-ranked neighbours of a contracted node.  The resulting graph is
+ * stored as the list of higher-ranked neighbours of every node, so every edge connects a lower-ranked to a
+ * higher-ranked node and is stored only once, for both directions.
+ * <p></p>
+ * Nodes are identified by their rank.
+ */
+final class ContractionHierarchy {
+
+	private static final Logger log = Logger.getLogger(ContractionHierarchy.class);
+
+	/** parts of the network smaller than this are not dissected any further */
+	private static final int MIN_DISSECTION_SIZE = 8;
+
+	private final Network network;
+	private final Node[] nodes;
+	private final int[] rankByIdIndex;
+
+	private final int[] edgeStart;
+	private final int[] edgeTarget;
+	private final int[] parent;
+
+	private final Link[] links;
+	private final int[] linkEdge;
+	private final boolean[] linkUpward;
+
+	ContractionHierarchy(final Network network) {
+		this.network = network;
+		int n = network.getNodes().size();
+
+		Node[] nodesByIndex = network.getNodes().values().toArray(new Node[n]);
+		int[] indexByIdIndex = new int[Id.getNumberOfIds(Node.class)];
+		Arrays.fill(indexByIdIndex, -1);
+		for (int i = 0; i < n; i++) {
+			indexByIdIndex[nodesByIndex[i].getId().index()] = i;
+		}
+		int[][] neighbours = collectNeighbours(network, n, indexByIdIndex);
+
+		int[] order = orderNodes(nodesByIndex, neighbours);
+		this.nodes = new Node[n];
+		this.rankByIdIndex = new int[indexByIdIndex.length];
+		Arrays.fill(this.rankByIdIndex, -1);
+		int[] rank = new int[n];
+		for (int r = 0; r < n; r++) {
+			rank[order[r]] = r;
+			this.nodes[r] = nodesByIndex[order[r]];
+			this.rankByIdIndex[this.nodes[r].getId().index()] = r;
+		}
+
+		// chordal completion: contracting a node connects all its higher-ranked neighbours.  It is sufficient to
+		// connect them to the lowest of them, the parent in the elimination tree, as it is contracted next among them.
+		int[][] upward = new int[n][];
+		int[] upwardSize = new int[n];
+		for (int i = 0; i < n; i++) {
+			int r = rank[i];
+			upward[r] = new int[neighbours[i].length];
+			for (int neighbour : neighbours[i]) {
+				if (rank[neighbour] > r) {
+					upward[r][upwardSize[r]++] = rank[neighbour];
+				}
+			}
+		}
+		this.parent = new int[n];
+		int edges = 0;
+		for (int r = 0; r < n; r++) {
+			int[] list = upward[r];
+			Arrays.sort(list, 0, upwardSize[r]);
+			int size = 0;
+			for (int i = 0; i < upwardSize[r]; i++) {
+				if (size == 0 || list[size - 1] != list[i]) {
+					list[size++] = list[i];
+				}
+			}
+			upward[r] = Arrays.copyOf(list, size);
+			edges += size;
+			if (size == 0) {
+				this.parent[r] = -1;
+			} else {
+				int p = list[0];
+				this.parent[r] = p;
+				int required = upwardSize[p] + size - 1;
+				if (required > upward[p].length) {
+					upward[p] = Arrays.copyOf(upward[p], Math.max(required, 2 * upward[p].length));
+				}
+				System.arraycopy(list, 1, upward[p], upwardSize[p], size - 1);
+				upwardSize[p] = required;
+			}
+		}
+
+		this.edgeStart = new int[n + 1];
+		this.edgeTarget = new int[edges];
+		for (int r = 0; r < n; r++) {
+			this.edgeStart[r + 1] = this.edgeStart[r] + upward[r].length;
+			System.arraycopy(upward[r], 0, this.edgeTarget, this.edgeStart[r], upward[r].length);
+		}
+
+		this.links = network.getLinks().values().toArray(new Link[0]);
+		this.linkEdge = new int[this.links.length];
+		this.linkUpward = new boolean[this.links.length];
+		for (int l = 0; l < this.links.length; l++) {
+			int from = getRank(this.links[l].getFromNode());
+			int to = getRank(this.links[l].getToNode());
+			if (from == to) {
+				// loops are never part of a least cost path
+				this.linkEdge[l] = -1;
+			} else {
+				this.linkUpward[l] = from < to;
+				this.linkEdge[l] = findEdge(Math.min(from, to), Math.max(from, to));
+			}
+		}
+
+		log.info("contraction hierarchy for " + n + " nodes and " + this.links.length + " links has " + edges + " edges.");
+	}
+
+	private static int[][] collectNeighbours(final Network network, final int n, final int[] indexByIdIndex) {
+		int[] degree = new int[n];
+		for (Link link : network.getLinks().values()) {
+			degree[indexByIdIndex[link.getFromNode().getId().index()]]++;
+			degree[indexByIdIndex[link.getToNode().getId().index()]]++;
+		}
+		int[][] neighbours = new int[n][];
+		for (int i = 0; i < n; i++) {
+			neighbours[i] = new int[degree[i]];
+		}
+		Arrays.fill(degree, 0);
+		for (Link link : network.getLinks().values()) {
+			int from = indexByIdIndex[link.getFromNode().getId().index()];
+			int to = indexByIdIndex[link.getToNode().getId().index()];
+			if (from != to) {
+				neighbours[from][degree[from]++] = to;
+				neighbours[to][degree[to]++] = from;
+			}
+		}
+		for (int i = 0; i < n; i++) {
+			neighbours[i] = Arrays.copyOf(neighbours[i], degree[i]);
+		}
+		return neighbours;
+	}
+
+	/**
+	 * @return the node indices in the order of their rank
+	 */
+	private static int[] orderNodes(final Node[] nodesByIndex, final int[][] neighbours) {
+		int n = nodesByIndex.length;
+		double[] x = new double[n];
+		double[] y = new double[n];
+		for (int i = 0; i < n; i++) {
+			x[i] = nodesByIndex[i].getCoord().getX();
+			y[i] = nodesByIndex[i].getCoord().getY();
+		}
+		int[] nodes = new int[n];
+		for (int i = 0; i < n; i++) {
+			nodes[i] = i;
+		}
+		new Dissection(x, y, neighbours, nodes).dissect(0, n);
+		return nodes;
+	}
+
+	/**
+	 * Orders the nodes in place, so that afterwards every part is followed by the separator of its two halves.
+	 */
+	private static final class Dissection {
+
+		private final double[] x;
+		private final double[] y;
+		private final int[][] neighbours;
+		private final int[] nodes;
+		private final int[] stamp;
+		private final int[] buffer;
+		private int currentStamp = 0;
+
+		Dissection(final double[] x, final double[] y, final int[][] neighbours, final int[] nodes) {
+			this.x = x;
+			this.y = y;
+			this.neighbours = neighbours;
+			this.nodes = nodes;
+			this.stamp = new int[nodes.length];
+			this.buffer = new int[nodes.length];
+		}
+
+		void dissect(final int from, final int to) {
+			if (to - from <= MIN_DISSECTION_SIZE) {
+				return;
+			}
+			double minX = Double.POSITIVE_INFINITY, maxX = Double.NEGATIVE_INFINITY;
+			double minY = Double.POSITIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+			for (int i = from; i < to; i++) {
+				int node = this.nodes[i];
+				minX = Math.min(minX, this.x[node]);
+				maxX = Math.max(maxX, this.x[node]);
+				minY = Math.min(minY, this.y[node]);
+				maxY = Math.max(maxY, this.y[node]);
+			}
+			double[] coordinate = maxX - minX >= maxY - minY ? this.x : this.y;
+			int middle = (from + to) >>> 1;
+			select(coordinate, from, to - 1, middle);
+
+			// the separator is the boundary of the smaller of the two halves towards the other one
+			int firstStamp = ++this.currentStamp;
+			mark(from, middle, firstStamp);
+			int secondStamp = ++this.currentStamp;
+			mark(middle, to, secondStamp);
+			int firstBoundary = countBoundary(from, middle, secondStamp);
+			int secondBoundary = countBoundary(middle, to, firstStamp);
+
+			// move the separator to the end, keeping the two halves in front of it
+			int separatorStamp = ++this.currentStamp;
+			int separatorSize;
+			if (firstBoundary <= secondBoundary) {
+				separatorSize = markBoundary(from, middle, secondStamp, separatorStamp);
+			} else {
+				separatorSize = markBoundary(middle, to, firstStamp, separatorStamp);
+			}
+			int firstSize = 0;
+			int secondSize = 0;
+			int size = 0;
+			for (int i = from; i < to; i++) {
+				int node = this.nodes[i];
+				if (this.stamp[node] != separatorStamp) {
+					this.buffer[size++] = node;
+					if (i < middle) {
+						firstSize++;
+					} else {
+						secondSize++;
+					}
+				}
+			}
+			for (int i = from; i < to; i++) {
+				int node = this.nodes[i];
+				if (this.stamp[node] == separatorStamp) {
+					this.buffer[size++] = node;
+				}
+			}
+			System.arraycopy(this.buffer, 0, this.nodes, from, size);
+
+			dissect(from, from + firstSize);
+			dissect(from + firstSize, from + firstSize + secondSize);
+			assert from + firstSize + secondSize + separatorSize == to;
+		}
+
+		private void mark(final int from, final int to, final int value) {
+			for (int i = from; i < to; i++) {
+				this.stamp[this.nodes[i]] = value;
+			}
+		}
+
+		private int countBoundary(final int from, final int to, final int otherStamp) {
+			int count = 0;
+			for (int i = from; i < to; i++) {
+				if (isAdjacent(this.nodes[i], otherStamp)) {
+					count++;
+				}
+			}
+			return count;
+		}
+
+		private int markBoundary(final int from, final int to, final int otherStamp, final int separatorStamp) {
+			int count = 0;
+			for (int i = from; i < to; i++) {
+				int node = this.nodes[i];
+				if (isAdjacent(node, otherStamp)) {
+					count++;
+					this.buffer[count - 1] = node;
+				}
+			}
+			// marking only afterwards, as marking changes the stamps the adjacency is checked with
+			for (int i = 0; i < count; i++) {
+				this.stamp[this.buffer[i]] = separatorStamp;
+			}
+			return count;
+		}
+
+		private boolean isAdjacent(final int node, final int otherStamp) {
+			for (int neighbour : this.neighbours[node]) {
+				if (this.stamp[neighbour] == otherStamp) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		/**
+		 * Partially sorts nodes[left..right] by the coordinate, so that the k-th node is in place (quickselect).
+		 */
+		private void select(final double[] coordinate, int left, int right, final int k) {
+			while (left < right) {
+				double pivot = coordinate[this.nodes[(left + right) >>> 1]];
+				int i = left;
+				int j = right;
+				while (i <= j) {
+					while (coordinate[this.nodes[i]] < pivot) {
+						i++;
+					}
+					while (coordinate[this.nodes[j]] > pivot) {
+						j--;
+					}
+					if (i <= j) {
+						int tmp = this.nodes[i];
+						this.nodes[i] = this.nodes[j];
+						this.nodes[j] = tmp;
+						i++;
+						j--;
+					}
+				}
+				if (k <= j) {
+					right = j;
+				} else if (k >= i) {
+					left = i;
+				} else {
+					return;
+				}
+			}
+		}
+	}
+
+	Network getNetwork() {
+		return this.network;
+	}
+
+	int getNumberOfNodes() {
+		return this.nodes.length;
+	}
+
+	int getNumberOfEdges() {
+		return this.edgeTarget.length;
+	}
+
+	Node getNode(final int rank) {
+		return this.nodes[rank];
+	}
+
+	/**
+	 * @return the rank of the node, or -1 if it is not part of the network
+	 */
+	int getRank(final Node node) {
+		int index = node.getId().index();
+		if (index >= this.rankByIdIndex.length) {
+			return -1;
+		}
+		int rank = this.rankByIdIndex[index];
+		return rank >= 0 && this.nodes[rank] == node ? rank : -1;
+	}
+
+	/** the first edge of the node; the edges of a node are sorted by their target */
+	int getEdgeStart(final int rank) {
+		return this.edgeStart[rank];
+	}
+
+	int getEdgeEnd(final int rank) {
+		return this.edgeStart[rank + 1];
+	}
+
+	/** the higher-ranked node of the edge */
+	int getEdgeTarget(final int edge) {
+		return this.edgeTarget[edge];
+	}
+
+	/** the lowest-ranked higher neighbour of the node in the contracted graph, or -1 */
+	int getParent(final int rank) {
+		return this.parent[rank];
+	}
+
+	/**
+	 * @return the edge between the two nodes, which always exists if both are higher-ranked neighbours of a third one
+	 */
+	int findEdge(final int lower, final int higher) {
+		int edge = Arrays.binarySearch(this.edgeTarget, this.edgeStart[lower], this.edgeStart[lower + 1], higher);
+		if (edge < 0) {
+			throw new IllegalStateException("There is no edge from rank " + lower + " to rank " + higher + ".");
+		}
+		return edge;
+	}
+
+	int getNumberOfLinks() {
+		return this.links.length;
+	}
+
+	Link getLink(final int index) {
+		return this.links[index];
+	}
+
+	/** the edge the link belongs to, or -1 for loops */
+	int getLinkEdge(final int index) {
+		return this.linkEdge[index];
+	}
+
+	/** whether the link leads from the lower- to the higher-ranked node of its edge */
+	boolean isLinkUpward(final int index) {
+		return this.linkUpward[index];
+	}
+
+}
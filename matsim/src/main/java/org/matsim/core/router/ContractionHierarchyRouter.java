@@ -0,0 +1,333 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * ContractionHierarchyRouter.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2020 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.router;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.log4j.Logger;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.core.router.util.LeastCostPathCalculator;
+import org.matsim.core.router.util.TravelDisutility;
+import org.matsim.core.router.util.TravelTime;
+import org.matsim.vehicles.Vehicle;
+
+/**
+ * Calculates least cost paths on a {@link ContractionHierarchy}.
+ * <p></p>
+ * The weights of the hierarchy are customized per time bin: all links are weighted with their travel disutility at
+ * the start of the bin, and the weights of the shortcuts are derived from them.  This is done lazily, when a bin is
+ * used for the first time, and takes about as long as a few Dijkstra queries.  A query then only searches the nodes
+ * above the start and end node in the hierarchy, and the resulting path is unpacked to the links it consists of.
+ * <p></p>
+ * Unlike {@link Dijkstra}, the costs are not evaluated at the time a link is entered, but for the whole path with the
+ * weights of the time bin of the departure.  Travel time and cost of the returned path are however calculated
+ * exactly along it.  The weights are customized without person and vehicle, so the travel disutility must not depend
+ * on them.
+ * <p></p>
+ * This class is not thread-safe.  The customized weights are read-only and shared by all routers that the
+ * {@link ContractionHierarchyRouterFactory} creates for the same network, travel time and type of travel disutility,
+ * so each bin is customized only once, not once per thread.  They are discarded when the travel times change, see
+ * {@link ContractionHierarchyRouterFactory#reset()}.
+ */
+public final class ContractionHierarchyRouter implements LeastCostPathCalculator {
+
+	private static final Logger log = Logger.getLogger(ContractionHierarchyRouter.class);
+
+	private final ContractionHierarchy hierarchy;
+	private final TravelDisutility travelCosts;
+	private final TravelTime travelTimes;
+	private final double timeBinSize;
+	private final SharedWeights sharedWeights;
+
+	private final double[] forwardCost;
+	private final double[] backwardCost;
+	private final int[] forwardEdge;
+	private final int[] backwardEdge;
+	private final int[] forwardNode;
+	private final int[] backwardNode;
+
+	/**
+	 * The weights of both directions of every edge, and how they are achieved: either by a link, stored as
+	 * <code>-(index + 1)</code>, or by a shortcut via the stored node.
+	 */
+	private static final class Weights {
+		final double[] upward;
+		final double[] downward;
+		final int[] upwardVia;
+		final int[] downwardVia;
+
+		Weights(final int edges) {
+			this.upward = new double[edges];
+			this.downward = new double[edges];
+			this.upwardVia = new int[edges];
+			this.downwardVia = new int[edges];
+			Arrays.fill(this.upward, Double.POSITIVE_INFINITY);
+			Arrays.fill(this.downward, Double.POSITIVE_INFINITY);
+		}
+	}
+
+	/**
+	 * The customized weights per time bin, shared by several routers.  Each bin is customized by the first router that
+	 * needs it; the others wait for it instead of customizing it again.
+	 */
+	static final class SharedWeights {
+		private final ConcurrentMap<Integer, Weights> weightsByBin = new ConcurrentHashMap<>();
+
+		void clear() {
+			this.weightsByBin.clear();
+		}
+	}
+
+	ContractionHierarchyRouter(final ContractionHierarchy hierarchy, final TravelDisutility travelCosts,
+			final TravelTime travelTimes, final double timeBinSize, final SharedWeights sharedWeights) {
+		this.hierarchy = hierarchy;
+		this.travelCosts = travelCosts;
+		this.travelTimes = travelTimes;
+		this.timeBinSize = timeBinSize;
+		this.sharedWeights = sharedWeights;
+		int n = hierarchy.getNumberOfNodes();
+		this.forwardCost = new double[n];
+		this.backwardCost = new double[n];
+		Arrays.fill(this.forwardCost, Double.POSITIVE_INFINITY);
+		Arrays.fill(this.backwardCost, Double.POSITIVE_INFINITY);
+		this.forwardEdge = new int[n];
+		this.backwardEdge = new int[n];
+		this.forwardNode = new int[n];
+		this.backwardNode = new int[n];
+	}
+
+	private Weights getWeights(final double time) {
+		int bin = Math.max(0, (int) (time / this.timeBinSize));
+		return this.sharedWeights.weightsByBin.computeIfAbsent(bin, b -> customize(b * this.timeBinSize));
+	}
+
+	private Weights customize(final double time) {
+		ContractionHierarchy ch = this.hierarchy;
+		Weights weights = new Weights(ch.getNumberOfEdges());
+		for (int l = 0; l < ch.getNumberOfLinks(); l++) {
+			int edge = ch.getLinkEdge(l);
+			if (edge < 0) {
+				continue;
+			}
+			double cost = this.travelCosts.getLinkTravelDisutility(ch.getLink(l), time, null, null);
+			if (ch.isLinkUpward(l)) {
+				if (cost < weights.upward[edge]) {
+					weights.upward[edge] = cost;
+					weights.upwardVia[edge] = -(l + 1);
+				}
+			} else if (cost < weights.downward[edge]) {
+				weights.downward[edge] = cost;
+				weights.downwardVia[edge] = -(l + 1);
+			}
+		}
+
+		// the edges from a node are final once all lower nodes are processed, and then improve the edges between its
+		// higher neighbours.  The targets are sorted, so the edges between them can be found by merging.
+		for (int v = 0; v < ch.getNumberOfNodes(); v++) {
+			int end = ch.getEdgeEnd(v);
+			for (int i = ch.getEdgeStart(v); i < end; i++) {
+				int a = ch.getEdgeTarget(i);
+				int edge = ch.getEdgeStart(a);
+				for (int j = i + 1; j < end; j++) {
+					int b = ch.getEdgeTarget(j);
+					while (ch.getEdgeTarget(edge) != b) {
+						edge++;
+					}
+					double cost = weights.downward[i] + weights.upward[j];
+					if (cost < weights.upward[edge]) {
+						weights.upward[edge] = cost;
+						weights.upwardVia[edge] = v;
+					}
+					cost = weights.downward[j] + weights.upward[i];
+					if (cost < weights.downward[edge]) {
+						weights.downward[edge] = cost;
+						weights.downwardVia[edge] = v;
+					}
+				}
+			}
+		}
+		return weights;
+	}
+
+	@Override
+	public Path calcLeastCostPath(final Node fromNode, final Node toNode, final double starttime, final Person person, final Vehicle vehicle) {
+		int from = this.hierarchy.getRank(fromNode);
+		int to = this.hierarchy.getRank(toNode);
+		if (from < 0 || to < 0) {
+			throw new IllegalArgumentException("The nodes passed as parameters are not part of the network stored by "+
+					getClass().getSimpleName() + ": the validity of the results cannot be guaranteed. Aborting!");
+		}
+		if (from == to) {
+			List<Node> nodes = new ArrayList<>(1);
+			nodes.add(fromNode);
+			return new Path(nodes, new ArrayList<>(0), 0.0, 0.0);
+		}
+
+		Weights weights = getWeights(starttime);
+		int meetingNode = search(from, to, weights);
+		if (meetingNode < 0) {
+			reset(from, to);
+			log.warn("No route was found from node " + fromNode.getId() + " to node " + toNode.getId() + ". Some possible reasons:");
+			log.warn("  * Network is not connected.  Run NetworkCleaner().") ;
+			log.warn("  * Network for considered mode does not even exist.  Modes need to be entered for each link in network.xml.");
+			log.warn("  * Network for considered mode is not connected to starting or ending point of route.  Setting insertingAccessEgressWalk to true may help.");
+			log.warn("This will now return null, but it may fail later with a null pointer exception.");
+			return null;
+		}
+
+		List<Link> links = new ArrayList<>();
+		List<Integer> upwardNodes = new ArrayList<>();
+		for (int node = meetingNode; node != from; node = this.forwardNode[node]) {
+			upwardNodes.add(node);
+		}
+		for (int i = upwardNodes.size() - 1; i >= 0; i--) {
+			int node = upwardNodes.get(i);
+			unpackUpward(this.forwardEdge[node], this.forwardNode[node], node, weights, links);
+		}
+		for (int node = meetingNode; node != to; node = this.backwardNode[node]) {
+			int lower = this.backwardNode[node];
+			unpackDownward(this.backwardEdge[node], lower, node, weights, links);
+		}
+		reset(from, to);
+
+		List<Node> nodes = new ArrayList<>(links.size() + 1);
+		nodes.add(fromNode);
+		double time = starttime;
+		double cost = 0.0;
+		for (Link link : links) {
+			nodes.add(link.getToNode());
+			cost += this.travelCosts.getLinkTravelDisutility(link, time, person, vehicle);
+			time += this.travelTimes.getLinkTravelTime(link, time, person, vehicle);
+		}
+		return new Path(nodes, links, time - starttime, cost);
+	}
+
+	/**
+	 * Searches upwards from both nodes along the elimination tree, which contains all nodes reachable upwards from a
+	 * node, in the order of their rank.
+	 *
+	 * @return the node on the least cost path with the highest rank, or -1 if there is no path
+	 */
+	private int search(final int from, final int to, final Weights weights) {
+		this.forwardCost[from] = 0.0;
+		this.backwardCost[to] = 0.0;
+		int x = from;
+		int y = to;
+		while (x != y) {
+			if (x >= 0 && (y < 0 || x < y)) {
+				relaxForward(x, weights);
+				x = this.hierarchy.getParent(x);
+			} else {
+				relaxBackward(y, weights);
+				y = this.hierarchy.getParent(y);
+			}
+		}
+		double bestCost = Double.POSITIVE_INFINITY;
+		int meetingNode = -1;
+		for (int node = x; node >= 0; node = this.hierarchy.getParent(node)) {
+			relaxForward(node, weights);
+			relaxBackward(node, weights);
+			double cost = this.forwardCost[node] + this.backwardCost[node];
+			if (cost < bestCost) {
+				bestCost = cost;
+				meetingNode = node;
+			}
+		}
+		return meetingNode;
+	}
+
+	private void relaxForward(final int node, final Weights weights) {
+		double cost = this.forwardCost[node];
+		if (cost == Double.POSITIVE_INFINITY) {
+			return;
+		}
+		int end = this.hierarchy.getEdgeEnd(node);
+		for (int edge = this.hierarchy.getEdgeStart(node); edge < end; edge++) {
+			int target = this.hierarchy.getEdgeTarget(edge);
+			double targetCost = cost + weights.upward[edge];
+			if (targetCost < this.forwardCost[target]) {
+				this.forwardCost[target] = targetCost;
+				this.forwardEdge[target] = edge;
+				this.forwardNode[target] = node;
+			}
+		}
+	}
+
+	private void relaxBackward(final int node, final Weights weights) {
+		double cost = this.backwardCost[node];
+		if (cost == Double.POSITIVE_INFINITY) {
+			return;
+		}
+		int end = this.hierarchy.getEdgeEnd(node);
+		for (int edge = this.hierarchy.getEdgeStart(node); edge < end; edge++) {
+			int target = this.hierarchy.getEdgeTarget(edge);
+			double targetCost = cost + weights.downward[edge];
+			if (targetCost < this.backwardCost[target]) {
+				this.backwardCost[target] = targetCost;
+				this.backwardEdge[target] = edge;
+				this.backwardNode[target] = node;
+			}
+		}
+	}
+
+	/**
+	 * All nodes touched by a search are above the start or end node in the elimination tree.
+	 */
+	private void reset(final int from, final int to) {
+		for (int node = from; node >= 0; node = this.hierarchy.getParent(node)) {
+			this.forwardCost[node] = Double.POSITIVE_INFINITY;
+			this.backwardCost[node] = Double.POSITIVE_INFINITY;
+		}
+		for (int node = to; node >= 0; node = this.hierarchy.getParent(node)) {
+			this.forwardCost[node] = Double.POSITIVE_INFINITY;
+			this.backwardCost[node] = Double.POSITIVE_INFINITY;
+		}
+	}
+
+	/** adds the links from the lower to the higher node of the edge */
+	private void unpackUpward(final int edge, final int lower, final int higher, final Weights weights, final List<Link> links) {
+		int via = weights.upwardVia[edge];
+		if (via < 0) {
+			links.add(this.hierarchy.getLink(-via - 1));
+		} else {
+			unpackDownward(this.hierarchy.findEdge(via, lower), via, lower, weights, links);
+			unpackUpward(this.hierarchy.findEdge(via, higher), via, higher, weights, links);
+		}
+	}
+
+	/** adds the links from the higher to the lower node of the edge */
+	private void unpackDownward(final int edge, final int lower, final int higher, final Weights weights, final List<Link> links) {
+		int via = weights.downwardVia[edge];
+		if (via < 0) {
+			links.add(this.hierarchy.getLink(-via - 1));
+		} else {
+			unpackDownward(this.hierarchy.findEdge(via, higher), via, higher, weights, links);
+			unpackUpward(this.hierarchy.findEdge(via, lower), via, lower, weights, links);
+		}
+	}
+
+}
@@ -0,0 +1,98 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * ContractionHierarchyRouterFactory.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2020 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.router;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.core.config.groups.TravelTimeCalculatorConfigGroup;
+import org.matsim.core.controler.events.IterationStartsEvent;
+import org.matsim.core.controler.listener.IterationStartsListener;
+import org.matsim.core.router.ContractionHierarchyRouter.SharedWeights;
+import org.matsim.core.router.util.LeastCostPathCalculator;
+import org.matsim.core.router.util.LeastCostPathCalculatorFactory;
+import org.matsim.core.router.util.TravelDisutility;
+import org.matsim.core.router.util.TravelTime;
+
+/**
+ * Creates {@link ContractionHierarchyRouter}s.  The contraction hierarchy of a network is computed once and shared by
+ * all routers.  Its weights are customized with the travel disutility per time bin, and shared by all routers for the
+ * same network, travel time and travel disutility instance.  The weights of a travel disutility are discarded once it
+ * is no longer used.
+ * <p></p>
+ * The customized weights are only valid as long as the travel times do not change.  In the controler, they are
+ * discarded at the start of every iteration; otherwise, {@link #reset()} has to be called after the travel times
+ * changed.
+ */
+@Singleton
+public class ContractionHierarchyRouterFactory implements LeastCostPathCalculatorFactory, IterationStartsListener {
+
+	private final Map<Network, ContractionHierarchy> hierarchies = new HashMap<>();
+	private final Map<TravelDisutility, Map<List<Object>, SharedWeights>> sharedWeights = new WeakHashMap<>();
+	private final double timeBinSize;
+
+	@Inject
+	public ContractionHierarchyRouterFactory(final TravelTimeCalculatorConfigGroup travelTimeCalculatorConfigGroup) {
+		this(travelTimeCalculatorConfigGroup.getTraveltimeBinSize());
+	}
+
+	/**
+	 * @param timeBinSize the duration for which the same travel disutilities are used, in seconds
+	 */
+	public ContractionHierarchyRouterFactory(final double timeBinSize) {
+		this.timeBinSize = timeBinSize;
+	}
+
+	@Override
+	public LeastCostPathCalculator createPathCalculator(final Network network, final TravelDisutility travelCosts,
+			final TravelTime travelTimes) {
+		ContractionHierarchy hierarchy;
+		SharedWeights weights;
+		synchronized (this.hierarchies) {
+			hierarchy = this.hierarchies.computeIfAbsent(network, ContractionHierarchy::new);
+			weights = this.sharedWeights.computeIfAbsent(travelCosts, key -> new HashMap<>())
+					.computeIfAbsent(Arrays.asList(network, travelTimes), key -> new SharedWeights());
+		}
+		return new ContractionHierarchyRouter(hierarchy, travelCosts, travelTimes, this.timeBinSize, weights);
+	}
+
+	/**
+	 * Discards the customized weights of all routers, so they are customized again with the current travel times.
+	 */
+	public void reset() {
+		synchronized (this.hierarchies) {
+			this.sharedWeights.values().forEach(weights -> weights.values().forEach(SharedWeights::clear));
+		}
+	}
+
+	@Override
+	public void notifyIterationStarts(final IterationStartsEvent event) {
+		reset();
+	}
+
+}
@@ -605,6 +605,10 @@ import java.util.Set;
 		return this.preProcessData.getNodeData(n);
 	}
 
+	/*package*/ PreProcessDijkstra getPreProcessDijkstra() {
+		return this.preProcessData;
+	}
+
 	protected final Person getPerson() {
 		return this.person;
 	}
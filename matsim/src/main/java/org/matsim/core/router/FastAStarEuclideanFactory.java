@@ -29,8 +29,6 @@ import org.matsim.core.router.util.LeastCostPathCalculator;
 import org.matsim.core.router.util.LeastCostPathCalculatorFactory;
 import org.matsim.core.router.util.PreProcessEuclidean;
 import org.matsim.core.router.util.RoutingNetwork;
-import org.matsim.core.router.util.RoutingNetworkFactory;
-import org.matsim.core.router.util.RoutingNetworkNode;
 import org.matsim.core.router.util.TravelDisutility;
 import org.matsim.core.router.util.TravelTime;
 
@@ -39,8 +37,6 @@ import org.matsim.core.router.util.TravelTime;
  */
 public class FastAStarEuclideanFactory implements LeastCostPathCalculatorFactory {
 
-	private final RoutingNetworkFactory routingNetworkFactory;
-	private final Map<Network, RoutingNetwork> routingNetworks = new HashMap<>();
 	private final Map<Network, PreProcessEuclidean> preProcessData = new HashMap<>();
 	private final double overdoFactor;
 
@@ -56,7 +52,6 @@ public class FastAStarEuclideanFactory implements LeastCostPathCalculatorFactory
 		this.overdoFactor = overdoFactor;
 		switch (fastRouterType) {
 			case ARRAY:
-				this.routingNetworkFactory = new ArrayRoutingNetworkFactory();
 				break;
 			case POINTER:
 				throw new RuntimeException(
@@ -69,21 +64,13 @@ public class FastAStarEuclideanFactory implements LeastCostPathCalculatorFactory
 	@Override
 	public synchronized LeastCostPathCalculator createPathCalculator(final Network network,
 			final TravelDisutility travelCosts, final TravelTime travelTimes) {
-		RoutingNetwork routingNetwork = this.routingNetworks.get(network);
+		RoutingNetwork routingNetwork = ArrayRoutingNetworkFactory.getSharedRoutingNetwork(network);
 		PreProcessEuclidean preProcessEuclidean = this.preProcessData.get(network);
 
-		if (routingNetwork == null) {
-			routingNetwork = this.routingNetworkFactory.createRoutingNetwork(network);
-
+		if (preProcessEuclidean == null) {
 			preProcessEuclidean = new PreProcessEuclidean(travelCosts);
 			preProcessEuclidean.run(network);
 			this.preProcessData.put(network, preProcessEuclidean);
-
-			for (RoutingNetworkNode node : routingNetwork.getNodes().values()) {
-				node.setDeadEndData(preProcessEuclidean.getNodeData(node.getNode()));
-			}
-
-			this.routingNetworks.put(network, routingNetwork);
 		}
 		FastRouterDelegateFactory fastRouterFactory = new ArrayFastRouterDelegateFactory();
 
@@ -27,14 +27,13 @@ import javax.inject.Inject;
 import javax.inject.Singleton;
 
 import org.matsim.api.core.v01.network.Network;
+import org.matsim.core.config.groups.ControlerConfigGroup;
 import org.matsim.core.config.groups.GlobalConfigGroup;
 import org.matsim.core.router.util.ArrayRoutingNetworkFactory;
 import org.matsim.core.router.util.LeastCostPathCalculator;
 import org.matsim.core.router.util.LeastCostPathCalculatorFactory;
 import org.matsim.core.router.util.PreProcessLandmarks;
 import org.matsim.core.router.util.RoutingNetwork;
-import org.matsim.core.router.util.RoutingNetworkFactory;
-import org.matsim.core.router.util.RoutingNetworkNode;
 import org.matsim.core.router.util.TravelDisutility;
 import org.matsim.core.router.util.TravelTime;
 
@@ -44,13 +43,17 @@ import org.matsim.core.router.util.TravelTime;
 @Singleton
 public class FastAStarLandmarksFactory implements LeastCostPathCalculatorFactory {
 
-	private final RoutingNetworkFactory routingNetworkFactory;
-	private final Map<Network, RoutingNetwork> routingNetworks = new HashMap<>();
 	private final Map<Network, PreProcessLandmarks> preProcessData = new HashMap<>();
 
 	private final int nThreads;
+	private String cacheDirectory = null;
 
 	@Inject
+	public FastAStarLandmarksFactory(final GlobalConfigGroup globalConfigGroup, final ControlerConfigGroup controlerConfigGroup) {
+		this(globalConfigGroup);
+		this.cacheDirectory = controlerConfigGroup.getLandmarksCacheDirectory();
+	}
+
 	public FastAStarLandmarksFactory(final GlobalConfigGroup globalConfigGroup) {
 		this(FastRouterType.ARRAY, globalConfigGroup.getNumberOfThreads());
 	}
@@ -63,7 +66,6 @@ public class FastAStarLandmarksFactory implements LeastCostPathCalculatorFactory
 	private FastAStarLandmarksFactory(final FastRouterType fastRouterType, int numberOfThreads) {
 		switch (fastRouterType) {
 			case ARRAY:
-				this.routingNetworkFactory = new ArrayRoutingNetworkFactory();
 				break;
 			case POINTER:
 				throw new RuntimeException(
@@ -78,22 +80,15 @@ public class FastAStarLandmarksFactory implements LeastCostPathCalculatorFactory
 	@Override
 	public synchronized LeastCostPathCalculator createPathCalculator(final Network network,
 			final TravelDisutility travelCosts, final TravelTime travelTimes) {
-		RoutingNetwork routingNetwork = this.routingNetworks.get(network);
+		RoutingNetwork routingNetwork = ArrayRoutingNetworkFactory.getSharedRoutingNetwork(network);
 		PreProcessLandmarks preProcessLandmarks = this.preProcessData.get(network);
 
-		if (routingNetwork == null) {
-			routingNetwork = this.routingNetworkFactory.createRoutingNetwork(network);
-
+		if (preProcessLandmarks == null) {
 			preProcessLandmarks = new PreProcessLandmarks(travelCosts);
 			preProcessLandmarks.setNumberOfThreads(nThreads);
+			preProcessLandmarks.setCacheDirectory(cacheDirectory);
 			preProcessLandmarks.run(network);
 			this.preProcessData.put(network, preProcessLandmarks);
-
-			for (RoutingNetworkNode node : routingNetwork.getNodes().values()) {
-				node.setDeadEndData(preProcessLandmarks.getNodeData(node.getNode()));
-			}
-
-			this.routingNetworks.put(network, routingNetwork);
 		}
 		FastRouterDelegateFactory fastRouterFactory = new ArrayFastRouterDelegateFactory();
 
@@ -32,8 +32,6 @@ import org.matsim.core.router.util.LeastCostPathCalculator;
 import org.matsim.core.router.util.LeastCostPathCalculatorFactory;
 import org.matsim.core.router.util.PreProcessDijkstra;
 import org.matsim.core.router.util.RoutingNetwork;
-import org.matsim.core.router.util.RoutingNetworkFactory;
-import org.matsim.core.router.util.RoutingNetworkNode;
 import org.matsim.core.router.util.TravelDisutility;
 import org.matsim.core.router.util.TravelTime;
 
@@ -41,8 +39,6 @@ import org.matsim.core.router.util.TravelTime;
 public class FastDijkstraFactory implements LeastCostPathCalculatorFactory {
 
 	private final boolean usePreProcessData;
-	private final RoutingNetworkFactory routingNetworkFactory;
-	private final Map<Network, RoutingNetwork> routingNetworks = new HashMap<>();
 	private final Map<Network, PreProcessDijkstra> preProcessData = new HashMap<>();
 
 	@Inject
@@ -59,7 +55,6 @@ public class FastDijkstraFactory implements LeastCostPathCalculatorFactory {
 
 		switch (fastRouterType) {
 			case ARRAY:
-				this.routingNetworkFactory = new ArrayRoutingNetworkFactory();
 				break;
 			case POINTER:
 				throw new RuntimeException("PointerRoutingNetworks are no longer supported. "
@@ -72,23 +67,13 @@ public class FastDijkstraFactory implements LeastCostPathCalculatorFactory {
 	@Override
 	public synchronized LeastCostPathCalculator createPathCalculator(final Network network,
 			final TravelDisutility travelCosts, final TravelTime travelTimes) {
-		RoutingNetwork routingNetwork = this.routingNetworks.get(network);
+		RoutingNetwork routingNetwork = ArrayRoutingNetworkFactory.getSharedRoutingNetwork(network);
 		PreProcessDijkstra preProcessDijkstra = this.preProcessData.get(network);
 
-		if (routingNetwork == null) {
-			routingNetwork = this.routingNetworkFactory.createRoutingNetwork(network);
-
-			if (this.usePreProcessData) {
-				preProcessDijkstra = new PreProcessDijkstra();
-				preProcessDijkstra.run(network);
-				this.preProcessData.put(network, preProcessDijkstra);
-
-				for (RoutingNetworkNode node : routingNetwork.getNodes().values()) {
-					node.setDeadEndData(preProcessDijkstra.getNodeData(node.getNode()));
-				}
-			}
-
-			this.routingNetworks.put(network, routingNetwork);
+		if (this.usePreProcessData && preProcessDijkstra == null) {
+			preProcessDijkstra = new PreProcessDijkstra();
+			preProcessDijkstra.run(network);
+			this.preProcessData.put(network, preProcessDijkstra);
 		}
 		FastRouterDelegateFactory fastRouterFactory = new ArrayFastRouterDelegateFactory();
 
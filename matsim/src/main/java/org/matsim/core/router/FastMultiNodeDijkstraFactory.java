@@ -29,8 +29,6 @@ import org.matsim.core.router.util.LeastCostPathCalculator;
 import org.matsim.core.router.util.LeastCostPathCalculatorFactory;
 import org.matsim.core.router.util.PreProcessDijkstra;
 import org.matsim.core.router.util.RoutingNetwork;
-import org.matsim.core.router.util.RoutingNetworkFactory;
-import org.matsim.core.router.util.RoutingNetworkNode;
 import org.matsim.core.router.util.TravelDisutility;
 import org.matsim.core.router.util.TravelTime;
 
@@ -38,8 +36,6 @@ public class FastMultiNodeDijkstraFactory implements LeastCostPathCalculatorFact
 
 	private final boolean searchAllEndNodes;
 	private final boolean usePreProcessData;
-	private final RoutingNetworkFactory routingNetworkFactory;
-	private final Map<Network, RoutingNetwork> routingNetworks = new HashMap<>();
 	private final Map<Network, PreProcessDijkstra> preProcessData = new HashMap<>();
 
 	public FastMultiNodeDijkstraFactory() {
@@ -53,30 +49,19 @@ public class FastMultiNodeDijkstraFactory implements LeastCostPathCalculatorFact
 	public FastMultiNodeDijkstraFactory(final boolean usePreProcessData, final boolean searchAllEndNodes) {
 		this.usePreProcessData = usePreProcessData;
 		this.searchAllEndNodes = searchAllEndNodes;
-		this.routingNetworkFactory = new ArrayRoutingNetworkFactory();
 	}
 
 	@Override
 	public synchronized LeastCostPathCalculator createPathCalculator(final Network network,
 			final TravelDisutility travelCosts, final TravelTime travelTimes) {
 
-		RoutingNetwork routingNetwork = this.routingNetworks.get(network);
+		RoutingNetwork routingNetwork = ArrayRoutingNetworkFactory.getSharedRoutingNetwork(network);
 		PreProcessDijkstra preProcessDijkstra = this.preProcessData.get(network);
 
-		if (routingNetwork == null) {
-			routingNetwork = this.routingNetworkFactory.createRoutingNetwork(network);
-
-			if (this.usePreProcessData) {
-				preProcessDijkstra = new PreProcessDijkstra();
-				preProcessDijkstra.run(network);
-				this.preProcessData.put(network, preProcessDijkstra);
-
-				for (RoutingNetworkNode node : routingNetwork.getNodes().values()) {
-					node.setDeadEndData(preProcessDijkstra.getNodeData(node.getNode()));
-				}
-			}
-
-			this.routingNetworks.put(network, routingNetwork);
+		if (this.usePreProcessData && preProcessDijkstra == null) {
+			preProcessDijkstra = new PreProcessDijkstra();
+			preProcessDijkstra.run(network);
+			this.preProcessData.put(network, preProcessDijkstra);
 		}
 		FastRouterDelegateFactory fastRouterFactory = new ArrayFastRouterDelegateFactory();
 
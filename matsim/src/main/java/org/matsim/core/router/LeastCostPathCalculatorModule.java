@@ -44,6 +44,9 @@ public class LeastCostPathCalculatorModule extends AbstractModule {
             bind(LeastCostPathCalculatorFactory.class).to(FastDijkstraFactory.class);
         } else if (config.controler().getRoutingAlgorithmType().equals(ControlerConfigGroup.RoutingAlgorithmType.FastAStarLandmarks)) {
             bind(LeastCostPathCalculatorFactory.class).to(FastAStarLandmarksFactory.class);
+        } else if (config.controler().getRoutingAlgorithmType().equals(ControlerConfigGroup.RoutingAlgorithmType.ContractionHierarchies)) {
+            bind(LeastCostPathCalculatorFactory.class).to(ContractionHierarchyRouterFactory.class);
+            addControlerListenerBinding().to(ContractionHierarchyRouterFactory.class);
         }
     }
 
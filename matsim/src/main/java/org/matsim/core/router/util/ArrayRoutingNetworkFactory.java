@@ -20,8 +20,10 @@
 
 package org.matsim.core.router.util;
 
+import java.lang.ref.WeakReference;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.WeakHashMap;
 
 import org.apache.log4j.Logger;
 import org.matsim.api.core.v01.Id;
@@ -29,14 +31,56 @@ import org.matsim.api.core.v01.network.Link;
 import org.matsim.api.core.v01.network.Network;
 import org.matsim.api.core.v01.network.Node;
 import org.matsim.core.network.LinkFactory;
+import org.matsim.core.network.NetworkUtils;
 
 public class ArrayRoutingNetworkFactory extends AbstractRoutingNetworkFactory {
 	
 	private final static Logger log = Logger.getLogger(ArrayRoutingNetworkFactory.class);
+
+	private final static Map<Network, SharedRoutingNetwork> sharedRoutingNetworks = new WeakHashMap<>();
+
+	/**
+	 * The routing network is only referenced weakly, because it references the network, i.e. the key of the map.
+	 */
+	private static final class SharedRoutingNetwork {
+		private final WeakReference<ArrayRoutingNetwork> routingNetwork;
+		private final int modificationCount;
+
+		private SharedRoutingNetwork(final ArrayRoutingNetwork routingNetwork, final int modificationCount) {
+			this.routingNetwork = new WeakReference<>(routingNetwork);
+			this.modificationCount = modificationCount;
+		}
+	}
 	
 	private int nodeArrayIndexCounter;
 	private int linkArrayIndexCounter;
 
+	/**
+	 * Returns the routing network of the given network that is shared by all routers, in all threads.
+	 * It is only created once and kept as long as a router uses it. It must not be modified, i.e.
+	 * the routers keep their preprocessing data themselves and do not set it in the nodes.
+	 * <p>
+	 * When nodes or links have been added to or removed from the network since, a new routing network
+	 * is created; routers created before keep using the old one. Networks that do not keep track of
+	 * their modifications (see {@link NetworkUtils#getModificationCount(Network)}) are not shared.
+	 */
+	public static ArrayRoutingNetwork getSharedRoutingNetwork(final Network network) {
+		int modificationCount = NetworkUtils.getModificationCount(network);
+		if (modificationCount < 0) {
+			return new ArrayRoutingNetworkFactory().createRoutingNetwork(network);
+		}
+		synchronized (sharedRoutingNetworks) {
+			SharedRoutingNetwork shared = sharedRoutingNetworks.get(network);
+			ArrayRoutingNetwork routingNetwork = shared == null || shared.modificationCount != modificationCount ? null
+					: shared.routingNetwork.get();
+			if (routingNetwork == null) {
+				routingNetwork = new ArrayRoutingNetworkFactory().createRoutingNetwork(network);
+				sharedRoutingNetworks.put(network, new SharedRoutingNetwork(routingNetwork, modificationCount));
+			}
+			return routingNetwork;
+		}
+	}
+
 	@Override
 	public synchronized ArrayRoutingNetwork createRoutingNetwork(final Network network) {
 		this.nodeArrayIndexCounter = 0;
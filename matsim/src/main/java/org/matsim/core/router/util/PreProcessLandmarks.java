@@ -27,6 +27,17 @@ import org.matsim.api.core.v01.network.Node;
 import org.matsim.core.api.internal.MatsimComparator;
 
 import java.awt.geom.Rectangle2D;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Comparator;
 import java.util.Map;
 import java.util.PriorityQueue;
@@ -40,6 +51,10 @@ import java.util.concurrent.TimeUnit;
  * between a start and an end node. Specifically, designates some
  * nodes in the network that act as landmarks and computes the last-cost-path
  * from and to each node in the network to each of the landmarks.
+ * <p></p>
+ * The trees from and to the landmarks are calculated in parallel.  If a cache directory is set, the
+ * results are stored there and read again by later runs on the same network with the same minimal
+ * travel disutilities, instead of calculating them again.
  *
  * @author lnicolas
  */
@@ -53,6 +68,10 @@ public class PreProcessLandmarks extends PreProcessEuclidean {
 	
 	private int numberOfThreads = 8;
 
+	private String cacheDirectory = null;
+
+	private static final int CACHE_FILE_VERSION = 1;
+
 	private static final Logger log = Logger.getLogger(PreProcessLandmarks.class);
 
 	public PreProcessLandmarks(final TravelDisutility costFunction) {
@@ -83,6 +102,16 @@ public class PreProcessLandmarks extends PreProcessEuclidean {
 		this.numberOfThreads = numberOfThreads;
 	}
 	
+	/**
+	 * Sets the directory in which the distances to/from landmarks are cached between runs.
+	 * Default is <code>null</code>, i.e. no caching.
+	 *
+	 * @param cacheDirectory
+	 */
+	public void setCacheDirectory(String cacheDirectory) {
+		this.cacheDirectory = cacheDirectory;
+	}
+
 	/**
 	 * @param costFunction
 	 * @param travelZone The area within which the landmarks should lie. Narrowing the zone where the landmarks should
@@ -118,21 +147,55 @@ public class PreProcessLandmarks extends PreProcessEuclidean {
 		for (Node node : network.getNodes().values()) {
 			this.nodeData.put(node, new LandmarksData(this.landmarkCount));
 		}
-		
+
+		File cacheFile = this.cacheDirectory == null ? null : new File(this.cacheDirectory, "landmarks_" + getCacheKey(network) + ".bin");
+		now = System.currentTimeMillis();
+		if (cacheFile != null && cacheFile.exists() && readCache(cacheFile, network)) {
+			log.info("Read distances from each node to each of the " + this.landmarkCount + " landmarks from " + cacheFile);
+		} else {
+			calculateLandmarkTravelTimes();
+			if (cacheFile != null) {
+				writeCache(cacheFile, network);
+			}
+		}
+
+		for (Node node : network.getNodes().values()) {
+			LandmarksData r = getNodeData(node);
+			r.updateMinMaxTravelTimes();
+		}
+
+		for (Node node : network.getNodes().values()) {
+			LandmarksData r = getNodeData(node);
+			for (int i = 0; i < this.landmarks.length; i++) {
+				if (r.getMinLandmarkTravelTime(i) > r.getMaxLandmarkTravelTime(i)) {
+					log.info("Min > max for node " + node.getId() + " and landmark " + i);
+				}
+			}
+		}
+
+		log.info("done in " + (System.currentTimeMillis() - now) + " ms");
+	}
+
+	private void calculateLandmarkTravelTimes() {
 		int nOfThreads = this.numberOfThreads;
-		if (nOfThreads > this.landmarks.length) {
-			nOfThreads = this.landmarks.length;
+		if (nOfThreads > 2 * this.landmarks.length) {
+			nOfThreads = 2 * this.landmarks.length;
 		}
 		if (nOfThreads < 2) {
 			nOfThreads = 2; // always use at least two threads
 		}
  		log.info("Calculating distance from each node to each of the " + this.landmarkCount + " landmarks using " + nOfThreads + " threads...");
-		now = System.currentTimeMillis();
 
-		
-		ExecutorService executor = Executors.newFixedThreadPool(nOfThreads);
+		ExecutorService executor = Executors.newFixedThreadPool(nOfThreads, runnable -> {
+			Thread thread = new Thread(runnable, "PreProcessLandmarks");
+			thread.setDaemon(true);
+			return thread;
+		});
+		// the trees from and to a landmark only write to different arrays, so they are calculated independently
 		for (int i = 0; i < this.landmarks.length; i++) {
-			executor.execute(new Calculator(i, this.landmarks[i], this.nodeData, this.costFunction));
+			Calculator calculator = new Calculator(i, this.landmarks[i], this.nodeData, this.costFunction);
+			executor.execute(calculator::expandLandmarkFrom);
+			executor.execute(calculator::expandLandmarkTo);
 		}
 		executor.shutdown();
 		while (!executor.isTerminated()) {
@@ -143,25 +206,83 @@ public class PreProcessLandmarks extends PreProcessEuclidean {
 				throw new RuntimeException(e);
 			}
 		}
+	}
 
-		for (Node node : network.getNodes().values()) {
-			LandmarksData r = getNodeData(node);
-			r.updateMinMaxTravelTimes();
+	/**
+	 * The key covers everything the landmark distances depend on: the nodes and links in their order,
+	 * the minimal travel disutility of every link, and the landmarks.
+	 */
+	private String getCacheKey(final Network network) {
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			for (Node node : network.getNodes().values()) {
+				digest.update(node.getId().toString().getBytes(StandardCharsets.UTF_8));
+				digest.update((byte) 0);
+			}
+			for (Link link : network.getLinks().values()) {
+				digest.update((link.getId() + "\0" + link.getFromNode().getId() + "\0" + link.getToNode().getId() + "\0"
+						+ Double.doubleToLongBits(this.costFunction.getLinkMinimumTravelDisutility(link)) + "\0").getBytes(StandardCharsets.UTF_8));
+			}
+			for (Node landmark : this.landmarks) {
+				digest.update(landmark.getId().toString().getBytes(StandardCharsets.UTF_8));
+				digest.update((byte) 0);
+			}
+			StringBuilder key = new StringBuilder();
+			for (byte b : digest.digest()) {
+				key.append(String.format("%02x", b));
+			}
+			return key.toString();
+		} catch (NoSuchAlgorithmException e) {
+			throw new RuntimeException(e);
 		}
+	}
 
-		for (Node node : network.getNodes().values()) {
-			LandmarksData r = getNodeData(node);
-			for (int i = 0; i < this.landmarks.length; i++) {
-				if (r.getMinLandmarkTravelTime(i) > r.getMaxLandmarkTravelTime(i)) {
-					log.info("Min > max for node " + node.getId() + " and landmark " + i);
+	private boolean readCache(final File cacheFile, final Network network) {
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(cacheFile.toPath())))) {
+			if (in.readInt() != CACHE_FILE_VERSION || in.readInt() != network.getNodes().size() || in.readInt() != this.landmarks.length) {
+				log.warn("Ignoring landmarks cache file " + cacheFile + " as it does not match the network.");
+				return false;
+			}
+			for (Node node : network.getNodes().values()) {
+				LandmarksData data = getNodeData(node);
+				for (int i = 0; i < this.landmarks.length; i++) {
+					data.setFromLandmarkTravelTime(i, in.readDouble());
+					data.setToLandmarkTravelTime(i, in.readDouble());
 				}
 			}
+			return true;
+		} catch (IOException e) {
+			log.warn("Could not read landmarks cache file " + cacheFile + ", calculating the landmarks again.", e);
+			return false;
 		}
+	}
 
-		log.info("done in " + (System.currentTimeMillis() - now) + " ms");
+	private void writeCache(final File cacheFile, final Network network) {
+		// written to a temporary file first, so that concurrent runs never read a partial file
+		File tmpFile = new File(cacheFile.getPath() + "." + Thread.currentThread().getId() + "." + System.nanoTime() + ".tmp");
+		try {
+			Files.createDirectories(cacheFile.getAbsoluteFile().getParentFile().toPath());
+			try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmpFile.toPath())))) {
+				out.writeInt(CACHE_FILE_VERSION);
+				out.writeInt(network.getNodes().size());
+				out.writeInt(this.landmarks.length);
+				for (Node node : network.getNodes().values()) {
+					LandmarksData data = getNodeData(node);
+					for (int i = 0; i < this.landmarks.length; i++) {
+						out.writeDouble(data.getFromLandmarkTravelTime(i));
+						out.writeDouble(data.getToLandmarkTravelTime(i));
+					}
+				}
+			}
+			Files.move(tmpFile.toPath(), cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			log.info("Wrote distances to landmarks to cache file " + cacheFile);
+		} catch (IOException e) {
+			log.warn("Could not write landmarks cache file " + cacheFile + ".", e);
+			tmpFile.delete();
+		}
 	}
 
-	private static class Calculator implements Runnable {
+	private static class Calculator {
 		
 		private final int landmarkIdx;
 		private final Node landmark;
@@ -174,18 +295,11 @@ public class PreProcessLandmarks extends PreProcessEuclidean {
 			this.nodeData = nodeData;
 			this.costFunction = costFunction;
 		}
-		
-		@Override
-		public void run() {
-			expandLandmarkFrom();
-			expandLandmarkTo();
-		}
 	
 		private void expandLandmarkFrom() {
 			LandmarksFromTravelTimeComparator comparator = new LandmarksFromTravelTimeComparator(this.nodeData, this.landmarkIdx);
 			PriorityQueue<Node> pendingNodes = new PriorityQueue<>(100, comparator);
 			LandmarksData role = (LandmarksData) this.nodeData.get(this.landmark);
-			role.setToLandmarkTravelTime(this.landmarkIdx, 0.0);
 			role.setFromLandmarkTravelTime(this.landmarkIdx, 0.0);
 			pendingNodes.add(this.landmark);
 			while (!pendingNodes.isEmpty()) {
@@ -211,7 +325,6 @@ public class PreProcessLandmarks extends PreProcessEuclidean {
 			PriorityQueue<Node> pendingNodes = new PriorityQueue<>(100, comparator);
 			LandmarksData role = (LandmarksData) this.nodeData.get(this.landmark);
 			role.setToLandmarkTravelTime(this.landmarkIdx, 0.0);
-			role.setFromLandmarkTravelTime(this.landmarkIdx, 0.0);
 			pendingNodes.add(this.landmark);
 			while (!pendingNodes.isEmpty()) {
 				Node node = pendingNodes.poll();
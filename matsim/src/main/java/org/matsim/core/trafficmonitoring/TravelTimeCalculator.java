@@ -22,6 +22,8 @@ package org.matsim.core.trafficmonitoring;
 import com.google.inject.Inject;
 import org.apache.log4j.Logger;
 import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.IdMap;
+import org.matsim.api.core.v01.IdSet;
 import org.matsim.api.core.v01.events.*;
 import org.matsim.api.core.v01.events.handler.*;
 import org.matsim.api.core.v01.network.Link;
@@ -40,7 +42,6 @@ import org.matsim.core.utils.collections.Tuple;
 import org.matsim.vehicles.Vehicle;
 import org.matsim.vehicles.VehicleType;
 
-import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
@@ -247,11 +248,11 @@ public final class TravelTimeCalculator implements LinkEnterEventHandler, LinkLe
 			// assume that every link has 2 outgoing links as default
 			this.linkToLinkData = new ConcurrentHashMap<>((int) (network.getLinks().size() * 1.4 * 2));
 		}
-		this.linkEnterEvents = new ConcurrentHashMap<>();
+		this.linkEnterEvents = new IdMap<>(Vehicle.class);
 
 		// if we just look at one mode, we need to ignore all vehicles with a different mode. However, the info re the mode is only in
 		// the vehicleEntersTraffic event.  So we need to memorize the ignored vehicles from there ...
-		this.vehiclesToIgnore = new HashSet<>();
+		this.vehiclesToIgnore = new IdSet<>(Vehicle.class);
 
 
 		this.reset(0);
@@ -122,6 +122,8 @@ final public class IOUtils {
 
 	private enum CompressionType { GZIP, LZ4, BZIP2, ZSTD }
 
+	private static volatile int compressionThreads = 1;
+
 	// Define compressions that can be used.
 	private static final Map<String, CompressionType> COMPRESSION_EXTENSIONS = new TreeMap<>();
 
@@ -213,6 +215,28 @@ final public class IOUtils {
 		}
 	}
 
+	/**
+	 * Sets the number of threads used to compress gzip and zstd files written by
+	 * {@link #getOutputStream(URL, boolean)}, and thus by all writers. With more
+	 * than one thread, gzip files are compressed in blocks in parallel (like
+	 * <code>pigz</code> does), and zstd files use its multi-threaded compression.
+	 * The default is 1, i.e. sequential compression.
+	 * <p>
+	 * This is a JVM-wide setting. The {@link org.matsim.core.controler.Controler}
+	 * sets it from <code>controler.compressionThreads</code> while it runs and
+	 * restores the previous value afterwards.
+	 */
+	public static void setCompressionThreads(int numberOfThreads) {
+		if (numberOfThreads < 1) {
+			throw new IllegalArgumentException("The number of compression threads must be at least 1, but is " + numberOfThreads);
+		}
+		compressionThreads = numberOfThreads;
+	}
+
+	public static int getCompressionThreads() {
+		return compressionThreads;
+	}
+
 	/**
 	 * Gets the compression of a certain URL by file extension. May return null if
 	 * not compression is assumed.
@@ -307,7 +331,11 @@ final public class IOUtils {
 			if (compression != null) {
 				switch (compression) {
 					case GZIP:
-						outputStream = new GZIPOutputStream(outputStream);
+						if (compressionThreads > 1) {
+							outputStream = new ParallelGZIPOutputStream(outputStream, compressionThreads);
+						} else {
+							outputStream = new GZIPOutputStream(outputStream);
+						}
 						break;
 					case LZ4:
 						outputStream = new LZ4BlockOutputStream(outputStream);
@@ -316,7 +344,11 @@ final public class IOUtils {
 						outputStream = new CompressorStreamFactory().createCompressorOutputStream(CompressorStreamFactory.BZIP2, outputStream);
 						break;
 					case ZSTD:
-						outputStream = new ZstdOutputStream(outputStream, 6);
+						ZstdOutputStream zstdOutputStream = new ZstdOutputStream(outputStream, 6);
+						if (compressionThreads > 1) {
+							zstdOutputStream.setWorkers(compressionThreads);
+						}
+						outputStream = zstdOutputStream;
 						break;
 				}
 			}
@@ -72,6 +72,11 @@ public abstract class MatsimXmlParser extends DefaultHandler implements MatsimRe
 	 */
 	private String theSource;
 
+	private int numberOfThreads = 1;
+	private int elementsPerChunk = 1000;
+	private XmlChunkDispatcher chunks = null;
+	private int chunkDepth = 0;
+
 	/**
 	 * Creates a validating XML-parser.
 	 */
@@ -133,6 +138,76 @@ public abstract class MatsimXmlParser extends DefaultHandler implements MatsimRe
 		this.localDtdBase = localDtdDirectory;
 	}
 
+	/**
+	 * Sets the number of threads used to parse runs of chunk elements (see {@link ParallelParser#isChunkElement(String)})
+	 * in parallel. With one thread, the default, or for parsers without chunk elements, everything is parsed on the
+	 * calling thread.  More than one thread can only be set for parsers that implement {@link ParallelParser}.
+	 * <p>
+	 * Parallel parsing is opt-in: Ids that are only referenced inside chunks (e.g. link, facility or vehicle Ids of
+	 * plans) may then be created on the parsing threads, so their indices, and thus the iteration order of
+	 * {@link org.matsim.api.core.v01.IdMap}s, are not reproducible between runs.
+	 *
+	 * @throws IllegalArgumentException if more than one thread is set for a parser that cannot parse in parallel
+	 */
+	public final void setNumberOfThreads(final int numberOfThreads) {
+		if (numberOfThreads > 1 && !(this instanceof ParallelParser)) {
+			throw new IllegalArgumentException(getClass().getName() + " does not support parsing in parallel.");
+		}
+		this.numberOfThreads = numberOfThreads;
+	}
+
+	/**
+	 * Sets how many chunk elements are parsed together by one thread when parsing in parallel.
+	 */
+	public final void setElementsPerChunk(final int elementsPerChunk) {
+		this.elementsPerChunk = elementsPerChunk;
+	}
+
+	/**
+	 * Implemented by parsers that can parse runs of independent elements in parallel, see
+	 * {@link MatsimXmlParser#setNumberOfThreads(int)}.
+	 */
+	public interface ParallelParser {
+
+		/**
+		 * Returns whether elements with the given name can be parsed independently of each other, e.g. the persons in
+		 * a plans-file.  When parsing with more than one thread, the tags of runs of such elements are collected in
+		 * chunks, which are then parsed in parallel by {@link ChunkParser}s created with {@link #createChunkParser()}.
+		 * All other tags are parsed by the parser itself, after all chunks before them are finished.
+		 */
+		boolean isChunkElement(String name);
+
+		/**
+		 * Called on the parsing thread for the opening tag of every chunk element, before the element is parsed by a
+		 * {@link ChunkParser}.  This is the place to create the ids of the parsed objects, so their indices do not
+		 * depend on the order in which the threads parse the chunks.
+		 */
+		default void startChunkElement(final String name, final Attributes atts) {
+		}
+
+		/**
+		 * Creates the parser for one chunk.  It is created on the parsing thread, so it can take over the current
+		 * state of the parser, e.g. a coordinate transformation.
+		 */
+		ChunkParser createChunkParser();
+
+	}
+
+	/**
+	 * Parses one chunk of elements, see {@link ParallelParser#isChunkElement(String)}.  The tags are passed to
+	 * {@link #startTag} and {@link #endTag} on some thread; the results must only be published in {@link #finish()},
+	 * which is called on the parsing thread, chunk by chunk in the order of the file.
+	 */
+	public interface ChunkParser {
+
+		void startTag(String name, Attributes atts, Stack<String> context);
+
+		void endTag(String name, String content, Stack<String> context);
+
+		void finish();
+
+	}
+
 	/**
 	 * Parses the specified file. The file can be gzip-compressed and is decompressed on-the-fly while parsing. A gzip-compressed
 	 * file must have the ending ".gz" to be correctly recognized. The passed filename may or may not contain the ending ".gz". If
@@ -143,14 +218,14 @@ public abstract class MatsimXmlParser extends DefaultHandler implements MatsimRe
 	 * @throws UncheckedIOException
 	 */
 	@Override
-	public final void readFile(final String filename) throws UncheckedIOException {
+	public void readFile(final String filename) throws UncheckedIOException {
 		log.info("starting to parse xml from file " + filename + " ...");
 		this.theSource = filename;
 		parse(new InputSource(IOUtils.getBufferedReader(filename)));
 	}
 
 	@Override
-	public final void readURL( final URL url ) throws UncheckedIOException {
+	public void readURL( final URL url ) throws UncheckedIOException {
 		parse( url ) ;
 	}
 
@@ -176,6 +251,7 @@ public abstract class MatsimXmlParser extends DefaultHandler implements MatsimRe
 	}
 
 	public final void parse(final InputSource input) throws UncheckedIOException {
+		this.chunkDepth = 0;
 		try {
 			SAXParserFactory factory = SAXParserFactory.newInstance();
 			factory.setValidating(this.isValidating);
@@ -195,8 +271,16 @@ public abstract class MatsimXmlParser extends DefaultHandler implements MatsimRe
 				SAXParser parser = factory.newSAXParser();
 				parser.parse(input, this);
 			}
+			if (this.chunks != null) {
+				this.chunks.flush();
+			}
 		} catch (SAXException | ParserConfigurationException | IOException e) {
 			throw new UncheckedIOException(e);
+		} finally {
+			if (this.chunks != null) {
+				this.chunks.shutdown();
+				this.chunks = null;
+			}
 		}
 	}
 
@@ -343,7 +427,23 @@ public abstract class MatsimXmlParser extends DefaultHandler implements MatsimRe
 
 		String tag = (uri.length() == 0) ? qName : localName;
 		this.buffers.push(new StringBuffer());
-		this.startTag(tag, atts, this.theContext);
+		// more than one thread can only be set for parallel parsers
+		if (this.chunkDepth == 0 && this.numberOfThreads > 1 && ((ParallelParser) this).isChunkElement(tag)) {
+			if (this.chunks == null) {
+				this.chunks = new XmlChunkDispatcher(this, (ParallelParser) this, this.numberOfThreads, this.elementsPerChunk);
+			}
+			((ParallelParser) this).startChunkElement(tag, atts);
+			this.chunkDepth = 1;
+			this.chunks.startTag(tag, atts, this.theContext);
+		} else if (this.chunkDepth > 0) {
+			this.chunkDepth++;
+			this.chunks.startTag(tag, atts, this.theContext);
+		} else {
+			if (this.chunks != null) {
+				this.chunks.flush();
+			}
+			this.startTag(tag, atts, this.theContext);
+		}
 		this.theContext.push(tag);
 	}
 
@@ -354,7 +454,18 @@ public abstract class MatsimXmlParser extends DefaultHandler implements MatsimRe
 		String tag = (uri.length() == 0) ? qName : localName;
 		this.theContext.pop();
 		StringBuffer buffer = this.buffers.pop();
-		this.endTag(tag, buffer.toString(), this.theContext);
+		if (this.chunkDepth > 0) {
+			this.chunks.endTag(tag, buffer.toString());
+			this.chunkDepth--;
+			if (this.chunkDepth == 0) {
+				this.chunks.endChunkElement();
+			}
+		} else {
+			if (this.chunks != null) {
+				this.chunks.flush();
+			}
+			this.endTag(tag, buffer.toString(), this.theContext);
+		}
 	}
 
 	/* implement ErrorHandler */
@@ -0,0 +1,199 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * ParallelGZIPOutputStream.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2020 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.utils.io;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Writes gzip files like {@link java.util.zip.GZIPOutputStream}, but compresses blocks of the data in parallel, in
+ * the same way as <code>pigz</code> does: every block is deflated on its own, with the end of the previous block as
+ * dictionary, and flushed to a byte boundary, so that the compressed blocks can simply be concatenated to a single
+ * deflate stream.  The result is a regular gzip file, which is only marginally larger than a sequentially compressed
+ * one.
+ */
+final class ParallelGZIPOutputStream extends OutputStream {
+
+	private static final int BLOCK_SIZE = 128 * 1024;
+	private static final int DICTIONARY_SIZE = 32 * 1024;
+	private static final byte[] HEADER = { 0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, 0 };
+
+	private final OutputStream out;
+	private final ThreadPoolExecutor executor;
+	private final int maxPending;
+	private final Deque<Future<byte[]>> pending = new ArrayDeque<>();
+	private final CRC32 crc = new CRC32();
+	private long size = 0;
+
+	private byte[] previousBlock = null;
+	private int previousLength = 0;
+	private byte[] block = new byte[BLOCK_SIZE];
+	private int position = 0;
+	private boolean closed = false;
+
+	ParallelGZIPOutputStream(final OutputStream out, final int numberOfThreads) throws IOException {
+		this.out = out;
+		this.executor = new ThreadPoolExecutor(numberOfThreads, numberOfThreads, 1, TimeUnit.SECONDS,
+				new LinkedBlockingQueue<>(), runnable -> {
+					Thread thread = new Thread(runnable, "ParallelGZIPOutputStream");
+					thread.setDaemon(true);
+					return thread;
+				});
+		this.executor.allowCoreThreadTimeOut(true);
+		this.maxPending = 2 * numberOfThreads;
+		this.out.write(HEADER);
+	}
+
+	@Override
+	public void write(final int b) throws IOException {
+		if (this.position == BLOCK_SIZE) {
+			submitBlock(false);
+		}
+		this.block[this.position++] = (byte) b;
+	}
+
+	@Override
+	public void write(final byte[] b, int off, int len) throws IOException {
+		while (len > 0) {
+			if (this.position == BLOCK_SIZE) {
+				submitBlock(false);
+			}
+			int n = Math.min(len, BLOCK_SIZE - this.position);
+			System.arraycopy(b, off, this.block, this.position, n);
+			this.position += n;
+			off += n;
+			len -= n;
+		}
+	}
+
+	private void submitBlock(final boolean last) throws IOException {
+		final byte[] data = this.block;
+		final int length = this.position;
+		final byte[] dictionary = this.previousBlock;
+		final int dictionaryLength = Math.min(this.previousLength, DICTIONARY_SIZE);
+		final int dictionaryOffset = this.previousLength - dictionaryLength;
+		this.crc.update(data, 0, length);
+		this.size += length;
+		this.pending.add(this.executor.submit(() -> deflate(data, length, dictionary, dictionaryOffset, dictionaryLength, last)));
+		while (this.pending.size() > this.maxPending) {
+			writeFirstPending();
+		}
+		// the submitted blocks are never changed again, so they can be used as dictionary for the next one
+		this.previousBlock = data;
+		this.previousLength = length;
+		this.block = new byte[BLOCK_SIZE];
+		this.position = 0;
+	}
+
+	private static byte[] deflate(final byte[] data, final int length, final byte[] dictionary,
+			final int dictionaryOffset, final int dictionaryLength, final boolean last) {
+		Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+		try {
+			// the dictionary has to be the data right before the block, blocks written by flush() may be shorter
+			if (dictionaryLength > 0) {
+				deflater.setDictionary(dictionary, dictionaryOffset, dictionaryLength);
+			}
+			deflater.setInput(data, 0, length);
+			ByteArrayOutputStream result = new ByteArrayOutputStream(length / 2 + 64);
+			byte[] buffer = new byte[16 * 1024];
+			if (last) {
+				deflater.finish();
+				while (!deflater.finished()) {
+					int n = deflater.deflate(buffer);
+					result.write(buffer, 0, n);
+				}
+			} else {
+				// a sync flush ends the block at a byte boundary, without marking it as the last one
+				int n;
+				do {
+					n = deflater.deflate(buffer, 0, buffer.length, Deflater.SYNC_FLUSH);
+					result.write(buffer, 0, n);
+				} while (n == buffer.length);
+			}
+			return result.toByteArray();
+		} finally {
+			deflater.end();
+		}
+	}
+
+	private void writeFirstPending() throws IOException {
+		try {
+			this.out.write(this.pending.removeFirst().get());
+		} catch (InterruptedException e) {
+			throw new InterruptedIOException("compressing was interrupted.");
+		} catch (ExecutionException e) {
+			throw new IOException(e.getCause());
+		}
+	}
+
+	/**
+	 * Compresses the data written so far, also if it does not fill a block, and writes it to the underlying stream
+	 * before flushing it.  Flushing often thus makes the compression worse.
+	 */
+	@Override
+	public void flush() throws IOException {
+		if (this.position > 0) {
+			submitBlock(false);
+		}
+		while (!this.pending.isEmpty()) {
+			writeFirstPending();
+		}
+		this.out.flush();
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (this.closed) {
+			return;
+		}
+		this.closed = true;
+		try {
+			submitBlock(true);
+			while (!this.pending.isEmpty()) {
+				writeFirstPending();
+			}
+			writeInt((int) this.crc.getValue());
+			writeInt((int) this.size);
+		} finally {
+			this.executor.shutdownNow();
+			this.out.close();
+		}
+	}
+
+	private void writeInt(final int value) throws IOException {
+		this.out.write(value & 0xff);
+		this.out.write((value >> 8) & 0xff);
+		this.out.write((value >> 16) & 0xff);
+		this.out.write((value >> 24) & 0xff);
+	}
+
+}
@@ -0,0 +1,167 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * XmlChunkDispatcher.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2020 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.utils.io;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Stack;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.matsim.core.utils.io.MatsimXmlParser.ChunkParser;
+import org.matsim.core.utils.io.MatsimXmlParser.ParallelParser;
+import org.xml.sax.Attributes;
+import org.xml.sax.helpers.AttributesImpl;
+
+/**
+ * Collects the tags of runs of chunk elements (see {@link ParallelParser#isChunkElement(String)}), hands them to
+ * {@link ChunkParser}s on a pool of threads, and finishes the parsed chunks on the parsing thread in the order in
+ * which they were read.
+ */
+final class XmlChunkDispatcher {
+
+	private final MatsimXmlParser parser;
+	private final ParallelParser parallelParser;
+	private final int numberOfThreads;
+	private final int elementsPerChunk;
+	private final ExecutorService executor;
+
+	private final Deque<Chunk> pending = new ArrayDeque<>();
+	private Chunk current = null;
+
+	XmlChunkDispatcher(final MatsimXmlParser parser, final ParallelParser parallelParser, final int numberOfThreads,
+			final int elementsPerChunk) {
+		this.parser = parser;
+		this.parallelParser = parallelParser;
+		this.numberOfThreads = numberOfThreads;
+		this.elementsPerChunk = elementsPerChunk;
+		this.executor = Executors.newFixedThreadPool(numberOfThreads, r -> {
+			Thread thread = new Thread(r, XmlChunkDispatcher.class.getSimpleName());
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	void startTag(final String name, final Attributes atts, final Stack<String> context) {
+		if (this.current == null) {
+			// all elements of a chunk are siblings, so they share the context of the first one
+			this.current = new Chunk(this.parallelParser.createChunkParser(), context);
+		}
+		// the attributes have to be copied because the object is re-used by the parser
+		this.current.tags.add(new Tag(name, new AttributesImpl(atts), null));
+	}
+
+	void endTag(final String name, final String content) {
+		this.current.tags.add(new Tag(name, null, content));
+	}
+
+	void endChunkElement() {
+		this.current.elements++;
+		if (this.current.elements == this.elementsPerChunk) {
+			submit();
+		}
+	}
+
+	/**
+	 * Parses all collected tags and finishes all chunks, so that the parser can go on with the elements that are not
+	 * parsed in parallel.
+	 */
+	void flush() {
+		if (this.current != null) {
+			submit();
+		}
+		while (!this.pending.isEmpty()) {
+			finishOldest();
+		}
+	}
+
+	void shutdown() {
+		this.executor.shutdownNow();
+	}
+
+	private void submit() {
+		Chunk chunk = this.current;
+		this.current = null;
+		chunk.future = this.executor.submit(chunk::parse);
+		this.pending.add(chunk);
+		// keep a few chunks per thread in flight, so the threads stay busy while the parsing thread reads ahead
+		while (this.pending.size() > 2 * this.numberOfThreads || (!this.pending.isEmpty() && this.pending.peek().future.isDone())) {
+			finishOldest();
+		}
+	}
+
+	private void finishOldest() {
+		Chunk chunk = this.pending.poll();
+		try {
+			chunk.future.get();
+		} catch (InterruptedException e) {
+			throw new RuntimeException(e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new RuntimeException(e.getCause());
+		}
+		chunk.parser.finish();
+	}
+
+	private static final class Tag {
+		final String name;
+		final Attributes atts; // null for closing tags
+		final String content;
+
+		Tag(final String name, final Attributes atts, final String content) {
+			this.name = name;
+			this.atts = atts;
+			this.content = content;
+		}
+	}
+
+	private static final class Chunk {
+		final ChunkParser parser;
+		final Stack<String> context = new Stack<>();
+		final List<Tag> tags = new ArrayList<>();
+		int elements = 0;
+		Future<?> future = null;
+
+		Chunk(final ChunkParser parser, final Stack<String> context) {
+			this.parser = parser;
+			this.context.addAll(context);
+		}
+
+		void parse() {
+			for (Tag tag : this.tags) {
+				if (tag.atts != null) {
+					this.parser.startTag(tag.name, tag.atts, this.context);
+					this.context.push(tag.name);
+				} else {
+					this.context.pop();
+					this.parser.endTag(tag.name, tag.content, this.context);
+				}
+			}
+		}
+	}
+
+}
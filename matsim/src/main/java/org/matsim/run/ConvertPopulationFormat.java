@@ -0,0 +1,60 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * ConvertPopulationFormat.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2020 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.run;
+
+import org.matsim.api.core.v01.Scenario;
+import org.matsim.core.config.Config;
+import org.matsim.core.config.ConfigUtils;
+import org.matsim.core.network.io.MatsimNetworkReader;
+import org.matsim.core.population.io.PopulationReader;
+import org.matsim.core.population.io.PopulationWriter;
+import org.matsim.core.scenario.ScenarioUtils;
+
+/**
+ * Converts a plans-file between the xml formats and the binary format.  The format of both files is recognized by
+ * their name, so files ending with ".mpb" are read and written in the binary format, all others in xml (population_v6
+ * when writing).
+ * <p></p>
+ * Usage: <code>ConvertPopulationFormat inputPlansFile outputPlansFile [networkFile]</code>
+ * <p></p>
+ * The network is optional; the xml readers use it to compute missing route distances.
+ */
+public class ConvertPopulationFormat {
+
+	public static void main(final String[] args) {
+		if (args.length < 2 || args.length > 3) {
+			System.out.println("Usage: ConvertPopulationFormat inputPlansFile outputPlansFile [networkFile]");
+			System.out.println("Files ending with .mpb are read and written in the binary format, all others in xml.");
+			System.exit(1);
+		}
+		Config config = ConfigUtils.createConfig();
+		config.global().setNumberOfThreads(Runtime.getRuntime().availableProcessors());
+		Scenario scenario = ScenarioUtils.createScenario(config);
+		if (args.length == 3) {
+			new MatsimNetworkReader(scenario.getNetwork()).readFile(args[2]);
+		}
+		new PopulationReader(scenario).readFile(args[0]);
+		PopulationWriter writer = new PopulationWriter(scenario.getPopulation(), scenario.getNetwork());
+		writer.setNumberOfThreads(config.global().getNumberOfThreads());
+		writer.write(args[1]);
+	}
+
+}
@@ -0,0 +1,100 @@
+package org.matsim.api.core.v01;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.matsim.api.core.v01.population.Person;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public class IdDoubleMapTest {
+
+	@Test
+	public void testPutGetRemoveSize() {
+		IdDoubleMap<Person> map = new IdDoubleMap<>(Person.class, 10);
+
+		Assert.assertEquals(0, map.size());
+		Assert.assertTrue(map.isEmpty());
+
+		Assert.assertTrue(Double.isNaN(map.put(Id.create(1, Person.class), 1.0)));
+		Assert.assertEquals(1, map.size());
+		Assert.assertFalse(map.isEmpty());
+
+		Assert.assertTrue(Double.isNaN(map.put(Id.create(2, Person.class), 2.0)));
+		Assert.assertEquals(2, map.size());
+
+		Assert.assertEquals(1.0, map.put(Id.create(1, Person.class), 1.5), 0.0);
+		Assert.assertEquals(2, map.size());
+
+		Assert.assertTrue(Double.isNaN(map.put(Id.create(3, Person.class), 0.0)));
+		Assert.assertEquals(3, map.size());
+
+		Assert.assertEquals(1.5, map.get(Id.create(1, Person.class)), 0.0);
+		Assert.assertEquals(2.0, map.get(Id.create(2, Person.class)), 0.0);
+		Assert.assertEquals(0.0, map.get(Id.create(3, Person.class)), 0.0);
+		Assert.assertTrue(Double.isNaN(map.get(Id.create(4, Person.class))));
+		Assert.assertEquals(-1.0, map.getOrDefault(Id.create(4, Person.class), -1.0), 0.0);
+		Assert.assertEquals(0.0, map.getOrDefault(Id.create(3, Person.class), -1.0), 0.0);
+
+		Assert.assertTrue(map.containsKey(Id.create(3, Person.class)));
+		Assert.assertFalse(map.containsKey(Id.create(4, Person.class)));
+
+		Assert.assertEquals(2.0, map.remove(Id.create(2, Person.class)), 0.0);
+		Assert.assertEquals(2, map.size());
+		Assert.assertFalse(map.containsKey(Id.create(2, Person.class)));
+		Assert.assertTrue(Double.isNaN(map.remove(Id.create(2, Person.class))));
+		Assert.assertEquals(2, map.size());
+
+		map.clear();
+		Assert.assertEquals(0, map.size());
+		Assert.assertFalse(map.containsKey(Id.create(1, Person.class)));
+		Assert.assertTrue(Double.isNaN(map.get(Id.create(1, Person.class))));
+	}
+
+	@Test
+	public void testAdd() {
+		IdDoubleMap<Person> map = new IdDoubleMap<>(Person.class, 10);
+		Id<Person> id1 = Id.create(1, Person.class);
+
+		Assert.assertEquals(2.5, map.add(id1, 2.5), 0.0);
+		Assert.assertEquals(4.0, map.add(id1, 1.5), 0.0);
+		Assert.assertEquals(4.0, map.get(id1), 0.0);
+		Assert.assertEquals(1, map.size());
+	}
+
+	@Test
+	public void testGrowing_withNoEntryValue() {
+		IdDoubleMap<Person> map = new IdDoubleMap<>(Person.class, 1, -1.0);
+		for (int i = 0; i < 500; i++) {
+			map.put(Id.create("grow" + i, Person.class), i);
+		}
+		Assert.assertEquals(500, map.size());
+		for (int i = 0; i < 500; i++) {
+			Assert.assertEquals(i, map.get(Id.create("grow" + i, Person.class)), 0.0);
+		}
+		Assert.assertEquals(-1.0, map.get(Id.create("grow-missing", Person.class)), 0.0);
+	}
+
+	@Test
+	public void testForEachAndKeySet() {
+		IdDoubleMap<Person> map = new IdDoubleMap<>(Person.class, 10);
+		Id<Person> id1 = Id.create(1, Person.class);
+		Id<Person> id2 = Id.create(2, Person.class);
+		Id<Person> id3 = Id.create(3, Person.class);
+		map.put(id1, 1.0);
+		map.put(id3, 3.0);
+
+		Map<Id<Person>, Double> values = new HashMap<>();
+		map.forEach(values::put);
+		Assert.assertEquals(2, values.size());
+		Assert.assertEquals(1.0, values.get(id1), 0.0);
+		Assert.assertEquals(3.0, values.get(id3), 0.0);
+
+		IdSet<Person> keys = map.keySet();
+		Assert.assertEquals(2, keys.size());
+		Assert.assertTrue(keys.contains(id1));
+		Assert.assertFalse(keys.contains(id2));
+		Assert.assertTrue(keys.contains(id3));
+	}
+
+}
@@ -0,0 +1,73 @@
+package org.matsim.api.core.v01;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.matsim.api.core.v01.population.Person;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public class IdIntMapTest {
+
+	@Test
+	public void testPutGetRemoveSize() {
+		IdIntMap<Person> map = new IdIntMap<>(Person.class, 10);
+
+		Assert.assertEquals(0, map.size());
+		Assert.assertTrue(map.isEmpty());
+
+		Assert.assertEquals(0, map.put(Id.create(1, Person.class), 1));
+		Assert.assertEquals(1, map.size());
+		Assert.assertFalse(map.isEmpty());
+
+		Assert.assertEquals(0, map.put(Id.create(2, Person.class), 2));
+		Assert.assertEquals(2, map.size());
+
+		Assert.assertEquals(1, map.put(Id.create(1, Person.class), 11));
+		Assert.assertEquals(2, map.size());
+
+		Assert.assertEquals(11, map.get(Id.create(1, Person.class)));
+		Assert.assertEquals(2, map.get(Id.create(2, Person.class)));
+		Assert.assertEquals(0, map.get(Id.create(3, Person.class)));
+		Assert.assertEquals(-1, map.getOrDefault(Id.create(3, Person.class), -1));
+
+		Assert.assertEquals(2, map.remove(Id.create(2, Person.class)));
+		Assert.assertEquals(1, map.size());
+		Assert.assertFalse(map.containsKey(Id.create(2, Person.class)));
+		Assert.assertTrue(map.containsKey(Id.create(1, Person.class)));
+
+		map.clear();
+		Assert.assertTrue(map.isEmpty());
+		Assert.assertFalse(map.containsKey(Id.create(1, Person.class)));
+	}
+
+	@Test
+	public void testAdd_withNoEntryValue() {
+		IdIntMap<Person> map = new IdIntMap<>(Person.class, 1, -1);
+		Id<Person> id1 = Id.create(1, Person.class);
+		Id<Person> id2 = Id.create("add-2", Person.class);
+
+		Assert.assertEquals(-1, map.get(id1));
+		Assert.assertEquals(3, map.add(id1, 3));
+		Assert.assertEquals(5, map.add(id1, 2));
+		Assert.assertEquals(-1, map.get(id2));
+		Assert.assertEquals(7, map.add(id2, 7));
+		Assert.assertEquals(2, map.size());
+	}
+
+	@Test
+	public void testForEach() {
+		IdIntMap<Person> map = new IdIntMap<>(Person.class, 10);
+		Id<Person> id1 = Id.create(1, Person.class);
+		Id<Person> id3 = Id.create(3, Person.class);
+		map.put(id1, 1);
+		map.put(id3, 3);
+
+		Map<Id<Person>, Integer> values = new HashMap<>();
+		map.forEach(values::put);
+		Assert.assertEquals(2, values.size());
+		Assert.assertEquals(1, values.get(id1).intValue());
+		Assert.assertEquals(3, values.get(id3).intValue());
+	}
+
+}
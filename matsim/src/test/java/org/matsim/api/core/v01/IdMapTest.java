@@ -6,7 +6,9 @@ import org.matsim.api.core.v01.population.Person;
 import org.matsim.core.utils.collections.Tuple;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -453,4 +455,70 @@ public class IdMapTest {
 
 	}
 
+	@Test
+	public void testEqualsHashCode() {
+		Id<Person> id1 = Id.create(1, Person.class);
+		Id<Person> id2 = Id.create(2, Person.class);
+
+		IdMap<Person, String> map = new IdMap<>(Person.class, 10);
+		map.put(id1, "one");
+		map.put(id2, "two");
+
+		Map<Id<Person>, String> hashMap = new HashMap<>();
+		hashMap.put(id1, "one");
+		hashMap.put(id2, "two");
+
+		Assert.assertEquals(hashMap, map);
+		Assert.assertEquals(map, hashMap);
+		Assert.assertEquals(hashMap.hashCode(), map.hashCode());
+		Assert.assertEquals(hashMap.keySet(), map.keySet());
+		Assert.assertEquals(map.keySet(), hashMap.keySet());
+		Assert.assertEquals(hashMap.entrySet(), map.entrySet());
+		Assert.assertEquals(hashMap.entrySet().hashCode(), map.entrySet().hashCode());
+
+		hashMap.put(id2, "also-two");
+		Assert.assertNotEquals(hashMap, map);
+		Assert.assertNotEquals(map, hashMap);
+	}
+
+	@Test
+	public void testKeySetIterator_remove() {
+		Id<Person> id1 = Id.create(1, Person.class);
+		Id<Person> id2 = Id.create(2, Person.class);
+
+		IdMap<Person, String> map = new IdMap<>(Person.class, 10);
+		map.put(id1, "one");
+		map.put(id2, "two");
+
+		Iterator<Id<Person>> iter = map.keySet().iterator();
+		Assert.assertEquals(id1, iter.next());
+		iter.remove();
+		Assert.assertEquals(id2, iter.next());
+		Assert.assertFalse(iter.hasNext());
+		try {
+			iter.next();
+			Assert.fail("expected NoSuchElementException");
+		} catch (NoSuchElementException e) {
+			// expected
+		}
+
+		Assert.assertEquals(1, map.size());
+		Assert.assertFalse(map.containsKey(id1));
+		Assert.assertTrue(map.keySet().containsAll(Collections.singleton(id2)));
+		Assert.assertFalse(map.keySet().containsAll(Arrays.asList(id1, id2)));
+	}
+
+	@Test
+	public void testGrowing() {
+		IdMap<Person, String> map = new IdMap<>(Person.class, 1);
+		for (int i = 0; i < 1000; i++) {
+			map.put(Id.create("grow" + i, Person.class), "v" + i);
+		}
+		Assert.assertEquals(1000, map.size());
+		for (int i = 0; i < 1000; i++) {
+			Assert.assertEquals("v" + i, map.get(Id.create("grow" + i, Person.class)));
+		}
+		Assert.assertEquals("fallback", map.getOrDefault(Id.create("grow-missing", Person.class), "fallback"));
+	}
+
 }
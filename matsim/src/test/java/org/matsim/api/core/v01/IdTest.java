@@ -88,7 +88,71 @@ public class IdTest {
 //		} // FIXME temporarily deactivated
 	}
 	
+	@Test
+	public void testIndex_parallelCreation() throws InterruptedException {
+		final int numberOfThreads = 8;
+		final int numberOfIds = 20000;
+		Id.ensureCapacity(TParallel.class, numberOfIds);
+		final Id<TParallel>[][] created = new Id[numberOfThreads][numberOfIds];
+		Thread[] threads = new Thread[numberOfThreads];
+		for (int t = 0; t < numberOfThreads; t++) {
+			final int thread = t;
+			threads[t] = new Thread(() -> {
+				// all threads create the same ids, but in different order
+				for (int i = 0; i < numberOfIds; i++) {
+					int key = (i * (thread + 1)) % numberOfIds;
+					created[thread][key] = Id.create(key, TParallel.class);
+				}
+			});
+		}
+		for (Thread thread : threads) thread.start();
+		for (Thread thread : threads) thread.join();
+
+		Assert.assertEquals(numberOfIds, Id.getNumberOfIds(TParallel.class));
+		boolean[] seenIndex = new boolean[numberOfIds];
+		for (int i = 0; i < numberOfIds; i++) {
+			Id<TParallel> id = created[0][i];
+			for (int t = 1; t < numberOfThreads; t++) {
+				if (created[t][i] != null) {
+					Assert.assertSame(id, created[t][i]);
+				}
+			}
+			Assert.assertFalse("index assigned twice: " + id.index(), seenIndex[id.index()]);
+			seenIndex[id.index()] = true;
+			Assert.assertSame(id, Id.get(id.index(), TParallel.class));
+			Assert.assertSame(id, Id.get(Integer.toString(i), TParallel.class));
+		}
+	}
+
+	@Test
+	public void testEnsureCapacity() {
+		Id.ensureCapacity(TCapacity.class, 5000);
+		Assert.assertEquals(0, Id.getNumberOfIds(TCapacity.class));
+		for (int i = 0; i < 6000; i++) {
+			Id<TCapacity> id = Id.create(i, TCapacity.class);
+			Assert.assertEquals(i, id.index());
+			Assert.assertSame(id, Id.get(i, TCapacity.class));
+		}
+		// reserving less space than is used does not lose any ids
+		Id.ensureCapacity(TCapacity.class, 10);
+		Assert.assertEquals(6000, Id.getNumberOfIds(TCapacity.class));
+		Assert.assertEquals("5999", Id.get(5999, TCapacity.class).toString());
+	}
+
+	@Test
+	public void testGet_unknown() {
+		Id<TLink> linkId1 = Id.create("1", TLink.class);
+		Assert.assertSame(linkId1, Id.get(linkId1.index(), TLink.class));
+		Assert.assertNull(Id.get(Id.getNumberOfIds(TLink.class), TLink.class));
+		Assert.assertNull(Id.get("unknown", TLink.class));
+		Assert.assertNull(Id.get(0, TUnused.class));
+		Assert.assertEquals(0, Id.getNumberOfIds(TUnused.class));
+	}
+
 	private static class TLink {}
 	private static class TNode {}
+	private static class TParallel {}
+	private static class TCapacity {}
+	private static class TUnused {}
 	
 }
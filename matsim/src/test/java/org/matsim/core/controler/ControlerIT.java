@@ -525,6 +525,34 @@ public class ControlerIT {
 		assertTrue(outputPlans.exists());
 	}
 
+	@Test
+	public void testCompressionThreadsOnlySetDuringRun() {
+		final Config config = utils.loadConfig(IOUtils.extendUrl(ExamplesUtils.getTestScenarioURL("equil"), "config_plans1.xml"));
+		config.controler().setLastIteration(0);
+		config.controler().setCompressionThreads(2);
+		config.controler().setCreateGraphs(false);
+
+		final Controler controler = new Controler(config);
+		final int[] compressionThreadsDuringRun = new int[1];
+		controler.addOverridingModule(new AbstractModule() {
+			@Override
+			public void install() {
+				bindMobsim().toProvider(new Provider<Mobsim>() {
+					@Override
+					public Mobsim get() {
+						compressionThreadsDuringRun[0] = IOUtils.getCompressionThreads();
+						return new FakeMobsim();
+					}
+				});
+			}
+		});
+		controler.run();
+
+		assertEquals(2, compressionThreadsDuringRun[0]);
+		assertEquals(1, IOUtils.getCompressionThreads());
+		assertTrue(new File(controler.getControlerIO().getOutputFilename(Controler.DefaultFiles.events)).exists());
+	}
+
 	/**
 	 * @author mrieser
 	 */
@@ -705,6 +733,40 @@ public class ControlerIT {
 		assertTrue(new File(controler.getControlerIO().getIterationFilename(0, Controler.DefaultFiles.events)).exists());
 	}
 
+	@Test
+	public void testSetWriteEventsBinary() {
+		final Config config = utils.loadConfig(IOUtils.extendUrl(ExamplesUtils.getTestScenarioURL("equil"), "config_plans1.xml"));
+		config.controler().setLastIteration(0);
+		config.controler().setWritePlansInterval(0);
+		config.controler().setWriteEventsInterval(1);
+		config.controler().setEventsFileFormats(EnumSet.of(EventsFileFormat.binary));
+		config.controler().setCreateGraphs(false);
+
+		final Controler controler = new Controler(config);
+		controler.addOverridingModule(new AbstractModule() {
+			@Override
+			public void install() {
+				bindMobsim().toProvider(new Provider<Mobsim>() {
+					@Override
+					public Mobsim get() {
+						return new FakeMobsim();
+					}
+				});
+			}
+		});
+		controler.run();
+
+		File iterationEvents = new File(controler.getControlerIO().getIterationFilename(0, Controler.DefaultFiles.eventsBinary, null));
+		assertTrue(iterationEvents.getName().endsWith("0.events.meb"));
+		assertTrue(iterationEvents.exists());
+		assertFalse(new File(controler.getControlerIO().getIterationFilename(0, Controler.DefaultFiles.events)).exists());
+
+		File outputEvents = new File(controler.getControlerIO().getOutputFilename(Controler.DefaultFiles.eventsBinary, null));
+		assertTrue(outputEvents.getName().endsWith("output_events.meb"));
+		assertTrue(outputEvents.exists());
+		assertFalse(new File(controler.getControlerIO().getOutputFilename(Controler.DefaultFiles.events)).exists());
+	}
+
 	/**
 	 * @author mrieser
 	 */
@@ -63,6 +63,35 @@ public class EventsManagerImplTest {
 		}
 	}
 
+	@Test
+	public void testProcessEvent_HandlerCallModes() {
+		for (EventsManagerImpl.HandlerCallMode mode : EventsManagerImpl.HandlerCallMode.values()) {
+			EventsManager manager = new EventsManagerImpl(mode);
+			CountingMyEventHandler handler = new CountingMyEventHandler();
+			manager.addHandler(handler);
+			manager.processEvent(new MyEvent(123.45));
+			manager.processEvent(new MyEvent(234.56));
+			Assert.assertEquals("EventHandler was not called in mode " + mode, 2, handler.counter);
+		}
+	}
+
+	@Test
+	public void testProcessEvent_ExceptionInEventHandler_HandlerCallModes() {
+		for (EventsManagerImpl.HandlerCallMode mode : EventsManagerImpl.HandlerCallMode.values()) {
+			EventsManager manager = new EventsManagerImpl(mode);
+			CrashingMyEventHandler handler = new CrashingMyEventHandler();
+			manager.addHandler(handler);
+			try {
+				manager.processEvent(new MyEvent(123.45));
+				Assert.fail("expected exception in mode " + mode + ", but got none.");
+			} catch (final RuntimeException e) {
+				log.info("Catched expected exception.", e);
+				Assert.assertEquals(1, handler.counter);
+				Assert.assertTrue(e.getCause() instanceof ArithmeticException);
+			}
+		}
+	}
+
 	/*package*/ static class MyEvent extends Event {
 		public MyEvent(final double time) {
 			super(time);
@@ -151,4 +151,15 @@ public class EventsReadersTest extends MatsimTestCase {
 		reader.readFile(getClassInputDirectory() + "events.xml");
 		assertEquals("number of read events", 8, handler.eventCounter);
 	}
-}
\ No newline at end of file
+
+	public final void testAutoFormatReaderXmlInParallel() {
+		EventsManager events = EventsUtils.createEventsManager();
+		TestHandler handler = new TestHandler();
+		events.addHandler(handler);
+		MatsimEventsReader reader = new MatsimEventsReader(events);
+		reader.setNumberOfThreads(3);
+		reader.readFile(getClassInputDirectory() + "events.xml");
+		// the handler checks that the events arrive in the order of the file
+		assertEquals("number of read events", 8, handler.eventCounter);
+	}
+}
@@ -0,0 +1,134 @@
+
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * SimStepRingBufferEventsManagerImplTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2020 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.events;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.events.LinkEnterEvent;
+import org.matsim.api.core.v01.events.LinkLeaveEvent;
+import org.matsim.api.core.v01.events.PersonStuckEvent;
+import org.matsim.api.core.v01.events.handler.LinkEnterEventHandler;
+import org.matsim.testcases.utils.EventsCollector;
+
+import static org.hamcrest.collection.IsIterableContainingInOrder.contains;
+import static org.junit.Assert.assertThat;
+
+public class SimStepRingBufferEventsManagerImplTest {
+
+	@Test
+	public void testEventHandlerCanProduceAdditionalEventLateInSimStep() {
+		final SimStepRingBufferEventsManagerImpl events = new SimStepRingBufferEventsManagerImpl(8, 1024);
+		events.addHandler(new LinkEnterEventHandler() {
+			@Override
+			public void handleEvent(LinkEnterEvent event) {
+				try {
+					Thread.sleep(10);
+				} catch (InterruptedException e) {
+					e.printStackTrace();
+				}
+				events.processEvent(new PersonStuckEvent(event.getTime(), Id.createPersonId(0), Id.createLinkId(0), "car"));
+			}
+
+			@Override
+			public void reset(int iteration) {}
+		});
+		EventsCollector collector = new EventsCollector();
+		events.addHandler(collector);
+		events.initProcessing();
+		events.processEvent(new LinkEnterEvent(0.0, Id.createVehicleId(0), Id.createLinkId(0)));
+		events.processEvent(new LinkLeaveEvent(0.0, Id.createVehicleId(0), Id.createLinkId(0)));
+		events.afterSimStep(0.0);
+		events.processEvent(new LinkEnterEvent(1.0, Id.createVehicleId(0), Id.createLinkId(0)));
+		events.processEvent(new LinkLeaveEvent(1.0, Id.createVehicleId(0), Id.createLinkId(0)));
+		events.afterSimStep(1.0);
+		events.finishProcessing();
+
+		assertThat(collector.getEvents(),
+			contains(
+					new LinkEnterEvent(0.0, Id.createVehicleId(0), Id.createLinkId(0)),
+					new LinkLeaveEvent(0.0, Id.createVehicleId(0), Id.createLinkId(0)),
+					new PersonStuckEvent(0.0, Id.createPersonId(0), Id.createLinkId(0), "car"),
+					new LinkEnterEvent(1.0, Id.createVehicleId(0), Id.createLinkId(0)),
+					new LinkLeaveEvent(1.0, Id.createVehicleId(0), Id.createLinkId(0)),
+					new PersonStuckEvent(1.0, Id.createPersonId(0), Id.createLinkId(0), "car")));
+	}
+
+	@Test
+	public void testAllEventsOfSimStepProcessed_withFullBuffer() {
+		final SimStepRingBufferEventsManagerImpl events = new SimStepRingBufferEventsManagerImpl(2, 16);
+		CountingLinkEnterEventHandler handler1 = new CountingLinkEnterEventHandler();
+		CountingLinkEnterEventHandler handler2 = new CountingLinkEnterEventHandler();
+		events.addHandler(handler1);
+		events.addHandler(handler2);
+		events.initProcessing();
+		for (int time = 0; time < 10; time++) {
+			for (int i = 0; i < 100; i++) {
+				events.processEvent(new LinkEnterEvent(time, Id.createVehicleId(i), Id.createLinkId(0)));
+			}
+			events.afterSimStep(time);
+			Assert.assertEquals((time + 1) * 100, handler1.counter);
+			Assert.assertEquals((time + 1) * 100, handler2.counter);
+		}
+		events.finishProcessing();
+		Assert.assertTrue("expected back-pressure with a buffer smaller than the events per sim step.", events.getBackPressureWaits() > 0);
+
+		// after finishProcessing, events are handled directly
+		events.processEvent(new LinkEnterEvent(10, Id.createVehicleId(0), Id.createLinkId(0)));
+		Assert.assertEquals(1001, handler1.counter);
+	}
+
+	@Test
+	public void testExceptionInEventHandler() {
+		final SimStepRingBufferEventsManagerImpl events = new SimStepRingBufferEventsManagerImpl(2, 16);
+		events.addHandler(new LinkEnterEventHandler() {
+			@Override
+			public void handleEvent(LinkEnterEvent event) {
+				throw new IllegalStateException("expected");
+			}
+			@Override
+			public void reset(int iteration) {}
+		});
+		events.initProcessing();
+		events.processEvent(new LinkEnterEvent(0.0, Id.createVehicleId(0), Id.createLinkId(0)));
+		events.afterSimStep(0.0);
+		try {
+			events.finishProcessing();
+			Assert.fail("expected exception, but got none.");
+		} catch (RuntimeException e) {
+			Assert.assertTrue(e.getCause() instanceof IllegalStateException);
+		}
+	}
+
+	private static class CountingLinkEnterEventHandler implements LinkEnterEventHandler {
+		private volatile int counter = 0;
+		@Override
+		public void handleEvent(LinkEnterEvent event) {
+			this.counter++;
+		}
+		@Override
+		public void reset(int iteration) {
+			this.counter = 0;
+		}
+	}
+
+}
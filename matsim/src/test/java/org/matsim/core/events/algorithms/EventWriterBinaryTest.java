@@ -0,0 +1,130 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * EventWriterBinaryTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2020 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.events.algorithms;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.TransportMode;
+import org.matsim.api.core.v01.events.ActivityEndEvent;
+import org.matsim.api.core.v01.events.ActivityStartEvent;
+import org.matsim.api.core.v01.events.Event;
+import org.matsim.api.core.v01.events.GenericEvent;
+import org.matsim.api.core.v01.events.LinkEnterEvent;
+import org.matsim.api.core.v01.events.LinkLeaveEvent;
+import org.matsim.api.core.v01.events.PersonArrivalEvent;
+import org.matsim.api.core.v01.events.PersonDepartureEvent;
+import org.matsim.api.core.v01.events.PersonEntersVehicleEvent;
+import org.matsim.api.core.v01.events.PersonLeavesVehicleEvent;
+import org.matsim.api.core.v01.events.PersonMoneyEvent;
+import org.matsim.api.core.v01.events.VehicleEntersTrafficEvent;
+import org.matsim.api.core.v01.events.VehicleLeavesTrafficEvent;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.events.EventsReaderBinary;
+import org.matsim.core.events.EventsUtils;
+import org.matsim.core.events.MatsimEventsReader;
+import org.matsim.facilities.ActivityFacility;
+import org.matsim.testcases.MatsimTestUtils;
+import org.matsim.testcases.utils.EventsCollector;
+import org.matsim.vehicles.Vehicle;
+
+public class EventWriterBinaryTest {
+
+	@Rule public MatsimTestUtils utils = new MatsimTestUtils();
+
+	@Test
+	public void testAllEventTypes() {
+		Id<Person> person = Id.create("person<1>", Person.class);
+		Id<Link> link = Id.create("link 1", Link.class);
+		Id<Vehicle> vehicle = Id.create("vehicle\"1", Vehicle.class);
+		List<Event> events = new ArrayList<>();
+		events.add(new ActivityEndEvent(21600.0, person, link, Id.create("home", ActivityFacility.class), "home"));
+		events.add(new PersonDepartureEvent(21600.0, person, link, TransportMode.car));
+		events.add(new PersonEntersVehicleEvent(21600.0, person, vehicle));
+		events.add(new VehicleEntersTrafficEvent(21600.0, person, link, vehicle, TransportMode.car, 1.0));
+		events.add(new LinkLeaveEvent(21601.5, vehicle, link));
+		events.add(new LinkEnterEvent(21601.5, vehicle, Id.create("link 2", Link.class)));
+		events.add(new VehicleLeavesTrafficEvent(21700.25, person, link, null, null, 0.5));
+		events.add(new PersonLeavesVehicleEvent(21700.0, person, vehicle));
+		events.add(new PersonArrivalEvent(21700.0, person, link, null));
+		events.add(new ActivityStartEvent(21700.0, person, link, null, "work"));
+		events.add(new PersonMoneyEvent(21800.0, person, -1.25));
+		GenericEvent generic = new GenericEvent("special", 21900.0);
+		generic.getAttributes().put("äöü", "&<\">");
+		events.add(generic);
+
+		String filename = this.utils.getOutputDirectory() + "events.meb";
+		EventWriterBinary writer = new EventWriterBinary(filename);
+		for (Event event : events) {
+			writer.handleEvent(event);
+		}
+		writer.closeFile();
+
+		EventsManager manager = EventsUtils.createEventsManager();
+		EventsCollector collector = new EventsCollector();
+		manager.addHandler(collector);
+		new MatsimEventsReader(manager).readFile(filename);
+
+		Assert.assertEquals(events, collector.getEvents());
+		Assert.assertEquals(PersonMoneyEvent.class, collector.getEvents().get(10).getClass());
+		Assert.assertSame(link, ((LinkLeaveEvent) collector.getEvents().get(4)).getLinkId());
+	}
+
+	@Test
+	public void testTimeWindow() {
+		List<Event> events = new ArrayList<>();
+		for (int i = 0; i < 100000; i++) {
+			// not strictly sorted, as some events are thrown after the mobsim
+			double time = i == 50000 ? 10.0 : i / 2;
+			events.add(new LinkEnterEvent(time, Id.create(i % 100, Vehicle.class), Id.create(i % 1000, Link.class)));
+		}
+
+		String filename = this.utils.getOutputDirectory() + "events.meb";
+		EventWriterBinary writer = new EventWriterBinary(filename);
+		for (Event event : events) {
+			writer.handleEvent(event);
+		}
+		writer.closeFile();
+
+		EventsManager manager = EventsUtils.createEventsManager();
+		EventsCollector collector = new EventsCollector();
+		manager.addHandler(collector);
+		new EventsReaderBinary(manager).readFile(filename);
+		Assert.assertEquals(events, collector.getEvents());
+
+		collector.reset(0);
+		new EventsReaderBinary(manager).readFile(filename, 5.0, 30000.0);
+		List<Event> expected = new ArrayList<>();
+		for (Event event : events) {
+			if (event.getTime() >= 5.0 && event.getTime() < 30000.0) {
+				expected.add(event);
+			}
+		}
+		Assert.assertEquals(expected, collector.getEvents());
+	}
+
+}
@@ -19,7 +19,10 @@
 
 package org.matsim.core.events.algorithms;
 
+import java.io.BufferedReader;
 import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
 
 import org.junit.Assert;
 import org.junit.Rule;
@@ -31,6 +34,7 @@ import org.matsim.api.core.v01.network.Link;
 import org.matsim.core.api.experimental.events.EventsManager;
 import org.matsim.core.events.EventsUtils;
 import org.matsim.core.events.MatsimEventsReader;
+import org.matsim.core.utils.io.IOUtils;
 import org.matsim.testcases.MatsimTestUtils;
 import org.matsim.testcases.utils.EventsCollector;
 import org.matsim.vehicles.Vehicle;
@@ -92,4 +96,61 @@ public class EventWriterXMLTest {
 		
 		Assert.assertEquals("there must be 1 event.", 1, collector.getEvents().size());
 	}
+
+	@Test
+	public void testAsynchronous() throws IOException {
+		String syncFilename = this.utils.getOutputDirectory() + "syncEvents.xml.gz";
+		String asyncFilename = this.utils.getOutputDirectory() + "asyncEvents.xml.gz";
+		EventWriterXML syncWriter = new EventWriterXML(syncFilename);
+		EventWriterXML asyncWriter = new EventWriterXML(asyncFilename, true);
+		// enough events for several blocks
+		for (int i = 0; i < 100000; i++) {
+			LinkLeaveEvent event = new LinkLeaveEvent(i, Id.create("vehicle<" + i % 100, Vehicle.class), Id.create("link" + i % 1000, Link.class));
+			syncWriter.handleEvent(event);
+			asyncWriter.handleEvent(event);
+		}
+		syncWriter.closeFile();
+		asyncWriter.closeFile();
+
+		Assert.assertEquals(readFile(syncFilename), readFile(asyncFilename));
+
+		EventsManager events = EventsUtils.createEventsManager();
+		EventsCollector collector = new EventsCollector();
+		events.addHandler(collector);
+		new MatsimEventsReader(events).readFile(asyncFilename);
+		Assert.assertEquals(100000, collector.getEvents().size());
+	}
+
+	@Test(timeout = 60000)
+	public void testAsynchronous_failingStream() throws IOException {
+		OutputStream failing = new OutputStream() {
+			@Override
+			public void write(int b) {
+				throw new IllegalStateException("cannot write");
+			}
+		};
+		EventWriterXML.BackgroundOutputStream stream = new EventWriterXML.BackgroundOutputStream(failing, "failing");
+		byte[] data = new byte[64 * 1024];
+		try {
+			// more than fits into the blocks, so writing has to wait for the background thread
+			for (int i = 0; i < 1000; i++) {
+				stream.write(data);
+			}
+			Assert.fail("the failure of the background thread should have been reported.");
+		} catch (IOException e) {
+			Assert.assertTrue(e.getCause() instanceof IllegalStateException);
+		}
+	}
+
+	private static String readFile(String filename) throws IOException {
+		StringBuilder content = new StringBuilder();
+		try (BufferedReader reader = IOUtils.getBufferedReader(filename)) {
+			char[] buffer = new char[8192];
+			int n;
+			while ((n = reader.read(buffer)) >= 0) {
+				content.append(buffer, 0, n);
+			}
+		}
+		return content.toString();
+	}
 }
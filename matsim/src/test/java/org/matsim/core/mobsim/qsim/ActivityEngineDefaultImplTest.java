@@ -0,0 +1,159 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * ActivityEngineDefaultImplTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2020 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.mobsim.qsim;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.Scenario;
+import org.matsim.api.core.v01.TransportMode;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.NetworkFactory;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.api.core.v01.population.Activity;
+import org.matsim.api.core.v01.population.Leg;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.api.core.v01.population.Plan;
+import org.matsim.api.core.v01.population.PopulationFactory;
+import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.config.Config;
+import org.matsim.core.config.ConfigUtils;
+import org.matsim.core.controler.PrepareForSimUtils;
+import org.matsim.core.events.EventsUtils;
+import org.matsim.core.events.handler.BasicEventHandler;
+import org.matsim.core.population.routes.NetworkRoute;
+import org.matsim.core.population.routes.RouteUtils;
+import org.matsim.core.scenario.ScenarioUtils;
+
+/**
+ * Checks that ending activities with several threads gives exactly the same events, in the same order, as with one thread.
+ */
+public class ActivityEngineDefaultImplTest {
+
+	@Test
+	public void testParallelActivityEnds() {
+		List<String> reference = run(1, false);
+		Assert.assertFalse(reference.isEmpty());
+		Assert.assertEquals(reference, run(2, false));
+		Assert.assertEquals(reference, run(4, false));
+	}
+
+	@Test
+	public void testParallelActivityEnds_skipIdleTime() {
+		List<String> reference = run(1, true);
+		Assert.assertEquals(reference, run(4, true));
+		Assert.assertEquals(reference, run(1, false));
+	}
+
+	private static List<String> run(int numberOfActivityEngineThreads, boolean skipIdleTime) {
+		Config config = ConfigUtils.createConfig();
+		config.qsim().setNumberOfActivityEngineThreads(numberOfActivityEngineThreads);
+		config.qsim().setSkipIdleTime(skipIdleTime);
+		config.qsim().setEndTime(30 * 3600);
+		Scenario scenario = ScenarioUtils.createScenario(config);
+		createNetwork(scenario.getNetwork());
+		createPopulation(scenario);
+
+		EventsManager events = EventsUtils.createEventsManager();
+		List<String> eventStrings = new ArrayList<>();
+		events.addHandler((BasicEventHandler) event -> eventStrings.add(event.getAttributes().toString()));
+
+		PrepareForSimUtils.createDefaultPrepareForSim(scenario).run();
+		QSim qsim = new QSimBuilder(config).useDefaults().build(scenario, events);
+		qsim.run();
+
+		return eventStrings;
+	}
+
+	/*
+	 * Three links in a row, from west to east and back.
+	 */
+	private static void createNetwork(Network network) {
+		NetworkFactory nf = network.getFactory();
+		for (int i = 0; i < 4; i++) {
+			network.addNode(nf.createNode(Id.createNodeId(i), new Coord(i * 1000, 0)));
+		}
+		for (int i = 0; i < 3; i++) {
+			addLink(network, Id.createLinkId(i + 1), Id.createNodeId(i), Id.createNodeId(i + 1));
+			addLink(network, Id.createLinkId(-(i + 1)), Id.createNodeId(i + 1), Id.createNodeId(i));
+		}
+	}
+
+	private static void addLink(Network network, Id<Link> linkId, Id<Node> fromId, Id<Node> toId) {
+		Link link = network.getFactory().createLink(linkId, network.getNodes().get(fromId), network.getNodes().get(toId));
+		link.setLength(1000.0);
+		link.setFreespeed(10.0);
+		link.setCapacity(600.0);
+		link.setNumberOfLanes(1.0);
+		network.addLink(link);
+	}
+
+	/*
+	 * Agents drive to work in the morning and back home in the afternoon, every third agent walks. Many agents
+	 * end their activities in the same sim step.
+	 */
+	private static void createPopulation(Scenario scenario) {
+		PopulationFactory pf = scenario.getPopulation().getFactory();
+		Id<Link> homeLinkId = Id.createLinkId(1);
+		Id<Link> workLinkId = Id.createLinkId(3);
+		for (int i = 0; i < 1000; i++) {
+			Person person = pf.createPerson(Id.createPersonId(i));
+			Plan plan = pf.createPlan();
+			Activity home = pf.createActivityFromLinkId("h", homeLinkId);
+			home.setCoord(new Coord(500, 0));
+			home.setEndTime(6 * 3600 + (i % 20) * 60 + 0.5);
+			plan.addActivity(home);
+			plan.addLeg(createLeg(pf, i, homeLinkId, Arrays.asList(Id.createLinkId(2)), workLinkId));
+			Activity work = pf.createActivityFromLinkId("w", workLinkId);
+			work.setCoord(new Coord(2500, 0));
+			work.setEndTime(16 * 3600 + (i % 7) * 300);
+			plan.addActivity(work);
+			plan.addLeg(createLeg(pf, i, workLinkId, Arrays.asList(Id.createLinkId(-3), Id.createLinkId(-2)), homeLinkId));
+			Activity home2 = pf.createActivityFromLinkId("h", homeLinkId);
+			home2.setCoord(new Coord(500, 0));
+			plan.addActivity(home2);
+			person.addPlan(plan);
+			scenario.getPopulation().addPerson(person);
+		}
+	}
+
+	private static Leg createLeg(PopulationFactory pf, int i, Id<Link> startLinkId, List<Id<Link>> linkIds, Id<Link> endLinkId) {
+		if (i % 3 == 0) {
+			Leg leg = pf.createLeg(TransportMode.walk);
+			leg.setTravelTime(1234.5);
+			leg.setRoute(RouteUtils.createGenericRouteImpl(startLinkId, endLinkId));
+			leg.getRoute().setDistance(2000.0);
+			leg.getRoute().setTravelTime(1234.5);
+			return leg;
+		}
+		Leg leg = pf.createLeg(TransportMode.car);
+		NetworkRoute route = RouteUtils.createLinkNetworkRouteImpl(startLinkId, linkIds, endLinkId);
+		leg.setRoute(route);
+		return leg;
+	}
+
+}
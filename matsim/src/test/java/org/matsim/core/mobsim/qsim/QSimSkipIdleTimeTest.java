@@ -0,0 +1,236 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * QSimSkipIdleTimeTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2020 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.mobsim.qsim;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.Scenario;
+import org.matsim.api.core.v01.TransportMode;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.NetworkFactory;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.api.core.v01.population.Activity;
+import org.matsim.api.core.v01.population.Leg;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.api.core.v01.population.Plan;
+import org.matsim.api.core.v01.population.PopulationFactory;
+import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.config.Config;
+import org.matsim.core.config.ConfigUtils;
+import org.matsim.core.controler.PrepareForSimUtils;
+import org.matsim.core.events.EventsUtils;
+import org.matsim.core.events.handler.BasicEventHandler;
+import org.matsim.core.mobsim.framework.events.MobsimBeforeSimStepEvent;
+import org.matsim.core.mobsim.framework.listeners.MobsimBeforeSimStepListener;
+import org.matsim.core.mobsim.qsim.interfaces.HasNextRelevantTime;
+import org.matsim.core.mobsim.qsim.interfaces.MobsimEngine;
+import org.matsim.core.network.NetworkChangeEvent;
+import org.matsim.core.network.NetworkUtils;
+import org.matsim.core.population.routes.NetworkRoute;
+import org.matsim.core.population.routes.RouteUtils;
+import org.matsim.core.scenario.ScenarioUtils;
+
+/**
+ * Checks that skipping idle sim steps does not change the result of the simulation.
+ */
+public class QSimSkipIdleTimeTest {
+
+	@Test
+	public void testSameEventsWithFewerSimSteps() {
+		Result reference = run(false, false, false);
+		Result skipping = run(true, false, false);
+
+		Assert.assertFalse(reference.events.isEmpty());
+		Assert.assertEquals(reference.events, skipping.events);
+		Assert.assertTrue("expected most sim steps to be skipped, but simulated " + skipping.simSteps + " of " + reference.simSteps,
+				skipping.simSteps < reference.simSteps / 4);
+	}
+
+	@Test
+	public void testNoSkippingWithUnknownEngine() {
+		Result reference = run(false, true, false);
+		Result skipping = run(true, true, false);
+
+		Assert.assertEquals(reference.events, skipping.events);
+		Assert.assertEquals(reference.simSteps, skipping.simSteps);
+	}
+
+	@Test
+	public void testNoSkippingWithUnknownSimStepListener() {
+		Result reference = run(false, false, true);
+		Result skipping = run(true, false, true);
+
+		Assert.assertEquals(reference.events, skipping.events);
+		Assert.assertEquals(reference.simSteps, skipping.simSteps);
+	}
+
+	private static Result run(boolean skipIdleTime, boolean addUnknownEngine, boolean addUnknownListener) {
+		Config config = ConfigUtils.createConfig();
+		config.qsim().setSkipIdleTime(skipIdleTime);
+		config.qsim().setEndTime(30 * 3600);
+		config.network().setTimeVariantNetwork(true);
+		Scenario scenario = ScenarioUtils.createScenario(config);
+		createNetwork(scenario.getNetwork());
+		createPopulation(scenario);
+
+		// slows the vehicles down on the middle link, long after all of them passed it in the morning
+		NetworkChangeEvent changeEvent = new NetworkChangeEvent(12 * 3600 + 0.5);
+		changeEvent.addLink(scenario.getNetwork().getLinks().get(Id.createLinkId(2)));
+		changeEvent.setFreespeedChange(new NetworkChangeEvent.ChangeValue(NetworkChangeEvent.ChangeType.ABSOLUTE_IN_SI_UNITS, 2.0));
+		NetworkUtils.addNetworkChangeEvent(scenario.getNetwork(), changeEvent);
+
+		EventsManager events = EventsUtils.createEventsManager();
+		List<String> eventStrings = new ArrayList<>();
+		events.addHandler((BasicEventHandler) event -> eventStrings.add(event.getAttributes().toString()));
+
+		PrepareForSimUtils.createDefaultPrepareForSim(scenario).run();
+		QSim qsim = new QSimBuilder(config).useDefaults().build(scenario, events);
+		SimStepCounter simSteps = new SimStepCounter();
+		qsim.addQueueSimulationListeners(simSteps);
+		if (addUnknownListener) {
+			qsim.addQueueSimulationListeners((MobsimBeforeSimStepListener) e -> {
+			});
+		}
+		if (addUnknownEngine) {
+			qsim.addMobsimEngine(new MobsimEngine() {
+				@Override
+				public void doSimStep(double time) {
+				}
+
+				@Override
+				public void onPrepareSim() {
+				}
+
+				@Override
+				public void afterSim() {
+				}
+
+				@Override
+				public void setInternalInterface(InternalInterface internalInterface) {
+				}
+			});
+		}
+		qsim.run();
+
+		return new Result(eventStrings, simSteps.count);
+	}
+
+	/*
+	 * Only observes the sim steps, so it does not need to be notified in any particular one.
+	 */
+	private static class SimStepCounter implements MobsimBeforeSimStepListener, HasNextRelevantTime {
+		private int count = 0;
+
+		@Override
+		public void notifyMobsimBeforeSimStep(MobsimBeforeSimStepEvent e) {
+			this.count++;
+		}
+
+		@Override
+		public double getNextRelevantTime(double now) {
+			return Double.POSITIVE_INFINITY;
+		}
+	}
+
+	/*
+	 * Three links in a row, from west to east and back.
+	 */
+	private static void createNetwork(Network network) {
+		NetworkFactory nf = network.getFactory();
+		for (int i = 0; i < 4; i++) {
+			network.addNode(nf.createNode(Id.createNodeId(i), new Coord(i * 1000, 0)));
+		}
+		for (int i = 0; i < 3; i++) {
+			addLink(network, Id.createLinkId(i + 1), Id.createNodeId(i), Id.createNodeId(i + 1));
+			addLink(network, Id.createLinkId(-(i + 1)), Id.createNodeId(i + 1), Id.createNodeId(i));
+		}
+	}
+
+	private static void addLink(Network network, Id<Link> linkId, Id<Node> fromId, Id<Node> toId) {
+		Link link = network.getFactory().createLink(linkId, network.getNodes().get(fromId), network.getNodes().get(toId));
+		link.setLength(1000.0);
+		link.setFreespeed(10.0);
+		link.setCapacity(600.0);
+		link.setNumberOfLanes(1.0);
+		network.addLink(link);
+	}
+
+	/*
+	 * Agents drive to work in the morning and back home in the afternoon, every third agent walks.
+	 */
+	private static void createPopulation(Scenario scenario) {
+		PopulationFactory pf = scenario.getPopulation().getFactory();
+		Id<Link> homeLinkId = Id.createLinkId(1);
+		Id<Link> workLinkId = Id.createLinkId(3);
+		for (int i = 0; i < 30; i++) {
+			Person person = pf.createPerson(Id.createPersonId(i));
+			Plan plan = pf.createPlan();
+			Activity home = pf.createActivityFromLinkId("h", homeLinkId);
+			home.setCoord(new Coord(500, 0));
+			home.setEndTime(6 * 3600 + i * 120 + 0.5);
+			plan.addActivity(home);
+			plan.addLeg(createLeg(pf, i, homeLinkId, Arrays.asList(Id.createLinkId(2)), workLinkId));
+			Activity work = pf.createActivityFromLinkId("w", workLinkId);
+			work.setCoord(new Coord(2500, 0));
+			work.setEndTime(16 * 3600 + i * 300);
+			plan.addActivity(work);
+			plan.addLeg(createLeg(pf, i, workLinkId, Arrays.asList(Id.createLinkId(-3), Id.createLinkId(-2)), homeLinkId));
+			Activity home2 = pf.createActivityFromLinkId("h", homeLinkId);
+			home2.setCoord(new Coord(500, 0));
+			plan.addActivity(home2);
+			person.addPlan(plan);
+			scenario.getPopulation().addPerson(person);
+		}
+	}
+
+	private static Leg createLeg(PopulationFactory pf, int i, Id<Link> startLinkId, List<Id<Link>> linkIds, Id<Link> endLinkId) {
+		if (i % 3 == 0) {
+			Leg leg = pf.createLeg(TransportMode.walk);
+			leg.setTravelTime(1234.5);
+			leg.setRoute(RouteUtils.createGenericRouteImpl(startLinkId, endLinkId));
+			leg.getRoute().setDistance(2000.0);
+			leg.getRoute().setTravelTime(1234.5);
+			return leg;
+		}
+		Leg leg = pf.createLeg(TransportMode.car);
+		NetworkRoute route = RouteUtils.createLinkNetworkRouteImpl(startLinkId, linkIds, endLinkId);
+		leg.setRoute(route);
+		return leg;
+	}
+
+	private static class Result {
+		final List<String> events;
+		final int simSteps;
+
+		Result(List<String> events, int simSteps) {
+			this.events = events;
+			this.simSteps = simSteps;
+		}
+	}
+
+}
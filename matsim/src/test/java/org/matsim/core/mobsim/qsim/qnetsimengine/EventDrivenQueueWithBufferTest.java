@@ -0,0 +1,193 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * EventDrivenQueueWithBufferTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2020 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.mobsim.qsim.qnetsimengine;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.Scenario;
+import org.matsim.api.core.v01.TransportMode;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.NetworkFactory;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.api.core.v01.population.Activity;
+import org.matsim.api.core.v01.population.Leg;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.api.core.v01.population.Plan;
+import org.matsim.api.core.v01.population.PopulationFactory;
+import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.config.Config;
+import org.matsim.core.config.ConfigUtils;
+import org.matsim.core.config.groups.QSimConfigGroup.RunnerLoadBalancing;
+import org.matsim.core.controler.PrepareForSimUtils;
+import org.matsim.core.events.EventsUtils;
+import org.matsim.core.events.handler.BasicEventHandler;
+import org.matsim.core.mobsim.qsim.QSim;
+import org.matsim.core.mobsim.qsim.QSimBuilder;
+import org.matsim.core.population.routes.NetworkRoute;
+import org.matsim.core.population.routes.RouteUtils;
+import org.matsim.core.scenario.ScenarioUtils;
+
+/**
+ * Checks that simulating the links only when a vehicle can leave them does not change the traffic flow, also when
+ * the links get congested.
+ */
+public class EventDrivenQueueWithBufferTest {
+
+	private static final int GRID_SIZE = 6;
+
+	@Test
+	public void testSameEventsWithFewerLinkSimSteps() {
+		Result reference = run(false, RunnerLoadBalancing.off, false);
+		Result eventDriven = run(true, RunnerLoadBalancing.off, false);
+
+		Assert.assertFalse(reference.events.isEmpty());
+		Assert.assertEquals(reference.events, eventDriven.events);
+		Assert.assertTrue("expected fewer link sim steps, got " + eventDriven.processedElements + " vs. " + reference.processedElements,
+				eventDriven.processedElements < reference.processedElements / 2);
+	}
+
+	@Test
+	public void testWithLoadBalancingAndSkipIdleTime() {
+		Result reference = run(false, RunnerLoadBalancing.off, false);
+		Result eventDriven = run(true, RunnerLoadBalancing.byProcessedElements, true);
+
+		Assert.assertEquals(reference.events, eventDriven.events);
+	}
+
+	private static Result run(boolean useEventDrivenLinks, RunnerLoadBalancing loadBalancing, boolean skipIdleTime) {
+		Config config = ConfigUtils.createConfig();
+		// with more than one thread, every node has a random number generator of its own, so the order in which the nodes are simulated does not matter
+		config.qsim().setNumberOfThreads(2);
+		config.qsim().setUseEventDrivenLinks(useEventDrivenLinks);
+		config.qsim().setRunnerLoadBalancing(loadBalancing);
+		config.qsim().setRunnerLoadBalancingInterval(60.0);
+		config.qsim().setSkipIdleTime(skipIdleTime);
+		config.qsim().setEndTime(12 * 3600);
+		Scenario scenario = ScenarioUtils.createScenario(config);
+		createGrid(scenario.getNetwork());
+		createPopulation(scenario);
+
+		EventsManager events = EventsUtils.createEventsManager();
+		List<String> eventStrings = new ArrayList<>();
+		events.addHandler((BasicEventHandler) event -> eventStrings.add(event.getTime() + " " + event.getAttributes()));
+
+		PrepareForSimUtils.createDefaultPrepareForSim(scenario).run();
+		QSim qsim = new QSimBuilder(config).useDefaults().build(scenario, events);
+		qsim.run();
+
+		QNetsimEngine engine = qsim.getChildInjector().getInstance(QNetsimEngine.class);
+		// the order of the events within a sim step may differ
+		Collections.sort(eventStrings);
+		return new Result(eventStrings, engine.getNumberOfProcessedElements());
+	}
+
+	/*
+	 * A grid with links in both directions. The links in the lowest row have a small capacity.
+	 */
+	private static void createGrid(Network network) {
+		NetworkFactory nf = network.getFactory();
+		for (int x = 0; x < GRID_SIZE; x++) {
+			for (int y = 0; y < GRID_SIZE; y++) {
+				network.addNode(nf.createNode(nodeId(x, y), new Coord(x * 1000, y * 1000)));
+			}
+		}
+		for (int x = 0; x < GRID_SIZE; x++) {
+			for (int y = 0; y < GRID_SIZE; y++) {
+				double capacity = y == 0 ? 100.0 : 1800.0;
+				if (x + 1 < GRID_SIZE) {
+					addLink(network, nodeId(x, y), nodeId(x + 1, y), capacity);
+					addLink(network, nodeId(x + 1, y), nodeId(x, y), capacity);
+				}
+				if (y + 1 < GRID_SIZE) {
+					addLink(network, nodeId(x, y), nodeId(x, y + 1), 1800.0);
+					addLink(network, nodeId(x, y + 1), nodeId(x, y), 1800.0);
+				}
+			}
+		}
+	}
+
+	private static void addLink(Network network, Id<Node> fromId, Id<Node> toId, double capacity) {
+		Node from = network.getNodes().get(fromId);
+		Node to = network.getNodes().get(toId);
+		Link link = network.getFactory().createLink(linkId(fromId, toId), from, to);
+		link.setLength(1000.0);
+		link.setFreespeed(10.0);
+		link.setCapacity(capacity);
+		link.setNumberOfLanes(1.0);
+		network.addLink(link);
+	}
+
+	/*
+	 * Agents drive along the rows from west to east and turn north at the end. The agents in the lowest row get into
+	 * a queue, the others move freely most of the time.
+	 */
+	private static void createPopulation(Scenario scenario) {
+		PopulationFactory pf = scenario.getPopulation().getFactory();
+		for (int i = 0; i < 600; i++) {
+			int row = i % GRID_SIZE == 0 ? 0 : i % (GRID_SIZE - 1);
+			List<Id<Link>> linkIds = new ArrayList<>();
+			for (int x = 0; x + 1 < GRID_SIZE; x++) {
+				linkIds.add(linkId(nodeId(x, row), nodeId(x + 1, row)));
+			}
+			int endRow = row + 1 < GRID_SIZE ? row + 1 : row - 1;
+			linkIds.add(linkId(nodeId(GRID_SIZE - 1, row), nodeId(GRID_SIZE - 1, endRow)));
+
+			Person person = pf.createPerson(Id.createPersonId(i));
+			Plan plan = pf.createPlan();
+			Activity home = pf.createActivityFromLinkId("h", linkIds.get(0));
+			home.setEndTime(6 * 3600 + (i % 300) * 7);
+			plan.addActivity(home);
+			Leg leg = pf.createLeg(TransportMode.car);
+			NetworkRoute route = RouteUtils.createLinkNetworkRouteImpl(linkIds.get(0), linkIds.subList(1, linkIds.size() - 1), linkIds.get(linkIds.size() - 1));
+			leg.setRoute(route);
+			plan.addLeg(leg);
+			plan.addActivity(pf.createActivityFromLinkId("w", linkIds.get(linkIds.size() - 1)));
+			person.addPlan(plan);
+			scenario.getPopulation().addPerson(person);
+		}
+	}
+
+	private static Id<Node> nodeId(int x, int y) {
+		return Id.createNodeId(x + "_" + y);
+	}
+
+	private static Id<Link> linkId(Id<Node> fromId, Id<Node> toId) {
+		return Id.createLinkId(fromId + "-" + toId);
+	}
+
+	private static class Result {
+		final List<String> events;
+		final long processedElements;
+
+		Result(List<String> events, long processedElements) {
+			this.events = events;
+			this.processedElements = processedElements;
+		}
+	}
+
+}
@@ -0,0 +1,235 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * QNetsimEngineLoadBalancingTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2020 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.mobsim.qsim.qnetsimengine;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.Scenario;
+import org.matsim.api.core.v01.TransportMode;
+import org.matsim.api.core.v01.events.handler.LinkLeaveEventHandler;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.NetworkFactory;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.api.core.v01.population.Activity;
+import org.matsim.api.core.v01.population.Leg;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.api.core.v01.population.Plan;
+import org.matsim.api.core.v01.population.PopulationFactory;
+import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.config.Config;
+import org.matsim.core.config.ConfigUtils;
+import org.matsim.core.config.groups.QSimConfigGroup.RunnerBarrier;
+import org.matsim.core.config.groups.QSimConfigGroup.RunnerLoadBalancing;
+import org.matsim.core.config.groups.QSimConfigGroup.RunnerNetworkPartitioning;
+import org.matsim.core.controler.PrepareForSimUtils;
+import org.matsim.core.events.EventsUtils;
+import org.matsim.core.mobsim.qsim.QSim;
+import org.matsim.core.mobsim.qsim.QSimBuilder;
+import org.matsim.core.population.routes.NetworkRoute;
+import org.matsim.core.population.routes.RouteUtils;
+import org.matsim.core.scenario.ScenarioUtils;
+
+/**
+ * Checks that distributing nodes and links differently between the QNetsimEngineRunners, or moving them between the
+ * runners, does not change the traffic flow.
+ */
+public class QNetsimEngineLoadBalancingTest {
+
+	private static final int GRID_SIZE = 8;
+
+	@Test
+	public void testByProcessedElements_withBarriers() {
+		runAndCompare(RunnerLoadBalancing.byProcessedElements, false);
+	}
+
+	@Test
+	public void testByProcessedElements_withThreadpool() {
+		runAndCompare(RunnerLoadBalancing.byProcessedElements, true);
+	}
+
+	@Test
+	public void testByWallTime() {
+		runAndCompare(RunnerLoadBalancing.byWallTime, false);
+	}
+
+	@Test
+	public void testSpaceFillingCurvePartitioning() {
+		Result reference = run(RunnerNetworkPartitioning.roundRobin, RunnerLoadBalancing.off, false);
+		Result partitioned = run(RunnerNetworkPartitioning.spaceFillingCurve, RunnerLoadBalancing.off, false);
+
+		Assert.assertTrue("expected fewer cut links than with round robin, got " + partitioned.cutLinks + " vs. " + reference.cutLinks,
+				partitioned.cutLinks < reference.cutLinks / 2);
+		Assert.assertEquals(reference.linkLeaves, partitioned.linkLeaves);
+
+		Result partitionedAndBalanced = run(RunnerNetworkPartitioning.spaceFillingCurve, RunnerLoadBalancing.byProcessedElements, true);
+		Assert.assertEquals(reference.linkLeaves, partitionedAndBalanced.linkLeaves);
+	}
+
+	@Test
+	public void testSpinThenParkBarrier() {
+		for (boolean usingThreadpool : new boolean[] {false, true}) {
+			Result reference = run(RunnerNetworkPartitioning.roundRobin, RunnerLoadBalancing.off, usingThreadpool);
+			Result spinning = run(RunnerNetworkPartitioning.roundRobin, RunnerLoadBalancing.off, usingThreadpool, RunnerBarrier.spinThenPark);
+			Assert.assertEquals(reference.linkLeaves, spinning.linkLeaves);
+		}
+	}
+
+	private static void runAndCompare(RunnerLoadBalancing loadBalancing, boolean usingThreadpool) {
+		Result reference = run(RunnerNetworkPartitioning.roundRobin, RunnerLoadBalancing.off, usingThreadpool);
+		Result balanced = run(RunnerNetworkPartitioning.roundRobin, loadBalancing, usingThreadpool);
+
+		Assert.assertEquals(0, reference.rebalancedNodes);
+		if (loadBalancing == RunnerLoadBalancing.byProcessedElements) {
+			// with wall time measurements, it is not guaranteed that the runners are imbalanced enough
+			Assert.assertTrue("no nodes were moved between the runners.", balanced.rebalancedNodes > 0);
+		}
+		Assert.assertEquals(4, balanced.utilisations.length);
+		for (double utilisation : balanced.utilisations) {
+			Assert.assertTrue(utilisation >= 0.0 && utilisation <= 1.0);
+		}
+		Assert.assertEquals(reference.linkLeaves.size(), balanced.linkLeaves.size());
+		Assert.assertEquals(reference.linkLeaves, balanced.linkLeaves);
+	}
+
+	private static Result run(RunnerNetworkPartitioning partitioning, RunnerLoadBalancing loadBalancing, boolean usingThreadpool) {
+		return run(partitioning, loadBalancing, usingThreadpool, RunnerBarrier.phaser);
+	}
+
+	private static Result run(RunnerNetworkPartitioning partitioning, RunnerLoadBalancing loadBalancing, boolean usingThreadpool,
+			RunnerBarrier barrier) {
+		Config config = ConfigUtils.createConfig();
+		config.qsim().setRunnerBarrier(barrier);
+		config.qsim().setNumberOfThreads(4);
+		config.qsim().setUsingThreadpool(usingThreadpool);
+		config.qsim().setRunnerNetworkPartitioning(partitioning);
+		config.qsim().setRunnerLoadBalancing(loadBalancing);
+		config.qsim().setRunnerLoadBalancingInterval(60.0);
+		config.qsim().setEndTime(10 * 3600);
+		Scenario scenario = ScenarioUtils.createScenario(config);
+		createGrid(scenario.getNetwork());
+		createPopulation(scenario);
+
+		EventsManager events = EventsUtils.createEventsManager();
+		List<String> linkLeaves = new ArrayList<>();
+		events.addHandler((LinkLeaveEventHandler) event -> linkLeaves.add(event.getTime() + " " + event.getVehicleId() + " " + event.getLinkId()));
+
+		PrepareForSimUtils.createDefaultPrepareForSim(scenario).run();
+		QSim qsim = new QSimBuilder(config).useDefaults().build(scenario, events);
+		qsim.run();
+
+		QNetsimEngine engine = qsim.getChildInjector().getInstance(QNetsimEngine.class);
+		Collections.sort(linkLeaves);
+		return new Result(linkLeaves, engine.getNumberOfCutLinks(), engine.getNumberOfRebalancedNodes(), engine.getRunnerUtilisations());
+	}
+
+	/*
+	 * A grid with links in both directions. Node ids are "x_y", link ids "fromNode-toNode".
+	 */
+	private static void createGrid(Network network) {
+		NetworkFactory nf = network.getFactory();
+		for (int x = 0; x < GRID_SIZE; x++) {
+			for (int y = 0; y < GRID_SIZE; y++) {
+				network.addNode(nf.createNode(nodeId(x, y), new Coord(x * 1000, y * 1000)));
+			}
+		}
+		for (int x = 0; x < GRID_SIZE; x++) {
+			for (int y = 0; y < GRID_SIZE; y++) {
+				if (x + 1 < GRID_SIZE) {
+					addLink(network, nodeId(x, y), nodeId(x + 1, y));
+					addLink(network, nodeId(x + 1, y), nodeId(x, y));
+				}
+				if (y + 1 < GRID_SIZE) {
+					addLink(network, nodeId(x, y), nodeId(x, y + 1));
+					addLink(network, nodeId(x, y + 1), nodeId(x, y));
+				}
+			}
+		}
+	}
+
+	private static void addLink(Network network, Id<Node> fromId, Id<Node> toId) {
+		Node from = network.getNodes().get(fromId);
+		Node to = network.getNodes().get(toId);
+		Link link = network.getFactory().createLink(linkId(fromId, toId), from, to);
+		link.setLength(1000.0);
+		link.setFreespeed(10.0);
+		link.setCapacity(600.0);
+		link.setNumberOfLanes(1.0);
+		network.addLink(link);
+	}
+
+	/*
+	 * Agents drive along the rows from west to east. Most of them use the lower rows, so the load is concentrated
+	 * on a part of the network and the runners get imbalanced.
+	 */
+	private static void createPopulation(Scenario scenario) {
+		PopulationFactory pf = scenario.getPopulation().getFactory();
+		for (int i = 0; i < 2000; i++) {
+			int row = (i % 5 == 0) ? (i / 5) % GRID_SIZE : i % 2;
+			List<Id<Link>> linkIds = new ArrayList<>();
+			for (int x = 0; x + 1 < GRID_SIZE; x++) {
+				linkIds.add(linkId(nodeId(x, row), nodeId(x + 1, row)));
+			}
+
+			Person person = pf.createPerson(Id.createPersonId(i));
+			Plan plan = pf.createPlan();
+			Activity home = pf.createActivityFromLinkId("h", linkIds.get(0));
+			home.setEndTime(6 * 3600 + (i % 900) * 2);
+			plan.addActivity(home);
+			Leg leg = pf.createLeg(TransportMode.car);
+			NetworkRoute route = RouteUtils.createLinkNetworkRouteImpl(linkIds.get(0), linkIds.subList(1, linkIds.size() - 1), linkIds.get(linkIds.size() - 1));
+			leg.setRoute(route);
+			plan.addLeg(leg);
+			plan.addActivity(pf.createActivityFromLinkId("w", linkIds.get(linkIds.size() - 1)));
+			person.addPlan(plan);
+			scenario.getPopulation().addPerson(person);
+		}
+	}
+
+	private static Id<Node> nodeId(int x, int y) {
+		return Id.createNodeId(x + "_" + y);
+	}
+
+	private static Id<Link> linkId(Id<Node> fromId, Id<Node> toId) {
+		return Id.createLinkId(fromId + "-" + toId);
+	}
+
+	private static class Result {
+		final List<String> linkLeaves;
+		final int cutLinks;
+		final int rebalancedNodes;
+		final double[] utilisations;
+
+		Result(List<String> linkLeaves, int cutLinks, int rebalancedNodes, double[] utilisations) {
+			this.linkLeaves = linkLeaves;
+			this.cutLinks = cutLinks;
+			this.rebalancedNodes = rebalancedNodes;
+			this.utilisations = utilisations;
+		}
+	}
+
+}
@@ -0,0 +1,109 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * SpaceFillingCurvePartitioningTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2020 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.mobsim.qsim.qnetsimengine;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.core.network.NetworkUtils;
+
+public class SpaceFillingCurvePartitioningTest {
+
+	@Test
+	public void testHilbertIndex_unique() {
+		// the 4x4 cells in the lower left corner are the first 16 positions on the curve
+		Set<Long> indices = new HashSet<>();
+		for (int x = 0; x < 4; x++) {
+			for (int y = 0; y < 4; y++) {
+				long d = SpaceFillingCurvePartitioning.hilbertIndex(x, y);
+				Assert.assertTrue(d >= 0 && d < 16);
+				indices.add(d);
+			}
+		}
+		Assert.assertEquals(16, indices.size());
+	}
+
+	@Test
+	public void testHilbertIndex_neighbours() {
+		// consecutive positions on the curve are neighbouring cells
+		long[][] cells = new long[64][];
+		for (int x = 0; x < 8; x++) {
+			for (int y = 0; y < 8; y++) {
+				cells[(int) SpaceFillingCurvePartitioning.hilbertIndex(x, y)] = new long[] {x, y};
+			}
+		}
+		for (int i = 1; i < cells.length; i++) {
+			long distance = Math.abs(cells[i][0] - cells[i - 1][0]) + Math.abs(cells[i][1] - cells[i - 1][1]);
+			Assert.assertEquals("cells " + (i - 1) + " and " + i + " are not neighbours.", 1, distance);
+		}
+	}
+
+	@Test
+	public void testPartition() {
+		Network network = NetworkUtils.createNetwork();
+		for (int x = 0; x < 10; x++) {
+			for (int y = 0; y < 10; y++) {
+				NetworkUtils.createAndAddNode(network, Id.createNodeId(x + "_" + y), new Coord(x * 100, y * 100));
+			}
+		}
+		List<Node> sorted = SpaceFillingCurvePartitioning.sortNodes(network.getNodes().values());
+		Assert.assertEquals(100, sorted.size());
+
+		int[] parts = SpaceFillingCurvePartitioning.partition(sorted, 4);
+		int[] sizes = new int[4];
+		for (int i = 0; i < parts.length; i++) {
+			sizes[parts[i]]++;
+			if (i > 0) {
+				// every part is a contiguous piece of the curve
+				Assert.assertTrue(parts[i] == parts[i - 1] || parts[i] == parts[i - 1] + 1);
+			}
+		}
+		for (int size : sizes) {
+			Assert.assertEquals(25, size);
+		}
+
+		// the parts should be compact regions, i.e. not span the whole network
+		for (int part = 0; part < 4; part++) {
+			double minX = Double.POSITIVE_INFINITY;
+			double maxX = Double.NEGATIVE_INFINITY;
+			double minY = Double.POSITIVE_INFINITY;
+			double maxY = Double.NEGATIVE_INFINITY;
+			for (int i = 0; i < parts.length; i++) {
+				if (parts[i] == part) {
+					Coord c = sorted.get(i).getCoord();
+					minX = Math.min(minX, c.getX());
+					maxX = Math.max(maxX, c.getX());
+					minY = Math.min(minY, c.getY());
+					maxY = Math.max(maxY, c.getY());
+				}
+			}
+			Assert.assertTrue((maxX - minX) * (maxY - minY) < 0.5 * 900 * 900);
+		}
+	}
+
+}
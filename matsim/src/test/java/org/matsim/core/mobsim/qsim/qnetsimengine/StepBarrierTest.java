@@ -0,0 +1,91 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * StepBarrierTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2020 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.mobsim.qsim.qnetsimengine;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.matsim.core.config.groups.QSimConfigGroup.RunnerBarrier;
+
+public class StepBarrierTest {
+
+	@Test
+	public void testPhaser() throws InterruptedException {
+		runRounds(RunnerBarrier.phaser, 4, 2000);
+	}
+
+	@Test
+	public void testSpinThenPark() throws InterruptedException {
+		runRounds(RunnerBarrier.spinThenPark, 4, 2000);
+	}
+
+	@Test
+	public void testSpinThenPark_moreThreadsThanCores() throws InterruptedException {
+		// forces threads to get parked and woken up again
+		runRounds(RunnerBarrier.spinThenPark, 2 * Runtime.getRuntime().availableProcessors() + 1, 200);
+	}
+
+	@Test
+	public void testSpinThenPark_singleParty() {
+		StepBarrier barrier = StepBarrier.create(RunnerBarrier.spinThenPark, 1);
+		for (int i = 0; i < 10; i++) {
+			barrier.arriveAndAwaitAdvance(); // must not block
+		}
+	}
+
+	/*
+	 * Every thread increments a shared counter in every round. After passing the barrier,
+	 * all threads must see the counter of the completed round.
+	 */
+	private static void runRounds(RunnerBarrier type, int numberOfThreads, int rounds) throws InterruptedException {
+		StepBarrier barrier = StepBarrier.create(type, numberOfThreads);
+		AtomicInteger counter = new AtomicInteger(0);
+		AtomicReference<String> failure = new AtomicReference<>();
+		List<Thread> threads = new ArrayList<>();
+		for (int t = 0; t < numberOfThreads; t++) {
+			Thread thread = new Thread(() -> {
+				for (int round = 1; round <= rounds; round++) {
+					counter.incrementAndGet();
+					barrier.arriveAndAwaitAdvance();
+					int value = counter.get();
+					if (value != round * numberOfThreads) {
+						failure.compareAndSet(null, "round " + round + ": expected " + round * numberOfThreads + " but was " + value);
+					}
+					// make sure nobody increments the counter for the next round before everybody checked it
+					barrier.arriveAndAwaitAdvance();
+				}
+			});
+			thread.start();
+			threads.add(thread);
+		}
+		for (Thread thread : threads) {
+			thread.join(60_000);
+			Assert.assertFalse("thread did not finish, barrier seems to be stuck.", thread.isAlive());
+		}
+		Assert.assertNull(failure.get());
+		Assert.assertEquals(rounds * numberOfThreads, counter.get());
+	}
+
+}
@@ -0,0 +1,285 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * ColumnarPopulationTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2020 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.population;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.Scenario;
+import org.matsim.api.core.v01.TransportMode;
+import org.matsim.api.core.v01.population.Activity;
+import org.matsim.api.core.v01.population.Leg;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.api.core.v01.population.Plan;
+import org.matsim.api.core.v01.population.PlanElement;
+import org.matsim.api.core.v01.population.Population;
+import org.matsim.api.core.v01.population.PopulationFactory;
+import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.config.Config;
+import org.matsim.core.config.ConfigUtils;
+import org.matsim.core.config.groups.PlansConfigGroup.PlanElementStorage;
+import org.matsim.core.controler.PrepareForSimUtils;
+import org.matsim.core.events.EventsUtils;
+import org.matsim.core.events.handler.BasicEventHandler;
+import org.matsim.core.mobsim.qsim.QSimBuilder;
+import org.matsim.core.population.routes.RouteUtils;
+import org.matsim.core.scenario.ScenarioUtils;
+import org.matsim.core.utils.io.IOUtils;
+import org.matsim.core.utils.misc.Time;
+import org.matsim.examples.ExamplesUtils;
+
+public class ColumnarPopulationTest {
+
+	@Test
+	public void testSameEventsAsObjectPopulation() {
+		List<String> reference = runEquil(PlanElementStorage.objects);
+		List<String> columnar = runEquil(PlanElementStorage.columnar);
+
+		Assert.assertFalse(reference.isEmpty());
+		Assert.assertEquals(reference, columnar);
+	}
+
+	private static List<String> runEquil(PlanElementStorage storage) {
+		Config config = ConfigUtils.loadConfig(IOUtils.extendUrl(ExamplesUtils.getTestScenarioURL("equil"), "config.xml"));
+		config.plans().setPlanElementStorage(storage);
+		Scenario scenario = ScenarioUtils.loadScenario(config);
+		for (Person person : scenario.getPopulation().getPersons().values()) {
+			for (PlanElement pe : person.getSelectedPlan().getPlanElements()) {
+				Class<?> expected = storage == PlanElementStorage.columnar ?
+						(pe instanceof Activity ? ColumnarActivity.class : ColumnarLeg.class) :
+						(pe instanceof Activity ? ActivityImpl.class : LegImpl.class);
+				Assert.assertEquals(expected, pe.getClass());
+			}
+		}
+
+		EventsManager events = EventsUtils.createEventsManager();
+		List<String> eventStrings = new ArrayList<>();
+		events.addHandler((BasicEventHandler) event -> eventStrings.add(event.getTime() + " " + event.getAttributes()));
+		PrepareForSimUtils.createDefaultPrepareForSim(scenario).run();
+		new QSimBuilder(config).useDefaults().build(scenario, events).run();
+
+		Collections.sort(eventStrings);
+		return eventStrings;
+	}
+
+	@Test
+	public void testValues() {
+		PopulationFactory pf = createPopulation().getFactory();
+
+		Activity act = pf.createActivityFromLinkId("home", Id.createLinkId("1"));
+		Assert.assertEquals("home", act.getType());
+		Assert.assertEquals(Id.createLinkId("1"), act.getLinkId());
+		Assert.assertNull(act.getCoord());
+		Assert.assertNull(act.getFacilityId());
+		Assert.assertTrue(Time.isUndefinedTime(act.getEndTime()));
+		Assert.assertTrue(Time.isUndefinedTime(act.getStartTime()));
+		Assert.assertTrue(Time.isUndefinedTime(act.getMaximumDuration()));
+
+		act.setCoord(new Coord(1.0, 2.0));
+		Assert.assertEquals(new Coord(1.0, 2.0), act.getCoord());
+		Assert.assertFalse(act.getCoord().hasZ());
+		act.setCoord(new Coord(1.0, 2.0, 3.0));
+		Assert.assertEquals(3.0, act.getCoord().getZ(), 0.0);
+		act.setCoord(new Coord(Double.NaN, Double.NaN));
+		Assert.assertNotNull(act.getCoord());
+		act.setCoord(null);
+		Assert.assertNull(act.getCoord());
+
+		act.setEndTime(8 * 3600);
+		act.getAttributes().putAttribute("a", "b");
+		Assert.assertEquals(8 * 3600, act.getEndTime(), 0.0);
+		Assert.assertEquals("b", act.getAttributes().getAttribute("a"));
+
+		Leg leg = pf.createLeg(TransportMode.car);
+		Assert.assertEquals(TransportMode.car, leg.getMode());
+		Assert.assertNull(leg.getRoute());
+		Assert.assertTrue(Time.isUndefinedTime(leg.getDepartureTime()));
+		leg.setTravelTime(600.0);
+		Assert.assertEquals(600.0, leg.getTravelTime(), 0.0);
+	}
+
+	@Test
+	public void testCopiesStayInStore() {
+		Population population = createPopulation();
+		ColumnarPlanElementStore store = ((ColumnarPopulationFactory) population.getFactory()).getStore();
+		Person person = createPerson(population);
+		Assert.assertEquals(2, store.getNumberOfActivities());
+		Assert.assertEquals(1, store.getNumberOfLegs());
+
+		Plan copy = PersonUtils.createAndAddPlan(person, false);
+		PopulationUtils.copyFromTo(person.getPlans().get(0), copy);
+		Assert.assertEquals(4, store.getNumberOfActivities());
+		Assert.assertEquals(2, store.getNumberOfLegs());
+
+		Activity original = (Activity) person.getPlans().get(0).getPlanElements().get(0);
+		Activity copied = (Activity) copy.getPlanElements().get(0);
+		Assert.assertEquals(ColumnarActivity.class, copied.getClass());
+		Assert.assertNotSame(original, copied);
+		Assert.assertEquals(original.toString(), copied.toString());
+		Assert.assertEquals(5.0, copied.getCoord().getZ(), 0.0);
+		Assert.assertEquals("v", copied.getAttributes().getAttribute("k"));
+
+		Leg copiedLeg = (Leg) copy.getPlanElements().get(1);
+		Leg originalLeg = (Leg) person.getPlans().get(0).getPlanElements().get(1);
+		Assert.assertEquals(ColumnarLeg.class, copiedLeg.getClass());
+		Assert.assertNotSame(originalLeg.getRoute(), copiedLeg.getRoute());
+		Assert.assertEquals(originalLeg.getRoute().getStartLinkId(), copiedLeg.getRoute().getStartLinkId());
+
+		copied.setEndTime(9 * 3600);
+		Assert.assertEquals(7 * 3600, original.getEndTime(), 0.0);
+	}
+
+	@Test
+	public void testRemovePlanReleasesSlots() {
+		Population population = createPopulation();
+		ColumnarPlanElementStore store = ((ColumnarPopulationFactory) population.getFactory()).getStore();
+		Person person = createPerson(population);
+		Plan plan = person.getPlans().get(0);
+		Activity home = (Activity) plan.getPlanElements().get(0);
+		Leg leg = (Leg) plan.getPlanElements().get(1);
+		String homeBefore = home.toString();
+		String legBefore = leg.toString();
+
+		person.removePlan(plan);
+		Assert.assertEquals(0, store.getNumberOfActivities());
+		Assert.assertEquals(0, store.getNumberOfLegs());
+
+		// the removed elements keep their values
+		Assert.assertEquals(homeBefore, home.toString());
+		Assert.assertEquals(legBefore, leg.toString());
+		Assert.assertEquals("v", home.getAttributes().getAttribute("k"));
+
+		// and do not see the values of the elements re-using their slots
+		Person other = createPerson(population);
+		Assert.assertEquals(2, store.getNumberOfActivities());
+		home.setType("other");
+		Assert.assertEquals("other", home.getType());
+		Assert.assertEquals("home", ((Activity) other.getSelectedPlan().getPlanElements().get(0)).getType());
+	}
+
+	@Test
+	public void testRemovedPlanElementsReleaseSlots() {
+		Population population = createPopulation();
+		ColumnarPlanElementStore store = ((ColumnarPopulationFactory) population.getFactory()).getStore();
+		Plan plan = createPerson(population).getSelectedPlan();
+		Leg leg = (Leg) plan.getPlanElements().get(1);
+
+		// as done by TripRouter.insertTrip(...)
+		plan.getPlanElements().subList(1, 2).clear();
+		Assert.assertEquals(0, store.getNumberOfLegs());
+		Assert.assertEquals(TransportMode.car, leg.getMode());
+		Assert.assertNotNull(leg.getRoute());
+
+		plan.getPlanElements().remove(1);
+		Assert.assertEquals(1, store.getNumberOfActivities());
+		plan.getPlanElements().set(0, population.getFactory().createActivityFromLinkId("work", Id.createLinkId("1")));
+		Assert.assertEquals(1, store.getNumberOfActivities());
+
+		// as done by PopulationUtils.copyFromTo(...)
+		Plan copy = createPerson(population).getSelectedPlan();
+		Assert.assertEquals(3, store.getNumberOfActivities());
+		PopulationUtils.copyFromTo(plan, copy);
+		Assert.assertEquals(2, store.getNumberOfActivities());
+		Assert.assertEquals(0, store.getNumberOfLegs());
+	}
+
+	@Test
+	public void testSubListsReleaseSlots() {
+		Population population = createPopulation();
+		ColumnarPlanElementStore store = ((ColumnarPopulationFactory) population.getFactory()).getStore();
+		List<PlanElement> planElements = createPerson(population).getSelectedPlan().getPlanElements();
+
+		planElements.subList(1, 3).set(1, population.getFactory().createActivityFromLinkId("shop", Id.createLinkId("2")));
+		Assert.assertEquals(2, store.getNumberOfActivities());
+		Assert.assertEquals("shop", ((Activity) planElements.get(2)).getType());
+
+		planElements.subList(0, 3).subList(1, 2).removeIf(pe -> pe instanceof Leg);
+		Assert.assertEquals(0, store.getNumberOfLegs());
+		Assert.assertEquals(2, planElements.size());
+
+		planElements.subList(0, 2).replaceAll(pe -> population.getFactory().createActivityFromLinkId("work", Id.createLinkId("1")));
+		Assert.assertEquals(2, store.getNumberOfActivities());
+		Assert.assertEquals("work", ((Activity) planElements.get(1)).getType());
+
+		planElements.subList(0, 1).retainAll(Collections.emptyList());
+		Assert.assertEquals(1, store.getNumberOfActivities());
+		Assert.assertEquals(1, planElements.size());
+	}
+
+	@Test
+	public void testRemovePersonReleasesSlots() {
+		Population population = createPopulation();
+		ColumnarPlanElementStore store = ((ColumnarPopulationFactory) population.getFactory()).getStore();
+		Person person = createPerson(population);
+		createPerson(population);
+
+		population.removePerson(person.getId());
+		Assert.assertEquals(2, store.getNumberOfActivities());
+		Assert.assertEquals(1, store.getNumberOfLegs());
+		Assert.assertEquals("home", ((Activity) person.getSelectedPlan().getPlanElements().get(0)).getType());
+	}
+
+	@Test
+	public void testReadingAttributesDoesNotCreateThem() {
+		Population population = createPopulation();
+		Plan plan = createPerson(population).getSelectedPlan();
+		Activity work = (Activity) plan.getPlanElements().get(2);
+
+		Assert.assertTrue(PopulationUtils.getAttributesForReading(work).isEmpty());
+		Assert.assertNull(((ColumnarActivity) work).getAttributesIfPresent());
+
+		// the empty attributes are not shared
+		PopulationUtils.getAttributesForReading(work).putAttribute("x", "y");
+		Assert.assertTrue(PopulationUtils.getAttributesForReading(work).isEmpty());
+		Assert.assertTrue(PopulationUtils.getAttributesForReading(plan.getPlanElements().get(1)).isEmpty());
+		Assert.assertEquals("v", PopulationUtils.getAttributesForReading(plan.getPlanElements().get(0)).getAttribute("k"));
+	}
+
+	private static Population createPopulation() {
+		Config config = ConfigUtils.createConfig();
+		config.plans().setPlanElementStorage(PlanElementStorage.columnar);
+		return PopulationUtils.createPopulation(config);
+	}
+
+	private static Person createPerson(Population population) {
+		PopulationFactory pf = population.getFactory();
+		Person person = pf.createPerson(Id.createPersonId(population.getPersons().size() + 1));
+		Plan plan = pf.createPlan();
+		Activity home = pf.createActivityFromCoord("home", new Coord(0.0, 0.0, 5.0));
+		home.setLinkId(Id.createLinkId("1"));
+		home.setEndTime(7 * 3600);
+		home.getAttributes().putAttribute("k", "v");
+		plan.addActivity(home);
+		Leg leg = pf.createLeg(TransportMode.car);
+		leg.setRoute(RouteUtils.createLinkNetworkRouteImpl(Id.createLinkId("1"), Id.createLinkId("2")));
+		plan.addLeg(leg);
+		plan.addActivity(pf.createActivityFromLinkId("work", Id.createLinkId("2")));
+		person.addPlan(plan);
+		population.addPerson(person);
+		return person;
+	}
+
+}
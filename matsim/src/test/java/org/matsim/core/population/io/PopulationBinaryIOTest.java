@@ -0,0 +1,234 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * PopulationBinaryIOTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2020 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.population.io;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.Scenario;
+import org.matsim.api.core.v01.TransportMode;
+import org.matsim.api.core.v01.population.Activity;
+import org.matsim.api.core.v01.population.Leg;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.api.core.v01.population.Plan;
+import org.matsim.api.core.v01.population.Population;
+import org.matsim.api.core.v01.population.PopulationFactory;
+import org.matsim.core.config.Config;
+import org.matsim.core.config.ConfigUtils;
+import org.matsim.core.population.PopulationUtils;
+import org.matsim.core.population.routes.NetworkRoute;
+import org.matsim.core.population.routes.RouteUtils;
+import org.matsim.core.scenario.ScenarioUtils;
+import org.matsim.core.utils.geometry.transformations.IdentityTransformation;
+import org.matsim.core.utils.io.IOUtils;
+import org.matsim.examples.ExamplesUtils;
+import org.matsim.facilities.ActivityFacility;
+import org.matsim.testcases.MatsimTestUtils;
+import org.matsim.vehicles.Vehicle;
+
+public class PopulationBinaryIOTest {
+	@Rule
+	public final MatsimTestUtils utils = new MatsimTestUtils();
+
+	@Test
+	public void testEquilRoundTripInChunks() throws IOException {
+		Config config = ConfigUtils.loadConfig(IOUtils.extendUrl(ExamplesUtils.getTestScenarioURL("equil"), "config.xml"));
+		Scenario scenario = ScenarioUtils.loadScenario(config);
+		Population population = scenario.getPopulation();
+
+		// small chunks, so there are many of them
+		String file = utils.getOutputDirectory() + "/population.mpb";
+		PopulationWriterBinary writer = new PopulationWriterBinary(population, new IdentityTransformation(), new HashMap<>(), 3);
+		writer.setPersonsPerChunk(7);
+		writer.write(PopulationUtils.getSortedPersons(population).values(), new FileOutputStream(file));
+
+		Config readConfig = ConfigUtils.createConfig();
+		readConfig.global().setNumberOfThreads(3);
+		Scenario readScenario = ScenarioUtils.createScenario(readConfig);
+		new PopulationReader(readScenario).readFile(file);
+
+		Assert.assertEquals(population.getPersons().size(), readScenario.getPopulation().getPersons().size());
+		Assert.assertEquals(toXml(population), toXml(readScenario.getPopulation()));
+		// the persons keep the order in which they were written
+		Assert.assertArrayEquals(PopulationUtils.getSortedPersons(population).keySet().toArray(), readScenario.getPopulation().getPersons().keySet().toArray());
+	}
+
+	@Test
+	public void testAllValues() {
+		Population population = PopulationUtils.createPopulation(ConfigUtils.createConfig());
+		PopulationFactory pf = population.getFactory();
+		population.setName("test population");
+		population.getAttributes().putAttribute("year", 2020);
+
+		Person person = pf.createPerson(Id.createPersonId("1"));
+		person.getAttributes().putAttribute("age", 42);
+		population.addPerson(person);
+
+		Plan plan = pf.createPlan();
+		plan.setScore(12.5);
+		plan.setType("type");
+		plan.getAttributes().putAttribute("planAttribute", true);
+		person.addPlan(plan);
+		Activity home = pf.createActivityFromCoord("home", new Coord(1.0, 2.0, 3.0));
+		home.setLinkId(Id.createLinkId("1"));
+		home.setFacilityId(Id.create("f1", ActivityFacility.class));
+		home.setEndTime(8 * 3600);
+		home.getAttributes().putAttribute("äöü", "special characters");
+		plan.addActivity(home);
+		Leg car = pf.createLeg(TransportMode.car);
+		car.setDepartureTime(8 * 3600);
+		car.setTravelTime(600);
+		NetworkRoute networkRoute = RouteUtils.createLinkNetworkRouteImpl(Id.createLinkId("1"),
+				Arrays.asList(Id.createLinkId("2"), Id.createLinkId("3")), Id.createLinkId("4"));
+		networkRoute.setVehicleId(Id.create("v1", Vehicle.class));
+		networkRoute.setDistance(3000.0);
+		networkRoute.setTravelTime(600.0);
+		car.setRoute(networkRoute);
+		car.getAttributes().putAttribute("legAttribute", 1.5);
+		plan.addLeg(car);
+		plan.addActivity(pf.createActivityFromLinkId("work", Id.createLinkId("4")));
+		Leg walk = pf.createLeg(TransportMode.walk);
+		walk.setRoute(RouteUtils.createGenericRouteImpl(Id.createLinkId("4"), Id.createLinkId("1")));
+		walk.getRoute().setRouteDescription("some description");
+		plan.addLeg(walk);
+		Activity back = pf.createActivityFromCoord("home", new Coord(1.0, 2.0));
+		back.setStartTime(17 * 3600);
+		back.setMaximumDuration(3600);
+		plan.addActivity(back);
+
+		Plan unscored = pf.createPlan();
+		unscored.addActivity(pf.createActivityFromLinkId("home", Id.createLinkId("1")));
+		person.addPlan(unscored);
+		person.setSelectedPlan(unscored);
+
+		population.addPerson(pf.createPerson(Id.createPersonId("without plans")));
+
+		String file = utils.getOutputDirectory() + "/population.mpb";
+		new PopulationWriter(population).write(file);
+		Scenario readScenario = ScenarioUtils.createScenario(ConfigUtils.createConfig());
+		new PopulationReader(readScenario).readFile(file);
+		Population read = readScenario.getPopulation();
+
+		Assert.assertEquals(toXml(population), toXml(read));
+		Person readPerson = read.getPersons().get(Id.createPersonId("1"));
+		Assert.assertSame(readPerson.getPlans().get(1), readPerson.getSelectedPlan());
+		Assert.assertNull(readPerson.getSelectedPlan().getScore());
+		Activity readHome = (Activity) readPerson.getPlans().get(0).getPlanElements().get(0);
+		Assert.assertEquals(3.0, readHome.getCoord().getZ(), 0.0);
+		Assert.assertEquals(Integer.valueOf(2020), read.getAttributes().getAttribute("year"));
+		NetworkRoute readRoute = (NetworkRoute) ((Leg) readPerson.getPlans().get(0).getPlanElements().get(1)).getRoute();
+		Assert.assertEquals(Id.create("v1", Vehicle.class), readRoute.getVehicleId());
+		Assert.assertEquals(networkRoute.getLinkIds(), readRoute.getLinkIds());
+	}
+
+	@Test
+	public void testStreaming() {
+		Population population = PopulationUtils.createPopulation(ConfigUtils.createConfig());
+		PopulationFactory pf = population.getFactory();
+		for (int i = 0; i < 5000; i++) {
+			Person person = pf.createPerson(Id.createPersonId(i));
+			Plan plan = pf.createPlan();
+			plan.addActivity(pf.createActivityFromLinkId("home", Id.createLinkId(i % 10)));
+			person.addPlan(plan);
+			population.addPerson(person);
+		}
+		String file = utils.getOutputDirectory() + "/population.mpb";
+		new PopulationWriter(population).write(file);
+
+		Scenario scenario = ScenarioUtils.createScenario(ConfigUtils.createConfig());
+		StreamingPopulationReader reader = new StreamingPopulationReader(scenario);
+		List<Id<Person>> ids = new ArrayList<>();
+		reader.addAlgorithm(person -> {
+			// the persons are complete when they are passed on
+			Assert.assertEquals(1, person.getSelectedPlan().getPlanElements().size());
+			ids.add(person.getId());
+		});
+		reader.readFile(file);
+		// the writer sorts the persons by id, and the reader keeps that order
+		Assert.assertEquals(new ArrayList<>(PopulationUtils.getSortedPersons(population).keySet()), ids);
+	}
+
+	@Test
+	public void testIdsListedInIndexInFileOrder() throws IOException {
+		Population population = PopulationUtils.createPopulation(ConfigUtils.createConfig());
+		PopulationFactory pf = population.getFactory();
+		String[][] linkIds = { { "a", "b" }, { "b", "c" }, { "a" } };
+		for (int i = 0; i < linkIds.length; i++) {
+			Person person = pf.createPerson(Id.createPersonId(i));
+			Plan plan = pf.createPlan();
+			for (String linkId : linkIds[i]) {
+				plan.addActivity(pf.createActivityFromLinkId("home", Id.createLinkId("idOrder_" + linkId)));
+			}
+			person.addPlan(plan);
+			population.addPerson(person);
+		}
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		PopulationWriterBinary writer = new PopulationWriterBinary(population, new IdentityTransformation(), new HashMap<>(), 2);
+		writer.setPersonsPerChunk(1);
+		writer.write(PopulationUtils.getSortedPersons(population).values(), bytes);
+
+		byte[] file = bytes.toByteArray();
+		PopulationBinaryFormat.Input trailer = new PopulationBinaryFormat.Input(
+				Arrays.copyOfRange(file, file.length - PopulationBinaryFormat.TRAILER_LENGTH, file.length));
+		PopulationBinaryFormat.Input index = new PopulationBinaryFormat.Input(
+				Arrays.copyOfRange(file, (int) trailer.readLong(), file.length));
+		index.readText();
+		Assert.assertEquals(0, index.readVarInt());
+		Assert.assertEquals(3, index.readVarInt());
+		List<List<String>> listedLinkIds = new ArrayList<>();
+		for (int c = 0; c < 3; c++) {
+			index.readLong();
+			index.readInt();
+			Assert.assertEquals(1, index.readVarInt());
+			Assert.assertEquals(Integer.toString(c), index.readText());
+			List<List<String>> ids = new ArrayList<>();
+			for (int t = 0; t < PopulationBinaryFormat.NUMBER_OF_ID_TYPES; t++) {
+				List<String> idsOfType = new ArrayList<>();
+				for (int n = index.readVarInt(); n > 0; n--) {
+					idsOfType.add(index.readText());
+				}
+				ids.add(idsOfType);
+			}
+			listedLinkIds.add(ids.get(PopulationBinaryFormat.LINK_IDS));
+		}
+		// every id is listed once, with the first chunk it occurs in
+		Assert.assertEquals(Arrays.asList(Arrays.asList("idOrder_a", "idOrder_b"), Arrays.asList("idOrder_c"), Arrays.asList()),
+				listedLinkIds);
+	}
+
+	private static String toXml(Population population) {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		new PopulationWriter(population).writeV6(out);
+		return new String(out.toByteArray(), StandardCharsets.UTF_8);
+	}
+
+}
@@ -321,4 +321,45 @@ public class PopulationV6IOTest {
 
 		Assert.assertEquals(route.getRouteDescription(), ((Leg) scenario.getPopulation().getPersons().get(person1.getId()).getSelectedPlan().getPlanElements().get(1)).getRoute().getRouteDescription());
 	}
+
+	@Test
+	public void testParallelReading() {
+		final Population population = PopulationUtils.createPopulation(ConfigUtils.createConfig() );
+		final PopulationFactory factory = population.getFactory();
+		for ( int i = 0; i < 500; i++ ) {
+			final Person person = factory.createPerson( Id.createPersonId( "parallel " + i ) );
+			person.getAttributes().putAttribute( "number" , i );
+			final Plan plan = factory.createPlan();
+			plan.addActivity( factory.createActivityFromCoord( "home" , new Coord( i , 0 ) ) );
+			plan.addLeg( factory.createLeg( "walk" ) );
+			plan.addActivity( factory.createActivityFromLinkId( "work" , Id.createLinkId( i ) ) );
+			person.addPlan( plan );
+			population.addPerson( person );
+		}
+
+		final String file = utils.getOutputDirectory()+"/population.xml";
+		new PopulationWriter( population ).writeV6( file );
+
+		final Scenario sequentialScenario = ScenarioUtils.createScenario( ConfigUtils.createConfig() );
+		final PopulationReader sequentialReader = new PopulationReader( sequentialScenario );
+		sequentialReader.setNumberOfThreads( 1 );
+		sequentialReader.readFile( file );
+
+		final Scenario parallelScenario = ScenarioUtils.createScenario( ConfigUtils.createConfig() );
+		final PopulationReader parallelReader = new PopulationReader( parallelScenario );
+		parallelReader.setNumberOfThreads( 4 );
+		parallelReader.setElementsPerChunk( 13 );
+		parallelReader.readFile( file );
+
+		Assert.assertArrayEquals( "unexpected order of persons" ,
+				sequentialScenario.getPopulation().getPersons().keySet().toArray() ,
+				parallelScenario.getPopulation().getPersons().keySet().toArray() );
+		Assert.assertEquals( toXml( sequentialScenario.getPopulation() ) , toXml( parallelScenario.getPopulation() ) );
+	}
+
+	private static String toXml( final Population population ) {
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		new PopulationWriter( population ).writeV6( out );
+		return new String( out.toByteArray() );
+	}
 }
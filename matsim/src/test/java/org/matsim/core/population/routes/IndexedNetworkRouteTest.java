@@ -0,0 +1,130 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * IndexedNetworkRouteTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2020 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.population.routes;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.ListIterator;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+
+public class IndexedNetworkRouteTest extends AbstractNetworkRouteTest {
+
+	@Override
+	public NetworkRoute getNetworkRouteInstance(final Id<Link> fromLinkId, final Id<Link> toLinkId, final Network network) {
+		return new IndexedNetworkRouteImpl(fromLinkId, toLinkId);
+	}
+
+	/**
+	 * Tests that the links are decoded correctly, with large and negative differences between the link indices, and
+	 * in any order of access.
+	 */
+	@Test
+	public void testGetLinkIds_anyOrder() {
+		List<Id<Link>> linkIds = new ArrayList<>();
+		for (int i = 0; i < 200; i++) {
+			linkIds.add(Id.createLinkId("indexed_" + ((i * 7919) % 1000)));
+		}
+		// makes sure the indices of the links differ a lot
+		for (int i = 0; i < 1000; i++) {
+			Id.createLinkId("indexed_" + i);
+		}
+		Id<Link> startLinkId = Id.createLinkId("indexed_start");
+		Id<Link> endLinkId = Id.createLinkId("indexed_end");
+		NetworkRoute route = new IndexedNetworkRouteImpl(startLinkId, endLinkId);
+		route.setLinkIds(startLinkId, linkIds, endLinkId);
+
+		List<Id<Link>> routeLinkIds = route.getLinkIds();
+		Assert.assertEquals(linkIds, routeLinkIds);
+		Assert.assertEquals(linkIds.size(), routeLinkIds.size());
+		for (int i = linkIds.size() - 1; i >= 0; i -= 3) {
+			Assert.assertSame(linkIds.get(i), routeLinkIds.get(i));
+		}
+		Assert.assertSame(linkIds.get(17), routeLinkIds.get(17));
+		Assert.assertSame(linkIds.get(17), routeLinkIds.get(17));
+		Assert.assertSame(linkIds.get(18), routeLinkIds.get(18));
+		Assert.assertSame(linkIds.get(0), routeLinkIds.get(0));
+	}
+
+	@Test
+	public void testGetLinkIds_iterateBothDirections() {
+		List<Id<Link>> linkIds = new ArrayList<>();
+		for (int i = 0; i < 100; i++) {
+			// large differences take several bytes, small ones a single byte
+			linkIds.add(Id.createLinkId("iterated_" + ((i * 7919) % 500)));
+		}
+		for (int i = 0; i < 500; i++) {
+			Id.createLinkId("iterated_" + i);
+		}
+		Id<Link> startLinkId = Id.createLinkId("iterated_start");
+		Id<Link> endLinkId = Id.createLinkId("iterated_end");
+		NetworkRoute route = new IndexedNetworkRouteImpl(startLinkId, endLinkId);
+		route.setLinkIds(startLinkId, linkIds, endLinkId);
+
+		ListIterator<Id<Link>> iterator = route.getLinkIds().listIterator(40);
+		Assert.assertEquals(40, iterator.nextIndex());
+		for (int i = 40; i < linkIds.size(); i++) {
+			Assert.assertSame(linkIds.get(i), iterator.next());
+		}
+		Assert.assertFalse(iterator.hasNext());
+		for (int i = linkIds.size() - 1; i >= 0; i--) {
+			Assert.assertSame(linkIds.get(i), iterator.previous());
+		}
+		Assert.assertFalse(iterator.hasPrevious());
+		Assert.assertSame(linkIds.get(0), iterator.next());
+
+		// an iterator keeps the links of the route at the time it was created
+		ListIterator<Id<Link>> old = route.getLinkIds().listIterator();
+		route.setLinkIds(startLinkId, linkIds.subList(0, 1), endLinkId);
+		Assert.assertSame(linkIds.get(0), old.next());
+		Assert.assertSame(linkIds.get(1), old.next());
+		Assert.assertEquals(1, route.getLinkIds().size());
+	}
+
+	@Test
+	public void testClone() {
+		Id<Link> id1 = Id.create(1, Link.class);
+		Id<Link> id2 = Id.create(2, Link.class);
+		Id<Link> id3 = Id.create(3, Link.class);
+		Id<Link> id4 = Id.create(4, Link.class);
+		Id<Link> id5 = Id.create(5, Link.class);
+		NetworkRoute route1 = new IndexedNetworkRouteImpl(id1, id2);
+		List<Id<Link>> srcRoute = new ArrayList<>();
+		srcRoute.add(id3);
+		srcRoute.add(id4);
+		route1.setLinkIds(id1, srcRoute, id2);
+		Assert.assertEquals(2, route1.getLinkIds().size());
+
+		NetworkRoute route2 = (NetworkRoute) route1.clone();
+
+		srcRoute.add(id5);
+		route1.setLinkIds(id1, srcRoute, id2);
+
+		Assert.assertEquals(3, route1.getLinkIds().size());
+		Assert.assertEquals(2, route2.getLinkIds().size());
+		Assert.assertEquals(id4, route2.getLinkIds().get(1));
+	}
+
+}
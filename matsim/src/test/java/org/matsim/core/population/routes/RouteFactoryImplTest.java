@@ -75,6 +75,19 @@ public class RouteFactoryImplTest {
 		Assert.assertEquals(CompressedNetworkRouteImpl.class, pf.getRouteFactories().createRoute(NetworkRoute.class, startLinkId, endLinkId).getClass());
 	}
 
+	@Test
+	public void testConstructor_IndexedNetworkRouteType() {
+		Config config = ConfigUtils.createConfig();
+		config.plans().setNetworkRouteType(PlansConfigGroup.NetworkRouteType.IndexedNetworkRoute);
+		Scenario scenario = ScenarioUtils.createScenario(config);
+		PopulationFactory pf = scenario.getPopulation().getFactory();
+
+		Id<Link> linkId = Id.create(1, Link.class);
+		final Id<Link> startLinkId = linkId;
+		final Id<Link> endLinkId = linkId;
+		Assert.assertEquals(IndexedNetworkRouteImpl.class, pf.getRouteFactories().createRoute(NetworkRoute.class, startLinkId, endLinkId).getClass());
+	}
+
 
 
 }
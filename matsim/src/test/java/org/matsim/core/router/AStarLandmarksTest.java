@@ -20,11 +20,18 @@
 
 package org.matsim.core.router;
 
+import java.io.File;
+
+import org.matsim.api.core.v01.Scenario;
 import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.Node;
 import org.matsim.core.config.groups.PlanCalcScoreConfigGroup;
+import org.matsim.core.network.io.MatsimNetworkReader;
 import org.matsim.core.router.costcalculators.FreespeedTravelTimeAndDisutility;
 import org.matsim.core.router.util.LeastCostPathCalculator;
 import org.matsim.core.router.util.PreProcessLandmarks;
+import org.matsim.core.router.util.PreProcessLandmarks.LandmarksData;
+import org.matsim.core.scenario.ScenarioUtils;
 
 public class AStarLandmarksTest extends AbstractLeastCostPathCalculatorTest {
 
@@ -36,4 +43,45 @@ public class AStarLandmarksTest extends AbstractLeastCostPathCalculatorTest {
 		return new AStarLandmarks(network, preProcessData, travelTimeCostCalculator);
 	}
 
+	public void testCacheDirectory() {
+		Scenario scenario = ScenarioUtils.createScenario(loadConfig(null));
+		Network network = scenario.getNetwork();
+		new MatsimNetworkReader(network).readFile("test/scenarios/equil/network.xml");
+		FreespeedTravelTimeAndDisutility travelTimeCostCalculator = new FreespeedTravelTimeAndDisutility(new PlanCalcScoreConfigGroup());
+		String cacheDirectory = getOutputDirectory() + "landmarks";
+
+		PreProcessLandmarks calculated = new PreProcessLandmarks(travelTimeCostCalculator);
+		calculated.setCacheDirectory(cacheDirectory);
+		calculated.run(network);
+		File[] cacheFiles = new File(cacheDirectory).listFiles();
+		assertEquals(1, cacheFiles.length);
+		long lastModified = cacheFiles[0].lastModified();
+
+		PreProcessLandmarks cached = new PreProcessLandmarks(travelTimeCostCalculator);
+		cached.setCacheDirectory(cacheDirectory);
+		cached.run(network);
+		assertEquals("cache file should be re-used.", lastModified, new File(cacheDirectory).listFiles()[0].lastModified());
+
+		PreProcessLandmarks uncached = new PreProcessLandmarks(travelTimeCostCalculator);
+		uncached.run(network);
+		for (Node node : network.getNodes().values()) {
+			LandmarksData expected = uncached.getNodeData(node);
+			for (PreProcessLandmarks data : new PreProcessLandmarks[] {calculated, cached}) {
+				LandmarksData actual = data.getNodeData(node);
+				for (int i = 0; i < uncached.getLandmarks().length; i++) {
+					assertEquals(expected.getMinLandmarkTravelTime(i), actual.getMinLandmarkTravelTime(i), 0.0);
+					assertEquals(expected.getMaxLandmarkTravelTime(i), actual.getMaxLandmarkTravelTime(i), 0.0);
+				}
+			}
+		}
+
+		// other minimal travel disutilities must not use the same cache file
+		PlanCalcScoreConfigGroup scoring = new PlanCalcScoreConfigGroup();
+		scoring.getModes().get("car").setMarginalUtilityOfTraveling(-12.0);
+		PreProcessLandmarks other = new PreProcessLandmarks(new FreespeedTravelTimeAndDisutility(scoring));
+		other.setCacheDirectory(cacheDirectory);
+		other.run(network);
+		assertEquals(2, new File(cacheDirectory).listFiles().length);
+	}
+
 }
@@ -0,0 +1,173 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * ContractionHierarchyRouterTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2020 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.router;
+
+import java.util.Random;
+
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.core.config.groups.PlanCalcScoreConfigGroup;
+import org.matsim.core.network.NetworkUtils;
+import org.matsim.core.router.costcalculators.FreespeedTravelTimeAndDisutility;
+import org.matsim.core.router.util.LeastCostPathCalculator;
+import org.matsim.core.router.util.LeastCostPathCalculator.Path;
+import org.matsim.core.router.util.TravelDisutility;
+import org.matsim.core.router.util.TravelTime;
+import org.matsim.vehicles.Vehicle;
+
+public class ContractionHierarchyRouterTest extends AbstractLeastCostPathCalculatorTest {
+
+	@Override
+	protected LeastCostPathCalculator getLeastCostPathCalculator(final Network network) {
+		FreespeedTravelTimeAndDisutility travelTimeCostCalculator = new FreespeedTravelTimeAndDisutility(new PlanCalcScoreConfigGroup());
+		return new ContractionHierarchyRouterFactory(900).createPathCalculator(network, travelTimeCostCalculator, travelTimeCostCalculator);
+	}
+
+	public void testSameCostsAsDijkstra() {
+		Random random = new Random(4711);
+		Network network = createGrid(30, random);
+		FreespeedTravelTimeAndDisutility travelTimeCostCalculator = new FreespeedTravelTimeAndDisutility(new PlanCalcScoreConfigGroup());
+		LeastCostPathCalculator dijkstra = new Dijkstra(network, travelTimeCostCalculator, travelTimeCostCalculator);
+		LeastCostPathCalculator router = new ContractionHierarchyRouterFactory(900).createPathCalculator(network, travelTimeCostCalculator, travelTimeCostCalculator);
+
+		Node[] nodes = network.getNodes().values().toArray(new Node[0]);
+		for (int i = 0; i < 500; i++) {
+			Node from = nodes[random.nextInt(nodes.length)];
+			Node to = nodes[random.nextInt(nodes.length)];
+			Path expected = dijkstra.calcLeastCostPath(from, to, 8 * 3600, null, null);
+			Path path = router.calcLeastCostPath(from, to, 8 * 3600, null, null);
+
+			assertEquals(expected.travelCost, path.travelCost, 1e-6);
+			assertEquals(expected.travelTime, path.travelTime, 1e-6);
+			assertEquals(from, path.getFromNode());
+			assertEquals(to, path.getToNode());
+			for (int l = 0; l < path.links.size(); l++) {
+				assertEquals(path.nodes.get(l), path.links.get(l).getFromNode());
+				assertEquals(path.nodes.get(l + 1), path.links.get(l).getToNode());
+			}
+		}
+	}
+
+	public void testCustomizedPerTimeBin() {
+		Network network = createGrid(5, new Random(4711));
+		Node from = network.getNodes().get(Id.create("0_0", Node.class));
+		Node to = network.getNodes().get(Id.create("4_0", Node.class));
+		Link blocked = network.getLinks().get(Id.create("1_0-2_0", Link.class));
+		// the direct way along the edge of the grid is blocked in the morning only
+		TravelTime travelTime = (link, time, person, vehicle) -> link == blocked && time < 12 * 3600 ? 10000.0 : 1.0;
+		TravelDisutility travelDisutility = new TravelDisutility() {
+			@Override
+			public double getLinkTravelDisutility(Link link, double time, Person person, Vehicle vehicle) {
+				return travelTime.getLinkTravelTime(link, time, person, vehicle);
+			}
+			@Override
+			public double getLinkMinimumTravelDisutility(Link link) {
+				return 1.0;
+			}
+		};
+		LeastCostPathCalculator router = new ContractionHierarchyRouterFactory(3600).createPathCalculator(network, travelDisutility, travelTime);
+
+		Path morning = router.calcLeastCostPath(from, to, 8 * 3600, null, null);
+		assertFalse(morning.links.contains(blocked));
+		assertEquals(6.0, morning.travelCost, 1e-9);
+
+		Path afternoon = router.calcLeastCostPath(from, to, 16 * 3600, null, null);
+		assertTrue(afternoon.links.contains(blocked));
+		assertEquals(4.0, afternoon.travelCost, 1e-9);
+	}
+
+	public void testWeightsSharedBetweenRouters() {
+		Network network = createGrid(5, new Random(4711));
+		Node from = network.getNodes().get(Id.create("0_0", Node.class));
+		Node to = network.getNodes().get(Id.create("4_4", Node.class));
+		TravelTime travelTime = (link, time, person, vehicle) -> link.getLength() / link.getFreespeed();
+		int[] calls = new int[1];
+		class CountingTravelDisutility implements TravelDisutility {
+			@Override
+			public double getLinkTravelDisutility(Link link, double time, Person person, Vehicle vehicle) {
+				calls[0]++;
+				return travelTime.getLinkTravelTime(link, time, person, vehicle);
+			}
+			@Override
+			public double getLinkMinimumTravelDisutility(Link link) {
+				return 0.0;
+			}
+		}
+		ContractionHierarchyRouterFactory factory = new ContractionHierarchyRouterFactory(3600);
+		TravelDisutility travelDisutility = new CountingTravelDisutility();
+
+		// the first router customizes the weights with all links
+		Path path = factory.createPathCalculator(network, travelDisutility, travelTime).calcLeastCostPath(from, to, 8 * 3600, null, null);
+		assertTrue(calls[0] > network.getLinks().size());
+
+		// another router with the same travel disutility only evaluates the links of the path
+		calls[0] = 0;
+		factory.createPathCalculator(network, travelDisutility, travelTime).calcLeastCostPath(from, to, 8 * 3600, null, null);
+		assertEquals(path.links.size(), calls[0]);
+
+		// another travel disutility, even of the same type, gets its own weights
+		calls[0] = 0;
+		factory.createPathCalculator(network, new CountingTravelDisutility(), travelTime).calcLeastCostPath(from, to, 8 * 3600, null, null);
+		assertTrue(calls[0] > network.getLinks().size());
+
+		// after a reset, the weights are customized again
+		factory.reset();
+		calls[0] = 0;
+		factory.createPathCalculator(network, travelDisutility, travelTime).calcLeastCostPath(from, to, 8 * 3600, null, null);
+		assertTrue(calls[0] > network.getLinks().size());
+	}
+
+	/**
+	 * Creates a grid of size x size nodes, with links in both directions between neighbours and random speeds.
+	 */
+	private static Network createGrid(final int size, final Random random) {
+		Network network = NetworkUtils.createNetwork();
+		Node[][] nodes = new Node[size][size];
+		for (int x = 0; x < size; x++) {
+			for (int y = 0; y < size; y++) {
+				nodes[x][y] = NetworkUtils.createAndAddNode(network, Id.create(x + "_" + y, Node.class), new Coord(x * 100.0, y * 100.0));
+			}
+		}
+		for (int x = 0; x < size; x++) {
+			for (int y = 0; y < size; y++) {
+				if (x + 1 < size) {
+					addLink(network, nodes[x][y], nodes[x + 1][y], random);
+					addLink(network, nodes[x + 1][y], nodes[x][y], random);
+				}
+				if (y + 1 < size) {
+					addLink(network, nodes[x][y], nodes[x][y + 1], random);
+					addLink(network, nodes[x][y + 1], nodes[x][y], random);
+				}
+			}
+		}
+		return network;
+	}
+
+	private static void addLink(final Network network, final Node from, final Node to, final Random random) {
+		Id<Link> id = Id.create(from.getId() + "-" + to.getId(), Link.class);
+		NetworkUtils.createAndAddLink(network, id, from, to, 100.0, 5.0 + 10.0 * random.nextDouble(), 1000.0, 1.0);
+	}
+
+}
@@ -0,0 +1,91 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * FastRoutersSharedNetworkTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2020 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.router;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.Scenario;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.core.config.ConfigUtils;
+import org.matsim.core.config.groups.PlanCalcScoreConfigGroup;
+import org.matsim.core.network.NetworkUtils;
+import org.matsim.core.network.io.MatsimNetworkReader;
+import org.matsim.core.router.costcalculators.FreespeedTravelTimeAndDisutility;
+import org.matsim.core.router.util.ArrayRoutingNetworkFactory;
+import org.matsim.core.router.util.LeastCostPathCalculator;
+import org.matsim.core.router.util.LeastCostPathCalculator.Path;
+import org.matsim.core.router.util.LeastCostPathCalculatorFactory;
+import org.matsim.core.router.util.RoutingNetwork;
+import org.matsim.core.scenario.ScenarioUtils;
+
+public class FastRoutersSharedNetworkTest {
+
+	/**
+	 * All fast routers use the same routing network, although they keep different preprocessing data.
+	 */
+	@Test
+	public void testRoutersWithDifferentPreprocessing() {
+		Scenario scenario = ScenarioUtils.createScenario(ConfigUtils.createConfig());
+		Network network = scenario.getNetwork();
+		new MatsimNetworkReader(network).readFile("test/scenarios/equil/network.xml");
+		Assert.assertSame(ArrayRoutingNetworkFactory.getSharedRoutingNetwork(network), ArrayRoutingNetworkFactory.getSharedRoutingNetwork(network));
+
+		FreespeedTravelTimeAndDisutility travelTimeCostCalculator = new FreespeedTravelTimeAndDisutility(new PlanCalcScoreConfigGroup());
+		Node from = network.getNodes().get(Id.create("12", Node.class));
+		Node to = network.getNodes().get(Id.create("15", Node.class));
+		Path expected = new Dijkstra(network, travelTimeCostCalculator, travelTimeCostCalculator).calcLeastCostPath(from, to, 8.0 * 3600, null, null);
+
+		List<LeastCostPathCalculatorFactory> factories = Arrays.asList(new FastDijkstraFactory(), new FastDijkstraFactory(true),
+				new FastAStarEuclideanFactory(), new FastAStarLandmarksFactory(1), new FastMultiNodeDijkstraFactory(true));
+		for (LeastCostPathCalculatorFactory factory : factories) {
+			LeastCostPathCalculator router = factory.createPathCalculator(network, travelTimeCostCalculator, travelTimeCostCalculator);
+			Path path = router.calcLeastCostPath(from, to, 8.0 * 3600, null, null);
+			Assert.assertEquals(expected.links, path.links);
+			Assert.assertEquals(expected.nodes, path.nodes);
+			Assert.assertEquals(expected.travelCost, path.travelCost, 1e-9);
+		}
+	}
+
+	@Test
+	public void testNewRoutingNetworkAfterNetworkChange() {
+		Scenario scenario = ScenarioUtils.createScenario(ConfigUtils.createConfig());
+		Network network = scenario.getNetwork();
+		new MatsimNetworkReader(network).readFile("test/scenarios/equil/network.xml");
+		RoutingNetwork routingNetwork = ArrayRoutingNetworkFactory.getSharedRoutingNetwork(network);
+
+		Node node = NetworkUtils.createAndAddNode(network, Id.create("new", Node.class), new Coord(0.0, 0.0));
+		NetworkUtils.createAndAddLink(network, Id.create("new", Link.class), network.getNodes().get(Id.create("1", Node.class)), node,
+				100.0, 10.0, 1000.0, 1.0);
+
+		RoutingNetwork changedRoutingNetwork = ArrayRoutingNetworkFactory.getSharedRoutingNetwork(network);
+		Assert.assertNotSame(routingNetwork, changedRoutingNetwork);
+		Assert.assertTrue(changedRoutingNetwork.getNodes().containsKey(node.getId()));
+		Assert.assertSame(changedRoutingNetwork, ArrayRoutingNetworkFactory.getSharedRoutingNetwork(network));
+	}
+
+}
@@ -37,7 +37,10 @@ import java.net.MalformedURLException;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.nio.charset.Charset;
+import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
 
 /**
  * @author mrieser
@@ -219,6 +222,81 @@ public class IOUtilsTest {
 		Assert.assertTrue("compressed file should be less than 50 bytes, but is " + file.length(), file.length() < 50);
 	}
 	
+	@Test
+	public void testGetBufferedWriter_gzipped_parallel() throws IOException {
+		assertParallelCompression(this.utils.getOutputDirectory() + "test.txt.gz");
+	}
+
+	@Test
+	public void testGetBufferedWriter_zstd_parallel() throws IOException {
+		assertParallelCompression(this.utils.getOutputDirectory() + "test.txt.zstd");
+	}
+
+	@Test
+	public void testGetBufferedWriter_gzipped_parallel_flush() throws IOException, DataFormatException {
+		String filename = this.utils.getOutputDirectory() + "test.txt.gz";
+		URL url = IOUtils.getFileUrl(filename);
+		StringBuilder expected = new StringBuilder();
+		IOUtils.setCompressionThreads(4);
+		try (BufferedWriter writer = IOUtils.getBufferedWriter(url)) {
+			for (int i = 0; i < 50000; i++) {
+				String line = "line " + i + ' ' + (i * 7919 % 1000) + '\n';
+				writer.write(line);
+				expected.append(line);
+				if (i % 7000 == 6999) {
+					writer.flush();
+					// everything written so far is in the file, after the gzip header
+					byte[] compressed = Files.readAllBytes(Paths.get(filename));
+					Inflater inflater = new Inflater(true);
+					inflater.setInput(compressed, 10, compressed.length - 10);
+					byte[] content = new byte[expected.length() + 1];
+					int length = 0;
+					int n;
+					while ((n = inflater.inflate(content, length, content.length - length)) > 0) {
+						length += n;
+					}
+					inflater.end();
+					Assert.assertEquals(expected.toString(), new String(content, 0, length, IOUtils.CHARSET_UTF8));
+				}
+			}
+		} finally {
+			IOUtils.setCompressionThreads(1);
+		}
+
+		StringBuilder content = new StringBuilder();
+		try (BufferedReader reader = IOUtils.getBufferedReader(url)) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				content.append(line).append('\n');
+			}
+		}
+		Assert.assertEquals(expected.toString(), content.toString());
+	}
+
+	private static void assertParallelCompression(String filename) throws IOException {
+		URL url = IOUtils.getFileUrl(filename);
+		StringBuilder expected = new StringBuilder();
+		for (int i = 0; i < 100000; i++) {
+			expected.append("line ").append(i).append(' ').append(i * 7919 % 1000).append('\n');
+		}
+		IOUtils.setCompressionThreads(4);
+		try (BufferedWriter writer = IOUtils.getBufferedWriter(url)) {
+			writer.write(expected.toString());
+		} finally {
+			IOUtils.setCompressionThreads(1);
+		}
+		Assert.assertTrue("file should be compressed, but is " + new File(filename).length() + " bytes", new File(filename).length() < expected.length() / 3);
+
+		StringBuilder content = new StringBuilder();
+		try (BufferedReader reader = IOUtils.getBufferedReader(url)) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				content.append(line).append('\n');
+			}
+		}
+		Assert.assertEquals(expected.toString(), content.toString());
+	}
+
 	@Test(expected = UncheckedIOException.class)
 	public void testGetBufferedWriter_append_lz4() throws IOException {
 		String filename = this.utils.getOutputDirectory() + "test.txt.lz4";
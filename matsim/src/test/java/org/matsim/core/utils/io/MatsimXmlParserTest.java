@@ -20,6 +20,8 @@
 package org.matsim.core.utils.io;
 
 import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Stack;
 
 import org.junit.Assert;
@@ -131,4 +133,93 @@ public class MatsimXmlParserTest {
 		Assert.assertEquals("value+value", parser.lastAttributes.getValue("someAttribute"));
 	}
 
+	@Test
+	public void testParsingChunksInParallel() {
+		StringBuilder str = new StringBuilder("<?xml version='1.0' encoding='UTF-8'?>\n<items>\n");
+		for (int i = 0; i < 1000; i++) {
+			str.append("<item id=\"").append(i).append("\"><value>").append(2 * i).append("</value></item>\n");
+			if (i % 300 == 0) {
+				str.append("<marker id=\"").append(i).append("\"/>\n");
+			}
+		}
+		str.append("</items>");
+
+		ChunkTestParser parser = new ChunkTestParser();
+		parser.setValidating(false);
+		parser.setNumberOfThreads(4);
+		parser.setElementsPerChunk(7);
+		parser.parse(new ByteArrayInputStream(str.toString().getBytes()));
+
+		// the markers are not parsed in parallel, and stay in place
+		Assert.assertEquals(1000 + 4 + 1, parser.results.size());
+		int index = 0;
+		for (int i = 0; i < 1000; i++) {
+			Assert.assertEquals("item " + i + "=" + (2 * i) + " in items", parser.results.get(index++));
+			if (i % 300 == 0) {
+				Assert.assertEquals("marker " + i, parser.results.get(index++));
+			}
+		}
+		Assert.assertEquals("end", parser.results.get(index));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testParsingInParallel_unsupported() {
+		new TestParser().setNumberOfThreads(2);
+	}
+
+	private static class ChunkTestParser extends MatsimXmlParser implements MatsimXmlParser.ParallelParser {
+
+		final List<String> results = new ArrayList<>();
+
+		@Override
+		public void startTag(String name, Attributes atts, Stack<String> context) {
+			if ("marker".equals(name)) {
+				this.results.add("marker " + atts.getValue("id"));
+			}
+		}
+
+		@Override
+		public void endTag(String name, String content, Stack<String> context) {
+			if ("items".equals(name)) {
+				this.results.add("end");
+			}
+		}
+
+		@Override
+		public boolean isChunkElement(String name) {
+			return "item".equals(name);
+		}
+
+		@Override
+		public ChunkParser createChunkParser() {
+			return new ChunkParser() {
+				private final List<String> chunk = new ArrayList<>();
+				private String id = null;
+				private String value = null;
+
+				@Override
+				public void startTag(String name, Attributes atts, Stack<String> context) {
+					if ("item".equals(name)) {
+						this.id = atts.getValue("id");
+					}
+				}
+
+				@Override
+				public void endTag(String name, String content, Stack<String> context) {
+					if ("value".equals(name)) {
+						this.value = content;
+					} else if ("item".equals(name)) {
+						this.chunk.add("item " + this.id + "=" + this.value + " in " + context.peek());
+					}
+				}
+
+				@Override
+				public void finish() {
+					ChunkTestParser.this.results.addAll(this.chunk);
+				}
+			};
+		}
+
+	}
+
 }